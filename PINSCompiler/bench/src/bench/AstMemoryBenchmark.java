@@ -0,0 +1,111 @@
+/**
+ * @Author: turk
+ * @Description: Poraba pomnilnika abstraktnega sintaksnega drevesa.
+ */
+
+package bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import common.Diagnostics;
+import compiler.lexer.Lexer;
+import compiler.lexer.SourceText;
+import compiler.lexer.TokenStream;
+import compiler.parser.Parser;
+import compiler.parser.ast.Ast;
+
+public class AstMemoryBenchmark {
+    /**
+     * Uporaba: `AstMemoryBenchmark [datoteka] [velikost v MB]`.
+     *
+     * Definicije iz datoteke ponavlja, dokler vhod ne doseže želene velikosti,
+     * nato izpiše število bajtov na vozlišče za areno in za drevo z enim
+     * objektom na vozlišče.
+     */
+    public static void main(String[] args) throws Exception {
+        var file = args.length > 0 ? args[0] : "src/source.txt";
+        var megabytes = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        var source = replicate(Files.readString(Paths.get(file)).strip(), megabytes << 20);
+        var tokens = new Lexer(SourceText.of(source), Lexer.Engine.DFA, new Diagnostics()).tokenize();
+
+        System.out.printf("vhod: %s, %.1f MB, %,d simbolov%n",
+                file, source.length() / (double) (1 << 20), tokens.size());
+        for (int i = 0; i < 3; i++) {
+            buildObjects(parse(tokens));
+        }
+
+        long start = allocatedBytes();
+        var ast = parse(tokens);
+        long arena = allocatedBytes() - start;
+
+        start = allocatedBytes();
+        var root = buildObjects(ast);
+        long objects = allocatedBytes() - start;
+
+        System.out.printf("vozlišč:           %,15d%n", ast.size());
+        System.out.printf("arena (tabele):    %15.1f B/vozlišče%n", ast.arenaBytes() / (double) ast.size());
+        System.out.printf("arena (gradnja):   %15.1f B/vozlišče%n", arena / (double) ast.size());
+        System.out.printf("objekt/vozlišče:   %15.1f B/vozlišče%n", objects / (double) ast.size());
+        Reference.reachabilityFence(root);
+    }
+
+    private static Ast parse(TokenStream tokens) {
+        return new Parser(tokens, Optional.empty(), new Diagnostics()).parse().get();
+    }
+
+    /**
+     * Vozlišče drevesa, ki za vsako vozlišče ustvari svoj objekt.
+     */
+    private static final class ObjectNode {
+        final Ast.Kind kind;
+        final int token;
+        final int payload;
+        final List<ObjectNode> children = new ArrayList<>();
+
+        ObjectNode(Ast.Kind kind, int token, int payload) {
+            this.kind = kind;
+            this.token = token;
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * Prepiše areno v drevo objektov. Vrstni red obiska ni pomemben, zato
+     * vozlišča najprej ustvarimo, nato jih povežemo.
+     */
+    private static ObjectNode buildObjects(Ast ast) {
+        var nodes = new ObjectNode[ast.size()];
+        for (int node = 0; node < ast.size(); node++) {
+            nodes[node] = new ObjectNode(ast.kind(node), ast.token(node), ast.payload(node));
+        }
+        for (int node = 0; node < ast.size(); node++) {
+            for (int child = ast.firstChild(node); child != Ast.NONE; child = ast.nextSibling(child)) {
+                nodes[node].children.add(nodes[child]);
+            }
+        }
+        return nodes[ast.root()];
+    }
+
+    private static long allocatedBytes() {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Ponavlja definicije, ločene s podpičjem, do dolžine vsaj `size` znakov.
+     */
+    private static String replicate(String unit, int size) {
+        var sb = new StringBuilder(size + unit.length() + 2);
+        sb.append(unit);
+        while (sb.length() < size) {
+            sb.append(";\n").append(unit);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * @Author: turk
+ * @Description: Hitrost preskakovanja presledkov in komentarjev.
+ */
+
+package bench;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+import common.Diagnostics;
+import compiler.lexer.BlockScanner;
+import compiler.lexer.Lexer;
+import compiler.lexer.SourceText;
+
+public class BlankScanBenchmark {
+    /**
+     * Uporaba: `BlankScanBenchmark [velikost v MB]`.
+     *
+     * V istem JVM primerja osnovno in vektorsko izvedbo `BlockScanner` na
+     * nizu in na preslikani datoteki z veliko zamiki in komentarji; vektorska
+     * je na voljo le z `--add-modules jdk.incubator.vector`. Najprej preveri,
+     * da izvedbi vračata enake odmike, sicer konča s kodo 1. Na koncu izmeri
+     * še celotno leksikalno analizo z izvedbo, ki jo uporablja prevajalnik
+     * (`-Dpins.vector=true`).
+     */
+    public static void main(String[] args) throws Exception {
+        var megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        var source = commentHeavy(megabytes << 20);
+        var characters = source.toCharArray();
+        var file = Files.createTempFile("pins-blank", ".pins");
+        try {
+            Files.writeString(file, source);
+            ByteBuffer buffer;
+            try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            var scanners = new LinkedHashMap<String, BlockScanner>();
+            scanners.put("osnovna", BlockScanner.scalar());
+            BlockScanner.vectorized().ifPresent(scanner -> scanners.put("vektorska", scanner));
+            System.out.printf("vhod: %.1f MB, izvedbe: %s%n",
+                    source.length() / (double) (1 << 20), String.join(", ", scanners.keySet()));
+
+            var expected = offsets(BlockScanner.scalar(), characters);
+            for (var entry : scanners.entrySet()) {
+                if (!expected.equals(offsets(entry.getValue(), characters))
+                        || !expected.equals(offsets(entry.getValue(), buffer))) {
+                    System.err.println("Scanner " + entry.getKey() + " disagrees with the scalar scanner!");
+                    System.exit(1);
+                }
+            }
+
+            for (var entry : scanners.entrySet()) {
+                var scanner = entry.getValue();
+                measure(() -> scan(scanner, characters), 5);
+                report(entry.getKey() + ", niz", characters.length, measure(() -> scan(scanner, characters), 10));
+                measure(() -> scan(scanner, buffer), 5);
+                report(entry.getKey() + ", preslikava", characters.length, measure(() -> scan(scanner, buffer), 10));
+            }
+
+            var text = SourceText.of(source);
+            Scan lex = () -> new Lexer(text, Lexer.Engine.DFA, new Diagnostics()).tokenize().size();
+            measure(lex, 5);
+            report("Lexer (" + (BlockScanner.isVectorized() ? "vektorska" : "osnovna") + ")",
+                    characters.length, measure(lex, 10));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static interface Scan {
+        long run();
+    }
+
+    private static void report(String name, int length, double seconds) {
+        System.out.printf("%-22s %,10.1f MB/s%n", name, length / seconds / (1 << 20));
+    }
+
+    /**
+     * Vrne povprečni čas ene ponovitve v sekundah.
+     */
+    private static double measure(Scan scan, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            Harness.consume(scan.run());
+        }
+        return (System.nanoTime() - start) / 1e9 / iterations;
+    }
+
+    /**
+     * Preskakuje kot leksikalni analizator: presledke in tabulatorje, od
+     * `#` do konca vrstice, ostale znake pa posamič.
+     */
+    private static long scan(BlockScanner scanner, char[] characters) {
+        int end = characters.length;
+        long blocks = 0;
+        for (int i = 0; i < end; i++) {
+            i = scanner.skipBlanks(characters, i, end);
+            if (i < end && characters[i] == '#') {
+                i = scanner.indexOfNewline(characters, i, end);
+                blocks++;
+            }
+        }
+        return blocks;
+    }
+
+    private static long scan(BlockScanner scanner, ByteBuffer buffer) {
+        int end = buffer.limit();
+        long blocks = 0;
+        for (int i = 0; i < end; i++) {
+            i = scanner.skipBlanks(buffer, i, end);
+            if (i < end && buffer.get(i) == '#') {
+                i = scanner.indexOfNewline(buffer, i, end);
+                blocks++;
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Odmiki, ki jih vrneta metodi izvedbe pri zaporedju klicev iz `scan`.
+     */
+    private static ArrayList<Integer> offsets(BlockScanner scanner, char[] characters) {
+        var offsets = new ArrayList<Integer>();
+        int end = characters.length;
+        for (int i = 0; i < end; i++) {
+            i = scanner.skipBlanks(characters, i, end);
+            offsets.add(i);
+            if (i < end && characters[i] == '#') {
+                i = scanner.indexOfNewline(characters, i, end);
+                offsets.add(i);
+            }
+        }
+        return offsets;
+    }
+
+    private static ArrayList<Integer> offsets(BlockScanner scanner, ByteBuffer buffer) {
+        var offsets = new ArrayList<Integer>();
+        int end = buffer.limit();
+        for (int i = 0; i < end; i++) {
+            i = scanner.skipBlanks(buffer, i, end);
+            offsets.add(i);
+            if (i < end && buffer.get(i) == '#') {
+                i = scanner.indexOfNewline(buffer, i, end);
+                offsets.add(i);
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * Zamaknjene vrstice, ki se večinoma končajo s komentarjem.
+     */
+    private static String commentHeavy(int size) {
+        var sb = new StringBuilder(size + 256);
+        int line = 0;
+        while (sb.length() < size) {
+            int depth = line % 8;
+            sb.append("    ".repeat(depth));
+            if (line % 3 == 0) {
+                sb.append("# ---------------------------------------------------------- opomba ").append(line);
+            } else {
+                sb.append("x").append("y".repeat(depth)).append(" = x + 1");
+                sb.append("\t\t# posodobi stevec v zanki, vrstica ").append(line);
+            }
+            sb.append('\n');
+            line++;
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,311 @@
+/**
+ * @Author: turk
+ * @Description: Ogrodje za meritve po zgledu JMH.
+ */
+
+package bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import common.Json;
+
+/**
+ * Projekt nima gradnje z odvisnostmi, zato JMH nadomeščamo s tem, kar od
+ * njega potrebujemo:
+ *
+ * - ogrevanje (`warmup`) in merjenje v iteracijah določenega trajanja,
+ *   rezultat iteracije je število operacij na sekundo;
+ * - vsaka meritev v svojem JVM (`fork`), da se profili JIT različnih meritev
+ *   ne mešajo;
+ * - rezultat operacije gre v `consume()`, da je JIT ne more odstraniti;
+ * - število bajtov, ki jih nit alocira med merjenjem (kot `-prof gc`).
+ */
+public final class Harness {
+    private Harness() {}
+
+    /**
+     * Nastavitve meritve.
+     *
+     * @param forks Število novih JVM za vsako meritev (0: v tem JVM).
+     * @param warmupIterations Število iteracij ogrevanja.
+     * @param iterations Število merjenih iteracij.
+     * @param iterationMillis Najkrajše trajanje iteracije.
+     */
+    public static record Options(int forks, int warmupIterations, int iterations, long iterationMillis) {
+        /**
+         * Argumenti ukazne vrstice, ki te nastavitve prenesejo v nov JVM.
+         */
+        List<String> arguments() {
+            return List.of("--forks", "0", "--warmup", Integer.toString(warmupIterations),
+                    "--iterations", Integer.toString(iterations), "--time", Long.toString(iterationMillis));
+        }
+    }
+
+    /**
+     * Operacija, ki jo merimo.
+     */
+    @FunctionalInterface
+    public interface Operation {
+        Object run() throws Exception;
+    }
+
+    /**
+     * Rezultat meritve.
+     *
+     * @param benchmark Ime meritve.
+     * @param input Ime vhoda.
+     * @param bytes Velikost vhoda v bajtih.
+     * @param tokens Število simbolov vhoda.
+     * @param samples Operacije na sekundo v vsaki merjeni iteraciji.
+     * @param allocatedBytesPerOp Alocirani bajti na operacijo (NaN, če jih
+     *                            JVM ne šteje).
+     */
+    public static record Result(String benchmark, String input, long bytes, long tokens, double[] samples,
+            double allocatedBytesPerOp) {
+        public double opsPerSecond() {
+            double sum = 0;
+            for (var sample : samples) {
+                sum += sample;
+            }
+            return sum / samples.length;
+        }
+
+        /**
+         * Standardni odklon operacij na sekundo med iteracijami.
+         */
+        public double error() {
+            if (samples.length < 2) {
+                return 0;
+            }
+            double mean = opsPerSecond();
+            double sum = 0;
+            for (var sample : samples) {
+                sum += (sample - mean) * (sample - mean);
+            }
+            return Math.sqrt(sum / (samples.length - 1));
+        }
+
+        public double tokensPerSecond() {
+            return opsPerSecond() * tokens;
+        }
+
+        public double megabytesPerSecond() {
+            return opsPerSecond() * bytes / (1 << 20);
+        }
+
+        public double allocatedBytesPerToken() {
+            return allocatedBytesPerOp / tokens;
+        }
+
+        /**
+         * Združi rezultate istih meritev iz več JVM.
+         */
+        static Result merge(List<Result> results) {
+            var first = results.get(0);
+            var samples = new ArrayList<Double>();
+            double allocated = 0;
+            for (var result : results) {
+                for (var sample : result.samples) {
+                    samples.add(sample);
+                }
+                allocated += result.allocatedBytesPerOp;
+            }
+            return new Result(first.benchmark, first.input, first.bytes, first.tokens,
+                    samples.stream().mapToDouble(Double::doubleValue).toArray(), allocated / results.size());
+        }
+
+        public Map<String, Object> toJson() {
+            var json = new LinkedHashMap<String, Object>();
+            json.put("benchmark", benchmark);
+            json.put("input", input);
+            json.put("bytes", bytes);
+            json.put("tokens", tokens);
+            json.put("opsPerSecond", opsPerSecond());
+            json.put("error", error());
+            json.put("tokensPerSecond", tokensPerSecond());
+            json.put("megabytesPerSecond", megabytesPerSecond());
+            json.put("allocatedBytesPerToken", allocatedBytesPerToken());
+            json.put("allocatedBytesPerOp", allocatedBytesPerOp);
+            var list = new ArrayList<Object>();
+            for (var sample : samples) {
+                list.add(sample);
+            }
+            json.put("samples", list);
+            return json;
+        }
+
+        public static Result fromJson(Object json) {
+            var samples = Json.getList(json, "samples").stream()
+                    .mapToDouble(sample -> ((Number) sample).doubleValue())
+                    .toArray();
+            var allocated = Json.get(json, "allocatedBytesPerOp");
+            return new Result(Json.getString(json, "benchmark"), Json.getString(json, "input"),
+                    ((Number) Json.get(json, "bytes")).longValue(), ((Number) Json.get(json, "tokens")).longValue(),
+                    samples, allocated instanceof Number n ? n.doubleValue() : Double.NaN);
+        }
+    }
+
+    // --------------------------------------------------------------
+    // Merjenje.
+
+    private static volatile int sink;
+
+    /**
+     * Porabi rezultat operacije, da ga JIT ne more zavreči (`Blackhole`).
+     */
+    public static void consume(Object value) {
+        sink ^= System.identityHashCode(value);
+    }
+
+    /**
+     * Izmeri operacijo v tem JVM.
+     */
+    public static Result measure(String benchmark, String input, long bytes, long tokens, Operation operation,
+            Options options) throws Exception {
+        for (int i = 0; i < options.warmupIterations(); i++) {
+            iteration(operation, options.iterationMillis());
+        }
+        var threads = ManagementFactory.getThreadMXBean();
+        var allocation = threads instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()
+                ? bean
+                : null;
+        long allocatedBefore = allocation == null ? 0 : allocation.getCurrentThreadAllocatedBytes();
+        long operations = 0;
+        var samples = new double[options.iterations()];
+        for (int i = 0; i < samples.length; i++) {
+            var iteration = iteration(operation, options.iterationMillis());
+            operations += iteration[0];
+            samples[i] = iteration[0] / (iteration[1] / 1e9);
+        }
+        double allocatedPerOp = allocation == null
+                ? Double.NaN
+                : (allocation.getCurrentThreadAllocatedBytes() - allocatedBefore) / (double) operations;
+        return new Result(benchmark, input, bytes, tokens, samples, allocatedPerOp);
+    }
+
+    /**
+     * Izvaja operacijo vsaj `millis` milisekund (in vsaj enkrat).
+     *
+     * @return število operacij in trajanje v nanosekundah.
+     */
+    private static long[] iteration(Operation operation, long millis) throws Exception {
+        long deadline = millis * 1_000_000;
+        long operations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            consume(operation.run());
+            operations++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < deadline);
+        return new long[] { operations, elapsed };
+    }
+
+    // --------------------------------------------------------------
+    // Novi JVM.
+
+    /**
+     * Predpona vrstice, v kateri nov JVM izpiše rezultat.
+     */
+    static final String RESULT = "RESULT ";
+
+    /**
+     * Izmeri v `options.forks()` novih JVM z enakimi nastavitvami JVM in
+     * potjo razredov. Razred `main` mora z argumenti `--run meritev vhod`
+     * izvesti meritev in izpisati `RESULT` z rezultatom v JSON.
+     */
+    public static Result fork(Class<?> main, String benchmark, String input, Options options, List<String> extra)
+            throws IOException, InterruptedException {
+        var java = ProcessHandle.current().info().command().orElse("java");
+        var results = new ArrayList<Result>();
+        for (int fork = 0; fork < options.forks(); fork++) {
+            var command = new ArrayList<String>();
+            command.add(java);
+            command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(main.getName());
+            command.add("--run");
+            command.add(benchmark);
+            command.add(input);
+            command.addAll(options.arguments());
+            command.addAll(extra);
+            var process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            Result result = null;
+            try (var reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith(RESULT)) {
+                        result = Result.fromJson(Json.parse(line.substring(RESULT.length())));
+                    }
+                }
+            }
+            if (process.waitFor() != 0 || result == null) {
+                throw new IOException("Benchmark " + benchmark + " on " + input + " failed in a forked JVM!");
+            }
+            results.add(result);
+        }
+        return Result.merge(results);
+    }
+
+    // --------------------------------------------------------------
+    // Izpis.
+
+    /**
+     * Izpiše tabelo rezultatov.
+     */
+    public static void print(List<Result> results, PrintStream out) {
+        out.printf(Locale.ROOT, "%-20s %-8s %12s %8s %16s %12s %10s%n",
+                "Benchmark", "Input", "ops/s", "err %", "tokens/s", "MB/s", "B/token");
+        for (var result : results) {
+            out.printf(Locale.ROOT, "%-20s %-8s %12.2f %8.1f %16.0f %12.2f %10.1f%n",
+                    result.benchmark(), result.input(), result.opsPerSecond(),
+                    100 * result.error() / result.opsPerSecond(), result.tokensPerSecond(),
+                    result.megabytesPerSecond(), result.allocatedBytesPerToken());
+        }
+    }
+
+    /**
+     * Rezultati v JSON, skupaj z opisom okolja, da jih lahko primerjamo med
+     * izdajami.
+     */
+    public static String toJson(List<Result> results, Options options) {
+        var settings = new LinkedHashMap<String, Object>();
+        settings.put("forks", options.forks());
+        settings.put("warmupIterations", options.warmupIterations());
+        settings.put("iterations", options.iterations());
+        settings.put("iterationMillis", options.iterationMillis());
+        var list = new ArrayList<Object>();
+        for (var result : results) {
+            list.add(result.toJson());
+        }
+        var json = new LinkedHashMap<String, Object>();
+        json.put("environment", environment());
+        json.put("options", settings);
+        json.put("results", list);
+        return Json.write(json);
+    }
+
+    /**
+     * Opis JVM in računalnika, na katerem merimo.
+     */
+    static Map<String, Object> environment() {
+        var environment = new LinkedHashMap<String, Object>();
+        environment.put("java", System.getProperty("java.version"));
+        environment.put("vm", System.getProperty("java.vm.name"));
+        environment.put("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        environment.put("processors", Runtime.getRuntime().availableProcessors());
+        return environment;
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * @Author: turk
+ * @Description: Primerjava inkrementalne leksikalne analize s celotno.
+ */
+
+package bench;
+
+import java.util.HashMap;
+import java.util.List;
+
+import common.Diagnostics;
+import compiler.lexer.IncrementalLexer;
+import compiler.lexer.Lexer;
+import compiler.lexer.SourceText;
+import compiler.lexer.TokenStream;
+
+public class IncrementalLexerCheck {
+    private static final int RENUMBER = 1000;
+
+    /**
+     * Uporaba: `IncrementalLexerCheck [število sprememb] [seme]`.
+     *
+     * Na naključnem programu izvede zaporedje naključnih sprememb
+     * (`RandomEdits`) in po vsaki primerja `IncrementalLexer` s celotno
+     * leksikalno analizo spremenjenega besedila: vrste, odmike, znakovne
+     * predstavitve in položaje simbolov, število vrstic ter sporočilo o
+     * napaki. Simboli z istim imenom morajo imeti isto oznako imena, simboli
+     * z različnimi imeni pa različne. Po vsakih `RENUMBER` spremembah imena
+     * oštevilči znova (`IncrementalLexer.renumberNames()`), nato se morajo
+     * oznake in velikost tabele imen ujemati s celotno analizo. Ob prvem
+     * neujemanju izpiše spremembo in konča s kodo 1.
+     */
+    public static void main(String[] args) {
+        int edits = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 9;
+        var program = ProgramGenerator.generate(new ProgramGenerator.Options(seed, 20_000, 4, 40, 0.1, 4, 200));
+        var random = new RandomEdits(seed, program);
+        var lexer = new IncrementalLexer();
+        lexer.edit(0, 0, program, new Diagnostics());
+
+        int failed = 0;
+        int renumbered = 0;
+        for (int i = 1; i <= edits; i++) {
+            var edit = random.next();
+            var expected = new Diagnostics();
+            TokenStream expectedTokens;
+            try {
+                expectedTokens = new Lexer(SourceText.of(random.text()), Lexer.Engine.DFA, expected).tokenize();
+            } catch (Diagnostics.CompilationFailed __) {
+                expectedTokens = null;
+            }
+            var diagnostics = new Diagnostics();
+            try {
+                lexer.edit(edit.offset(), edit.removed(), edit.inserted(), diagnostics);
+            } catch (Diagnostics.CompilationFailed __) {
+                failed++;
+            }
+            if (!messages(diagnostics).equals(messages(expected))) {
+                mismatch(i, seed, edit, "messages " + messages(diagnostics) + ", expected " + messages(expected));
+            }
+            if (expectedTokens == null) {
+                continue;
+            }
+            var tokens = lexer.tokens();
+            if (!tokens.source().toString().equals(random.text())) {
+                mismatch(i, seed, edit, "source text");
+            }
+            if (tokens.size() != expectedTokens.size()) {
+                mismatch(i, seed, edit, tokens.size() + " tokens, expected " + expectedTokens.size());
+            }
+            for (int j = 0; j < tokens.size(); j++) {
+                if (tokens.type(j) != expectedTokens.type(j) || tokens.start(j) != expectedTokens.start(j)
+                        || tokens.end(j) != expectedTokens.end(j)
+                        || !tokens.lexeme(j).equals(expectedTokens.lexeme(j))
+                        || !tokens.position(j).equals(expectedTokens.position(j))) {
+                    mismatch(i, seed, edit, "token " + j + " " + tokens.symbol(j) + ", expected "
+                            + expectedTokens.symbol(j));
+                }
+            }
+            if (tokens.lineIndex().lineCount() != expectedTokens.lineIndex().lineCount()) {
+                mismatch(i, seed, edit, tokens.lineIndex().lineCount() + " lines, expected "
+                        + expectedTokens.lineIndex().lineCount());
+            }
+            var ids = new HashMap<String, Integer>();
+            var names = new HashMap<Integer, String>();
+            for (int j = 0; j < tokens.size(); j++) {
+                int id = tokens.nameId(j);
+                if ((id >= 0) != (expectedTokens.nameId(j) >= 0)) {
+                    mismatch(i, seed, edit, "token " + j + " name id " + id + ", expected "
+                            + expectedTokens.nameId(j));
+                }
+                if (id < 0) {
+                    continue;
+                }
+                var lexeme = tokens.lexeme(j);
+                if (ids.computeIfAbsent(lexeme, __ -> id) != id) {
+                    mismatch(i, seed, edit, "token " + j + " " + lexeme + " has name id " + id + ", an earlier "
+                            + lexeme + " has " + ids.get(lexeme));
+                }
+                if (!names.computeIfAbsent(id, __ -> lexeme).equals(lexeme)) {
+                    mismatch(i, seed, edit, "token " + j + " " + lexeme + " has name id " + id + " of "
+                            + names.get(id));
+                }
+            }
+            if (i > RENUMBER * (renumbered + 1)) {
+                lexer.renumberNames();
+                renumbered++;
+                for (int j = 0; j < tokens.size(); j++) {
+                    if (tokens.nameId(j) != expectedTokens.nameId(j)) {
+                        mismatch(i, seed, edit, "renumbered token " + j + " name id " + tokens.nameId(j)
+                                + ", expected " + expectedTokens.nameId(j));
+                    }
+                }
+                if (tokens.names().size() != expectedTokens.names().size()) {
+                    mismatch(i, seed, edit, "renumbered " + tokens.names().size() + " names, expected "
+                            + expectedTokens.names().size());
+                }
+            }
+        }
+        System.out.printf("%d sprememb (%d z napako, %d oštevilčenj imen), %d simbolov: "
+                + "simboli in sporočila se ujemajo%n", edits, failed, renumbered, lexer.tokens().size());
+    }
+
+    private static List<String> messages(Diagnostics diagnostics) {
+        return diagnostics.all().stream().map(Object::toString).toList();
+    }
+
+    private static void mismatch(int i, long seed, RandomEdits.Edit edit, String difference) {
+        System.err.printf("Edit %d (seed %d) differs from a full rescan: %s%n", i, seed, edit);
+        System.err.println("  " + difference);
+        System.exit(1);
+    }
+}
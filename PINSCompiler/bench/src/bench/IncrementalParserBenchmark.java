@@ -0,0 +1,91 @@
+/**
+ * @Author: turk
+ * @Description: Primerjava inkrementalne in celotne sintaksne analize.
+ */
+
+package bench;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import common.Diagnostics;
+import compiler.lexer.Lexer;
+import compiler.lexer.SourceText;
+import compiler.lexer.TokenStream;
+import compiler.parser.IncrementalParser;
+import compiler.parser.Parser;
+
+public class IncrementalParserBenchmark {
+    /**
+     * Uporaba: `IncrementalParserBenchmark [datoteka] [število vrstic]`.
+     *
+     * Definicije iz datoteke ponavlja, dokler vhod ne doseže želenega
+     * števila vrstic, nato primerja čas ponovne analize celotne izvorne kode
+     * s časom inkrementalne analize po spremembi ene vrstice.
+     */
+    public static void main(String[] args) throws Exception {
+        var file = args.length > 0 ? args[0] : "src/source.txt";
+        var lines = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        var unit = Files.readString(Paths.get(file)).strip();
+        var source = replicate(unit, lines);
+
+        var parser = new IncrementalParser(tokenize(source), new Diagnostics());
+        System.out.printf("vhod: %s, %,d vrstic, %,d definicij%n", file, lines, parser.definitions());
+
+        // Sprememba: preimenovanje prve spremenljivke v definiciji na sredini.
+        int middle = source.indexOf(unit, source.length() / 2);
+        int offset = unit.indexOf(':') + middle;
+        for (int i = 0; i < 20; i++) {
+            fullParse(source);
+            edit(parser, offset, i);
+        }
+
+        int iterations = 50;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            fullParse(source);
+        }
+        double full = (System.nanoTime() - start) / 1e6 / iterations;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            edit(parser, offset, i);
+        }
+        double incremental = (System.nanoTime() - start) / 1e6 / iterations;
+
+        System.out.printf("celotna analiza:        %10.2f ms%n", full);
+        System.out.printf("inkrementalna analiza:  %10.2f ms (%d definicij znova)%n", incremental, parser.reparsed());
+    }
+
+    private static void fullParse(String source) {
+        new Parser(tokenize(source), Optional.empty(), new Diagnostics()).parse();
+    }
+
+    private static TokenStream tokenize(String source) {
+        return new Lexer(SourceText.of(source), Lexer.Engine.DFA, new Diagnostics()).tokenize();
+    }
+
+    /**
+     * Izmenično doda in odstrani znak imena pred `:`.
+     */
+    private static void edit(IncrementalParser parser, int offset, int i) {
+        if (i % 2 == 0) {
+            parser.edit(offset, 0, "x", new Diagnostics());
+        } else {
+            parser.edit(offset, 1, "", new Diagnostics());
+        }
+    }
+
+    /**
+     * Ponavlja definicije, ločene s podpičjem, do vsaj `lines` vrstic.
+     */
+    private static String replicate(String unit, int lines) {
+        int unitLines = (int) unit.lines().count();
+        var sb = new StringBuilder(unit);
+        for (int n = unitLines; n < lines; n += unitLines) {
+            sb.append(";\n").append(unit);
+        }
+        return sb.toString();
+    }
+}
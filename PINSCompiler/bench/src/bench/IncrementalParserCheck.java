@@ -0,0 +1,119 @@
+/**
+ * @Author: turk
+ * @Description: Primerjava inkrementalne sintaksne analize s celotno.
+ */
+
+package bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import common.Diagnostics;
+import compiler.lexer.Lexer;
+import compiler.lexer.SourceText;
+import compiler.lexer.TokenStream;
+import compiler.parser.IncrementalParser;
+import compiler.parser.Parser;
+import compiler.parser.ast.Ast;
+
+public class IncrementalParserCheck {
+    /**
+     * Uporaba: `IncrementalParserCheck [število sprememb] [seme]`.
+     *
+     * Na naključnem programu izvede zaporedje naključnih sprememb
+     * (`RandomEdits`) in po vsaki primerja `IncrementalParser` s celotno
+     * analizo spremenjenega besedila: brez obnavljanja drevo oziroma to, da
+     * analiza ne uspe, z obnavljanjem pa drevo in vsa sporočila. Spremembo,
+     * po kateri leksikalna analiza ne uspe, naslednja sprememba praviloma
+     * razveljavi, da večina besedil pride do sintaksne analize. Ob prvem
+     * neujemanju izpiše spremembo in konča s kodo 1.
+     */
+    public static void main(String[] args) {
+        int edits = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 13;
+        var program = ProgramGenerator.generate(new ProgramGenerator.Options(seed, 20_000, 4, 40, 0.1, 4, 200));
+        var random = new RandomEdits(seed, program);
+
+        IncrementalParser strict = new IncrementalParser(tokenize(program), new Diagnostics());
+        var recovering = new IncrementalParser(true);
+        recovering.edit(0, 0, program, new Diagnostics());
+
+        int failed = 0;
+        boolean lexicalError = false;
+        for (int i = 1; i <= edits; i++) {
+            var edit = lexicalError ? random.undo() : random.next();
+            var text = random.text();
+
+            var expected = new Diagnostics();
+            var expectedTree = parse(text, false, expected);
+            var diagnostics = new Diagnostics();
+            Ast tree = null;
+            boolean ok;
+            try {
+                tree = strict.edit(edit.offset(), edit.removed(), edit.inserted(), diagnostics);
+                ok = true;
+            } catch (Diagnostics.CompilationFailed __) {
+                ok = false;
+            }
+            if (ok != (expectedTree != null) || ok && !dump(tree).equals(dump(expectedTree))
+                    || !messages(diagnostics).equals(messages(expected))) {
+                mismatch(i, seed, edit, "without recovery", messages(diagnostics), messages(expected));
+            }
+
+            expected = new Diagnostics();
+            expectedTree = parse(text, true, expected);
+            diagnostics = new Diagnostics();
+            tree = recovering.edit(edit.offset(), edit.removed(), edit.inserted(), diagnostics);
+            lexicalError = expectedTree == null;
+            if (expectedTree != null && !dump(tree).equals(dump(expectedTree))
+                    || !messages(diagnostics).equals(messages(expected))) {
+                mismatch(i, seed, edit, "with recovery", messages(diagnostics), messages(expected));
+            }
+            if (!ok) {
+                failed++;
+            }
+        }
+        System.out.printf("%d sprememb (%d z napako), %d definicij: drevesa in sporočila se ujemajo%n",
+                edits, failed, recovering.definitions());
+    }
+
+    /**
+     * Celotna analiza; vrne `null`, če ne uspe ali če leksikalna analiza ne
+     * uspe.
+     */
+    private static Ast parse(String text, boolean recover, Diagnostics diagnostics) {
+        try {
+            var tokens = new Lexer(SourceText.of(text), Lexer.Engine.DFA, diagnostics).tokenize();
+            return new Parser(tokens, Optional.empty(), recover, diagnostics).parse().orElse(null);
+        } catch (Diagnostics.CompilationFailed __) {
+            return null;
+        }
+    }
+
+    private static TokenStream tokenize(String text) {
+        return new Lexer(SourceText.of(text), Lexer.Engine.DFA, new Diagnostics()).tokenize();
+    }
+
+    private static String dump(Ast ast) {
+        var bytes = new ByteArrayOutputStream();
+        var out = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+        ast.dump(out);
+        out.flush();
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> messages(Diagnostics diagnostics) {
+        return diagnostics.all().stream().map(Object::toString).toList();
+    }
+
+    private static void mismatch(int i, long seed, RandomEdits.Edit edit, String mode, List<String> actual,
+            List<String> expected) {
+        System.err.printf("Edit %d (seed %d) %s differs from a full parse: %s%n", i, seed, mode, edit);
+        System.err.println("  incremental: " + actual);
+        System.err.println("  full:        " + expected);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * @Author: turk
+ * @Description: Primerjava hitrosti izvedb leksikalnega analizatorja.
+ */
+
+package bench;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import common.Diagnostics;
+import compiler.lexer.Lexer;
+import compiler.lexer.SourceText;
+
+public class LexerBenchmark {
+    /**
+     * Uporaba: `LexerBenchmark [datoteka] [velikost v MB]`.
+     *
+     * Vsebino datoteke ponavlja, dokler vhod ne doseže želene velikosti, nato
+     * za vsako izvedbo izpiše število simbolov na sekundo.
+     */
+    public static void main(String[] args) throws Exception {
+        var file = args.length > 0 ? args[0] : "src/source.txt";
+        var megabytes = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        var source = replicate(Files.readString(Paths.get(file)), megabytes << 20);
+
+        System.out.printf("vhod: %s, %.1f MB%n", file, source.length() / (double) (1 << 20));
+        for (var engine : Lexer.Engine.values()) {
+            measure(source, engine, 5);
+        }
+        for (var engine : Lexer.Engine.values()) {
+            var tokensPerSecond = measure(source, engine, 10);
+            System.out.printf("%-8s %,15.0f simbolov/s%n", engine, tokensPerSecond);
+        }
+    }
+
+    /**
+     * Vrne povprečno število simbolov na sekundo preko `iterations` ponovitev.
+     */
+    private static double measure(String source, Lexer.Engine engine, int iterations) {
+        long tokens = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            tokens += new Lexer(SourceText.of(source), engine, new Diagnostics()).tokenize().size();
+        }
+        long elapsed = System.nanoTime() - start;
+        return tokens / (elapsed / 1e9);
+    }
+
+    /**
+     * Ponavlja vsebino, ločeno z novo vrstico, do dolžine vsaj `size` znakov.
+     */
+    private static String replicate(String unit, int size) {
+        var sb = new StringBuilder(size + unit.length() + 1);
+        while (sb.length() < size) {
+            sb.append(unit).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,244 @@
+/**
+ * @Author: turk
+ * @Description: Zakasnitev jezikovnega strežnika pri urejanju velikega dokumenta.
+ */
+
+package bench;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import cli.LanguageServer;
+import common.Diagnostics;
+import common.Json;
+import compiler.lexer.Lexer;
+import compiler.lexer.SourceText;
+import compiler.lexer.TokenType;
+
+public class LspReplayBenchmark {
+    /**
+     * Proračun: 99 % sprememb `didChange` (skupaj s `publishDiagnostics`)
+     * mora biti obdelanih v tem času.
+     */
+    private static final double BUDGET_MILLIS = 1.0;
+
+    /**
+     * Število merjenih ponovitev seje.
+     */
+    private static final int REPEATS = 5;
+
+    private static final String URI = "file:///bench.pins";
+
+    /**
+     * Uporaba: `LspReplayBenchmark [datoteka] [število vrstic] [število nizov sprememb]`.
+     *
+     * Definicije iz datoteke ponavlja, dokler dokument ne doseže želenega
+     * števila vrstic, in pripravi sejo, kot jo pošlje urejevalnik:
+     * `didOpen`, nato nizi sprememb na naključnih mestih dokumenta, vsak
+     * znak svoja sprememba:
+     *
+     * - podaljšanje imena za nekaj črk in brisanje teh črk;
+     * - tipkanje nove definicije v novo vrstico (vmes sintaksne napake) in
+     *   njena odstranitev;
+     * - vstavljanje in brisanje neznanega znaka (leksikalna napaka).
+     *
+     * Vsak niz dokument vrne v prvotno stanje. Sejo obdela enkrat za
+     * ogrevanje in `REPEATS`-krat za meritev, vsakič z novim strežnikom. Čas
+     * spremembe je mediana njenih ponovitev, zato posamezne prekinitve niti
+     * (razvrščanje, zbiranje smeti) ne štejejo k zakasnitvi spremembe, čas,
+     * ki je odvisen od dolžine dokumenta, pa se pokaže v vsaki ponovitvi.
+     * Izpiše porazdelitev časov `didChange` in konča s kodo 1, če 99.
+     * percentil preseže `BUDGET_MILLIS`.
+     */
+    public static void main(String[] args) throws Exception {
+        var file = args.length > 0 ? args[0] : "src/source.txt";
+        int lines = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        int bursts = args.length > 2 ? Integer.parseInt(args[2]) : 300;
+        var unit = Files.readString(Paths.get(file)).strip();
+        var document = replicate(unit, lines);
+        var session = session(document, bursts, new SplittableRandom(7));
+
+        replay(session);
+        var repeats = new double[REPEATS][];
+        for (int r = 0; r < REPEATS; r++) {
+            repeats[r] = replay(session);
+        }
+        var times = new double[repeats[0].length];
+        var samples = new double[REPEATS];
+        for (int i = 0; i < times.length; i++) {
+            for (int r = 0; r < REPEATS; r++) {
+                samples[r] = repeats[r][i];
+            }
+            Arrays.sort(samples);
+            times[i] = samples[REPEATS / 2];
+        }
+        double open = times[0];
+        var changes = Arrays.copyOfRange(times, 1, times.length);
+        Arrays.sort(changes);
+        double p50 = percentile(changes, 0.50);
+        double p99 = percentile(changes, 0.99);
+        System.out.printf(Locale.ROOT, "dokument: %,d znakov, %,d vrstic%n", document.length(), lines);
+        System.out.printf(Locale.ROOT, "didOpen:             %10.3f ms%n", open);
+        System.out.printf(Locale.ROOT, "didChange (%,d):  p50 %7.3f ms, p99 %7.3f ms, max %7.3f ms (proračun p99 %.1f ms)%n",
+                changes.length, p50, p99, changes[changes.length - 1], BUDGET_MILLIS);
+        if (p99 > BUDGET_MILLIS) {
+            System.err.printf(Locale.ROOT, "didChange p99 %.3f ms exceeds the budget of %.1f ms%n", p99, BUDGET_MILLIS);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Obdela sejo z novim strežnikom.
+     *
+     * @return čase obdelave `didOpen` in vseh `didChange` v milisekundah.
+     */
+    private static double[] replay(List<String> session) {
+        var published = new int[1];
+        var server = new LanguageServer(json -> published[0] += json.length());
+        var times = new double[session.size()];
+        int n = 0;
+        for (var message : session) {
+            long start = System.nanoTime();
+            var method = server.receive(message);
+            double millis = (System.nanoTime() - start) / 1e6;
+            if (method.equals("textDocument/didOpen") || method.equals("textDocument/didChange")) {
+                times[n++] = millis;
+            }
+        }
+        if (published[0] == 0) {
+            throw new IllegalStateException("The server published nothing!");
+        }
+        return Arrays.copyOf(times, n);
+    }
+
+    /**
+     * Sporočila seje: `initialize`, `didOpen` in nizi sprememb.
+     */
+    private static List<String> session(String document, int bursts, SplittableRandom random) {
+        var tokens = new Lexer(SourceText.of(document), Lexer.Engine.DFA, new Diagnostics()).tokenize();
+        // Konci imen, ki jih podaljšujemo, in začetki vrstic za nove definicije.
+        var nameEnds = new ArrayList<Integer>();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.type(i) == TokenType.IDENTIFIER) {
+                nameEnds.add(tokens.end(i));
+            }
+        }
+        var lineStarts = new ArrayList<Integer>();
+        lineStarts.add(0);
+        for (int i = 0; i < document.length(); i++) {
+            if (document.charAt(i) == '\n') {
+                lineStarts.add(i + 1);
+            }
+        }
+        // Nova definicija se začne za podpičjem, ki konča vrstico.
+        var definitionStarts = new ArrayList<Integer>();
+        for (int line = 1; line < lineStarts.size(); line++) {
+            if (lineStarts.get(line) >= 2 && document.charAt(lineStarts.get(line) - 2) == ';') {
+                definitionStarts.add(line);
+            }
+        }
+
+        var session = new ArrayList<String>();
+        session.add(message(1, "initialize", Map.of("capabilities", Map.of())));
+        session.add(message(-1, "initialized", Map.of()));
+        var textDocument = new LinkedHashMap<String, Object>();
+        textDocument.put("uri", URI);
+        textDocument.put("languageId", "pins");
+        textDocument.put("version", 1);
+        textDocument.put("text", document);
+        session.add(message(-1, "textDocument/didOpen", Map.of("textDocument", textDocument)));
+
+        int version = 1;
+        for (int b = 0; b < bursts; b++) {
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    int offset = nameEnds.get(random.nextInt(nameEnds.size()));
+                    int line = lineOf(lineStarts, offset);
+                    int column = offset - lineStarts.get(line);
+                    var suffix = "abcdef".substring(0, 1 + random.nextInt(6));
+                    for (int i = 0; i < suffix.length(); i++) {
+                        session.add(change(++version, line, column + i, line, column + i, suffix.substring(i, i + 1)));
+                    }
+                    for (int i = suffix.length(); i > 0; i--) {
+                        session.add(change(++version, line, column + i - 1, line, column + i, ""));
+                    }
+                }
+                case 1 -> {
+                    int line = definitionStarts.get(random.nextInt(definitionStarts.size()));
+                    var definition = "var typed : integer;\n";
+                    for (int i = 0; i < definition.length(); i++) {
+                        session.add(change(++version, line, i, line, i, definition.substring(i, i + 1)));
+                    }
+                    session.add(change(++version, line, 0, line + 1, 0, ""));
+                }
+                default -> {
+                    int offset = nameEnds.get(random.nextInt(nameEnds.size()));
+                    int line = lineOf(lineStarts, offset);
+                    int column = offset - lineStarts.get(line);
+                    session.add(change(++version, line, column, line, column, "$"));
+                    session.add(change(++version, line, column, line, column + 1, ""));
+                }
+            }
+        }
+        session.add(message(2, "shutdown", null));
+        session.add(message(-1, "exit", null));
+        return session;
+    }
+
+    private static String change(int version, int startLine, int startCharacter, int endLine, int endCharacter,
+            String text) {
+        var range = new LinkedHashMap<String, Object>();
+        range.put("start", Map.of("line", startLine, "character", startCharacter));
+        range.put("end", Map.of("line", endLine, "character", endCharacter));
+        var change = new LinkedHashMap<String, Object>();
+        change.put("range", range);
+        change.put("text", text);
+        var params = new LinkedHashMap<String, Object>();
+        params.put("textDocument", Map.of("uri", URI, "version", version));
+        params.put("contentChanges", List.of(change));
+        return message(-1, "textDocument/didChange", params);
+    }
+
+    /**
+     * Zahteva (`id >= 0`) ali obvestilo JSON-RPC.
+     */
+    private static String message(int id, String method, Object params) {
+        var json = new LinkedHashMap<String, Object>();
+        json.put("jsonrpc", "2.0");
+        if (id >= 0) {
+            json.put("id", id);
+        }
+        json.put("method", method);
+        json.put("params", params);
+        return Json.write(json);
+    }
+
+    private static int lineOf(List<Integer> lineStarts, int offset) {
+        int index = Collections.binarySearch(lineStarts, offset);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private static double percentile(double[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    /**
+     * Ponavlja definicije, ločene s podpičjem, do vsaj `lines` vrstic.
+     */
+    private static String replicate(String unit, int lines) {
+        int unitLines = (int) unit.lines().count();
+        var sb = new StringBuilder(unit);
+        for (int n = unitLines; n < lines; n += unitLines) {
+            sb.append(";\n").append(unit);
+        }
+        return sb.toString();
+    }
+}
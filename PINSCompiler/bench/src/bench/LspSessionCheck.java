@@ -0,0 +1,51 @@
+/**
+ * @Author: turk
+ * @Description: Primerjava odgovorov jezikovnega strežnika s posnetkom.
+ */
+
+package bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import cli.LanguageServer;
+
+public class LspSessionCheck {
+    /**
+     * Uporaba: `LspSessionCheck [seja] [pričakovani odgovori]`.
+     *
+     * Sejo, posneto z `LanguageServer --record`, obdela kot
+     * `LanguageServer --replay` in odgovore primerja s pričakovanimi, vrstico
+     * za vrstico. Ob prvi razliki jo izpiše in konča s kodo 1. Ko se
+     * odgovori strežnika namenoma spremenijo, pričakovane zapišemo znova z
+     * `LanguageServer --replay seja > pričakovani`.
+     */
+    public static void main(String[] args) throws Exception {
+        var session = Path.of(args.length > 0 ? args[0] : "lsp/session.jsonl");
+        var expectedFile = Path.of(args.length > 1 ? args[1] : "lsp/session.expected.jsonl");
+        var output = new ByteArrayOutputStream();
+        var ignored = new PrintStream(OutputStream.nullOutputStream());
+        int exitCode = LanguageServer.replay(session, new PrintStream(output, false, StandardCharsets.UTF_8), ignored);
+        var actual = output.toString(StandardCharsets.UTF_8).lines().toList();
+        var expected = Files.readAllLines(expectedFile, StandardCharsets.UTF_8);
+        for (int i = 0; i < Math.max(actual.size(), expected.size()); i++) {
+            var a = i < actual.size() ? actual.get(i) : "(no line)";
+            var e = i < expected.size() ? expected.get(i) : "(no line)";
+            if (!a.equals(e)) {
+                System.err.printf("Line %d of %s differs from the replay of %s:%n", i + 1, expectedFile, session);
+                System.err.println("  expected: " + e);
+                System.err.println("  actual:   " + a);
+                System.exit(1);
+            }
+        }
+        if (exitCode != 0) {
+            System.err.println("The session did not end with shutdown and exit!");
+            System.exit(1);
+        }
+        System.out.printf("%d odgovorov se ujema s %s%n", actual.size(), expectedFile);
+    }
+}
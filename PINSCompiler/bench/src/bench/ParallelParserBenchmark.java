@@ -0,0 +1,72 @@
+/**
+ * @Author: turk
+ * @Description: Primerjava hitrosti zaporedne in vzporedne sintaksne analize.
+ */
+
+package bench;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import common.Diagnostics;
+import compiler.lexer.Lexer;
+import compiler.lexer.SourceText;
+import compiler.lexer.TokenStream;
+import compiler.parser.ParallelParser;
+import compiler.parser.Parser;
+
+public class ParallelParserBenchmark {
+    /**
+     * Uporaba: `ParallelParserBenchmark [datoteka] [velikost v MB]`.
+     *
+     * Definicije iz datoteke ponavlja, dokler vhod ne doseže želene velikosti,
+     * nato za zaporedno analizo in za vzporedno analizo z 1, 2, 4, ... nitmi
+     * (do števila procesorjev) izpiše število simbolov na sekundo.
+     */
+    public static void main(String[] args) throws Exception {
+        var file = args.length > 0 ? args[0] : "src/source.txt";
+        var megabytes = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        var source = replicate(Files.readString(Paths.get(file)).strip(), megabytes << 20);
+        var tokens = new Lexer(SourceText.of(source), Lexer.Engine.DFA, new Diagnostics()).tokenize();
+        int processors = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("vhod: %s, %.1f MB, %,d simbolov, %d procesorjev%n",
+                file, source.length() / (double) (1 << 20), tokens.size(), processors);
+        measure(tokens, 0, 5);
+        System.out.printf("%-12s %,15.0f simbolov/s%n", "zaporedno", measure(tokens, 0, 10));
+        for (int threads = 1; threads <= processors; threads *= 2) {
+            measure(tokens, threads, 5);
+            System.out.printf("%-12s %,15.0f simbolov/s%n", threads + " niti", measure(tokens, threads, 10));
+        }
+    }
+
+    /**
+     * Vrne povprečno število simbolov na sekundo preko `iterations` ponovitev
+     * (`threads` 0 pomeni zaporedno analizo).
+     */
+    private static double measure(TokenStream tokens, int threads, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            if (threads == 0) {
+                new Parser(tokens, Optional.empty(), new Diagnostics()).parse();
+            } else {
+                new ParallelParser(tokens, Optional.empty(), threads, new Diagnostics()).parse();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return (double) tokens.size() * iterations / (elapsed / 1e9);
+    }
+
+    /**
+     * Ponavlja definicije, ločene s podpičjem, do dolžine vsaj `size` znakov.
+     */
+    private static String replicate(String unit, int size) {
+        var sb = new StringBuilder(size + unit.length() + 2);
+        sb.append(unit);
+        while (sb.length() < size) {
+            sb.append(";\n").append(unit);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,396 @@
+/**
+ * @Author: turk
+ * @Description: Meritve faz prevajanja na stalnem korpusu in primerjava z osnovo.
+ */
+
+package bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import cli.PINS;
+import cli.PINS.Phase;
+import common.Diagnostics;
+import common.Json;
+import common.Statistics;
+import compiler.Compiler;
+import compiler.lexer.SourceText;
+
+/**
+ * Prevede vse datoteke korpusa v tem JVM, tako kot `Main` (`Compiler.run()`
+ * z `--exec` posamezne faze), in za vsako fazo izmeri čas, procesorski čas,
+ * največjo zasedenost kopice in alocirane bajte.
+ *
+ * Čas, procesorski čas in alocirane bajte izmeri faza sama
+ * (`Statistics.begin()` in `end()`), zato ne vsebujejo prejšnjih faz.
+ * Največja zasedenost kopice je največja zasedenost med prevajanjem do
+ * vključno te faze. Faze, ki jih prevajalnik združi (`LEX+SYN` z
+ * `--stream`), se izpišejo in zapišejo pod skupnim imenom.
+ *
+ * Z `--save` rezultate zapiše v osnovo (JSON), z `--baseline` pa jih
+ * primerja s prej zapisano osnovo in konča z izhodno kodo 1, če je katera
+ * meritev katere faze slabša za več kot `--threshold` odstotkov.
+ *
+ * Uporaba:
+ *
+ *     PhaseBenchmark [--corpus imenik] [--warmup n] [--iterations n]
+ *                    [--save osnova.json] [--baseline osnova.json] [--threshold %]
+ *                    [-- možnosti prevajalnika]
+ */
+public class PhaseBenchmark {
+    /**
+     * Faze, ki jih `Compiler.run()` izvede; po gradnji drevesa se konča.
+     */
+    private static final List<Phase> PHASES = List.of(Phase.LEX, Phase.SYN, Phase.AST);
+
+    /**
+     * Privzeti korpus poleg `src/source.txt`: programi iz `ProgramGenerator`
+     * z danim semenom in velikostjo.
+     */
+    private static final long[][] GENERATED = {
+        { 1, 4 << 10 }, { 2, 64 << 10 }, { 3, 256 << 10 }, { 4, 1 << 20 }, { 5, 4 << 20 }
+    };
+
+    /**
+     * Imena meritev v osnovi in izpisu.
+     */
+    private static final List<String> METRICS = List.of("wallMillis", "cpuMillis", "peakHeapBytes", "allocatedBytes");
+
+    private static final String USAGE = """
+            Usage: PhaseBenchmark [options] [-- <compiler options>]
+              --corpus <dir>        compile the *.pins files in <dir> (default: src/source.txt
+                                    and programs from ProgramGenerator, seeds 1 to 5)
+              --warmup <n>          warmup passes over the corpus per phase (default 5)
+              --iterations <n>      measured passes per phase, the median is reported (default 10)
+              --save <file>         write the results as a baseline
+              --baseline <file>     compare with a baseline, exit 1 on regressions
+              --threshold <pct>     allowed slowdown or growth in percent (default 10)""";
+
+    /**
+     * Datoteka korpusa.
+     */
+    private record Source(String name, SourceText text) {
+    }
+
+    /**
+     * Mediane meritev ene faze za en prehod čez korpus.
+     *
+     * @param phase Ime faze, kot ga sporoči `Statistics`.
+     */
+    private record Measurement(String phase, double wallMillis, double cpuMillis, double peakHeapBytes,
+            double allocatedBytes) {
+        double get(String metric) {
+            return switch (metric) {
+                case "wallMillis" -> wallMillis;
+                case "cpuMillis" -> cpuMillis;
+                case "peakHeapBytes" -> peakHeapBytes;
+                case "allocatedBytes" -> allocatedBytes;
+                default -> throw new IllegalArgumentException(metric);
+            };
+        }
+
+        Map<String, Object> toJson() {
+            var json = new LinkedHashMap<String, Object>();
+            for (var metric : METRICS) {
+                json.put(metric, get(metric));
+            }
+            return json;
+        }
+
+        static Measurement fromJson(String phase, Object json) {
+            var values = new double[METRICS.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = Json.get(json, METRICS.get(i)) instanceof Number n ? n.doubleValue() : Double.NaN;
+            }
+            return new Measurement(phase, values[0], values[1], values[2], values[3]);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path corpusDirectory = null;
+        int warmup = 5;
+        int iterations = 10;
+        Path save = null;
+        Path baseline = null;
+        double threshold = 10;
+        var compilerOptions = new ArrayList<String>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--corpus" -> corpusDirectory = Path.of(args[++i]);
+                    case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+                    case "--iterations" -> iterations = Integer.parseInt(args[++i]);
+                    case "--save" -> save = Path.of(args[++i]);
+                    case "--baseline" -> baseline = Path.of(args[++i]);
+                    case "--threshold" -> threshold = Double.parseDouble(args[++i]);
+                    case "--" -> {
+                        compilerOptions.addAll(Arrays.asList(args).subList(i + 1, args.length));
+                        i = args.length;
+                    }
+                    default -> throw new IllegalArgumentException(args[i]);
+                }
+            }
+            if (iterations < 1 || warmup < 0 || threshold < 0) {
+                throw new IllegalArgumentException();
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException __) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        var corpus = corpusDirectory == null ? defaultCorpus() : corpus(corpusDirectory);
+        if (corpus.isEmpty()) {
+            System.err.println("The corpus is empty!");
+            System.exit(2);
+        }
+        var description = describe(corpus);
+        Object baselineJson = null;
+        if (baseline != null) {
+            baselineJson = Json.parse(Files.readString(baseline, StandardCharsets.UTF_8));
+            var incompatibility = incompatibility(baselineJson, description, compilerOptions);
+            if (incompatibility != null) {
+                System.err.println(incompatibility);
+                System.exit(2);
+            }
+        }
+        System.out.printf("corpus: %d file(s), %,d characters; warmup: %d, iterations: %d%n",
+                corpus.size(), ((Number) description.get("characters")).longValue(), warmup, iterations);
+
+        var results = new LinkedHashMap<String, Measurement>();
+        for (var phase : PHASES) {
+            var cliArgs = new ArrayList<>(List.of("PINS", "corpus.pins", "--exec", phase.name()));
+            cliArgs.addAll(compilerOptions);
+            var cli = PINS.tryParse(cliArgs.toArray(String[]::new));
+            if (cli.isEmpty()) {
+                System.exit(2);
+            }
+            var measurement = measure(cli.get(), corpus, warmup, iterations);
+            results.put(measurement.phase(), measurement);
+            System.out.printf(Locale.ROOT,
+                    "%-7s %10.2f ms wall %10.2f ms cpu %10.1f MB peak heap %10.1f MB allocated%n", measurement.phase(), measurement.wallMillis(), measurement.cpuMillis(),
+                    measurement.peakHeapBytes() / (1 << 20), measurement.allocatedBytes() / (1 << 20));
+        }
+
+        if (save != null) {
+            var json = new LinkedHashMap<String, Object>();
+            json.put("environment", Harness.environment());
+            json.put("corpus", description);
+            json.put("compilerOptions", compilerOptions);
+            json.put("iterations", iterations);
+            var phases = new LinkedHashMap<String, Object>();
+            results.forEach((phase, measurement) -> phases.put(phase, measurement.toJson()));
+            json.put("phases", phases);
+            Files.writeString(save, Json.write(json) + "\n", StandardCharsets.UTF_8);
+            System.out.println("Saved baseline to " + save);
+        }
+        if (baselineJson != null) {
+            System.exit(compare(baselineJson, results, threshold));
+        }
+    }
+
+    // --------------------------------------------------------------
+    // Korpus.
+
+    private static List<Source> defaultCorpus() throws Exception {
+        var corpus = new ArrayList<Source>();
+        corpus.add(new Source("src/source.txt", SourceText.of(Files.readString(Path.of("src/source.txt")))));
+        for (var generated : GENERATED) {
+            var options = ProgramGenerator.Options.defaults(generated[0], generated[1]);
+            corpus.add(new Source("ProgramGenerator --seed " + generated[0] + " --size " + generated[1],
+                    SourceText.of(ProgramGenerator.generate(options))));
+        }
+        return corpus;
+    }
+
+    private static List<Source> corpus(Path directory) throws Exception {
+        List<Path> files;
+        try (var paths = Files.walk(directory)) {
+            files = paths.filter(path -> path.toString().endsWith(".pins") && Files.isRegularFile(path))
+                    .sorted()
+                    .toList();
+        }
+        var corpus = new ArrayList<Source>();
+        for (var file : files) {
+            corpus.add(new Source(file.toString(), SourceText.of(Files.readString(file))));
+        }
+        return corpus;
+    }
+
+    /**
+     * Velikost in kontrolna vsota korpusa, da meritve primerjamo le z
+     * osnovo, zapisano na enakem korpusu.
+     */
+    private static Map<String, Object> describe(List<Source> corpus) {
+        var crc = new CRC32();
+        long characters = 0;
+        for (var source : corpus) {
+            var text = source.text().toString();
+            crc.update(text.getBytes(StandardCharsets.UTF_8));
+            characters += text.length();
+        }
+        var description = new LinkedHashMap<String, Object>();
+        description.put("files", corpus.size());
+        description.put("characters", characters);
+        description.put("crc32", crc.getValue());
+        return description;
+    }
+
+    // --------------------------------------------------------------
+    // Merjenje.
+
+    /**
+     * Izmeri `iterations` prehodov čez korpus in vrne mediane meritev
+     * zadnje faze, ki jo prevajalnik izvede (`--exec`).
+     *
+     * Procesorski čas in alocirane bajte štejemo za trenutno nit; privzeto
+     * prevajalnik dela v eni niti (`--lex-threads` in `--parse-threads`
+     * ju delita med več niti, ki jih ta meritev ne zajame).
+     */
+    private static Measurement measure(PINS cli, List<Source> corpus, int warmup, int iterations) {
+        var out = new PrintStream(OutputStream.nullOutputStream(), false, StandardCharsets.UTF_8);
+        for (int i = 0; i < warmup; i++) {
+            compile(cli, corpus, out);
+        }
+        var pools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        var wall = new double[iterations];
+        var cpu = new double[iterations];
+        var peak = new double[iterations];
+        var allocated = new double[iterations];
+        String phase = null;
+        for (int i = 0; i < iterations; i++) {
+            System.gc();
+            pools.forEach(MemoryPoolMXBean::resetPeakUsage);
+            var last = compile(cli, corpus, out);
+            phase = last.phase();
+            wall[i] = last.wallNanos() / 1e6;
+            cpu[i] = last.cpuNanos() / 1e6;
+            allocated[i] = last.allocatedBytes();
+            peak[i] = pools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        }
+        return new Measurement(phase, median(wall), median(cpu), median(peak), median(allocated));
+    }
+
+    /**
+     * Prevede vse datoteke korpusa; korpus mora biti brez napak.
+     *
+     * @return vsoto meritev zadnje izvedene faze čez korpus (-1 za meritve,
+     *         ki jih JVM ne podpira).
+     */
+    private static Statistics.Phase compile(PINS cli, List<Source> corpus, PrintStream out) {
+        String phase = null;
+        long wall = 0;
+        long cpu = 0;
+        long allocated = 0;
+        for (var source : corpus) {
+            var diagnostics = new Diagnostics();
+            var statistics = new Statistics(Statistics.Format.TEXT);
+            try {
+                Compiler.run(cli, source.text(), out, diagnostics, statistics);
+            } catch (Diagnostics.CompilationFailed e) {
+                throw new IllegalStateException(source.name() + " does not compile with --exec "
+                        + cli.execPhase + ": " + diagnostics.all(), e);
+            }
+            var phases = statistics.phases();
+            var last = phases.get(phases.size() - 1);
+            phase = last.phase();
+            wall += last.wallNanos();
+            cpu = cpu < 0 || last.cpuNanos() < 0 ? -1 : cpu + last.cpuNanos();
+            allocated = allocated < 0 || last.allocatedBytes() < 0 ? -1 : allocated + last.allocatedBytes();
+        }
+        return new Statistics.Phase(phase, wall, cpu, allocated, 0, 0, null);
+    }
+
+    private static double median(double[] values) {
+        var sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    // --------------------------------------------------------------
+    // Primerjava z osnovo.
+
+    /**
+     * Preveri, ali je osnova zapisana na enakem korpusu in z enakimi
+     * možnostmi prevajalnika.
+     *
+     * @return opis razlike ali `null`, če sta primerljivi.
+     */
+    private static String incompatibility(Object baseline, Map<String, Object> corpus, List<String> compilerOptions) {
+        var baselineCorpus = Json.get(baseline, "corpus");
+        for (var key : corpus.keySet()) {
+            var expected = Json.get(baselineCorpus, key);
+            if (!(expected instanceof Number n) || n.longValue() != ((Number) corpus.get(key)).longValue()) {
+                return "The baseline was recorded on a different corpus (" + key + ": " + expected
+                        + ", now " + corpus.get(key) + ")!";
+            }
+        }
+        if (!Json.getList(baseline, "compilerOptions").equals(compilerOptions)) {
+            return "The baseline was recorded with compiler options "
+                    + Json.getList(baseline, "compilerOptions") + ", now " + compilerOptions + "!";
+        }
+        return null;
+    }
+
+    /**
+     * Izpiše primerjavo z osnovo.
+     *
+     * @return 0, če nobena meritev ni slabša za več kot `threshold`
+     *         odstotkov, sicer 1.
+     */
+    private static int compare(Object baseline, Map<String, Measurement> results, double threshold) {
+        System.out.println();
+        System.out.printf("%-7s %-15s %14s %14s %9s%n", "", "", "baseline", "current", "change");
+        var regressions = new ArrayList<String>();
+        for (var entry : results.entrySet()) {
+            var phase = entry.getKey();
+            var expected = Json.get(baseline, "phases", phase);
+            if (expected == null) {
+                System.out.printf("%-7s (not in the baseline)%n", phase);
+                continue;
+            }
+            var before = Measurement.fromJson(phase, expected);
+            for (var metric : METRICS) {
+                double old = before.get(metric);
+                double now = entry.getValue().get(metric);
+                double change = now == old ? 0 : 100 * (now - old) / old;
+                boolean regressed = now > old && change > threshold;
+                // Čase izpišemo na stotinko milisekunde, bajte cele.
+                var format = metric.endsWith("Bytes") ? "%.0f" : "%.2f";
+                System.out.printf(Locale.ROOT, "%-7s %-15s %14s %14s %+8.1f%%%s%n",
+                        phase, metric, String.format(Locale.ROOT, format, old), String.format(Locale.ROOT, format, now),
+                        change, regressed ? "  REGRESSION" : "");
+                if (regressed) {
+                    regressions.add(String.format(Locale.ROOT, "%s %s: " + format + " -> " + format + " (%+.1f%%)",
+                            phase, metric, old, now, change));
+                }
+            }
+        }
+        System.out.println();
+        if (regressions.isEmpty()) {
+            System.out.printf(Locale.ROOT, "No phase regressed by more than %.1f%%.%n", threshold);
+            return 0;
+        }
+        System.out.printf(Locale.ROOT, "%d measurement(s) regressed by more than %.1f%%:%n",
+                regressions.size(), threshold);
+        for (var regression : regressions) {
+            System.out.println("  " + regression);
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,227 @@
+/**
+ * @Author: turk
+ * @Description: Meritve leksikalne in sintaksne analize za spremljanje med izdajami.
+ */
+
+package bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import cli.PINS;
+import cli.PINS.Phase;
+import common.Diagnostics;
+import common.Json;
+import compiler.Compiler;
+import compiler.lexer.Lexer;
+import compiler.lexer.SourceText;
+import compiler.lexer.TokenStream;
+import compiler.parser.Parser;
+
+public class PipelineBenchmark {
+    /**
+     * Velikosti vhodov v bajtih.
+     */
+    private static final Map<String, Integer> SIZES = new LinkedHashMap<>();
+
+    static {
+        SIZES.put("small", 4 << 10);
+        SIZES.put("medium", 1 << 20);
+        SIZES.put("huge", 16 << 20);
+    }
+
+    /**
+     * Meritve:
+     *
+     * - `Lexer.scan`: seznam simbolov (`Lexer.scan()`),
+     * - `Lexer.tokenize`: simboli v `TokenStream`, kot jih uporablja prevajalnik,
+     * - `Parser.parse`: sintaksna analiza z gradnjo drevesa iz že pripravljenih
+     *   simbolov, brez izpisa produkcij,
+     * - `Parser.parse+dump`: enako, z izpisom produkcij (`--dump SYN`),
+     * - `LEX+SYN`: `Compiler.run()` z `--exec SYN`,
+     * - `LEX+SYN+dump`: enako, z `--dump LEX,SYN`.
+     *
+     * Izpis gre v tok, ki vse zavrže, tako da merimo oblikovanje izpisa, ne
+     * pa pisanja na disk.
+     */
+    private static final List<String> BENCHMARKS = List.of(
+            "Lexer.scan", "Lexer.tokenize", "Parser.parse", "Parser.parse+dump", "LEX+SYN", "LEX+SYN+dump");
+
+    private static final String USAGE = """
+            Usage: PipelineBenchmark [options]
+              --source <file>         definitions to replicate (default src/source.txt)
+              --seed <n>              use programs from ProgramGenerator instead
+              --sizes <a,b,...>       inputs: small (4 KB), medium (1 MB), huge (16 MB)
+              --benchmarks <a,b,...>  %s
+              --forks <n>             JVMs per benchmark, 0 runs in this JVM (default 1)
+              --warmup <n>            warmup iterations (default 5)
+              --iterations <n>        measured iterations (default 5)
+              --time <ms>             minimum iteration time (default 1000)
+              --json <file>           also write results as JSON""".formatted(String.join(",", BENCHMARKS));
+
+    /**
+     * Uporaba: `PipelineBenchmark [možnosti]` (glej `USAGE`).
+     *
+     * Definicije iz datoteke ponavlja, ločene s podpičjem, dokler vhod ne
+     * doseže velikosti; vsako meritev izvede na vsakem vhodu in izpiše
+     * simbole na sekundo, MB na sekundo in alocirane bajte na simbol.
+     * Rezultate z `--json` lahko shranimo in primerjamo med izdajami.
+     */
+    public static void main(String[] args) throws Exception {
+        var source = "src/source.txt";
+        var sizes = new ArrayList<>(SIZES.keySet());
+        var benchmarks = new ArrayList<>(BENCHMARKS);
+        int forks = 1;
+        int warmup = 5;
+        int iterations = 5;
+        long time = 1000;
+        Long seed = null;
+        Path json = null;
+        String[] run = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--source" -> source = args[++i];
+                    case "--seed" -> seed = Long.parseLong(args[++i]);
+                    case "--sizes" -> sizes = new ArrayList<>(List.of(args[++i].split(",")));
+                    case "--benchmarks" -> benchmarks = new ArrayList<>(List.of(args[++i].split(",")));
+                    case "--forks" -> forks = Integer.parseInt(args[++i]);
+                    case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+                    case "--iterations" -> iterations = Integer.parseInt(args[++i]);
+                    case "--time" -> time = Long.parseLong(args[++i]);
+                    case "--json" -> json = Path.of(args[++i]);
+                    // Ena meritev v novem JVM (`Harness.fork()`).
+                    case "--run" -> run = new String[] { args[++i], args[++i] };
+                    default -> throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException __) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        for (var size : sizes) {
+            if (!SIZES.containsKey(size)) {
+                System.err.println("Unknown input size " + size + "!");
+                System.exit(2);
+            }
+        }
+        for (var benchmark : benchmarks) {
+            if (!BENCHMARKS.contains(benchmark)) {
+                System.err.println("Unknown benchmark " + benchmark + "!");
+                System.exit(2);
+            }
+        }
+        var options = new Harness.Options(forks, warmup, iterations, Math.max(1, time));
+        var unit = Files.readString(Path.of(source)).strip();
+
+        if (run != null) {
+            var result = measure(run[0], run[1], input(unit, seed, run[1]), options);
+            System.out.println(Harness.RESULT + Json.write(result.toJson()));
+            return;
+        }
+
+        System.out.printf("input: %s, forks: %d, warmup: %d x %d ms, iterations: %d x %d ms%n",
+                seed == null ? source : "ProgramGenerator --seed " + seed, forks, warmup, time, iterations, time);
+        var extra = seed == null ? List.of("--source", source) : List.of("--seed", seed.toString());
+        var results = new ArrayList<Harness.Result>();
+        for (var size : sizes) {
+            for (var benchmark : benchmarks) {
+                var result = forks > 0
+                        ? Harness.fork(PipelineBenchmark.class, benchmark, size, options, extra)
+                        : measure(benchmark, size, input(unit, seed, size), options);
+                results.add(result);
+                Harness.print(List.of(result), System.err);
+            }
+        }
+        System.out.println();
+        Harness.print(results, System.out);
+        if (json != null) {
+            Files.writeString(json, Harness.toJson(results, options) + "\n", StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Vhod velikosti `size`: ponovljene definicije `unit` ali, če je podano
+     * seme, program iz `ProgramGenerator`.
+     */
+    private static String input(String unit, Long seed, String size) {
+        return seed == null
+                ? replicate(unit, SIZES.get(size))
+                : ProgramGenerator.generate(ProgramGenerator.Options.defaults(seed, SIZES.get(size)));
+    }
+
+    /**
+     * Izvede meritev `benchmark` na vhodu `source` z imenom `size` v tem JVM.
+     */
+    private static Harness.Result measure(String benchmark, String size, String source, Harness.Options options)
+            throws Exception {
+        var text = SourceText.of(source);
+        var tokens = new Lexer(text, Lexer.Engine.DFA, new Diagnostics()).tokenize();
+        long bytes = source.getBytes(StandardCharsets.UTF_8).length;
+        var discard = new PrintStream(OutputStream.nullOutputStream(), false, StandardCharsets.UTF_8);
+
+        Harness.Operation operation = switch (benchmark) {
+            case "Lexer.scan" -> () -> lexer(source).scan();
+            case "Lexer.tokenize" -> () -> lexer(source).tokenize();
+            case "Parser.parse" -> () -> parse(tokens, Optional.empty());
+            case "Parser.parse+dump" -> () -> parse(tokens, Optional.of(discard));
+            case "LEX+SYN" -> compile(text, discard, Set.of(), "--exec", "SYN");
+            case "LEX+SYN+dump" -> compile(text, discard, Set.of(Phase.LEX, Phase.SYN),
+                    "--exec", "SYN", "--dump", "LEX,SYN");
+            default -> throw new IllegalArgumentException("Unknown benchmark " + benchmark + "!");
+        };
+        return Harness.measure(benchmark, size, bytes, tokens.size(), operation, options);
+    }
+
+    /**
+     * Nov analizator nad nizom, kot ga je prej ustvaril `new Lexer(source)`.
+     */
+    private static Lexer lexer(String source) {
+        return new Lexer(SourceText.of(source), Lexer.Engine.DFA, new Diagnostics());
+    }
+
+    private static Object parse(TokenStream tokens, Optional<PrintStream> productions) {
+        return new Parser(tokens, productions, new Diagnostics()).parse();
+    }
+
+    /**
+     * Prevajanje z `Compiler.run()` in danimi nastavitvami. Preveri, da
+     * nastavitve izpišejo natanko faze `dumps` in ne dodajo izvornih
+     * datotek, sicer bi merili nekaj drugega, kot izpišemo.
+     */
+    private static Harness.Operation compile(SourceText text, PrintStream out, Set<Phase> dumps, String... options) {
+        var args = new ArrayList<String>(List.of("PINS", "benchmark.pins"));
+        args.addAll(List.of(options));
+        var cli = PINS.tryParse(args.toArray(String[]::new)).orElseThrow();
+        if (!dumps.equals(cli.dumpPhases) || !cli.sourceFiles.equals(List.of("benchmark.pins"))) {
+            throw new IllegalStateException("Options " + List.of(options) + " parse as --dump " + cli.dumpPhases
+                    + " with sources " + cli.sourceFiles + "!");
+        }
+        return () -> {
+            var diagnostics = new Diagnostics();
+            Compiler.run(cli, text, out, diagnostics);
+            return diagnostics;
+        };
+    }
+
+    /**
+     * Ponavlja definicije, ločene s podpičjem, do vsaj `size` znakov.
+     */
+    private static String replicate(String unit, int size) {
+        var sb = new StringBuilder(size + unit.length() + 2);
+        sb.append(unit);
+        while (sb.length() < size) {
+            sb.append(";\n").append(unit);
+        }
+        return sb.toString();
+    }
+}
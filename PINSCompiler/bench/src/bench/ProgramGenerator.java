@@ -0,0 +1,528 @@
+/**
+ * @Author: turk
+ * @Description: Generator naključnih, sintaksno pravilnih programov PINS.
+ */
+
+package bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import compiler.lexer.TokenType;
+
+/**
+ * Ustvari program, ki ga sprejme sintaksni analizator (`pins.grammar`):
+ * definicije tipov, spremenljivk in funkcij, gnezdene funkcije v
+ * `{ where ... }`, bloke `while`, `for` in `if`, prirejanja, zaporedja,
+ * klice, indeksiranje tabel (`a[N]`), dolge verige operatorjev in komentarje.
+ *
+ * Za isto seme in nastavitve je izpis vedno enak. Program se piše sproti,
+ * zato je lahko velik tudi več gigabajtov.
+ *
+ * Uporaba:
+ *
+ *     ProgramGenerator [--seed n] [--size 64M] [--depth n] [--vocabulary n]
+ *                      [--comments p] [--chain n] [--definition 2K] [--out datoteka]
+ */
+public class ProgramGenerator {
+    /**
+     * Nastavitve oblike programa.
+     *
+     * @param seed Seme naključnega generatorja.
+     * @param size Najmanjša velikost programa v znakih; generator konča z
+     *             definicijo, ki to velikost preseže.
+     * @param depth Največja globina gnezdenja izrazov in definicij `where`.
+     * @param vocabulary Število različnih imen.
+     * @param comments Verjetnost komentarja na koncu vrstice (0 do 1).
+     * @param chain Največje število operandov v verigi operatorjev.
+     * @param definition Povprečna velikost definicije na najvišjem nivoju v
+     *                   znakih.
+     */
+    public static record Options(long seed, long size, int depth, int vocabulary, double comments, int chain,
+            int definition) {
+        public Options {
+            if (size < 0 || depth < 0 || vocabulary < 1 || comments < 0 || comments > 1 || chain < 1
+                    || definition < 1) {
+                throw new IllegalArgumentException("Invalid generator options!");
+            }
+        }
+
+        public static Options defaults(long seed, long size) {
+            return new Options(seed, size, 8, 1000, 0.05, 16, 2048);
+        }
+    }
+
+    /**
+     * Ključne besede in atomarni tipi, ki ne smejo biti imena.
+     */
+    private static final Set<String> RESERVED = new HashSet<>();
+
+    static {
+        for (var token : TokenType.values()) {
+            var name = token.name();
+            if (name.startsWith("KW_") || name.startsWith("AT_")) {
+                RESERVED.add(name.substring(3).toLowerCase(Locale.ROOT));
+            }
+        }
+        RESERVED.add("true");
+        RESERVED.add("false");
+    }
+
+    private static final String[] ATOM_TYPES = { "integer", "logical", "string" };
+
+    private static final String[] ADDITIVE = { " + ", " - ", " * ", " / ", " % " };
+
+    private static final String[] COMPARE = { " == ", " != ", " <= ", " >= ", " < ", " > " };
+
+    private static final String[] WORDS = {
+        "todo", "preveri", "meja", "zanka", "popravi", "kazalec", "ponovi", "indeks", "vsota", "rezultat"
+    };
+
+    private final Options options;
+    private final SplittableRandom random;
+    private final String[] names;
+    private final Writer out;
+
+    /**
+     * Medpomnilnik izpisa in število že zapisanih znakov.
+     */
+    private final StringBuilder buffer = new StringBuilder(1 << 16);
+    private long written = 0;
+
+    /**
+     * Velikost, pri kateri trenutna definicija na najvišjem nivoju ne gnezdi
+     * več.
+     */
+    private long limit = 0;
+
+    private int indent = 0;
+
+    private ProgramGenerator(Options options, Writer out) {
+        this.options = options;
+        this.random = new SplittableRandom(options.seed());
+        this.names = vocabulary(options.vocabulary(), random);
+        this.out = out;
+    }
+
+    /**
+     * Zapiše program v `out`.
+     */
+    public static void generate(Options options, Writer out) throws IOException {
+        new ProgramGenerator(options, out).program();
+    }
+
+    /**
+     * Vrne program kot niz (za meritve).
+     */
+    public static String generate(Options options) {
+        if (options.size() > Integer.MAX_VALUE - (1 << 24)) {
+            throw new IllegalArgumentException("Program of " + options.size() + " characters does not fit a string!");
+        }
+        var out = new StringWriter((int) options.size() + (1 << 12));
+        try {
+            generate(options, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        long seed = 1;
+        long size = 1 << 20;
+        int depth = 8;
+        int vocabulary = 1000;
+        double comments = 0.05;
+        int chain = 16;
+        int definition = 2048;
+        Path file = null;
+        Options options = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--seed" -> seed = Long.parseLong(args[++i]);
+                    case "--size" -> size = parseSize(args[++i]);
+                    case "--depth" -> depth = Integer.parseInt(args[++i]);
+                    case "--vocabulary" -> vocabulary = Integer.parseInt(args[++i]);
+                    case "--comments" -> comments = Double.parseDouble(args[++i]);
+                    case "--chain" -> chain = Integer.parseInt(args[++i]);
+                    case "--definition" -> definition = (int) parseSize(args[++i]);
+                    case "--out" -> file = Path.of(args[++i]);
+                    default -> throw new IllegalArgumentException(args[i]);
+                }
+            }
+            options = new Options(seed, size, depth, vocabulary, comments, chain, definition);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException __) {
+            System.err.println("Usage: ProgramGenerator [--seed <n>] [--size <n>[K|M|G]] [--depth <n>]"
+                    + " [--vocabulary <n>] [--comments <0..1>] [--chain <n>] [--definition <n>[K|M]] [--out <file>]");
+            System.exit(2);
+        }
+        try (var writer = file == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)
+                : Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            generate(options, writer);
+        }
+    }
+
+    /**
+     * Velikost s pripono `K`, `M` ali `G` (potence 1024).
+     */
+    static long parseSize(String text) {
+        var upper = text.trim().toUpperCase(Locale.ROOT);
+        int shift = 0;
+        if (upper.endsWith("K")) {
+            shift = 10;
+        } else if (upper.endsWith("M")) {
+            shift = 20;
+        } else if (upper.endsWith("G")) {
+            shift = 30;
+        }
+        if (shift > 0) {
+            upper = upper.substring(0, upper.length() - 1);
+        }
+        return Long.parseLong(upper) << shift;
+    }
+
+    /**
+     * Ustvari `count` različnih imen iz zlogov (imena so brez števk).
+     */
+    private static String[] vocabulary(int count, SplittableRandom random) {
+        var consonants = "bcdfghjklmnprstvz";
+        var vowels = "aeiou";
+        var names = new HashSet<String>();
+        var list = new ArrayList<String>(count);
+        int syllables = 1;
+        int attempts = 0;
+        while (list.size() < count) {
+            var sb = new StringBuilder();
+            int n = syllables + random.nextInt(2);
+            for (int i = 0; i < n; i++) {
+                sb.append(consonants.charAt(random.nextInt(consonants.length())));
+                sb.append(vowels.charAt(random.nextInt(vowels.length())));
+            }
+            if (random.nextInt(8) == 0) {
+                sb.append('_').append(consonants.charAt(random.nextInt(consonants.length())));
+            }
+            var name = sb.toString();
+            if (!RESERVED.contains(name) && names.add(name)) {
+                list.add(name);
+                attempts = 0;
+            } else if (++attempts > 32) {
+                // Kratka imena so pošla.
+                syllables++;
+                attempts = 0;
+            }
+        }
+        return list.toArray(String[]::new);
+    }
+
+    // --------------------------------------------------------------
+    // Izpis.
+
+    private void emit(String text) throws IOException {
+        buffer.append(text);
+        written += text.length();
+        if (buffer.length() >= 1 << 16) {
+            out.append(buffer);
+            buffer.setLength(0);
+        }
+    }
+
+    /**
+     * Nova vrstica z zamikom, po potrebi s komentarjem na koncu prejšnje.
+     */
+    private void newline() throws IOException {
+        if (random.nextDouble() < options.comments()) {
+            emit("  # " + WORDS[random.nextInt(WORDS.length)] + " " + name());
+        }
+        emit("\n");
+        for (int i = 0; i < indent; i++) {
+            emit("    ");
+        }
+    }
+
+    private boolean exhausted() {
+        return written >= limit;
+    }
+
+    private boolean chance(int percent) {
+        return random.nextInt(100) < percent;
+    }
+
+    private String name() {
+        // Pogostejša imena na začetku besednjaka, kot v pravih programih.
+        int i = random.nextInt(names.length);
+        return names[random.nextBoolean() ? i : random.nextInt(i + 1)];
+    }
+
+    // --------------------------------------------------------------
+    // Slovnica.
+
+    private void program() throws IOException {
+        boolean first = true;
+        do {
+            if (!first) {
+                emit(";");
+                newline();
+            }
+            first = false;
+            if (random.nextDouble() < options.comments()) {
+                emit("# " + WORDS[random.nextInt(WORDS.length)] + " " + name() + "\n");
+            }
+            // Velikost definicije je med polovico in trikratnikom povprečja.
+            limit = written + options.definition() / 2 + random.nextInt(options.definition() * 5 / 2 + 1);
+            definition(options.depth());
+        } while (written < options.size());
+        emit("\n");
+        out.append(buffer);
+        buffer.setLength(0);
+        out.flush();
+    }
+
+    private void definitions(int depth) throws IOException {
+        int count = 1 + random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                emit(";");
+                newline();
+            }
+            definition(depth);
+        }
+    }
+
+    private void definition(int depth) throws IOException {
+        int kind = random.nextInt(10);
+        if (kind == 0) {
+            emit("typ " + name() + " : ");
+            type();
+        } else if (kind <= 2) {
+            emit("var " + name() + " : ");
+            type();
+        } else {
+            function(depth);
+        }
+    }
+
+    private void type() throws IOException {
+        // Imenu tipa mora slediti atomarni tip (`pins.grammar`).
+        if (chance(10)) {
+            emit(name() + " ");
+        }
+        emit(ATOM_TYPES[random.nextInt(ATOM_TYPES.length)]);
+    }
+
+    private void function(int depth) throws IOException {
+        emit("fun " + name() + "(");
+        int parameters = 1 + random.nextInt(4);
+        for (int i = 0; i < parameters; i++) {
+            if (i > 0) {
+                emit(", ");
+            }
+            emit(name() + " : ");
+            type();
+        }
+        emit(") : ");
+        type();
+        emit(" = ");
+        indent++;
+        expression(depth);
+        if (depth > 0 && !exhausted() && chance(40)) {
+            emit(" {");
+            newline();
+            emit("where");
+            indent++;
+            newline();
+            definitions(depth - 1);
+            indent--;
+            newline();
+            emit("}");
+        }
+        indent--;
+    }
+
+    /**
+     * Izraz, ki gnezdi največ `depth` nivojev.
+     */
+    private void expression(int depth) throws IOException {
+        if (depth == 0 || exhausted() || chance(15)) {
+            chain(depth);
+            return;
+        }
+        switch (random.nextInt(6)) {
+            case 0 -> {
+                emit("{while ");
+                chain(0);
+                emit(" :");
+                body(depth - 1);
+            }
+            case 1 -> {
+                emit("{for " + name() + " = ");
+                chain(0);
+                emit(", ");
+                chain(0);
+                emit(", ");
+                chain(0);
+                emit(" :");
+                body(depth - 1);
+            }
+            case 2 -> {
+                emit("{if ");
+                chain(0);
+                emit(" then");
+                indent++;
+                newline();
+                expression(depth - 1);
+                indent--;
+                if (chance(50)) {
+                    newline();
+                    emit("else");
+                    indent++;
+                    newline();
+                    expression(depth - 1);
+                    indent--;
+                }
+                newline();
+                emit("}");
+            }
+            case 3 -> {
+                emit("{");
+                target(depth - 1);
+                emit(" = ");
+                expression(depth - 1);
+                emit("}");
+            }
+            default -> sequence(depth - 1);
+        }
+    }
+
+    /**
+     * Telo zanke in zaključni `}`.
+     */
+    private void body(int depth) throws IOException {
+        indent++;
+        newline();
+        expression(depth);
+        indent--;
+        newline();
+        emit("}");
+    }
+
+    /**
+     * Zaporedje izrazov `( e, e, ... )`, vsak v svoji vrstici.
+     */
+    private void sequence(int depth) throws IOException {
+        int count = 1 + random.nextInt(4);
+        emit("(");
+        indent++;
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                emit(",");
+            }
+            newline();
+            expression(depth);
+        }
+        indent--;
+        newline();
+        emit(")");
+    }
+
+    /**
+     * Leva stran prirejanja.
+     */
+    private void target(int depth) throws IOException {
+        emit(name());
+        if (chance(30)) {
+            emit("[");
+            chain(Math.min(depth, 1));
+            emit("]");
+        }
+    }
+
+    /**
+     * Veriga binarnih operatorjev. Primerjave niso asociativne, zato je med
+     * dvema `&` ali `|` največ ena.
+     */
+    private void chain(int depth) throws IOException {
+        int operands = 1 + random.nextInt(options.chain());
+        boolean compared = false;
+        for (int i = 0; i < operands; i++) {
+            if (i > 0) {
+                int op = random.nextInt(10);
+                if (op < 2) {
+                    emit(op == 0 ? " & " : " | ");
+                    compared = false;
+                } else if (op < 4 && !compared) {
+                    emit(COMPARE[random.nextInt(COMPARE.length)]);
+                    compared = true;
+                } else {
+                    emit(ADDITIVE[random.nextInt(ADDITIVE.length)]);
+                }
+                if (i % 8 == 0) {
+                    newline();
+                }
+            }
+            operand(depth);
+        }
+    }
+
+    private void operand(int depth) throws IOException {
+        int prefix = random.nextInt(20);
+        if (prefix == 0) {
+            emit("-");
+        } else if (prefix == 1) {
+            emit("!");
+        } else if (prefix == 2) {
+            emit("+");
+        }
+        int kind = random.nextInt(20);
+        if (kind < 7) {
+            emit(name());
+        } else if (kind < 11) {
+            emit(Integer.toString(random.nextInt(kind == 7 ? 100_000 : 100)));
+        } else if (kind == 11) {
+            emit(random.nextBoolean() ? "true" : "false");
+        } else if (kind == 12) {
+            emit(random.nextInt(8) == 0 ? "'it''s " + name() + "'" : "'" + name() + "'");
+        } else if (kind < 16) {
+            // Indeksiranje tabele; za `]` slovnica ne dovoli novega indeksa.
+            emit(name() + "[");
+            if (depth > 0 && !exhausted() && chance(30)) {
+                chain(depth - 1);
+            } else {
+                emit(Integer.toString(random.nextInt(1000)));
+            }
+            emit("]");
+        } else if (kind < 18) {
+            emit(name() + "(");
+            int arguments = 1 + random.nextInt(3);
+            for (int i = 0; i < arguments; i++) {
+                if (i > 0) {
+                    emit(", ");
+                }
+                if (depth > 0 && !exhausted() && chance(30)) {
+                    expression(depth - 1);
+                } else {
+                    operand(0);
+                }
+            }
+            emit(")");
+        } else if (depth > 0 && !exhausted()) {
+            emit("(");
+            expression(depth - 1);
+            emit(")");
+        } else {
+            emit(name());
+        }
+    }
+}
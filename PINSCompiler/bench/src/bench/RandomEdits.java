@@ -0,0 +1,300 @@
+/**
+ * @Author: turk
+ * @Description: Naključne spremembe izvorne kode za preverjanje inkrementalne analize.
+ */
+
+package bench;
+
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+
+import common.Diagnostics;
+import compiler.lexer.Lexer;
+import compiler.lexer.SourceText;
+import compiler.lexer.TokenStream;
+import compiler.lexer.TokenType;
+
+/**
+ * Ustvarja zaporedje sprememb besedila, kot jih pošlje urejevalnik:
+ * vstavljanje in brisanje delov simbolov, kopiranje kosov besedila,
+ * tipkanje definicije znak za znakom, razveljavljanje prejšnjih sprememb
+ * in občasno zamenjavo celotnega besedila z novim programom. Vmesna
+ * besedila imajo pogosto leksikalne in sintaksne napake; razveljavljanje
+ * jih vrača proti pravilnemu programu.
+ *
+ * Take spremembe izmenjujejo nize sprememb, ki pravilen program ohranijo
+ * pravilnega: zamenjava, vstavljanje in brisanje celotnih definicij na
+ * najvišji ravni, preimenovanje imena ter vstavljanje praznih znakov in
+ * komentarjev med simbole. Po vsakem nizu poljubnih sprememb jih
+ * razveljavimo do začetka niza, zato se pravilni niz začne s pravilnim
+ * programom, če je bil pravilen začetni program. Za isto seme je zaporedje
+ * vedno enako.
+ */
+final class RandomEdits {
+    /**
+     * Sprememba: na odmiku `offset` zamenja `removed` znakov z `inserted`.
+     */
+    static record Edit(int offset, int removed, String inserted) {}
+
+    /**
+     * Kosi besedila za vstavljanje; `$` in nezaključen niz sta leksikalni
+     * napaki.
+     */
+    private static final String[] SNIPPETS = {
+        "var", "typ", "fun", "where", "if", "then", "else", "while", "for", "integer", "string", "logical",
+        " x", "y1", "abc", "42", "true", ":", ";", ";\n", "\n", "\r\n", " ", "\t", "(", ")", "[", "]", "{", "}",
+        "=", "==", "+", "*", ",", "'", "'niz'", "# komentar\n", "#", "$", "arr [10] ",
+        "var v : integer;\n", "fun f(a : integer) : integer = a + 1;\n", "typ t : arr [10] integer;\n",
+        "{ where var z : integer }", "{ x = x + 1 }", "(1, 2)",
+    };
+
+    /**
+     * Definicije, ki jih vstavljamo med pravilnimi spremembami.
+     */
+    private static final String[] DEFINITIONS = {
+        "var v : integer",
+        "typ t : integer",
+        "fun f(a : integer) : integer = a + 1",
+        "fun h(n : integer, s : string) : logical = {if n < 10 then {n = n + 1} else {s = 'niz'}}",
+        "fun w(n : integer) : integer = (n * 2 { where var z : integer; typ u : logical })",
+    };
+
+    /**
+     * Prazni znaki in komentarji, ki jih vstavljamo pred simbole.
+     */
+    private static final String[] BLANKS = { " ", "  ", "\t", "\n", "\r\n", "\n\n", "# komentar\n", " # x = 1;\n" };
+
+    /**
+     * Največja dolžina niza pravilnih oziroma poljubnih sprememb. Niz
+     * poljubnih sprememb podaljša tipkanje definicij, razveljavljanje pa ga
+     * podvoji, zato so pravilni nizi daljši.
+     */
+    private static final int VALID_RUN = 300;
+    private static final int RUN = 40;
+
+    /**
+     * Definicije, ki jih "tipkamo" znak za znakom.
+     */
+    private static final String[] TYPED = {
+        "var typed : integer;\n",
+        "fun g(p : integer, q : string) : logical = p < 10 & q == q;\n",
+        "typ matrix : arr [4] arr [4] integer;\n",
+    };
+
+    private final SplittableRandom random;
+    private final StringBuilder text;
+
+    /**
+     * Znaki, ki jih še natipkamo, in odmik naslednjega.
+     */
+    private final ArrayDeque<Character> typing = new ArrayDeque<>();
+    private int typingOffset;
+
+    /**
+     * Spremembe, ki razveljavijo dosedanje.
+     */
+    private final ArrayDeque<Edit> undo = new ArrayDeque<>();
+
+    /**
+     * Ali teče niz pravilnih sprememb, koliko sprememb niza še ostane in ali
+     * razveljavljamo niz poljubnih sprememb do globine `mark`.
+     */
+    private boolean valid = true;
+    private int remaining;
+    private boolean rollback = false;
+    private int mark = 0;
+
+    RandomEdits(long seed, String text) {
+        this.random = new SplittableRandom(seed);
+        this.text = new StringBuilder(text);
+        this.remaining = 1 + random.nextInt(VALID_RUN);
+    }
+
+    /**
+     * Besedilo po vseh spremembah doslej.
+     */
+    String text() {
+        return text.toString();
+    }
+
+    /**
+     * Ustvari naslednjo spremembo in jo uveljavi na `text()`.
+     */
+    Edit next() {
+        if (!typing.isEmpty()) {
+            var edit = new Edit(typingOffset++, 0, String.valueOf(typing.removeFirst()));
+            return apply(edit);
+        }
+        if (rollback) {
+            if (undo.size() > mark) {
+                return undo();
+            }
+            rollback = false;
+            valid = true;
+            remaining = 1 + random.nextInt(VALID_RUN);
+        }
+        if (remaining == 0) {
+            if (!valid) {
+                rollback = true;
+                return next();
+            }
+            valid = false;
+            mark = undo.size();
+            remaining = 1 + random.nextInt(RUN);
+        }
+        remaining--;
+        if (valid) {
+            var edit = validEdit();
+            if (edit != null) {
+                return edit;
+            }
+        }
+        int length = text.length();
+        int offset = random.nextInt(length + 1);
+        int kind = random.nextInt(100);
+        if (kind < 55 && undo.size() > mark) {
+            return undo();
+        }
+        kind = random.nextInt(100);
+        if (kind < 30) {
+            return apply(new Edit(offset, 0, snippet()));
+        } else if (kind < 55) {
+            return apply(new Edit(offset, random.nextInt(Math.min(12, length - offset) + 1), ""));
+        } else if (kind < 70) {
+            return apply(new Edit(offset, random.nextInt(Math.min(8, length - offset) + 1), snippet()));
+        } else if (kind < 85) {
+            int from = random.nextInt(length + 1);
+            int to = Math.min(length, from + random.nextInt(60));
+            return apply(new Edit(offset, 0, text.substring(from, to)));
+        } else if (kind < 98) {
+            // Definicijo začnemo tipkati na začetku vrstice.
+            int lineStart = text.lastIndexOf("\n", Math.max(offset - 1, 0));
+            typingOffset = lineStart < 0 || offset == 0 ? 0 : lineStart + 1;
+            for (char c : TYPED[random.nextInt(TYPED.length)].toCharArray()) {
+                typing.addLast(c);
+            }
+            return next();
+        }
+        var program = ProgramGenerator.generate(
+                new ProgramGenerator.Options(random.nextLong(), 2000 + random.nextInt(8000), 4, 40, 0.1, 4, 200));
+        return apply(new Edit(0, length, program));
+    }
+
+    /**
+     * Razveljavi zadnjo spremembo, ki še ni razveljavljena; če je ni, vrne
+     * `next()`.
+     */
+    Edit undo() {
+        if (!typing.isEmpty() || undo.isEmpty()) {
+            return next();
+        }
+        var edit = undo.removeLast();
+        text.replace(edit.offset(), edit.offset() + edit.removed(), edit.inserted());
+        return edit;
+    }
+
+    /**
+     * Sprememba, ki pravilen program ohrani pravilnega, ali `null`, če
+     * besedilo nima simbolov.
+     */
+    private Edit validEdit() {
+        TokenStream tokens;
+        try {
+            tokens = new Lexer(SourceText.of(text.toString()), Lexer.Engine.DFA, new Diagnostics()).tokenize();
+        } catch (Diagnostics.CompilationFailed __) {
+            return null;
+        }
+        // Začetki in konci definicij na najvišji ravni.
+        int size = tokens.size();
+        var starts = new int[size];
+        var ends = new int[size];
+        var identifiers = new int[size];
+        int definitions = 0;
+        int names = 0;
+        int depth = 0;
+        int last = -1;
+        for (int i = 0; i < size; i++) {
+            var type = tokens.type(i);
+            if (type == TokenType.EOF) {
+                break;
+            }
+            if (depth == 0 && type == TokenType.OP_SEMICOLON) {
+                ends[definitions++] = tokens.end(last);
+                last = -1;
+                continue;
+            }
+            if (last < 0) {
+                starts[definitions] = tokens.start(i);
+            }
+            last = i;
+            switch (type) {
+                case OP_LPARENT, OP_LBRACKET, OP_LBRACE -> depth++;
+                case OP_RPARENT, OP_RBRACKET, OP_RBRACE -> depth--;
+                case IDENTIFIER -> identifiers[names++] = i;
+                default -> {}
+            }
+        }
+        if (last < 0) {
+            return null;
+        }
+        ends[definitions++] = tokens.end(last);
+
+        int kind = random.nextInt(100);
+        if (kind < 15 && !undo.isEmpty()) {
+            // Razveljavimo pravilno spremembo, saj pred njo ni poljubnih.
+            return undo();
+        } else if (kind < 30 && definitions > 1) {
+            int i = random.nextInt(definitions - 1);
+            int j = i + 1 + random.nextInt(definitions - i - 1);
+            return apply(new Edit(starts[i], ends[j] - starts[i], text.substring(starts[j], ends[j])
+                    + text.substring(ends[i], starts[j]) + text.substring(starts[i], ends[i])));
+        } else if (kind < 45 && definitions > 1) {
+            int i = random.nextInt(definitions);
+            return i + 1 < definitions
+                    ? apply(new Edit(starts[i], starts[i + 1] - starts[i], ""))
+                    : apply(new Edit(ends[i - 1], ends[i] - ends[i - 1], ""));
+        } else if (kind < 60) {
+            int j = random.nextInt(definitions);
+            var definition = random.nextBoolean()
+                    ? DEFINITIONS[random.nextInt(DEFINITIONS.length)]
+                    : text.substring(starts[j], ends[j]);
+            int i = random.nextInt(definitions + 1);
+            return i < definitions
+                    ? apply(new Edit(starts[i], 0, definition + ";\n"))
+                    : apply(new Edit(ends[definitions - 1], 0, ";\n" + definition));
+        } else if (kind < 80 && names > 0) {
+            int token = identifiers[random.nextInt(names)];
+            var name = random.nextBoolean() ? tokens.lexeme(identifiers[random.nextInt(names)]) : name();
+            return apply(new Edit(tokens.start(token), tokens.end(token) - tokens.start(token), name));
+        } else if (kind < 99) {
+            int token = random.nextInt(size);
+            return apply(new Edit(tokens.start(token), 0, BLANKS[random.nextInt(BLANKS.length)]));
+        }
+        var program = ProgramGenerator.generate(
+                new ProgramGenerator.Options(random.nextLong(), 2000 + random.nextInt(8000), 4, 40, 0.1, 4, 200));
+        return apply(new Edit(0, text.length(), program));
+    }
+
+    /**
+     * Novo ime iz črk (`Lexer` števk v imenu ne dovoli); z `q` se ne začne
+     * nobena ključna beseda.
+     */
+    private String name() {
+        var name = new StringBuilder("q");
+        for (int i = random.nextInt(1, 5); i > 0; i--) {
+            name.append((char) ('a' + random.nextInt(26)));
+        }
+        return name.toString();
+    }
+
+        private String snippet() {
+        return SNIPPETS[random.nextInt(SNIPPETS.length)];
+    }
+
+    private Edit apply(Edit edit) {
+        int end = edit.offset() + edit.removed();
+        undo.addLast(new Edit(edit.offset(), edit.inserted().length(), text.substring(edit.offset(), end)));
+        text.replace(edit.offset(), edit.offset() + edit.removed(), edit.inserted());
+        return edit;
+    }
+}
@@ -4,15 +4,16 @@
  */
 
 import java.io.IOException;
-import java.io.PrintStream;
-import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.Optional;
 
+import cli.Batch;
 import cli.PINS;
-import cli.PINS.Phase;
-import compiler.lexer.Lexer;
-import compiler.parser.Parser;
+import cli.Watch;
+import common.Diagnostics;
+import common.Events;
+import common.Report;
+import compiler.Compiler;
+import compiler.lexer.SourceText;
 
 public class Main {
     /**
@@ -23,6 +24,17 @@ public class Main {
     public static void main(String[] args) throws Exception {
 //        args = new String[]{"PINS", "src/source.txt", "--dump", "LEX"};
         var cli = PINS.parse(args);
+        if (cli.jfrFile().isPresent()) {
+            Events.record(cli.jfrFile().get());
+        }
+        if (cli.watch) {
+            // Spremljanje konča le, ko se zapre nadzornik datotek.
+            new Watch(cli, Paths.get("")).run(System.out, System.err);
+            return;
+        }
+        if (Batch.isBatch(cli, Paths.get(""))) {
+            System.exit(new Batch(cli, Paths.get("")).run(System.out, System.err));
+        }
         run(cli);
     }
 
@@ -31,33 +43,16 @@ public class Main {
 
 
     private static void run(PINS cli) throws IOException {
-        var sourceCode = Files.readString(Paths.get(cli.sourceFile));
-        run(cli, sourceCode);
-    }
-
-    private static void run(PINS cli, String sourceCode) {
-        /**
-         * Izvedi leksikalno analizo.
-         */
-        var symbols = new Lexer(sourceCode).scan();
-        if (cli.dumpPhases.contains(Phase.LEX)) {
-            for (var symbol : symbols) {
-                System.out.println(symbol.toString());
-            }
-        }
-        if (cli.execPhase == Phase.LEX) {
-            return;
-        }
-        /**
-         * Izvedi sintaksno analizo.
-         */
-        Optional<PrintStream> out = cli.dumpPhases.contains(Phase.SYN) 
-                ? Optional.of(System.out)
-                : Optional.empty();
-        var parser = new Parser(symbols, out);
-        parser.parse();
-        if (cli.execPhase == Phase.SYN) {
-            return;
+        var sourceCode = SourceText.open(Paths.get(cli.sourceFile));
+        var diagnostics = new Diagnostics();
+        var statistics = cli.statistics();
+        try {
+            Compiler.run(cli, sourceCode, System.out, diagnostics, statistics);
+        } catch (Diagnostics.CompilationFailed e) {
+            // Sporočila so v `diagnostics`.
         }
+        System.out.flush();
+        statistics.print(System.err, null);
+        Report.report(diagnostics);
     }
 }
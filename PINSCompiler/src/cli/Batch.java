@@ -0,0 +1,219 @@
+/**
+ * @Author: turk
+ * @Description: Paketno prevajanje več izvornih datotek.
+ */
+
+package cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * `PINS a.pins b.pins primeri/ 'testi/**.pins' ...`: argumenti so datoteke,
+ * imeniki (vse datoteke `*.pins` v njih in podimenikih) in vzorci, ki jih
+ * razširimo sami, da delujejo tudi prek strežnika in brez lupine.
+ *
+ * Datoteke se prevajajo hkrati v bazenu `ForkJoinPool` z `--jobs` nitmi;
+ * vsaka izpisuje v svoj medpomnilnik. Izpisi in sporočila se izpišejo v
+ * vrstnem redu datotek, takoj ko so na vrsti; na koncu sledi povzetek.
+ */
+public class Batch {
+    /**
+     * Nastavitve prevajanja, skupne vsem datotekam.
+     */
+    private final PINS cli;
+
+    /**
+     * Imenik, glede na katerega se razrešijo relativne poti.
+     */
+    private final Path directory;
+
+    public Batch(PINS cli, Path directory) {
+        this.cli = cli;
+        this.directory = directory;
+    }
+
+    /**
+     * Ali argumenti zahtevajo paketno prevajanje: več argumentov, vzorec ali
+     * imenik. Ena sama datoteka se prevede tako kot doslej.
+     */
+    public static boolean isBatch(PINS cli, Path directory) {
+        if (cli.sourceFiles.size() > 1) {
+            return true;
+        }
+        return isPattern(cli.sourceFile) || Files.isDirectory(directory.resolve(cli.sourceFile));
+    }
+
+    static boolean isPattern(String arg) {
+        return arg.chars().anyMatch(c -> c == '*' || c == '?' || c == '[' || c == '{');
+    }
+
+    /**
+     * Prevedi vse datoteke.
+     *
+     * @return izhodno kodo: 1, če katera od datotek ni bila prevedena
+     *         (izjema ali manjkajoča datoteka), 99, če ima katera napake,
+     *         sicer 0.
+     */
+    public int run(PrintStream out, PrintStream err) {
+        var missing = new ArrayList<String>();
+        var files = sources(missing);
+        for (var arg : missing) {
+            err.println(arg + ": no such source file!");
+        }
+        int status = missing.isEmpty() ? 0 : 1;
+
+        long start = System.nanoTime();
+        var pool = new ForkJoinPool(Math.max(1, cli.jobs));
+        var jobs = new ArrayList<Future<Job>>();
+        for (var file : files) {
+            jobs.add(pool.submit(() -> compile(file)));
+        }
+        var done = new ArrayList<Job>();
+        try {
+            for (var future : jobs) {
+                var job = join(future);
+                if (job.output.length > 0) {
+                    out.println("==> " + job.file + " <==");
+                    out.write(job.output, 0, job.output.length);
+                    out.flush();
+                }
+                job.result.report(err, job.file);
+                err.flush();
+                done.add(job);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        for (var job : done) {
+            var result = job.result;
+            var verdict = result.failure() != null ? "failed"
+                    : result.diagnostics().hasErrors() ? result.diagnostics().errorCount() + " error(s)"
+                    : "ok";
+            err.printf(Locale.ROOT, "%-11s %7.1f ms  %s%n", verdict, job.nanos / 1e6, job.file);
+            if (status != 1 && result.status() != 0) {
+                status = result.status();
+            }
+        }
+        long ok = done.stream().filter(job -> job.result.status() == 0).count();
+        long characters = done.stream().mapToLong(job -> job.result.length()).sum();
+        err.printf(Locale.ROOT, "%d file(s): %d ok, %d with errors; %d characters in %.3f s (%.0f characters/s, %.1f files/s, %d threads)%n",
+                done.size(), ok, done.size() - ok, characters, seconds,
+                characters / seconds, done.size() / seconds, pool.getParallelism());
+        return status;
+    }
+
+    /**
+     * Prevedena datoteka.
+     *
+     * @param file Pot, kot jo izpišemo.
+     * @param output Izpis faz v UTF-8.
+     * @param result Izid prevajanja.
+     * @param nanos Čas prevajanja.
+     */
+    private static record Job(String file, byte[] output, Compilation.Result result, long nanos) {
+    }
+
+    private Job compile(String file) {
+        long start = System.nanoTime();
+        var bytes = new ByteArrayOutputStream();
+        var output = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+        var result = Compilation.run(cli, directory.resolve(file), output);
+        output.flush();
+        return new Job(file, bytes.toByteArray(), result, System.nanoTime() - start);
+    }
+
+    private static Job join(Future<Job> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Datoteke, ki jih označujejo argumenti, brez ponovitev.
+     *
+     * @param missing Sem doda argumente, ki ne označujejo nobene datoteke.
+     */
+    List<String> sources(List<String> missing) {
+        var files = new LinkedHashSet<String>();
+        for (var arg : cli.sourceFiles) {
+            List<String> matches;
+            try {
+                matches = expand(arg);
+            } catch (IOException | UncheckedIOException e) {
+                matches = List.of();
+            }
+            if (matches.isEmpty()) {
+                missing.add(arg);
+            }
+            files.addAll(matches);
+        }
+        return new ArrayList<>(files);
+    }
+
+    /**
+     * Datoteke, ki jih označuje argument, v abecednem vrstnem redu.
+     */
+    private List<String> expand(String arg) throws IOException {
+        if (isPattern(arg)) {
+            // Vzorec iščemo od najdaljše predpone brez posebnih znakov dalje.
+            var base = Path.of("");
+            for (var part : Path.of(arg)) {
+                if (isPattern(part.toString())) {
+                    break;
+                }
+                base = base.resolve(part);
+            }
+            var root = Path.of(arg).isAbsolute() ? Path.of(arg).getRoot().resolve(base) : base;
+            var matcher = root.getFileSystem().getPathMatcher("glob:" + arg);
+            if (!Files.isDirectory(directory.resolve(root))) {
+                return List.of();
+            }
+            try (var paths = Files.walk(directory.resolve(root))) {
+                return paths.filter(Files::isRegularFile)
+                        .map(path -> display(root, directory.resolve(root).relativize(path)))
+                        .filter(path -> matcher.matches(Path.of(path)))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+        }
+        var path = directory.resolve(arg);
+        if (Files.isDirectory(path)) {
+            try (var paths = Files.walk(path)) {
+                return paths.filter(Files::isRegularFile)
+                        .filter(file -> file.getFileName().toString().endsWith(".pins"))
+                        .map(file -> display(Path.of(arg), path.relativize(file)))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+        }
+        return Files.isRegularFile(path) ? List.of(arg) : List.of();
+    }
+
+    /**
+     * Pot datoteke, kot bi jo napisal uporabnik: relativna na delovni imenik.
+     */
+    private static String display(Path base, Path relative) {
+        return base.resolve(relative).toString();
+    }
+}
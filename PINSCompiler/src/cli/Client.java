@@ -0,0 +1,176 @@
+/**
+ * @Author: turk
+ * @Description: Odjemalec strežnika `Daemon`.
+ */
+
+package cli;
+
+import static cli.DaemonProtocol.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.SocketException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import common.Diagnostics;
+import common.Events;
+import common.Report;
+import compiler.Compiler;
+import compiler.lexer.SourceText;
+
+/**
+ * Uporaba enaka kot pri `Main`: `java -cp ... cli.Client PINS datoteka
+ * [--dump ...] ...`. Argumente pošlje strežniku in izpiše njegov odgovor;
+ * konča z izhodno kodo prevajanja.
+ *
+ * Razredov prevajalnika odjemalec ne nalaga, razen če strežnik ne teče;
+ * takrat program prevede sam, tako kot `Main`. Sam ga prevede tudi, če
+ * imenik vtičnice ni zaseben (`DaemonProtocol.checkDirectory()`), le da
+ * to še sporoči. Ker teče le kratek čas, ga je smiselno zagnati z
+ * `-XX:TieredStopAtLevel=1`.
+ */
+public class Client {
+    public static void main(String[] args) throws IOException {
+        if (Arrays.asList(args).contains("--watch")) {
+            // Strežnik prevaja le posamezne zahteve.
+            compileLocally(args);
+            return;
+        }
+        var socket = socketPath();
+        SocketChannel channel;
+        try {
+            checkDirectory(socket);
+            channel = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+        } catch (NoSuchFileException | SocketException __) {
+            // Strežnik ne teče.
+            compileLocally(args);
+            return;
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            compileLocally(args);
+            return;
+        }
+        int status;
+        try (channel) {
+            status = send(channel, args);
+        } catch (EOFException e) {
+            System.err.println("PINS daemon closed the connection!");
+            status = 1;
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Pošlje zahtevo in izpiše odgovor.
+     *
+     * @return izhodno kodo.
+     */
+    private static int send(SocketChannel channel, String[] args) throws IOException {
+        var out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        var in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+        new Request(System.getProperty("user.dir"), args).write(out);
+
+        var stdout = new Text(System.out);
+        var stderr = new Text(System.err);
+        while (true) {
+            byte kind = in.readByte();
+            switch (kind) {
+                case OUT -> stdout.print(in);
+                case ERR -> stderr.print(in);
+                case EXIT -> {
+                    System.out.flush();
+                    System.err.flush();
+                    return in.readInt();
+                }
+                default -> throw new IOException("Unknown frame " + kind + "!");
+            }
+        }
+    }
+
+    /**
+     * Izpis okvirjev enega toka. Bajte znaka, ki se nadaljuje v naslednjem
+     * okvirju, hrani do naslednjega okvirja.
+     */
+    private static class Text {
+        private final PrintStream out;
+        private byte[] bytes = new byte[1 << 16];
+        private int pending = 0;
+
+        Text(PrintStream out) {
+            this.out = out;
+        }
+
+        void print(DataInputStream in) throws IOException {
+            int length = in.readInt();
+            if (pending + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, pending + length);
+            }
+            in.readFully(bytes, pending, length);
+            int end = pending + length;
+            int complete = completePrefix(bytes, end);
+            out.print(new String(bytes, 0, complete, StandardCharsets.UTF_8));
+            pending = end - complete;
+            System.arraycopy(bytes, complete, bytes, 0, pending);
+        }
+
+        /**
+         * Dolžina najdaljše predpone, ki se ne konča sredi znaka UTF-8.
+         */
+        private static int completePrefix(byte[] bytes, int length) {
+            for (int i = length - 1; i >= Math.max(0, length - 3); i--) {
+                int b = bytes[i] & 0xFF;
+                if (b < 0x80) {
+                    return length;
+                }
+                if (b >= 0xC0) {
+                    int size = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : 2;
+                    return i + size <= length ? length : i;
+                }
+            }
+            return length;
+        }
+    }
+
+    /**
+     * Prevede program v tem procesu, tako kot `Main`.
+     */
+    private static void compileLocally(String[] args) throws IOException {
+        var cli = PINS.parse(args);
+        if (cli.jfrFile().isPresent()) {
+            Events.record(cli.jfrFile().get());
+        }
+        if (cli.watch) {
+            try {
+                new Watch(cli, Path.of("")).run(System.out, System.err);
+            } catch (InterruptedException __) {
+                // Spremljanje je prekinjeno.
+            }
+            return;
+        }
+        if (Batch.isBatch(cli, Path.of(""))) {
+            System.exit(new Batch(cli, Path.of("")).run(System.out, System.err));
+        }
+        var sourceCode = SourceText.open(Path.of(cli.sourceFile));
+        var diagnostics = new Diagnostics();
+        var statistics = cli.statistics();
+        try {
+            Compiler.run(cli, sourceCode, System.out, diagnostics, statistics);
+        } catch (Diagnostics.CompilationFailed e) {
+            // Sporočila so v `diagnostics`.
+        }
+        System.out.flush();
+        statistics.print(System.err, null);
+        Report.report(diagnostics);
+    }
+}
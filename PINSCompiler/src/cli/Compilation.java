@@ -0,0 +1,85 @@
+/**
+ * @Author: turk
+ * @Description: Prevajanje ene izvorne datoteke.
+ */
+
+package cli;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+import common.Diagnostics;
+import common.Report;
+import common.Statistics;
+import compiler.Compiler;
+import compiler.lexer.SourceText;
+
+/**
+ * Prevajanje ene datoteke brez izhoda iz programa, za `Daemon` in `Batch`.
+ * Izhodne kode so enake kot pri `Main`.
+ */
+final class Compilation {
+    private Compilation() {}
+
+    /**
+     * Izid prevajanja.
+     *
+     * @param status Izhodna koda: 0, 99 (napake v programu) ali 1 (izjema).
+     * @param diagnostics Sporočila prevajanja.
+     * @param failure Izjema, ki je prekinila prevajanje (`null`, če je ni bilo).
+     * @param length Dolžina izvorne kode v znakih.
+     * @param statistics Meritve faz (`--stats`).
+     */
+    static record Result(int status, Diagnostics diagnostics, Throwable failure, int length, Statistics statistics) {
+        /**
+         * Izpiše meritve faz in nato sporočila ali izjemo, v enakem vrstnem
+         * redu kot `Main`.
+         *
+         * @param file Ime datoteke, ki ga izpiše pred vsako vrstico (`null`,
+         *             če ga ne izpiše).
+         */
+        void report(PrintStream err, String file) {
+            statistics.print(err, file);
+            var prefix = file == null ? "" : file + ": ";
+            if (failure != null) {
+                err.println(prefix + failure);
+                return;
+            }
+            for (var diagnostic : diagnostics.all()) {
+                err.println(prefix + diagnostic);
+            }
+        }
+    }
+
+    /**
+     * Prevedi datoteko; vmesne rezultate izpiše na `out`.
+     */
+    static Result run(PINS cli, Path sourceFile, PrintStream out) {
+        SourceText sourceCode;
+        try {
+            sourceCode = SourceText.open(sourceFile);
+        } catch (IOException e) {
+            return new Result(1, new Diagnostics(), e, 0, Statistics.disabled());
+        }
+        return run(cli, sourceCode, out);
+    }
+
+    /**
+     * Prevedi izvorno kodo; vmesne rezultate izpiše na `out`.
+     */
+    static Result run(PINS cli, SourceText sourceCode, PrintStream out) {
+        var diagnostics = new Diagnostics();
+        var statistics = cli.statistics();
+        try {
+            Compiler.run(cli, sourceCode, out, diagnostics, statistics);
+        } catch (Diagnostics.CompilationFailed __) {
+            // Sporočila so v `diagnostics`.
+        } catch (RuntimeException | StackOverflowError e) {
+            out.flush();
+            return new Result(1, diagnostics, e, sourceCode.length(), statistics);
+        }
+        out.flush();
+        return new Result(Report.exitCode(diagnostics), diagnostics, null, sourceCode.length(), statistics);
+    }
+}
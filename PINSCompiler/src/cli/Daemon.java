@@ -0,0 +1,202 @@
+/**
+ * @Author: turk
+ * @Description: Strežnik, ki prevaja programe v enem, že ogretem JVM.
+ */
+
+package cli;
+
+import static cli.DaemonProtocol.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ConnectException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Vsak zagon `java Main PINS ...` plača zagon JVM, nalaganje razredov in
+ * prevajanje vročih metod (JIT). Strežnik teče ves čas in prevaja zahteve,
+ * ki mu jih pošilja `Client` prek vtičnice Unix (`DaemonProtocol`); vsako
+ * zahtevo v svoji navidezni niti, če jih JVM podpira (JDK 21), sicer v
+ * bazenu običajnih niti. Izpis faz in sporočila se pošiljajo sproti, izhodne
+ * kode pa so enake kot pri `Main`.
+ *
+ * Uporaba: `java -cp ... cli.Daemon [vtičnica]`. Vtičnico ustvari v imeniku,
+ * do katerega ima dostop le lastnik, in jo ob koncu izbriše. Če imenik že
+ * obstaja, a ni last uporabnika ali imajo do njega dostop tudi drugi, se ne
+ * zažene (`DaemonProtocol.checkDirectory()`).
+ */
+public class Daemon {
+    /**
+     * Velikost medpomnilnika za izpis; izpis faz pošiljamo v okvirjih te
+     * velikosti.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Pot vtičnice.
+     */
+    private final Path socket;
+
+    /**
+     * Niti, ki obdelujejo zahteve.
+     */
+    private final ExecutorService executor;
+
+    public Daemon(Path socket) {
+        this.socket = socket;
+        this.executor = newExecutor();
+    }
+
+    public static void main(String[] args) throws IOException {
+        var socket = args.length > 0 ? Path.of(args[0]) : socketPath();
+        new Daemon(socket).serve();
+    }
+
+    /**
+     * Sprejema zahteve, dokler proces ne konča.
+     */
+    public void serve() throws IOException {
+        try (var server = bind(socket)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    Files.deleteIfExists(socket);
+                } catch (IOException __) {
+                }
+            }));
+            System.err.println("PINS daemon listening on " + socket);
+            while (true) {
+                var channel = server.accept();
+                executor.execute(() -> handle(channel));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Navidezne niti, če so na voljo, sicer bazen običajnih niti.
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException __) {
+            // JDK 17 ali JDK 19/20 brez `--enable-preview`.
+            return Executors.newCachedThreadPool(task -> {
+                var thread = new Thread(task);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private static ServerSocketChannel bind(Path socket) throws IOException {
+        var directory = socket.toAbsolutePath().getParent();
+        if (!Files.isDirectory(directory)) {
+            try {
+                Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(DIRECTORY_PERMISSIONS));
+            } catch (UnsupportedOperationException __) {
+                Files.createDirectories(directory);
+            }
+        }
+        checkDirectory(socket);
+        if (Files.exists(socket)) {
+            // Vtičnica je ostala od strežnika, ki ni končal pravilno?
+            if (isListening(socket)) {
+                throw new IOException("PINS daemon is already running on " + socket + "!");
+            }
+            Files.delete(socket);
+        }
+        var server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socket));
+        return server;
+    }
+
+    /**
+     * Ali na vtičnici `socket` posluša strežnik.
+     */
+    private static boolean isListening(Path socket) throws IOException {
+        try {
+            SocketChannel.open(UnixDomainSocketAddress.of(socket)).close();
+            return true;
+        } catch (ConnectException __) {
+            return false;
+        }
+    }
+
+    /**
+     * Obdela eno zahtevo.
+     */
+    private void handle(SocketChannel channel) {
+        try (channel) {
+            var in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            var out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            var request = Request.read(in);
+            var stdout = new PrintStream(new BufferedOutputStream(new FrameOutputStream(out, OUT), BUFFER_SIZE),
+                    false, StandardCharsets.UTF_8);
+            var stderr = new PrintStream(new BufferedOutputStream(new FrameOutputStream(out, ERR), BUFFER_SIZE),
+                    false, StandardCharsets.UTF_8);
+            int status = compile(request, stdout, stderr);
+            stdout.flush();
+            stderr.flush();
+            out.writeByte(EXIT);
+            out.writeInt(status);
+            out.flush();
+        } catch (IOException __) {
+            // Odjemalec je prekinil povezavo.
+        }
+    }
+
+    /**
+     * Prevede program tako kot `Main`.
+     *
+     * @return izhodno kodo.
+     */
+    private static int compile(Request request, PrintStream stdout, PrintStream stderr) {
+        var cli = parseArguments(request.args(), stdout);
+        if (cli.isEmpty()) {
+            return 2;
+        }
+        if (cli.get().watch) {
+            stderr.println("--watch is not supported by the PINS daemon!");
+            return 2;
+        }
+        var directory = Path.of(request.directory());
+        if (Batch.isBatch(cli.get(), directory)) {
+            return new Batch(cli.get(), directory).run(stdout, stderr);
+        }
+        var result = Compilation.run(cli.get(), directory.resolve(cli.get().sourceFile), stdout);
+        result.report(stderr, null);
+        return result.status();
+    }
+
+    /**
+     * `PINS.tryParse()` ob napaki izpiše navodila na `System.out`, zato ga
+     * med razčlenjevanjem preusmerimo na izhod odjemalca. Drugih izpisov na
+     * `System.out` strežnik nima.
+     */
+    private static synchronized Optional<PINS> parseArguments(String[] args, PrintStream out) {
+        var stdout = System.out;
+        System.setOut(out);
+        try {
+            return PINS.tryParse(args);
+        } finally {
+            System.setOut(stdout);
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * @Author: turk
+ * @Description: Protokol med strežnikom `Daemon` in odjemalcem `Client`.
+ */
+
+package cli;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+/**
+ * Odjemalec pošlje eno zahtevo na povezavo:
+ *
+ *     int MAGIC, UTF delovni imenik, int n, n x UTF argument
+ *
+ * Strežnik teče na istem računalniku, zato izvorno datoteko prebere sam
+ * (relativno na delovni imenik odjemalca).
+ *
+ * Strežnik odgovori z zaporedjem okvirjev `byte vrsta, ...`: `OUT` in `ERR`
+ * (`int dolžina`, bajti UTF-8) nosita izpis na standardni izhod oziroma
+ * izhod za napake, zadnji okvir `EXIT` (`int koda`) pa izhodno kodo. Okvir
+ * se lahko konča sredi znaka; odjemalec besedilo izpiše v kodiranju svojega
+ * terminala, tako kot bi ga `Main`.
+ */
+final class DaemonProtocol {
+    private DaemonProtocol() {}
+
+    static final int MAGIC = 0x50494E53;
+
+    static final byte OUT = 1;
+    static final byte ERR = 2;
+    static final byte EXIT = 3;
+
+    /**
+     * Privzeta pot vtičnice: `pins.socket` ali `pins-<uporabnik>/daemon.sock`
+     * v začasnem imeniku.
+     */
+    static Path socketPath() {
+        var path = System.getProperty("pins.socket");
+        if (path != null) {
+            return Path.of(path);
+        }
+        return Path.of(System.getProperty("java.io.tmpdir"), "pins-" + System.getProperty("user.name"), "daemon.sock");
+    }
+
+    /**
+     * Dovoljenja imenika vtičnice.
+     */
+    static final Set<PosixFilePermission> DIRECTORY_PERMISSIONS = PosixFilePermissions.fromString("rwx------");
+
+    /**
+     * Preveri, da je imenik vtičnice `socket` last trenutnega uporabnika in
+     * da ima dostop do njega le lastnik. Imenik v začasnem imeniku lahko
+     * ustvari kdorkoli; v tujem imeniku bi drug uporabnik lahko podtaknil
+     * svojo vtičnico in bral zahteve ali pisal odgovore. V datotečnem
+     * sistemu brez dovoljenj POSIX preveri le lastnika.
+     *
+     * @throws IOException če imenika ni ali če ni zaseben.
+     */
+    static void checkDirectory(Path socket) throws IOException {
+        var directory = socket.toAbsolutePath().getParent();
+        var user = directory.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        var owner = Files.getOwner(directory, LinkOption.NOFOLLOW_LINKS);
+        if (!owner.equals(user)) {
+            throw new IOException("Socket directory " + directory + " is owned by " + owner.getName()
+                    + ", not " + user.getName() + "!");
+        }
+        Set<PosixFilePermission> permissions;
+        try {
+            permissions = Files.getPosixFilePermissions(directory, LinkOption.NOFOLLOW_LINKS);
+        } catch (UnsupportedOperationException __) {
+            return;
+        }
+        if (!permissions.equals(DIRECTORY_PERMISSIONS)) {
+            throw new IOException("Socket directory " + directory + " has permissions "
+                    + PosixFilePermissions.toString(permissions) + ", expected "
+                    + PosixFilePermissions.toString(DIRECTORY_PERMISSIONS) + "!");
+        }
+    }
+
+    /**
+     * Zahteva za prevajanje.
+     *
+     * @param directory Delovni imenik odjemalca, glede na katerega se
+     *                  razrešijo relativne poti.
+     * @param args Argumenti ukazne vrstice (`PINS datoteka ...`).
+     */
+    static record Request(String directory, String[] args) {
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeUTF(directory);
+            out.writeInt(args.length);
+            for (var arg : args) {
+                out.writeUTF(arg);
+            }
+            out.flush();
+        }
+
+        static Request read(DataInputStream in) throws IOException {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a PINS request!");
+            }
+            var directory = in.readUTF();
+            var args = new String[in.readInt()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = in.readUTF();
+            }
+            return new Request(directory, args);
+        }
+    }
+
+    /**
+     * Tok, ki vsak zapis pošlje kot okvir vrste `kind`. Za manj okvirjev ga
+     * ovijemo v `BufferedOutputStream`.
+     */
+    static class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte kind;
+
+        FrameOutputStream(DataOutputStream out, byte kind) {
+            this.out = out;
+            this.kind = kind;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            out.writeByte(kind);
+            out.writeInt(len);
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,379 @@
+/**
+ * @Author: turk
+ * @Description: Jezikovni strežnik (LSP) za PINS.
+ */
+
+package cli;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import common.Json;
+
+/**
+ * Language Server Protocol prek standardnega vhoda in izhoda: sporočila
+ * JSON-RPC z glavo `Content-Length`.
+ *
+ * Za vsak odprt dokument hrani `LspDocument` z besedilom, simboli in
+ * drevesom; spremembe (`didChange`, `TextDocumentSyncKind.Incremental`)
+ * analizira inkrementalno. Podpira sporočila (`publishDiagnostics`),
+ * barvanje (`semanticTokens/full`) in seznam definicij (`documentSymbol`).
+ *
+ * Uporaba:
+ *
+ *     java -cp ... cli.LanguageServer [--record seja.jsonl]
+ *     java -cp ... cli.LanguageServer --replay seja.jsonl
+ *
+ * `--record` zapiše vsa sporočila odjemalca, eno na vrstico. `--replay`
+ * jih prebere iz datoteke, odgovore izpiše na standardni izhod (enega na
+ * vrstico), na izhod za napake pa čas obdelave vsakega sporočila. Izpis je
+ * neodvisen od časa, zato ga lahko primerjamo s prej posnetim
+ * (`bench.LspSessionCheck` primerja `lsp/session.jsonl` z
+ * `lsp/session.expected.jsonl`).
+ */
+public class LanguageServer {
+    /**
+     * Napake JSON-RPC.
+     */
+    private static final int PARSE_ERROR = -32700;
+    private static final int INVALID_REQUEST = -32600;
+    private static final int METHOD_NOT_FOUND = -32601;
+    private static final int INTERNAL_ERROR = -32603;
+
+    /**
+     * Rezultat `handle()` za neznano metodo (`null` je veljaven rezultat).
+     */
+    private static final Object METHOD_NOT_FOUND_RESULT = new Object();
+
+    /**
+     * Odprti dokumenti po URI.
+     */
+    private final Map<String, LspDocument> documents = new HashMap<>();
+
+    /**
+     * Kam pošiljamo odgovore in obvestila (JSON brez glave).
+     */
+    private final Consumer<String> client;
+
+    private boolean shutdown = false;
+    private boolean exit = false;
+
+    public LanguageServer(Consumer<String> client) {
+        this.client = client;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path record = null;
+        Path replay = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--record") && i + 1 < args.length) {
+                record = Path.of(args[++i]);
+            } else if (args[i].equals("--replay") && i + 1 < args.length) {
+                replay = Path.of(args[++i]);
+            } else {
+                System.err.println("Usage: LanguageServer [--record <session.jsonl>] [--replay <session.jsonl>]");
+                System.exit(2);
+            }
+        }
+        if (replay != null) {
+            System.exit(replay(replay, new PrintStream(System.out, false, StandardCharsets.UTF_8), System.err));
+        }
+        System.exit(serve(System.in, System.out, record));
+    }
+
+    /**
+     * Streže odjemalcu na `in` in `out`, dokler ne pošlje `exit` ali zapre
+     * povezave.
+     *
+     * @return izhodno kodo: 0, če je pred `exit` prejel `shutdown`, sicer 1.
+     */
+    public static int serve(InputStream in, OutputStream out, Path record) throws IOException {
+        var input = new BufferedInputStream(in);
+        var output = new BufferedOutputStream(out);
+        var server = new LanguageServer(json -> {
+            var body = json.getBytes(StandardCharsets.UTF_8);
+            try {
+                output.write(("Content-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                output.write(body);
+                output.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        var recorder = record == null ? null : Files.newBufferedWriter(record, StandardCharsets.UTF_8);
+        try {
+            while (!server.exit) {
+                String message;
+                try {
+                    message = readMessage(input);
+                } catch (EOFException __) {
+                    break;
+                }
+                if (recorder != null) {
+                    recorder.write(oneLine(message));
+                    recorder.newLine();
+                    recorder.flush();
+                }
+                server.receive(message);
+            }
+        } finally {
+            if (recorder != null) {
+                recorder.close();
+            }
+        }
+        return server.shutdown ? 0 : 1;
+    }
+
+    /**
+     * Obdela sporočila, posneta z `--record`, in izpiše odgovore.
+     *
+     * @return izhodno kodo kot `serve()`.
+     */
+    public static int replay(Path session, PrintStream out, PrintStream err) throws IOException {
+        var server = new LanguageServer(out::println);
+        for (var line : Files.readAllLines(session, StandardCharsets.UTF_8)) {
+            if (line.isBlank() || server.exit) {
+                continue;
+            }
+            long start = System.nanoTime();
+            var method = server.receive(line);
+            double millis = (System.nanoTime() - start) / 1e6;
+            err.printf(Locale.ROOT, "%-40s %8.3f ms%n", method, millis);
+        }
+        out.flush();
+        return server.shutdown ? 0 : 1;
+    }
+
+    // --------------------------------------------------------------
+    // Prenos.
+
+    /**
+     * Prebere eno sporočilo z glavo `Content-Length`.
+     */
+    private static String readMessage(InputStream in) throws IOException {
+        int length = -1;
+        while (true) {
+            var header = readLine(in);
+            if (header.isEmpty()) {
+                break;
+            }
+            int colon = header.indexOf(':');
+            if (colon > 0 && header.substring(0, colon).trim().equalsIgnoreCase("Content-Length")) {
+                var value = header.substring(colon + 1).trim();
+                try {
+                    length = Integer.parseInt(value);
+                } catch (NumberFormatException __) {
+                    length = -1;
+                }
+                if (length < 0) {
+                    throw new IOException("Invalid Content-Length: " + value + "!");
+                }
+            }
+        }
+        if (length < 0) {
+            throw new IOException("Message without Content-Length!");
+        }
+        var body = in.readNBytes(length);
+        if (body.length < length) {
+            throw new EOFException();
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        var line = new ByteArrayOutputStream();
+        while (true) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            if (b == '\n') {
+                break;
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Sporočilo v eni vrstici (za posnetek seje).
+     */
+    private static String oneLine(String message) {
+        try {
+            return Json.write(Json.parse(message));
+        } catch (IllegalArgumentException __) {
+            return message.replace("\r", "").replace("\n", " ");
+        }
+    }
+
+    // --------------------------------------------------------------
+    // Sporočila.
+
+    /**
+     * Obdela eno sporočilo odjemalca.
+     *
+     * @return ime metode (za izpis časov).
+     */
+    public String receive(String message) {
+        Object json;
+        try {
+            json = Json.parse(message);
+        } catch (IllegalArgumentException e) {
+            sendError(null, PARSE_ERROR, e.getMessage());
+            return "(invalid)";
+        }
+        var id = Json.get(json, "id");
+        var method = Json.getString(json, "method");
+        if (method == null) {
+            // Odgovor odjemalca na našo zahtevo; ne pošiljamo jih.
+            if (id == null) {
+                sendError(null, INVALID_REQUEST, "Message has no method!");
+            }
+            return "(response)";
+        }
+        try {
+            var result = handle(method, Json.get(json, "params"));
+            if (id != null) {
+                if (result == METHOD_NOT_FOUND_RESULT) {
+                    sendError(id, METHOD_NOT_FOUND, "Unknown method " + method + "!");
+                } else {
+                    var response = new LinkedHashMap<String, Object>();
+                    response.put("jsonrpc", "2.0");
+                    response.put("id", id);
+                    response.put("result", result);
+                    client.accept(Json.write(response));
+                }
+            }
+        } catch (RuntimeException | StackOverflowError e) {
+            if (id != null) {
+                sendError(id, INTERNAL_ERROR, e.toString());
+            }
+        }
+        return method;
+    }
+
+    private Object handle(String method, Object params) {
+        switch (method) {
+            case "initialize":
+                return initialize();
+            case "initialized":
+            case "$/cancelRequest":
+            case "$/setTrace":
+            case "workspace/didChangeConfiguration":
+                return null;
+            case "shutdown":
+                shutdown = true;
+                return null;
+            case "exit":
+                exit = true;
+                return null;
+            case "textDocument/didOpen": {
+                var uri = Json.getString(params, "textDocument", "uri");
+                var text = Json.getString(params, "textDocument", "text");
+                var document = new LspDocument(uri, Json.getInt(params, "textDocument", "version"),
+                        text == null ? "" : text);
+                documents.put(uri, document);
+                publishDiagnostics(document);
+                return null;
+            }
+            case "textDocument/didChange": {
+                var document = document(params);
+                document.change(Json.getInt(params, "textDocument", "version"), Json.getList(params, "contentChanges"));
+                publishDiagnostics(document);
+                return null;
+            }
+            case "textDocument/didSave":
+                return null;
+            case "textDocument/didClose": {
+                var document = documents.remove(Json.getString(params, "textDocument", "uri"));
+                if (document != null) {
+                    var notification = new LinkedHashMap<String, Object>();
+                    notification.put("uri", document.uri);
+                    notification.put("diagnostics", List.of());
+                    notify("textDocument/publishDiagnostics", notification);
+                }
+                return null;
+            }
+            case "textDocument/semanticTokens/full":
+                return document(params).semanticTokens();
+            case "textDocument/documentSymbol":
+                return document(params).symbols();
+            default:
+                return METHOD_NOT_FOUND_RESULT;
+        }
+    }
+
+    private LspDocument document(Object params) {
+        var uri = Json.getString(params, "textDocument", "uri");
+        var document = documents.get(uri);
+        if (document == null) {
+            throw new IllegalArgumentException("Document " + uri + " is not open!");
+        }
+        return document;
+    }
+
+    private Object initialize() {
+        var legend = new LinkedHashMap<String, Object>();
+        legend.put("tokenTypes", LspDocument.TOKEN_TYPES);
+        legend.put("tokenModifiers", List.of());
+        var semanticTokens = new LinkedHashMap<String, Object>();
+        semanticTokens.put("legend", legend);
+        semanticTokens.put("full", true);
+        var sync = new LinkedHashMap<String, Object>();
+        sync.put("openClose", true);
+        sync.put("change", 2);
+        var capabilities = new LinkedHashMap<String, Object>();
+        capabilities.put("textDocumentSync", sync);
+        capabilities.put("semanticTokensProvider", semanticTokens);
+        capabilities.put("documentSymbolProvider", true);
+        var result = new LinkedHashMap<String, Object>();
+        result.put("capabilities", capabilities);
+        result.put("serverInfo", Map.of("name", "PINS"));
+        return result;
+    }
+
+    private void publishDiagnostics(LspDocument document) {
+        var params = new LinkedHashMap<String, Object>();
+        params.put("uri", document.uri);
+        params.put("version", document.version);
+        params.put("diagnostics", document.diagnostics());
+        notify("textDocument/publishDiagnostics", params);
+    }
+
+    private void notify(String method, Object params) {
+        var notification = new LinkedHashMap<String, Object>();
+        notification.put("jsonrpc", "2.0");
+        notification.put("method", method);
+        notification.put("params", params);
+        client.accept(Json.write(notification));
+    }
+
+    private void sendError(Object id, int code, String message) {
+        var error = new LinkedHashMap<String, Object>();
+        error.put("code", code);
+        error.put("message", message);
+        var response = new LinkedHashMap<String, Object>();
+        response.put("jsonrpc", "2.0");
+        response.put("id", id);
+        response.put("error", error);
+        client.accept(Json.write(response));
+    }
+}
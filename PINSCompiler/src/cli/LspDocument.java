@@ -0,0 +1,486 @@
+/**
+ * @Author: turk
+ * @Description: Odprt dokument jezikovnega strežnika.
+ */
+
+package cli;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import common.Diagnostics;
+import common.Json;
+import compiler.lexer.Position;
+import compiler.lexer.SourceText;
+import compiler.lexer.TokenStream;
+import compiler.lexer.TokenType;
+import compiler.parser.IncrementalParser;
+import compiler.parser.ast.Ast;
+
+/**
+ * Hrani besedilo dokumenta in rezultate analize, iz katerih `LanguageServer`
+ * odgovarja na zahteve.
+ *
+ * Besedilo, simbole in drevo hrani `IncrementalParser` z obnavljanjem, ki
+ * po vsaki spremembi znova analizira le prizadete vrstice in definicije ter
+ * sporoči vse napake, kot bi jih celotno prevajanje (ob leksikalni napaki
+ * le to, drevo pa zgradi iz ostalih vrstic). Tudi tabela vrstic LSP se
+ * spremeni le na mestu spremembe, zato sprememba ne stane sorazmerno
+ * dolžini dokumenta. Simbole za barvanje in seznam definicij izračunamo šele ob
+ * prvi zahtevi za novo različico.
+ */
+final class LspDocument {
+    /**
+     * Vrste simbolov za barvanje (`SemanticTokensLegend.tokenTypes`).
+     */
+    static final List<String> TOKEN_TYPES = List.of("keyword", "type", "number", "string", "variable", "operator");
+
+    /**
+     * Indeks v `TOKEN_TYPES` za vsako vrsto simbola (-1: ne barvamo).
+     */
+    private static final int[] tokenTypeIndex = new int[TokenType.values().length];
+
+    static {
+        for (var type : TokenType.values()) {
+            var name = type.name();
+            tokenTypeIndex[type.ordinal()] = switch (type) {
+                case EOF -> -1;
+                case C_LOGICAL -> 0;
+                case C_INTEGER -> 2;
+                case C_STRING -> 3;
+                case IDENTIFIER -> 4;
+                case OP_LPARENT, OP_RPARENT, OP_LBRACKET, OP_RBRACKET, OP_LBRACE, OP_RBRACE,
+                        OP_COLON, OP_SEMICOLON, OP_DOT, OP_COMMA -> -1;
+                default -> name.startsWith("KW_") ? 0 : name.startsWith("AT_") ? 1 : 5;
+            };
+        }
+    }
+
+    /**
+     * Vrste simbolov LSP (`SymbolKind`) za definicije.
+     */
+    private static final int SYMBOL_CLASS = 5;
+    private static final int SYMBOL_FUNCTION = 12;
+    private static final int SYMBOL_VARIABLE = 13;
+
+    final String uri;
+
+    /**
+     * Različica, ki jo je poslal odjemalec.
+     */
+    int version;
+
+    /**
+     * Besedilo dokumenta: izvorna koda analizatorja, ki jo ta spreminja na
+     * mestu.
+     */
+    private SourceText source;
+
+    /**
+     * Odmiki začetkov vrstic LSP (vrstice ločuje `\n`). Tako kot
+     * `LineIndex` ima tabela vrzel na mestu zadnje spremembe: začetki vrstic
+     * od indeksa `gapStart` naprej ležijo `gapLength` mest dlje in so
+     * zamaknjeni za `tailShift`.
+     */
+    private int[] lineStarts = new int[64];
+    private int lineCount = 1;
+    private int gapStart;
+    private int gapLength;
+    private int tailShift;
+
+    /**
+     * Analizator za `source` (`null` po napaki v njem, dokler ga naslednja
+     * sprememba ne zgradi znova).
+     */
+    private IncrementalParser parser;
+
+    /**
+     * Simboli in drevo trenutnega besedila (po leksikalni napaki brez
+     * vrstice z napako, po sintaksni delno drevo; oboje `null` po napaki v
+     * analizatorju).
+     */
+    private TokenStream tokens;
+    private Ast ast;
+
+    /**
+     * Sporočila zadnje spremembe.
+     */
+    private Diagnostics messages;
+
+    /**
+     * Sporočila v obliki LSP `Diagnostic`.
+     */
+    private List<Object> diagnostics = List.of();
+
+    /**
+     * Odgovora za trenutno različico, izračunana ob prvi zahtevi.
+     */
+    private Json.Raw semanticTokens;
+    private Json.Raw symbols;
+
+    LspDocument(String uri, int version, String text) {
+        this.uri = uri;
+        this.version = version;
+        setLines(text);
+        rebuild(text);
+        analyze();
+    }
+
+    /**
+     * Uveljavi spremembe `didChange` (`TextDocumentContentChangeEvent`).
+     */
+    void change(int version, List<Object> changes) {
+        this.version = version;
+        for (var change : changes) {
+            var newText = Json.getString(change, "text");
+            if (newText == null) {
+                continue;
+            }
+            if (Json.get(change, "range") == null) {
+                setLines(newText);
+                if (parser == null) {
+                    rebuild(newText);
+                } else {
+                    apply(0, source.length(), newText);
+                }
+                continue;
+            }
+            int start = offset(Json.get(change, "range", "start"));
+            int end = Math.max(start, offset(Json.get(change, "range", "end")));
+            edit(start, end - start, newText);
+        }
+        analyze();
+    }
+
+    private void edit(int offset, int removed, String inserted) {
+        updateLines(offset, removed, inserted);
+        if (parser == null) {
+            var text = source.toString();
+            rebuild(text.substring(0, offset) + inserted + text.substring(offset + removed));
+        } else {
+            apply(offset, removed, inserted);
+        }
+    }
+
+    /**
+     * Analizira celotno besedilo z novim analizatorjem.
+     */
+    private void rebuild(String text) {
+        parser = new IncrementalParser(true);
+        apply(0, 0, text);
+    }
+
+    /**
+     * Spremembo prenese v analizator in si zapomni njena sporočila.
+     */
+    private void apply(int offset, int removed, String inserted) {
+        messages = new Diagnostics();
+        try {
+            ast = parser.edit(offset, removed, inserted, messages);
+            tokens = parser.tokens();
+            source = tokens.source();
+        } catch (RuntimeException | StackOverflowError e) {
+            // Sprememba je v izvorni kodi analizatorja že uveljavljena (odmika
+            // sta znotraj besedila); naslednja jo analizira v celoti.
+            source = SourceText.of(parser.tokens().source().toString());
+            parser = null;
+            tokens = null;
+            ast = null;
+            messages = new Diagnostics();
+            messages.error(e.toString());
+        }
+    }
+
+    /**
+     * Sporočila zadnje spremembe pretvori v LSP `Diagnostic` in zavrže
+     * odgovore prejšnje različice.
+     */
+    private void analyze() {
+        semanticTokens = null;
+        symbols = null;
+        var list = new ArrayList<Object>();
+        for (var diagnostic : messages.all()) {
+            var json = new LinkedHashMap<String, Object>();
+            json.put("range", range(diagnostic.position().orElse(null)));
+            json.put("severity", diagnostic.severity() == Diagnostics.Severity.ERROR ? 1 : 2);
+            json.put("source", "pins");
+            json.put("message", diagnostic.message());
+            list.add(json);
+        }
+        diagnostics = list;
+    }
+
+    /**
+     * Sporočila (seznam LSP `Diagnostic`).
+     */
+    List<Object> diagnostics() {
+        return diagnostics;
+    }
+
+    // --------------------------------------------------------------
+    // Barvanje.
+
+    /**
+     * Odgovor na `textDocument/semanticTokens/full`: simboli v relativnem
+     * zapisu LSP, za vsakega razlika vrstic, razlika stolpcev (ali stolpec v
+     * novi vrstici), dolžina, vrsta in modifikatorji.
+     */
+    Json.Raw semanticTokens() {
+        if (semanticTokens == null) {
+            var sb = new StringBuilder("{\"data\":[");
+            if (tokens != null) {
+                int line = 0;
+                int previousLine = 0;
+                int previousStart = 0;
+                boolean first = true;
+                for (int i = 0; i < tokens.size(); i++) {
+                    int type = tokenTypeIndex[tokens.type(i).ordinal()];
+                    if (type < 0) {
+                        continue;
+                    }
+                    int start = tokens.start(i);
+                    while (line + 1 < lineCount && lineStart(line + 1) <= start) {
+                        line++;
+                    }
+                    int character = start - lineStart(line);
+                    if (!first) {
+                        sb.append(',');
+                    }
+                    first = false;
+                    sb.append(line - previousLine).append(',')
+                            .append(line == previousLine ? character - previousStart : character).append(',')
+                            .append(tokens.end(i) - start).append(',')
+                            .append(type).append(",0");
+                    previousLine = line;
+                    previousStart = character;
+                }
+            }
+            semanticTokens = new Json.Raw(sb.append("]}").toString());
+        }
+        return semanticTokens;
+    }
+
+    // --------------------------------------------------------------
+    // Definicije.
+
+    /**
+     * Odgovor na `textDocument/documentSymbol`: definicije `typ`, `var` in
+     * `fun`, gnezdene definicije (`where`) kot otroci.
+     */
+    Json.Raw symbols() {
+        if (symbols == null) {
+            var sb = new StringBuilder("[");
+            if (ast != null && ast.root() != Ast.NONE) {
+                writeSymbols(ast.root(), sb);
+            }
+            symbols = new Json.Raw(sb.append(']').toString());
+        }
+        return symbols;
+    }
+
+    /**
+     * Zapiše definicije iz poddrevesa vozlišča kot LSP `DocumentSymbol`.
+     *
+     * @return zadnji simbol, ki pripada poddrevesu.
+     */
+    private int writeSymbols(int node, StringBuilder sb) {
+        int last = ast.token(node);
+        for (int child = ast.firstChild(node); child != Ast.NONE; child = ast.nextSibling(child)) {
+            int kind = switch (ast.kind(child)) {
+                case TYPE_DEFINITION -> SYMBOL_CLASS;
+                case VARIABLE_DEFINITION -> SYMBOL_VARIABLE;
+                case FUNCTION_DEFINITION -> SYMBOL_FUNCTION;
+                default -> 0;
+            };
+            if (kind == 0) {
+                last = Math.max(last, writeSymbols(child, sb));
+                continue;
+            }
+            int name = ast.token(child);
+            if (sb.charAt(sb.length() - 1) != '[') {
+                sb.append(',');
+            }
+            sb.append("{\"name\":");
+            Json.write(sb, tokens.lexeme(name));
+            sb.append(",\"kind\":").append(kind).append(",\"selectionRange\":");
+            writeRange(sb, tokens.start(name), tokens.end(name));
+            sb.append(",\"children\":[");
+            int end = Math.max(name, writeSymbols(child, sb));
+            // Definicija se začne s ključno besedo pred imenom.
+            sb.append("],\"range\":");
+            writeRange(sb, tokens.start(Math.max(name - 1, 0)), tokens.end(end));
+            sb.append('}');
+            last = Math.max(last, end);
+        }
+        return last;
+    }
+
+    private void writeRange(StringBuilder sb, int start, int end) {
+        sb.append("{\"start\":");
+        writePosition(sb, start);
+        sb.append(",\"end\":");
+        writePosition(sb, end);
+        sb.append('}');
+    }
+
+    private void writePosition(StringBuilder sb, int offset) {
+        int line = lineIndex(offset);
+        sb.append("{\"line\":").append(line).append(",\"character\":").append(offset - lineStart(line)).append('}');
+    }
+
+    // --------------------------------------------------------------
+    // Položaji.
+
+    private void setLines(String text) {
+        lineCount = 1;
+        lineStarts[0] = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                if (lineCount == lineStarts.length) {
+                    lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+                }
+                lineStarts[lineCount++] = i + 1;
+            }
+        }
+        gapStart = lineCount;
+        gapLength = lineStarts.length - lineCount;
+        tailShift = 0;
+    }
+
+    /**
+     * Posodobi začetke vrstic po zamenjavi `removed` znakov na odmiku
+     * `offset` z besedilom `inserted`: vrzel premakne na spremembo, nove
+     * začetke vpiše vanjo, začetke za njo pa zamakne prek `tailShift`.
+     */
+    private void updateLines(int offset, int removed, String inserted) {
+        // Vrstice, ki se začnejo znotraj odstranjenega besedila, izginejo.
+        int first = lineIndex(offset) + 1;
+        int last = first;
+        while (last < lineCount && lineStart(last) <= offset + removed) {
+            last++;
+        }
+        moveGap(last);
+        gapStart = first;
+        gapLength += last - first;
+        lineCount -= last - first;
+        tailShift += inserted.length() - removed;
+        int added = 0;
+        for (int i = 0; i < inserted.length(); i++) {
+            if (inserted.charAt(i) == '\n') {
+                added++;
+            }
+        }
+        if (gapLength < added) {
+            int tail = lineCount - gapStart;
+            var grown = new int[lineCount + added + Math.max(lineCount >>> 3, 64)];
+            System.arraycopy(lineStarts, 0, grown, 0, gapStart);
+            System.arraycopy(lineStarts, gapStart + gapLength, grown, grown.length - tail, tail);
+            lineStarts = grown;
+            gapLength = grown.length - tail - gapStart;
+        }
+        for (int i = 0; i < inserted.length(); i++) {
+            if (inserted.charAt(i) == '\n') {
+                lineStarts[gapStart++] = offset + i + 1;
+            }
+        }
+        gapLength -= added;
+        lineCount += added;
+    }
+
+    private void moveGap(int index) {
+        if (gapStart > index) {
+            System.arraycopy(lineStarts, index, lineStarts, index + gapLength, gapStart - index);
+            for (int i = index + gapLength; i < gapStart + gapLength; i++) {
+                lineStarts[i] -= tailShift;
+            }
+        } else if (gapStart < index) {
+            System.arraycopy(lineStarts, gapStart + gapLength, lineStarts, gapStart, index - gapStart);
+            for (int i = gapStart; i < index; i++) {
+                lineStarts[i] += tailShift;
+            }
+        }
+        gapStart = index;
+    }
+
+    /**
+     * Odmik začetka `index`-te vrstice (od 0).
+     */
+    private int lineStart(int index) {
+        if (index >= gapStart) {
+            return lineStarts[index + gapLength] + tailShift;
+        }
+        return lineStarts[index];
+    }
+
+    /**
+     * Vrstica (od 0), ki vsebuje odmik.
+     */
+    private int lineIndex(int offset) {
+        int low = 0;
+        int high = lineCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (lineStart(mid) <= offset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Odmik položaja LSP `{line, character}`; stolpci so enote UTF-16, tako
+     * kot znaki v `String`.
+     */
+    private int offset(Object position) {
+        int line = Json.getInt(position, "line");
+        if (line >= lineCount) {
+            return source.length();
+        }
+        line = Math.max(line, 0);
+        int lineEnd = line + 1 < lineCount ? lineStart(line + 1) - 1 : source.length();
+        return Math.min(lineStart(line) + Math.max(Json.getInt(position, "character"), 0), lineEnd);
+    }
+
+    private Map<String, Object> position(int offset) {
+        int line = lineIndex(offset);
+        var position = new LinkedHashMap<String, Object>();
+        position.put("line", line);
+        position.put("character", offset - lineStart(line));
+        return position;
+    }
+
+    private Map<String, Object> range(int start, int end) {
+        var range = new LinkedHashMap<String, Object>();
+        range.put("start", position(start));
+        range.put("end", position(end));
+        return range;
+    }
+
+    /**
+     * Območje LSP za položaj prevajalnika (vrstice in stolpci od 1,
+     * tabulator šteje 4 stolpce). Vrstice prevajalnika so vrstice kazala
+     * `LineIndex`, ki loči vrstice tudi pri `\r`.
+     */
+    private Map<String, Object> range(Position position) {
+        if (position == null || position.start.line < 1 || tokens == null) {
+            return range(0, 0);
+        }
+        return range(offset(position.start), offset(position.end));
+    }
+
+    private int offset(Position.Location location) {
+        var lines = tokens.lineIndex();
+        int line = Math.min(location.line - 1, lines.lineCount() - 1);
+        int offset = lines.lineStart(line);
+        int lineEnd = line + 1 < lines.lineCount() ? lines.lineStart(line + 1) - 1 : source.length();
+        for (int column = 1; column < location.column && offset < lineEnd; offset++) {
+            column += source.charAt(offset) == '\t' ? 4 : 1;
+        }
+        return offset;
+    }
+}
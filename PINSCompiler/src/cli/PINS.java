@@ -5,13 +5,24 @@
 
 package cli;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import ArgPar.Annotation.ParsableArgument;
 import ArgPar.Annotation.ParsableCommand;
+import ArgPar.Annotation.ParsableFlag;
 import ArgPar.Annotation.ParsableOption;
 import ArgPar.Exception.ParseException;
 import ArgPar.Parser.ArgumentParser;
+import common.Statistics;
+import compiler.lexer.Lexer;
+import compiler.parser.Parser;
 
 @ParsableCommand(commandName = "PINS", description = "Prevajalnik za programski jezik PINS")
 public class PINS {
@@ -21,6 +32,12 @@ public class PINS {
     @ParsableArgument
     public String sourceFile;
 
+    /**
+     * Vse izvorne datoteke, imeniki in vzorci (`*.pins`) z ukazne vrstice;
+     * prvi je `sourceFile`.
+     */
+    public List<String> sourceFiles = List.of();
+
     /**
      * Faze prevajanja, ki izpišejo vmesne rezultate.
      */
@@ -33,22 +50,145 @@ public class PINS {
     @ParsableOption(name = "--exec")
     public Phase execPhase = Phase.LEX;
 
+    /**
+     * Izvedba leksikalnega analizatorja.
+     */
+    @ParsableOption(name = "--lexer")
+    public Lexer.Engine lexerEngine = Lexer.Engine.DFA;
+
+    /**
+     * Izvedba sintaksnega analizatorja.
+     */
+    @ParsableOption(name = "--parser")
+    public Parser.Engine parserEngine = Parser.Engine.RECURSIVE;
+
+    /**
+     * Število niti za vzporedno leksikalno analizo (1 pomeni zaporedno).
+     */
+    @ParsableOption(name = "--lex-threads")
+    public int lexerThreads = 1;
+
+    /**
+     * Število niti za vzporedno sintaksno analizo (1 pomeni zaporedno).
+     */
+    @ParsableOption(name = "--parse-threads")
+    public int parserThreads = 1;
+
+    /**
+     * Leksikalna in sintaksna analiza v enem prehodu, brez shranjevanja simbolov.
+     */
+    @ParsableFlag(name = "--stream")
+    public boolean stream = false;
+
+    /**
+     * Sintaksni analizator se po napaki obnovi in na koncu izpiše vse napake.
+     */
+    @ParsableFlag(name = "--recover")
+    public boolean recover = false;
+
+    /**
+     * Po prevajanju spremlja izvorne datoteke in jih ob spremembi prevede znova.
+     */
+    @ParsableFlag(name = "--watch")
+    public boolean watch = false;
+
+    /**
+     * Po prevajanju na izhod za napake izpiše čas, procesorski čas, alocirane
+     * bajte in število obdelanih simbolov vsake faze.
+     */
+    @ParsableFlag(name = "--stats")
+    public boolean stats = false;
+
+    /**
+     * Oblika izpisa `--stats`: `TEXT` ali `JSON` (en objekt v vrstici).
+     */
+    @ParsableOption(name = "--stats-format")
+    public Statistics.Format statsFormat = Statistics.Format.TEXT;
+
+    /**
+     * Datoteka, kamor se ob izhodu zapiše posnetek Java Flight Recorderja
+     * z dogodki prevajalnika (`common.Events`). `Daemon` nastavitev prezre;
+     * posnetek v strežniku začnemo z `jcmd <pid> JFR.start`. Prazen niz
+     * pomeni brez posnetka (ArgPar nastavitev brez privzete vrednosti
+     * zahteva).
+     */
+    @ParsableOption(name = "--jfr")
+    public String jfr = "";
+
     @ParsableOption(name = "--memory")
     public int memory = 1024;
 
+    /**
+     * Število datotek, ki jih paketno prevajanje prevaja hkrati.
+     */
+    @ParsableOption(name = "--jobs")
+    public int jobs = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Nov objekt za meritve faz enega prevajanja; meri le ob `--stats`.
+     */
+    public Statistics statistics() {
+        return stats ? new Statistics(statsFormat) : Statistics.disabled();
+    }
+
+    /**
+     * Datoteka za posnetek JFR (`--jfr`), če je podana.
+     */
+    public Optional<Path> jfrFile() {
+        return jfr.isEmpty() ? Optional.empty() : Optional.of(Path.of(jfr));
+    }
+
     /**
      * Razčleni argumente.
      */
     public static PINS parse(String[] args) {
+        var cli = tryParse(args);
+        if (cli.isEmpty()) {
+            System.exit(2);
+        }
+        return cli.get();
+    }
+
+    /**
+     * Razčleni argumente; če jih ni mogoče razčleniti, vrne
+     * Optional.empty() in ne konča programa.
+     */
+    public static Optional<PINS> tryParse(String[] args) {
+        // `ArgumentParser` sprejme en sam argument, zato mu ostale izvorne
+        // datoteke skrijemo.
+        var sourceFiles = new ArrayList<String>();
+        var rest = new ArrayList<String>();
+        for (int i = 0; i < args.length; i++) {
+            if (i == 0 || args[i].startsWith("--")) {
+                rest.add(args[i]);
+                if (optionNames.contains(args[i]) && i + 1 < args.length) {
+                    rest.add(args[++i]);
+                }
+            } else {
+                if (sourceFiles.isEmpty()) {
+                    rest.add(args[i]);
+                }
+                sourceFiles.add(args[i]);
+            }
+        }
         try {
             var parser = new ArgumentParser<PINS>(PINS.class);
-            return parser.parse(args);
+            var cli = parser.parse(rest.toArray(String[]::new));
+            cli.sourceFiles = List.copyOf(sourceFiles);
+            return Optional.of(cli);
         } catch (ParseException __) {
-            System.exit(2);
-            return null;
+            return Optional.empty();
         }
     }
 
+    /**
+     * Imena nastavitev, ki jim sledi vrednost.
+     */
+    private static final Set<String> optionNames = Arrays.stream(PINS.class.getFields())
+            .filter(field -> field.isAnnotationPresent(ParsableOption.class))
+            .flatMap(field -> Arrays.stream(field.getAnnotation(ParsableOption.class).name()))
+            .collect(Collectors.toSet());
+
     // --------------------------------------------------------------
 
     /**
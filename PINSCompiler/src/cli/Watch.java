@@ -0,0 +1,364 @@
+/**
+ * @Author: turk
+ * @Description: Ponovno prevajanje ob spremembi izvornih datotek.
+ */
+
+package cli;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import cli.PINS.Phase;
+import common.Diagnostics;
+import compiler.lexer.Lexer;
+import compiler.lexer.SourceText;
+import compiler.parser.IncrementalParser;
+import compiler.parser.Parser;
+
+/**
+ * `PINS ... --watch`: prevede datoteke tako kot sicer (ena datoteka ali
+ * `Batch`), nato pa z `WatchService` spremlja njihove imenike in po vsaki
+ * spremembi znova prevede le spremenjene datoteke, v istem, že ogretem JVM.
+ *
+ * Urejevalniki ob shranjevanju sprožijo več dogodkov zapored (izbris,
+ * ustvarjanje, sprememba), zato s prevajanjem počakamo, da je `DEBOUNCE`
+ * milisekund mir. Datoteke, katerih vsebina se ni spremenila, preskočimo.
+ *
+ * Za vsako datoteko hranimo zadnjo izvorno kodo in, če izpis to dopušča,
+ * `IncrementalParser`, ki po spremembi znova razčleni le prizadete
+ * definicije. Ob napaki datoteko prevedemo v celoti, da dobimo enaka
+ * sporočila kot `Main`, in začnemo znova.
+ */
+public class Watch {
+    /**
+     * Čas miru (v milisekundah), po katerem začnemo prevajati.
+     */
+    private static final long DEBOUNCE = 100;
+
+    /**
+     * Nastavitve prevajanja.
+     */
+    private final PINS cli;
+
+    /**
+     * Imenik, glede na katerega se razrešijo relativne poti.
+     */
+    private final Path directory;
+
+    /**
+     * Argumente razširja `Batch`.
+     */
+    private final Batch batch;
+
+    /**
+     * Ali izpis označimo z imeni datotek (več datotek, imenik ali vzorec).
+     */
+    private final boolean many;
+
+    /**
+     * Zadnje stanje vsake datoteke.
+     */
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Spremljani imeniki in ali spremljamo tudi njihove podimenike.
+     */
+    private final Map<WatchKey, Path> keys = new HashMap<>();
+    private final Set<Path> recursive = new HashSet<>();
+
+    public Watch(PINS cli, Path directory) {
+        this.cli = cli;
+        this.directory = directory;
+        this.batch = new Batch(cli, directory);
+        this.many = Batch.isBatch(cli, directory);
+    }
+
+    /**
+     * Stanje ene datoteke.
+     */
+    private static class Entry {
+        /**
+         * Izvorna koda ob zadnjem prevajanju.
+         */
+        String text;
+
+        /**
+         * Drevo izvorne kode `text` (`null`, če ga nimamo).
+         */
+        IncrementalParser parser;
+    }
+
+    /**
+     * Prevaja, dokler proces ne konča.
+     */
+    public void run(PrintStream out, PrintStream err) throws IOException, InterruptedException {
+        try (var watcher = directory.getFileSystem().newWatchService()) {
+            for (var arg : cli.sourceFiles) {
+                watch(watcher, arg);
+            }
+            rebuild(null, out, err);
+            while (true) {
+                var changed = new HashSet<Path>();
+                boolean complete = true;
+                var key = watcher.take();
+                // Zberemo vse dogodke, dokler ni `DEBOUNCE` ms miru.
+                while (key != null) {
+                    complete &= collect(watcher, key, changed);
+                    key = watcher.poll(DEBOUNCE, TimeUnit.MILLISECONDS);
+                }
+                rebuild(complete ? changed : null, out, err);
+            }
+        } catch (ClosedWatchServiceException __) {
+        }
+    }
+
+    /**
+     * Začne spremljati imenik, v katerem leži argument `arg`.
+     */
+    private void watch(WatchService watcher, String arg) throws IOException {
+        var path = Path.of(arg);
+        if (Batch.isPattern(arg)) {
+            // Vzorec lahko ustreza datotekam v podimenikih svoje predpone.
+            var base = path.isAbsolute() ? path.getRoot() : Path.of("");
+            for (var part : path) {
+                if (Batch.isPattern(part.toString())) {
+                    break;
+                }
+                base = base.resolve(part);
+            }
+            register(watcher, directory.resolve(base), true);
+        } else if (Files.isDirectory(directory.resolve(path))) {
+            register(watcher, directory.resolve(path), true);
+        } else {
+            var parent = directory.resolve(path).toAbsolutePath().getParent();
+            register(watcher, parent, false);
+        }
+    }
+
+    private void register(WatchService watcher, Path dir, boolean subdirectories) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        if (!subdirectories) {
+            keys.put(dir.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+            return;
+        }
+        try (var dirs = Files.walk(dir)) {
+            for (var sub : (Iterable<Path>) dirs.filter(Files::isDirectory)::iterator) {
+                keys.put(sub.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), sub);
+                recursive.add(sub);
+            }
+        }
+    }
+
+    /**
+     * Zabeleži spremenjene poti dogodkov ključa `key`.
+     *
+     * @return `false`, če so se dogodki izgubili in moramo preveriti vse
+     *         datoteke.
+     */
+    private boolean collect(WatchService watcher, WatchKey key, Set<Path> changed) throws IOException {
+        var dir = keys.get(key);
+        boolean complete = true;
+        for (var event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || dir == null) {
+                complete = false;
+                continue;
+            }
+            var path = dir.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && recursive.contains(dir) && Files.isDirectory(path)) {
+                register(watcher, path, true);
+                complete = false;
+            }
+            changed.add(path.toAbsolutePath().normalize());
+        }
+        if (!key.reset()) {
+            keys.remove(key);
+            recursive.remove(dir);
+        }
+        return complete;
+    }
+
+    /**
+     * Znova prevede spremenjene datoteke.
+     *
+     * @param changed Spremenjene poti; `null` pomeni vse datoteke.
+     */
+    private void rebuild(Set<Path> changed, PrintStream out, PrintStream err) {
+        long start = System.nanoTime();
+        var missing = new ArrayList<String>();
+        var files = batch.sources(missing);
+        for (var arg : missing) {
+            err.println(arg + ": no such source file!");
+        }
+        var removed = new HashSet<>(entries.keySet());
+        removed.removeAll(files);
+        for (var file : removed) {
+            entries.remove(file);
+            err.println("Removed " + file);
+        }
+
+        int rebuilt = 0;
+        int failed = 0;
+        for (var file : files) {
+            var path = directory.resolve(file);
+            if (changed != null && entries.containsKey(file)
+                    && !changed.contains(path.toAbsolutePath().normalize())) {
+                continue;
+            }
+            String text;
+            try {
+                text = SourceText.open(path).toString();
+            } catch (IOException e) {
+                // Kot `Batch`. Izbrisano datoteko odstrani naslednja sprememba
+                // imenika; ko jo bo spet mogoče brati, jo prevedemo v celoti.
+                err.println(file + (e instanceof NoSuchFileException ? ": no such source file!" : ": " + e));
+                entries.remove(file);
+                rebuilt++;
+                failed++;
+                continue;
+            }
+            var entry = entries.computeIfAbsent(file, __ -> new Entry());
+            if (text.equals(entry.text)) {
+                continue;
+            }
+            rebuilt++;
+            if (!compile(file, entry, text, out, err)) {
+                failed++;
+            }
+        }
+        if (many && (rebuilt > 0 || !removed.isEmpty())) {
+            err.printf(Locale.ROOT, "Rebuilt %d of %d file(s) in %.1f ms, %d with errors; watching for changes...%n",
+                    rebuilt, files.size(), (System.nanoTime() - start) / 1e6, failed);
+        }
+        out.flush();
+        err.flush();
+    }
+
+    /**
+     * Prevede datoteko `file` z izvorno kodo `text`.
+     *
+     * @return ali je prevajanje uspelo.
+     */
+    private boolean compile(String file, Entry entry, String text, PrintStream out, PrintStream err) {
+        long start = System.nanoTime();
+        var bytes = new ByteArrayOutputStream();
+        var output = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+        String how;
+        Compilation.Result result = null;
+        boolean full = true;
+        if (isIncremental()) {
+            var diagnostics = new Diagnostics();
+            try {
+                if (entry.parser == null) {
+                    var tokens = new Lexer(SourceText.of(text), Lexer.Engine.DFA, diagnostics).tokenize();
+                    entry.parser = new IncrementalParser(tokens, diagnostics);
+                    how = "full parse";
+                } else {
+                    int prefix = commonPrefix(entry.text, text);
+                    int suffix = commonSuffix(entry.text, text, prefix);
+                    entry.parser.edit(prefix, entry.text.length() - prefix - suffix,
+                            text.substring(prefix, text.length() - suffix), diagnostics);
+                    how = entry.parser.reparsed() + " of " + entry.parser.definitions() + " definition(s) reparsed";
+                }
+                dump(entry.parser, output);
+                full = false;
+            } catch (Diagnostics.CompilationFailed __) {
+                // Sporočila izpiše celotno prevajanje spodaj; sprememba je
+                // uveljavljena, zato analizator obdržimo.
+                bytes.reset();
+                how = "full compile";
+            } catch (RuntimeException | StackOverflowError e) {
+                // Napaka v inkrementalnem analizatorju; celotno prevajanje jo lahko obide.
+                err.println((many ? file + ": " : "") + "Incremental parse failed (" + e + "), compiling in full.");
+                entry.parser = null;
+                bytes.reset();
+                how = "full compile";
+            }
+        } else {
+            how = "full compile";
+        }
+        if (full) {
+            result = Compilation.run(cli, SourceText.of(text, file), output);
+        }
+        output.flush();
+        entry.text = text;
+        long nanos = System.nanoTime() - start;
+
+        if (bytes.size() > 0) {
+            if (many) {
+                out.println("==> " + file + " <==");
+            }
+            out.write(bytes.toByteArray(), 0, bytes.size());
+            out.flush();
+        }
+        boolean ok = result == null || result.status() == 0;
+        if (result != null) {
+            result.report(err, many ? file : null);
+        }
+        err.printf(Locale.ROOT, "%s %s in %.1f ms (%s)%n", ok ? "Compiled" : "Failed to compile", file, nanos / 1e6, how);
+        return ok;
+    }
+
+    /**
+     * Ali lahko izpis sestavimo iz `IncrementalParser`: izvedemo sintaksno
+     * analizo ali gradnjo drevesa in ne izpisujemo produkcij.
+     */
+    private boolean isIncremental() {
+        return (cli.execPhase == Phase.SYN || cli.execPhase == Phase.AST)
+                && !cli.dumpPhases.contains(Phase.SYN)
+                && cli.parserEngine == Parser.Engine.RECURSIVE
+                && !cli.stream
+                && !cli.recover;
+    }
+
+    /**
+     * Izpis faz, enak izpisu `Compiler.run()`.
+     */
+    private void dump(IncrementalParser parser, PrintStream out) {
+        if (cli.dumpPhases.contains(Phase.LEX)) {
+            var tokens = parser.tokens();
+            for (int i = 0; i < tokens.size(); i++) {
+                out.println(tokens.symbol(i).toString());
+            }
+        }
+        if (cli.execPhase == Phase.AST && cli.dumpPhases.contains(Phase.AST)) {
+            parser.ast().dump(out);
+        }
+    }
+
+    private static int commonPrefix(String a, String b) {
+        int n = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < n && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int commonSuffix(String a, String b, int prefix) {
+        int n = Math.min(a.length(), b.length()) - prefix;
+        int i = 0;
+        while (i < n && a.charAt(a.length() - 1 - i) == b.charAt(b.length() - 1 - i)) {
+            i++;
+        }
+        return i;
+    }
+}
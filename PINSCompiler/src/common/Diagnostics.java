@@ -0,0 +1,135 @@
+/**
+ * @Author: turk
+ * @Description: Sporočila o napakah in opozorilih ene prevajalne enote.
+ */
+
+package common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import compiler.lexer.Position;
+
+/**
+ * Zbira napake in opozorila enega prevajanja. Za razliko od `Report` ne
+ * piše na skupni tok in ne konča programa: faza, ki ne more nadaljevati,
+ * vrže `CompilationFailed`, klicatelj pa se odloči, kaj s sporočili stori
+ * (ukazna vrstica jih izpiše z `Report.report()` in konča s kodo 99).
+ *
+ * Vsako prevajanje ima svoj objekt, zato lahko v istem JVM teče več
+ * prevajanj, tudi sočasno. Metode so sinhronizirane.
+ */
+public class Diagnostics {
+    private final List<Diagnostic> diagnostics = new ArrayList<>();
+
+    private int errors = 0;
+
+    /**
+     * Zabeleži napako brez položaja.
+     */
+    public synchronized void error(String message) {
+        add(Severity.ERROR, Optional.empty(), message);
+    }
+
+    /**
+     * Zabeleži napako.
+     */
+    public synchronized void error(Position position, String message) {
+        add(Severity.ERROR, Optional.of(position), message);
+    }
+
+    /**
+     * Zabeleži opozorilo.
+     */
+    public synchronized void warning(Position position, String message) {
+        add(Severity.WARNING, Optional.of(position), message);
+    }
+
+    /**
+     * Zabeleži napako, po kateri prevajanje ne more nadaljevati.
+     *
+     * @return izjemo, ki jo klicatelj vrže: `throw diagnostics.fatal(...)`.
+     */
+    public CompilationFailed fatal(String message) {
+        error(message);
+        return new CompilationFailed(this);
+    }
+
+    /**
+     * Zabeleži napako, po kateri prevajanje ne more nadaljevati.
+     *
+     * @return izjemo, ki jo klicatelj vrže: `throw diagnostics.fatal(...)`.
+     */
+    public CompilationFailed fatal(Position position, String message) {
+        error(position, message);
+        return new CompilationFailed(this);
+    }
+
+    /**
+     * Izjema za že zabeležene napake.
+     */
+    public CompilationFailed failure() {
+        return new CompilationFailed(this);
+    }
+
+    public synchronized boolean hasErrors() {
+        return errors > 0;
+    }
+
+    public synchronized int errorCount() {
+        return errors;
+    }
+
+    /**
+     * Vsa sporočila v vrstnem redu, kot so bila zabeležena.
+     */
+    public synchronized List<Diagnostic> all() {
+        return List.copyOf(diagnostics);
+    }
+
+    private void add(Severity severity, Optional<Position> position, String message) {
+        diagnostics.add(new Diagnostic(severity, position, message));
+        if (severity == Severity.ERROR) {
+            errors++;
+        }
+    }
+
+    // --------------------------------------------------------------
+
+    public static enum Severity {
+        ERROR, WARNING
+    }
+
+    /**
+     * Eno sporočilo.
+     */
+    public static record Diagnostic(Severity severity, Optional<Position> position, String message) {
+        /**
+         * Sporočilo v obliki, kot ga izpiše ukazna vrstica (napake enako kot
+         * `Report.error`).
+         */
+        @Override
+        public String toString() {
+            var text = severity == Severity.WARNING ? "Warning: " + message : message;
+            return position.map(p -> p + ": " + text).orElse(text);
+        }
+    }
+
+    /**
+     * Prevajanje se je končalo z napako; sporočila so v `diagnostics`.
+     */
+    public static class CompilationFailed extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Sporočila niso serializabilna; izjema ne zapusti JVM.
+         */
+        public final transient Diagnostics diagnostics;
+
+        CompilationFailed(Diagnostics diagnostics) {
+            super("Compilation failed", null, false, false);
+            this.diagnostics = diagnostics;
+        }
+    }
+}
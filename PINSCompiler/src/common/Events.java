@@ -0,0 +1,129 @@
+/**
+ * @Author: turk
+ * @Description: Dogodki za Java Flight Recorder.
+ */
+
+package common;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+
+/**
+ * Dogodki, ki jih prevajalnik sporoča Java Flight Recorderju: faze
+ * prevajanja, leksikalna analiza datotek in kosov ter sintaksna analiza
+ * definicij na najvišji ravni. Posnetek začne `--jfr` ali JVM sam
+ * (`-XX:StartFlightRecording`, `jcmd <pid> JFR.start`).
+ *
+ * Dogodek ustvarimo, kličemo `begin()`, po koncu dela pa `end()` in, če
+ * `shouldCommit()`, nastavimo polja in `commit()`. Ko JFR ne snema, so te
+ * metode prazne in JIT objekt dogodka odstrani; polj, ki jih je treba
+ * izračunati (npr. ime definicije), takrat ne računamo.
+ */
+public final class Events {
+    private Events() {}
+
+    @Name("pins.Phase")
+    @Label("Compiler Phase")
+    @Description("One compiler phase of one source file")
+    @Category({ "PINS", "Compiler" })
+    @StackTrace(false)
+    public static class PhaseEvent extends Event {
+        @Label("Phase")
+        public String phase;
+
+        @Label("Source")
+        public String source;
+
+        @Label("Source Characters")
+        public long characters;
+
+        @Label("Tokens")
+        public long tokens;
+
+        @Label("Count")
+        @Description("Units produced by the phase")
+        public long count;
+
+        @Label("Unit")
+        public String unit;
+    }
+
+    @Name("pins.Lex")
+    @Label("Lexical Analysis")
+    @Description("Lexing of a whole source file (chunk -1) or of one chunk of --lex-threads")
+    @Category({ "PINS", "Compiler" })
+    @StackTrace(false)
+    public static class LexEvent extends Event {
+        @Label("Source")
+        public String source;
+
+        @Label("Chunk")
+        public int chunk;
+
+        @Label("Offset")
+        public int offset;
+
+        @Label("Characters")
+        public int characters;
+
+        @Label("Tokens")
+        public long tokens;
+    }
+
+    @Name("pins.Definition")
+    @Label("Top-Level Definition")
+    @Description("Parsing of one top-level definition")
+    @Category({ "PINS", "Compiler" })
+    @StackTrace(false)
+    public static class DefinitionEvent extends Event {
+        @Label("Source")
+        public String source;
+
+        @Label("Kind")
+        public String kind;
+
+        @Label("Name")
+        public String name;
+
+        @Label("Line")
+        public int line;
+
+        @Label("Characters")
+        public int characters;
+
+        @Label("Tokens")
+        public long tokens;
+
+        @Label("Productions")
+        public long productions;
+    }
+
+    /**
+     * Začne posnetek z nastavitvami `default` (dogodki JVM in vsi dogodki
+     * prevajalnika), ki se ob izhodu iz programa zapiše v `file`.
+     */
+    public static Recording record(Path file) throws IOException {
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration("default");
+        } catch (ParseException e) {
+            throw new IOException(e);
+        }
+        var recording = new Recording(configuration);
+        recording.setName("PINS");
+        recording.setDestination(file);
+        recording.setDumpOnExit(true);
+        recording.start();
+        return recording;
+    }
+}
@@ -0,0 +1,327 @@
+/**
+ * @Author: turk
+ * @Description: Branje in pisanje JSON.
+ */
+
+package common;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Najmanjši JSON, ki ga potrebujeta jezikovni strežnik in meritve.
+ *
+ * Vrednosti so `Map<String, Object>` (vrstni red ključev se ohrani),
+ * `List<Object>`, `String`, `Long` ali `Double`, `Boolean` in `null`.
+ * Pisanje sprejme tudi `int[]`, ostala števila in `Json.Raw`.
+ */
+public class Json {
+    private Json() {}
+
+    /**
+     * Že zapisan JSON, ki ga `write()` vstavi dobesedno.
+     */
+    public static record Raw(String json) {
+    }
+
+    // --------------------------------------------------------------
+    // Pisanje.
+
+    public static String write(Object value) {
+        var sb = new StringBuilder();
+        write(sb, value);
+        return sb.toString();
+    }
+
+    public static void write(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof String s) {
+            writeString(sb, s);
+        } else if (value instanceof Boolean || value instanceof Integer || value instanceof Long) {
+            sb.append(value);
+        } else if (value instanceof Number n) {
+            double d = n.doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                sb.append("null");
+            } else if (d == Math.rint(d) && Math.abs(d) < 1e15) {
+                sb.append((long) d);
+            } else {
+                sb.append(d);
+            }
+        } else if (value instanceof Raw raw) {
+            sb.append(raw.json());
+        } else if (value instanceof int[] array) {
+            sb.append('[');
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(array[i]);
+            }
+            sb.append(']');
+        } else if (value instanceof Map<?, ?> map) {
+            sb.append('{');
+            boolean first = true;
+            for (var entry : map.entrySet()) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                writeString(sb, entry.getKey().toString());
+                sb.append(':');
+                write(sb, entry.getValue());
+            }
+            sb.append('}');
+        } else if (value instanceof Iterable<?> list) {
+            sb.append('[');
+            boolean first = true;
+            for (var element : list) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                write(sb, element);
+            }
+            sb.append(']');
+        } else {
+            throw new IllegalArgumentException("Cannot write " + value.getClass().getName() + " as JSON!");
+        }
+    }
+
+    private static void writeString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    // --------------------------------------------------------------
+    // Branje.
+
+    /**
+     * Prebere en JSON.
+     *
+     * @throws IllegalArgumentException če `json` ni veljaven JSON.
+     */
+    public static Object parse(String json) {
+        requireNonNull(json);
+        var reader = new Reader(json);
+        var value = reader.value();
+        reader.blanks();
+        if (reader.index != json.length()) {
+            throw reader.error("end of input");
+        }
+        return value;
+    }
+
+    private static class Reader {
+        private final String json;
+        private int index = 0;
+
+        Reader(String json) {
+            this.json = json;
+        }
+
+        Object value() {
+            blanks();
+            if (index == json.length()) {
+                throw error("a value");
+            }
+            char c = json.charAt(index);
+            switch (c) {
+                case '{': {
+                    index++;
+                    var map = new LinkedHashMap<String, Object>();
+                    blanks();
+                    if (take('}')) {
+                        return map;
+                    }
+                    do {
+                        blanks();
+                        if (index == json.length() || json.charAt(index) != '"') {
+                            throw error("a key");
+                        }
+                        var key = string();
+                        blanks();
+                        expect(':');
+                        map.put(key, value());
+                        blanks();
+                    } while (take(','));
+                    expect('}');
+                    return map;
+                }
+                case '[': {
+                    index++;
+                    var list = new ArrayList<Object>();
+                    blanks();
+                    if (take(']')) {
+                        return list;
+                    }
+                    do {
+                        list.add(value());
+                        blanks();
+                    } while (take(','));
+                    expect(']');
+                    return list;
+                }
+                case '"':
+                    return string();
+                case 't':
+                    return literal("true", Boolean.TRUE);
+                case 'f':
+                    return literal("false", Boolean.FALSE);
+                case 'n':
+                    return literal("null", null);
+                default:
+                    return number();
+            }
+        }
+
+        private String string() {
+            index++;
+            var sb = new StringBuilder();
+            while (true) {
+                if (index >= json.length()) {
+                    throw error("'\"'");
+                }
+                char c = json.charAt(index++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (index >= json.length()) {
+                    throw error("an escape");
+                }
+                char e = json.charAt(index++);
+                switch (e) {
+                    case '"', '\\', '/' -> sb.append(e);
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        if (index + 4 > json.length()) {
+                            throw error("four hex digits");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(json.substring(index, index + 4), 16));
+                        } catch (NumberFormatException __) {
+                            throw error("four hex digits");
+                        }
+                        index += 4;
+                    }
+                    default -> throw error("an escape");
+                }
+            }
+        }
+
+        private Object number() {
+            int start = index;
+            boolean integral = true;
+            while (index < json.length()) {
+                char c = json.charAt(index);
+                if (c == '.' || c == 'e' || c == 'E') {
+                    integral = false;
+                } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                    break;
+                }
+                index++;
+            }
+            var text = json.substring(start, index);
+            try {
+                if (integral) {
+                    return Long.parseLong(text);
+                }
+                return Double.parseDouble(text);
+            } catch (NumberFormatException __) {
+                index = start;
+                throw error("a value");
+            }
+        }
+
+        private Object literal(String word, Object value) {
+            if (!json.startsWith(word, index)) {
+                throw error("a value");
+            }
+            index += word.length();
+            return value;
+        }
+
+        private boolean take(char c) {
+            if (index < json.length() && json.charAt(index) == c) {
+                index++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!take(c)) {
+                throw error("'" + c + "'");
+            }
+        }
+
+        void blanks() {
+            while (index < json.length() && Character.isWhitespace(json.charAt(index))) {
+                index++;
+            }
+        }
+
+        IllegalArgumentException error(String expected) {
+            return new IllegalArgumentException("Invalid JSON: expected " + expected + " at offset " + index + "!");
+        }
+    }
+
+    // --------------------------------------------------------------
+    // Dostop do prebranih vrednosti.
+
+    /**
+     * Vrednost na poti ključev (`null`, če je ni).
+     */
+    public static Object get(Object value, String... keys) {
+        for (var key : keys) {
+            if (!(value instanceof Map<?, ?> map)) {
+                return null;
+            }
+            value = map.get(key);
+        }
+        return value;
+    }
+
+    public static String getString(Object value, String... keys) {
+        return get(value, keys) instanceof String s ? s : null;
+    }
+
+    public static int getInt(Object value, String... keys) {
+        return get(value, keys) instanceof Number n ? n.intValue() : 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static List<Object> getList(Object value, String... keys) {
+        return get(value, keys) instanceof List<?> list ? (List<Object>) list : List.of();
+    }
+}
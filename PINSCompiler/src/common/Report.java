@@ -10,7 +10,8 @@ import java.io.PrintStream;
 import compiler.lexer.Position;
 
 /**
- * Obveščanje o napakah.
+ * Obveščanje o napakah v ukazni vrstici. Faze prevajanja napake beležijo v
+ * `Diagnostics`; ta razred jih le izpiše in konča program z izhodno kodo 99.
  */
 public class Report {
     /**
@@ -34,4 +35,24 @@ public class Report {
         err.println(position.toString() + ": " + message);
         System.exit(exitErrorCode);
     }
+
+    /**
+     * Izpiše sporočila prevajanja, vsako v svoji vrstici, in konča program,
+     * če je med njimi napaka.
+     */
+    public static void report(Diagnostics diagnostics) {
+        for (var diagnostic : diagnostics.all()) {
+            err.println(diagnostic);
+        }
+        if (diagnostics.hasErrors()) {
+            System.exit(exitErrorCode);
+        }
+    }
+
+    /**
+     * Izhodna koda, s katero ukazna vrstica konča prevajanje.
+     */
+    public static int exitCode(Diagnostics diagnostics) {
+        return diagnostics.hasErrors() ? exitErrorCode : 0;
+    }
 }
@@ -0,0 +1,251 @@
+/**
+ * @Author: turk
+ * @Description: Poraba virov po fazah ene prevajalne enote.
+ */
+
+package common;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Zbira čas, procesorski čas, alocirane bajte in število obdelanih enot
+ * vsake faze enega prevajanja (`--stats`).
+ *
+ * Faza začne meritev z `begin()` in jo konča z `end()`; tako poročajo vse
+ * faze, tudi tiste, ki jih še nimamo. Procesorski čas in alocirane bajte
+ * meri `com.sun.management.ThreadMXBean` za nit, ki fazo izvaja; dela
+ * pomožnih niti (`--lex-threads`, `--parse-threads`) ne zajamejo, za
+ * navidezne niti (`Daemon`) pa ju JVM ne meri in ostaneta neznana.
+ *
+ * Vsaka faza se sporoči tudi kot dogodek JFR (`Events.PhaseEvent`), ne
+ * glede na `--stats`.
+ *
+ * Kot `Diagnostics` ima vsako prevajanje svoj objekt.
+ */
+public class Statistics {
+    /**
+     * Oblika izpisa.
+     */
+    public static enum Format {
+        TEXT, JSON
+    }
+
+    /**
+     * Meritve ene faze.
+     *
+     * @param phase Ime faze (`LEX`, `SYN`, ...).
+     * @param wallNanos Pretečeni čas.
+     * @param cpuNanos Procesorski čas niti (-1, če ga JVM ne meri).
+     * @param allocatedBytes Bajti, ki jih je nit alocirala (-1, če jih JVM ne
+     *                       meri).
+     * @param tokens Število simbolov, ki jih je faza obdelala.
+     * @param count Število enot, ki jih je faza izdelala.
+     * @param unit Ime enote (`tokens`, `productions`, `nodes`, ...).
+     */
+    public static record Phase(String phase, long wallNanos, long cpuNanos, long allocatedBytes, long tokens,
+            long count, String unit) {
+        public double tokensPerSecond() {
+            return wallNanos == 0 ? 0 : tokens * 1e9 / wallNanos;
+        }
+    }
+
+    private static final com.sun.management.ThreadMXBean threads =
+            ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean ? bean : null;
+
+    /**
+     * Oblika izpisa (`null`, če statistike ne zbiramo).
+     */
+    private final Format format;
+
+    private final List<Phase> phases = new ArrayList<>();
+
+    /**
+     * Faza, ki jo merimo, in števci ob njenem začetku.
+     */
+    private String current = null;
+    private long wallStart;
+    private long cpuStart;
+    private long allocatedStart;
+    private Events.PhaseEvent event = null;
+
+    /**
+     * Izvorna koda, ki jo prevajamo (za dogodke JFR).
+     */
+    private String source = null;
+    private long characters = 0;
+
+    public Statistics(Format format) {
+        this.format = format;
+    }
+
+    /**
+     * Statistika, ki ničesar ne meri in ne izpiše; sporoča le dogodke JFR.
+     */
+    public static Statistics disabled() {
+        return new Statistics(null);
+    }
+
+    public boolean enabled() {
+        return format != null;
+    }
+
+    /**
+     * Nastavi izvorno kodo, ki jo faze obdelujejo.
+     *
+     * @param name Ime izvora (`null`, če ga ne poznamo).
+     * @param characters Dolžina izvorne kode v znakih.
+     */
+    public void source(String name, long characters) {
+        this.source = name;
+        this.characters = characters;
+    }
+
+    /**
+     * Začne meritev faze `phase`.
+     */
+    public void begin(String phase) {
+        current = phase;
+        event = new Events.PhaseEvent();
+        event.begin();
+        if (format == null) {
+            return;
+        }
+        allocatedStart = allocatedBytes();
+        cpuStart = cpuNanos();
+        wallStart = System.nanoTime();
+    }
+
+    /**
+     * Konča meritev faze, začete z `begin()`.
+     *
+     * @param tokens Število simbolov, ki jih je faza obdelala.
+     * @param count Število enot `unit`, ki jih je faza izdelala.
+     */
+    public void end(long tokens, long count, String unit) {
+        if (current == null) {
+            return;
+        }
+        if (format != null) {
+            long wall = System.nanoTime() - wallStart;
+            long cpu = cpuNanos();
+            long allocated = allocatedBytes();
+            phases.add(new Phase(current, wall, cpu < 0 ? -1 : cpu - cpuStart,
+                    allocated < 0 ? -1 : allocated - allocatedStart, tokens, count, unit));
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = current;
+            event.source = source;
+            event.characters = characters;
+            event.tokens = tokens;
+            event.count = count;
+            event.unit = unit;
+            event.commit();
+        }
+        event = null;
+        current = null;
+    }
+
+    public List<Phase> phases() {
+        return List.copyOf(phases);
+    }
+
+    private static long cpuNanos() {
+        return threads != null && threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long allocatedBytes() {
+        return threads != null && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()
+                ? threads.getCurrentThreadAllocatedBytes()
+                : -1;
+    }
+
+    // --------------------------------------------------------------
+    // Izpis.
+
+    /**
+     * Izpiše meritve v izbrani obliki.
+     *
+     * @param source Ime izvorne datoteke; če ni `null`, se v obliki `TEXT`
+     *               izpiše pred vsako vrstico, v obliki `JSON` pa kot polje
+     *               `source`.
+     */
+    public void print(PrintStream out, String source) {
+        if (format == Format.TEXT) {
+            printText(out, source == null ? "" : source + ": ");
+        } else if (format == Format.JSON) {
+            out.println(Json.write(toJson(source)));
+        }
+    }
+
+    private void printText(PrintStream out, String prefix) {
+        long wall = 0;
+        long cpu = 0;
+        long allocated = 0;
+        for (var phase : phases) {
+            out.println(prefix + line(phase.phase(), phase.wallNanos(), phase.cpuNanos(), phase.allocatedBytes())
+                    + String.format(Locale.ROOT, " %,12d %-11s %,14.0f tokens/s",
+                            phase.count(), phase.unit(), phase.tokensPerSecond()));
+            wall += phase.wallNanos();
+            cpu = cpu < 0 || phase.cpuNanos() < 0 ? -1 : cpu + phase.cpuNanos();
+            allocated = allocated < 0 || phase.allocatedBytes() < 0 ? -1 : allocated + phase.allocatedBytes();
+        }
+        if (phases.size() > 1) {
+            out.println(prefix + line("total", wall, cpu, allocated));
+        }
+    }
+
+    private static String line(String phase, long wallNanos, long cpuNanos, long allocatedBytes) {
+        return String.format(Locale.ROOT, "%-5s %9.2f ms wall %9s ms cpu %10s allocated",
+                phase, wallNanos / 1e6, cpuNanos < 0 ? "?" : String.format(Locale.ROOT, "%.2f", cpuNanos / 1e6),
+                bytes(allocatedBytes));
+    }
+
+    /**
+     * Velikost v berljivi obliki (`B`, `KB`, `MB`, `GB`).
+     */
+    private static String bytes(long bytes) {
+        if (bytes < 0) {
+            return "?";
+        }
+        if (bytes < 1 << 10) {
+            return bytes + " B";
+        }
+        var units = new String[] { "KB", "MB", "GB" };
+        double value = bytes / 1024.0;
+        int unit = 0;
+        while (value >= 1024 && unit + 1 < units.length) {
+            value /= 1024;
+            unit++;
+        }
+        return String.format(Locale.ROOT, "%.1f %s", value, units[unit]);
+    }
+
+    private Map<String, Object> toJson(String source) {
+        var json = new LinkedHashMap<String, Object>();
+        if (source != null) {
+            json.put("source", source);
+        }
+        var list = new ArrayList<Object>();
+        for (var phase : phases) {
+            var entry = new LinkedHashMap<String, Object>();
+            entry.put("phase", phase.phase());
+            entry.put("wallNanos", phase.wallNanos());
+            entry.put("cpuNanos", phase.cpuNanos() < 0 ? null : phase.cpuNanos());
+            entry.put("allocatedBytes", phase.allocatedBytes() < 0 ? null : phase.allocatedBytes());
+            entry.put("tokens", phase.tokens());
+            entry.put("count", phase.count());
+            entry.put("unit", phase.unit());
+            entry.put("tokensPerSecond", phase.tokensPerSecond());
+            list.add(entry);
+        }
+        json.put("phases", list);
+        return json;
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * @Author: turk
+ * @Description: Izvedba faz prevajanja.
+ */
+
+package compiler;
+
+import java.io.PrintStream;
+import java.util.Optional;
+
+import cli.PINS;
+import cli.PINS.Phase;
+import common.Diagnostics;
+import common.Statistics;
+import compiler.lexer.Lexer;
+import compiler.lexer.ParallelLexer;
+import compiler.lexer.SourceText;
+import compiler.lexer.TokenType;
+import compiler.parser.ParallelParser;
+import compiler.parser.Parser;
+import compiler.parser.TableParser;
+import compiler.parser.ast.Ast;
+
+/**
+ * Prevajalnik brez ukazne vrstice: faze, ki jih izberejo nastavitve `PINS`,
+ * izvede nad eno izvorno kodo, vmesne rezultate izpiše na dani tok, napake
+ * pa zabeleži v `Diagnostics` in ne konča programa. Tako lahko isti JVM
+ * prevede več programov zapored ali sočasno.
+ */
+public class Compiler {
+    private Compiler() {}
+
+    /**
+     * Prevedi izvorno kodo.
+     *
+     * @param cli Nastavitve prevajanja.
+     * @param sourceCode Izvorna koda programa.
+     * @param out Tok, kamor faze izpisujejo vmesne rezultate (`--dump`).
+     * @param diagnostics Sporočila prevajanja.
+     * @throws Diagnostics.CompilationFailed če prevajanje ne uspe; napake so
+     *         v `diagnostics`.
+     */
+    public static void run(PINS cli, SourceText sourceCode, PrintStream out, Diagnostics diagnostics) {
+        run(cli, sourceCode, out, diagnostics, Statistics.disabled());
+    }
+
+    /**
+     * Prevedi izvorno kodo in izmeri porabo virov po fazah.
+     *
+     * @param statistics Meritve faz (`--stats`): vsaka faza, skupaj z
+     *                   izpisom svojih rezultatov, je med
+     *                   `statistics.begin()` in `statistics.end()`.
+     * @throws Diagnostics.CompilationFailed če prevajanje ne uspe; napake so
+     *         v `diagnostics`.
+     */
+    public static void run(PINS cli, SourceText sourceCode, PrintStream out, Diagnostics diagnostics,
+            Statistics statistics) {
+        statistics.source(sourceCode.name(), sourceCode.length());
+        if (cli.stream) {
+            runStreaming(cli, sourceCode, out, diagnostics, statistics);
+            return;
+        }
+        /**
+         * Izvedi leksikalno analizo.
+         */
+        if (cli.lexerThreads > 1 && cli.lexerEngine != Lexer.Engine.DFA) {
+            throw diagnostics.fatal("--lex-threads needs --lexer DFA!");
+        }
+        statistics.begin(Phase.LEX.name());
+        var tokens = cli.lexerThreads > 1
+                ? new ParallelLexer(sourceCode, cli.lexerThreads, diagnostics).tokenize()
+                : new Lexer(sourceCode, cli.lexerEngine, diagnostics).tokenize();
+        if (cli.dumpPhases.contains(Phase.LEX)) {
+            for (int i = 0; i < tokens.size(); i++) {
+                out.println(tokens.symbol(i).toString());
+            }
+        }
+        statistics.end(tokens.size(), tokens.size(), "tokens");
+        if (cli.execPhase == Phase.LEX) {
+            return;
+        }
+        /**
+         * Izvedi sintaksno analizo.
+         */
+        Optional<PrintStream> productionsOut = cli.dumpPhases.contains(Phase.SYN)
+                ? Optional.of(out)
+                : Optional.empty();
+        if (cli.recover && cli.parserEngine != Parser.Engine.RECURSIVE) {
+            throw diagnostics.fatal("--recover needs --parser RECURSIVE!");
+        }
+        statistics.begin(Phase.SYN.name());
+        if (cli.parserEngine == Parser.Engine.TABLE) {
+            var parser = new TableParser(tokens.cursor(), productionsOut, diagnostics);
+            parser.parse();
+            statistics.end(tokens.size(), parser.productions(), "productions");
+            if (cli.execPhase == Phase.SYN) {
+                return;
+            }
+            throw diagnostics.fatal("Only --parser RECURSIVE builds the AST!");
+        }
+        Ast ast;
+        if (cli.parserThreads > 1 && !cli.recover) {
+            var parser = new ParallelParser(tokens, productionsOut, cli.parserThreads, diagnostics);
+            ast = parser.parse();
+            statistics.end(tokens.size(), parser.productions(), "productions");
+        } else {
+            var parser = new Parser(tokens, productionsOut, cli.recover, diagnostics);
+            ast = parser.parse().get();
+            statistics.end(tokens.size(), parser.productions(), "productions");
+            if (diagnostics.hasErrors()) {
+                throw diagnostics.failure();
+            }
+        }
+        if (cli.execPhase == Phase.SYN) {
+            return;
+        }
+        /**
+         * Abstraktno sintaksno drevo. Zgradi ga že sintaksni analizator,
+         * faza ga le izpiše.
+         */
+        statistics.begin(Phase.AST.name());
+        if (cli.dumpPhases.contains(Phase.AST)) {
+            ast.dump(out);
+        }
+        statistics.end(tokens.size(), ast.size(), "nodes");
+        if (cli.execPhase == Phase.AST) {
+            return;
+        }
+    }
+
+    /**
+     * Leksikalna in sintaksna analiza v enem prehodu: razčlenjevalnik bere
+     * simbole neposredno iz analizatorja, ki jih ne shranjuje.
+     */
+    private static void runStreaming(PINS cli, SourceText sourceCode, PrintStream out, Diagnostics diagnostics,
+            Statistics statistics) {
+        if (cli.execPhase.compareTo(Phase.SYN) > 0) {
+            throw diagnostics.fatal("--stream runs only the LEX and SYN phases!");
+        }
+        if (cli.recover) {
+            throw diagnostics.fatal("--recover needs a stored token stream, not --stream!");
+        }
+        if (cli.lexerEngine != Lexer.Engine.DFA) {
+            throw diagnostics.fatal("--stream needs --lexer DFA!");
+        }
+        Optional<PrintStream> symbolsOut = cli.dumpPhases.contains(Phase.LEX)
+                ? Optional.of(out)
+                : Optional.empty();
+        var lexer = new Lexer(sourceCode, cli.lexerEngine, symbolsOut, diagnostics);
+        if (cli.execPhase == Phase.LEX) {
+            statistics.begin(Phase.LEX.name());
+            while (lexer.next() != TokenType.EOF) {
+            }
+            statistics.end(lexer.streamed(), lexer.streamed(), "tokens");
+            return;
+        }
+        Optional<PrintStream> productionsOut = cli.dumpPhases.contains(Phase.SYN)
+                ? Optional.of(out)
+                : Optional.empty();
+        // Fazi tečeta prepleteno, zato ju merimo skupaj.
+        statistics.begin(Phase.LEX.name() + "+" + Phase.SYN.name());
+        long productions;
+        if (cli.parserEngine == Parser.Engine.TABLE) {
+            var parser = new TableParser(lexer, productionsOut, diagnostics);
+            parser.parse();
+            productions = parser.productions();
+        } else {
+            var parser = new Parser(lexer, productionsOut, diagnostics);
+            parser.parse();
+            productions = parser.productions();
+        }
+        statistics.end(lexer.streamed(), productions, "productions");
+    }
+}
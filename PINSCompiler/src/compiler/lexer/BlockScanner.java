@@ -0,0 +1,110 @@
+/**
+ * @Author: turk
+ * @Description: Preskakovanje presledkov in komentarjev.
+ */
+
+package compiler.lexer;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * Poišče konec zaporedja presledkov in tabulatorjev oziroma naslednji znak
+ * za novo vrstico (konec komentarja).
+ *
+ * Osnovna izvedba bere znak za znakom. `VectorBlockScanner` naenkrat
+ * preveri 16 do 32 znakov, vendar zagon Vector API stane več sto
+ * milisekund, kar pri enkratnem prevajanju odtehta vso pridobitev, pri
+ * preslikani datoteki pa mora vsak blok najprej prepisati v tabelo in je
+ * počasnejši od osnovne izvedbe. Zato ga vklopimo izrecno, z
+ * `-Dpins.vector=true` in modulom `jdk.incubator.vector` (`--add-modules
+ * jdk.incubator.vector`), le za dolgo živeče procese, ki prevajajo nize
+ * (npr. `LanguageServer`). Izvedbi primerja `bench.BlankScanBenchmark`.
+ */
+public class BlockScanner {
+    /**
+     * Izvedba, ki jo uporablja leksikalni analizator.
+     */
+    static final BlockScanner instance = Boolean.getBoolean("pins.vector")
+            ? vectorized().orElseGet(BlockScanner::new)
+            : new BlockScanner();
+
+    BlockScanner() {}
+
+    /**
+     * Osnovna izvedba.
+     */
+    public static BlockScanner scalar() {
+        return new BlockScanner();
+    }
+
+    /**
+     * Vektorska izvedba, če je modul `jdk.incubator.vector` na voljo.
+     */
+    public static Optional<BlockScanner> vectorized() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of((BlockScanner) Class.forName("compiler.lexer.VectorBlockScanner")
+                    .getDeclaredConstructor()
+                    .newInstance());
+        } catch (ReflectiveOperationException | LinkageError __) {
+            // Modul ali metoda ni na voljo; uporabimo osnovno izvedbo.
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Ali leksikalni analizator uporablja vektorsko izvedbo.
+     */
+    public static boolean isVectorized() {
+        return instance.getClass() != BlockScanner.class;
+    }
+
+    /**
+     * Vrne prvi odmik v `[from, end)`, kjer znak ni presledek ali tabulator,
+     * oziroma `end`.
+     */
+    public int skipBlanks(char[] characters, int from, int end) {
+        int i = from;
+        while (i < end && (characters[i] == ' ' || characters[i] == '\t')) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Vrne prvi odmik v `[from, end)`, kjer je znak `\n`, oziroma `end`.
+     */
+    public int indexOfNewline(char[] characters, int from, int end) {
+        int i = from;
+        while (i < end && characters[i] != '\n') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Vrne prvi odmik v `[from, end)`, kjer bajt ni presledek ali tabulator,
+     * oziroma `end`.
+     */
+    public int skipBlanks(ByteBuffer buffer, int from, int end) {
+        int i = from;
+        while (i < end && (buffer.get(i) == ' ' || buffer.get(i) == '\t')) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Vrne prvi odmik v `[from, end)`, kjer je bajt `\n`, oziroma `end`.
+     */
+    public int indexOfNewline(ByteBuffer buffer, int from, int end) {
+        int i = from;
+        while (i < end && buffer.get(i) != '\n') {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,325 @@
+/**
+ * @Author: turk
+ * @Description: Inkrementalni leksikalni analizator.
+ */
+
+package compiler.lexer;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.Arrays;
+
+import common.Diagnostics;
+
+/**
+ * Po vsaki spremembi izvorne kode znova analizira le vrstice, ki jih je
+ * sprememba prizadela.
+ *
+ * Odmik za znakom `\n` je varna točka: tam se ne konča noben simbol in
+ * analizator je v začetnem stanju (komentar se konča z `\n`, niz ga ne sme
+ * vsebovati). Analiza se zato začne za zadnjim `\n` pred spremembo in
+ * konča za prvim `\n` za njo. Novi simboli zamenjajo stare na istem mestu
+ * v zaporedju (`TokenStream.splice()`). Izvorna koda in zaporedje simbolov
+ * sta razdeljena na kose, ki jih sprememba prepiše le na svojem mestu,
+ * odmiki za njo pa se zamaknejo šele ob branju. Kazalo vrstic ima vrzel
+ * (`LineIndex`), ki jo sprememba premakne k sebi. Sprememba zato stane
+ * toliko, kolikor je prizadetih vrstic, in še toliko, kolikor je vrstic
+ * med prejšnjo in to spremembo, ne glede na dolžino izvorne kode. Izvorna
+ * koda, zaporedje simbolov in kazalo vrstic se spreminjajo na mestu.
+ *
+ * Imena obdržijo oznake iz prejšnjih analiz, nova imena dobijo nove
+ * oznake. Oznake se zato razlikujejo od oznak celotne analize, tabela imen
+ * pa hrani tudi imena, ki jih noben simbol več ne uporablja (npr. vsako
+ * delno natipkano ime). `renumberNames()` imena oštevilči znova, enako kot
+ * celotna analiza, in neuporabljena zavrže; `IncrementalParser` ga kliče,
+ * ko zgosti areno.
+ *
+ * Vrstica z leksikalno napako ostane brez simbolov. Naslednja sprememba jo
+ * analizira znova, do takrat pa vsaka sprememba napako sporoči ponovno.
+ */
+public class IncrementalLexer {
+    /**
+     * Izvorna koda, ki jo spreminjamo.
+     */
+    private final SourceText.EditableText source;
+
+    /**
+     * Zaporedje simbolov in kazalo vrstic trenutne izvorne kode.
+     */
+    private final TokenStream tokens;
+    private final LineIndex lines;
+
+    /**
+     * Simboli in začetki vrstic znova analiziranih vrstic; tabele si delijo
+     * vse spremembe.
+     */
+    private TokenStream region;
+    private final LineIndex regionLines;
+
+    /**
+     * Zadnja sprememba je simbole `[spliceStart, spliceStart + removedTokens)`
+     * zamenjala z `insertedTokens` novimi simboli.
+     */
+    private int spliceStart = 0;
+    private int removedTokens = 0;
+    private int insertedTokens = 0;
+
+    /**
+     * Vrstice `[errorLinesStart, errorLinesEnd)` z leksikalno napako (-1, če
+     * je ni) in prva napaka v njih.
+     */
+    private int errorLinesStart = -1;
+    private int errorLinesEnd = -1;
+    private int errorStart;
+    private int errorEnd;
+    private String errorMessage;
+
+    /**
+     * Ustvari analizator za že analizirano izvorno kodo.
+     *
+     * @param tokens Zaporedje simbolov, ki ga je ustvaril `Lexer.tokenize()`
+     *               ali `ParallelLexer.tokenize()`. Analizator ga prepiše,
+     *               tabelo imen pa si deli z njim do `renumberNames()`.
+     */
+    public IncrementalLexer(TokenStream tokens) {
+        requireNonNull(tokens);
+        if (!tokens.hasOffsets()) {
+            throw new IllegalArgumentException("Token stream has no source offsets!");
+        }
+        this.tokens = tokens.editableCopy();
+        this.source = (SourceText.EditableText) this.tokens.source();
+        this.lines = this.tokens.lineIndex();
+        this.regionLines = new LineIndex(source);
+        this.region = new TokenStream(source, regionLines, this.tokens.names());
+    }
+
+    /**
+     * Ustvari analizator za prazno izvorno kodo; besedilo dodamo z `edit()`.
+     */
+    public IncrementalLexer() {
+        this(new Lexer(SourceText.of(""), Lexer.Engine.DFA, new Diagnostics()).tokenize());
+    }
+
+    /**
+     * Zaporedje simbolov trenutne izvorne kode. Po spremembi je isti objekt,
+     * spremenjen na mestu.
+     */
+    public TokenStream tokens() {
+        return tokens;
+    }
+
+    /**
+     * Imena znova oštevilči po vrstnem redu prve pojavitve, kot jih
+     * oštevilči celotna analiza, v novi tabeli imen brez imen, ki jih noben
+     * simbol ne uporablja. Oznake, prebrane pred klicem (npr. v drevesu),
+     * niso več veljavne.
+     */
+    public void renumberNames() {
+        var old = tokens.names();
+        var names = new NameTable();
+        var map = new int[old.size()];
+        Arrays.fill(map, -1);
+        for (int i = 0; i < tokens.size(); i++) {
+            int id = tokens.nameId(i);
+            if (id >= 0 && map[id] < 0) {
+                map[id] = names.intern(old.name(id));
+            }
+        }
+        tokens.renumberNames(names, map);
+        region = new TokenStream(source, regionLines, names);
+    }
+
+    /**
+     * Ali imajo simboli vse vrstice, torej izvorna koda nima leksikalne
+     * napake.
+     */
+    public boolean isComplete() {
+        return errorLinesStart < 0;
+    }
+
+    /**
+     * Indeks prvega simbola, ki ga je zadnja sprememba zamenjala.
+     */
+    public int spliceStart() {
+        return spliceStart;
+    }
+
+    /**
+     * Število simbolov, ki jih je zadnja sprememba odstranila od
+     * `spliceStart()` naprej.
+     */
+    public int removedTokens() {
+        return removedTokens;
+    }
+
+    /**
+     * Število simbolov, ki jih je zadnja sprememba vstavila na `spliceStart()`.
+     */
+    public int insertedTokens() {
+        return insertedTokens;
+    }
+
+    /**
+     * Spremeni izvorno kodo in posodobi zaporedje simbolov.
+     *
+     * @param offset Odmik spremembe.
+     * @param removedLength Število odstranjenih znakov.
+     * @param insertedText Vstavljeno besedilo.
+     * @param diagnostics Sporočila te spremembe.
+     * @return zaporedje simbolov spremenjene izvorne kode.
+     * @throws Diagnostics.CompilationFailed ob leksikalni napaki, ki ostane
+     *         v izvorni kodi. Sprememba je uveljavljena tudi takrat.
+     */
+    public TokenStream edit(int offset, int removedLength, String insertedText, Diagnostics diagnostics) {
+        requireNonNull(insertedText, diagnostics);
+        int oldLength = source.length();
+        if (offset < 0 || removedLength < 0 || offset + removedLength > oldLength) {
+            throw new IndexOutOfBoundsException("Edit is outside of the source!");
+        }
+        int inserted = insertedText.length();
+        int delta = inserted - removedLength;
+        source.replace(offset, removedLength, insertedText);
+        int length = source.length();
+
+        // Varni točki pred in za spremembo.
+        int restart = offset;
+        while (restart > 0 && source.charAt(restart - 1) != '\n') {
+            restart--;
+        }
+        int resume = source.indexOfNewline(offset + inserted);
+        resume = resume < length ? resume + 1 : length;
+        if (errorLinesStart >= 0) {
+            int errorFrom = map(errorLinesStart, offset, removedLength, inserted);
+            int errorTo = map(errorLinesEnd, offset, removedLength, inserted);
+            if (errorFrom <= resume && errorTo >= restart) {
+                // Vrstice z napako analiziramo znova skupaj s spremembo.
+                restart = Math.min(restart, errorFrom);
+                resume = Math.max(resume, errorTo);
+                errorLinesStart = -1;
+                errorMessage = null;
+            } else {
+                errorLinesStart = errorFrom;
+                errorLinesEnd = errorTo;
+                errorStart = map(errorStart, offset, removedLength, inserted);
+                errorEnd = map(errorEnd, offset, removedLength, inserted);
+            }
+        }
+        int oldResume = resume - delta;
+
+        int first = firstTokenFrom(restart);
+        int last = firstTokenFrom(oldResume);
+        region.truncate(0);
+        regionLines.truncate(1);
+        relex(restart, resume);
+
+        // Simbole, ki so ostali enaki, pustimo na mestu.
+        int regionSize = region.size();
+        int prefix = 0;
+        while (prefix < regionSize && first + prefix < last
+                && tokens.end(first + prefix) < offset
+                && same(tokens, first + prefix, region, prefix, 0)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < regionSize - prefix && last - suffix > first + prefix
+                && tokens.start(last - suffix - 1) > offset + removedLength
+                && same(tokens, last - suffix - 1, region, regionSize - suffix - 1, delta)) {
+            suffix++;
+        }
+        spliceStart = first + prefix;
+        removedTokens = last - suffix - spliceStart;
+        insertedTokens = regionSize - suffix - prefix;
+        tokens.splice(spliceStart, last - suffix, region, prefix, regionSize - suffix, delta);
+        lines.splice(restart, oldResume, regionLines, delta);
+
+        if (errorLinesStart >= 0) {
+            throw diagnostics.fatal(lines.position(errorStart, errorEnd), errorMessage);
+        }
+        return tokens;
+    }
+
+    /**
+     * Analizira vrstice `[from, to)` spremenjene izvorne kode. Vrstice z
+     * napako izpusti in jih doda k vrsticam z napako; če so te drugje, si
+     * zapomni celotno območje med njimi (simboli v njem ostanejo veljavni),
+     * sporočamo pa prvo napako.
+     */
+    private void relex(int from, int to) {
+        while (from < to) {
+            try {
+                new Lexer(source, from, to, regionLines, tokens.names()).tokenizeRange(region);
+                return;
+            } catch (Lexer.LexicalError e) {
+                int lineStart = e.start;
+                while (lineStart > from && source.charAt(lineStart - 1) != '\n') {
+                    lineStart--;
+                }
+                int lineEnd = source.indexOfNewline(e.end);
+                lineEnd = lineEnd < to ? lineEnd + 1 : to;
+                // Simboli vrstice z napako, ki jih je analizator že dodal.
+                int count = region.size();
+                while (count > 0 && region.start(count - 1) >= lineStart) {
+                    count--;
+                }
+                region.truncate(count);
+                if (source.charAt(lineEnd - 1) == '\n') {
+                    regionLines.addLineStart(lineEnd);
+                }
+                if (errorLinesStart < 0) {
+                    errorLinesStart = lineStart;
+                    errorLinesEnd = lineEnd;
+                } else {
+                    errorLinesStart = Math.min(errorLinesStart, lineStart);
+                    errorLinesEnd = Math.max(errorLinesEnd, lineEnd);
+                }
+                if (errorMessage == null || e.start < errorStart) {
+                    errorStart = e.start;
+                    errorEnd = e.end;
+                    errorMessage = e.getMessage();
+                }
+                from = lineEnd;
+            }
+        }
+    }
+
+    /**
+     * Odmik `position` stare izvorne kode v spremenjeni izvorni kodi.
+     */
+    private static int map(int position, int offset, int removed, int inserted) {
+        if (position <= offset) {
+            return position;
+        }
+        if (position >= offset + removed) {
+            return position + inserted - removed;
+        }
+        return offset + inserted;
+    }
+
+    /**
+     * Indeks prvega simbola (razen `EOF`), ki se začne na odmiku `offset`
+     * ali za njim.
+     */
+    private int firstTokenFrom(int offset) {
+        int low = 0;
+        int high = tokens.size() - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tokens.start(mid) < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Ali sta simbola enaka (na odmiku, zamaknjenem za `shift`).
+     */
+    private static boolean same(TokenStream a, int i, TokenStream b, int j, int shift) {
+        return a.type(i) == b.type(j)
+                && a.start(i) + shift == b.start(j)
+                && a.end(i) + shift == b.end(j)
+                && a.nameId(i) == b.nameId(j);
+    }
+}
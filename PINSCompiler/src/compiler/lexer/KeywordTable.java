@@ -0,0 +1,73 @@
+/**
+ * @Author: turk
+ * @Description: Popolna razpršilna tabela ključnih besed.
+ */
+
+package compiler.lexer;
+
+/**
+ * Prepozna ključne besede (`KW_*`), atomarne tipe (`AT_*`) in logični
+ * konstanti neposredno iz znakov izvorne kode, brez ustvarjanja niza.
+ *
+ * Razpršilna funkcija `(2 * c[0] + 21 * c[n - 2] + n) mod 32` je za te besede
+ * brez trkov, zato vsako ime primerjamo z največ eno besedo.
+ */
+final class KeywordTable {
+    private static final int SIZE = 32;
+    private static final int MIN_LENGTH = 2;
+    private static final int MAX_LENGTH = 7;
+
+    private static final char[][] words = new char[SIZE][];
+    private static final TokenType[] types = new TokenType[SIZE];
+
+    static {
+        for (var token : TokenType.values()) {
+            var str = token.toString();
+            if (str.startsWith("KW_")) {
+                put(str.substring("KW_".length()).toLowerCase(), token);
+            }
+            if (str.startsWith("AT_")) {
+                put(str.substring("AT_".length()).toLowerCase(), token);
+            }
+        }
+        put("true", TokenType.C_LOGICAL);
+        put("false", TokenType.C_LOGICAL);
+    }
+
+    private KeywordTable() {}
+
+    private static void put(String word, TokenType type) {
+        int slot = hash(word.charAt(0), word.charAt(word.length() - 2), word.length());
+        if (words[slot] != null || word.length() < MIN_LENGTH || word.length() > MAX_LENGTH) {
+            throw new IllegalStateException("Keyword hash is not perfect for `" + word + "`!");
+        }
+        words[slot] = word.toCharArray();
+        types[slot] = type;
+    }
+
+    private static int hash(char first, char penultimate, int length) {
+        return (2 * first + 21 * penultimate + length) & (SIZE - 1);
+    }
+
+    /**
+     * Vrne vrsto simbola, če je ime med odmikoma ključna beseda ali logična
+     * konstanta, sicer `null`.
+     */
+    static TokenType lookup(SourceText source, int start, int end) {
+        int length = end - start;
+        if (length < MIN_LENGTH || length > MAX_LENGTH) {
+            return null;
+        }
+        int slot = hash(source.charAt(start), source.charAt(end - 2), length);
+        var word = words[slot];
+        if (word == null || word.length != length) {
+            return null;
+        }
+        for (int i = 0; i < length; i++) {
+            if (word[i] != source.charAt(start + i)) {
+                return null;
+            }
+        }
+        return types[slot];
+    }
+}
@@ -8,46 +8,264 @@ package compiler.lexer;
 import static common.RequireNonNull.requireNonNull;
 import static compiler.lexer.TokenType.*;
 
-import common.Report;
-import compiler.lexer.Position.Location;
+import common.Diagnostics;
+import common.Events;
 
+import java.io.PrintStream;
 import java.util.*;
 
-
-public class Lexer {
+public class Lexer implements TokenSource {
     /**
      * Izvorna koda.
      */
-    private final String source;
+    private final SourceText source;
+
+    /**
+     * Izvedba leksikalne analize.
+     */
+    private final Engine engine;
 
     /**
-     * Preslikava iz ključnih besed v vrste simbolov.
+     * Ciljni tok, kamor pretočna analiza izpisuje simbole. Če simbolov ne
+     * želimo izpisovati, vrednost nastavimo na Optional.empty().
      */
-    private final static Map<String, TokenType> keywordMapping;
-    //staticen slovar - hrani preslikavo is stringov v token type -> uporabimo ko preverjamo ali je keyword ali konstanta
-    //stet se zacne z 1
+    private final Optional<PrintStream> symbolsOutputStream;
+
+    /**
+     * Tabela internih imen.
+     */
+    private final NameTable names;
+
+    /**
+     * Sporočila prevajanja, kamor analizator zabeleži napako.
+     */
+    private final Diagnostics diagnostics;
+
+    // --------------------------------------------------------------
+    // Razredi znakov.
+
+    private static final int CC_OTHER = 0;    // nedovoljen znak izven 32..126
+    private static final int CC_INVALID = 1;  // nedovoljen znak znotraj 32..126 (npr. `@`)
+    private static final int CC_SPACE = 2;
+    private static final int CC_TAB = 3;
+    private static final int CC_LF = 4;
+    private static final int CC_CR = 5;
+    private static final int CC_HASH = 6;
+    private static final int CC_QUOTE = 7;
+    private static final int CC_DIGIT = 8;
+    private static final int CC_UDIGIT = 9;   // števka izven ASCII (Character.isDigit)
+    private static final int CC_ALPHA = 10;   // črka ali `_`
+    private static final int CC_OP = 11;      // enoznakovni operator
+    private static final int CC_CMP = 12;     // `!`, `=`, `<`, `>`
+    private static final int CC_EQ = 13;      // `=`
+    private static final int CLASSES = 14;
+
+    /**
+     * Razred znaka za vsak ASCII znak.
+     */
+    private static final byte[] charClass = new byte[128];
+
+    // --------------------------------------------------------------
+    // Stanja avtomata.
+
+    private static final int S_DEAD = 0;
+    private static final int S_START = 1;
+    private static final int S_NEWLINES = 2;
+    private static final int S_OP = 3;
+    private static final int S_CMP = 4;
+    private static final int S_CMP_EQ = 5;
+    private static final int S_INTEGER = 6;
+    private static final int S_IDENT = 7;
+    private static final int S_IDENT_DIGIT = 8;
+    private static final int S_STRING = 9;
+    private static final int S_STRING_QUOTE = 10;
+    private static final int STATES = 11;
+
+    /**
+     * Prehodna funkcija avtomata: `transitions[stanje * CLASSES + razred]`.
+     */
+    private static final byte[] transitions = new byte[STATES * CLASSES];
+
+    /**
+     * Vrste enoznakovnih simbolov glede na znak.
+     */
+    private static final TokenType[] singleCharType = new TokenType[128];
+
+    /**
+     * Vrste dvoznakovnih simbolov (`X=`) glede na prvi znak.
+     */
+    private static final TokenType[] doubleCharType = new TokenType[128];
 
     static {
-        keywordMapping = new HashMap<>();
-        for (var token : TokenType.values()) {
-            var str = token.toString();
-            if (str.startsWith("KW_")) {
-                keywordMapping.put(str.substring("KW_".length()).toLowerCase(), token);
-            }
-            if (str.startsWith("AT_")) {
-                keywordMapping.put(str.substring("AT_".length()).toLowerCase(), token);
+        for (int c = 32; c < 127; c++) {
+            charClass[c] = CC_INVALID;
+        }
+        charClass[' '] = CC_SPACE;
+        charClass['\t'] = CC_TAB;
+        charClass['\n'] = CC_LF;
+        charClass['\r'] = CC_CR;
+        charClass['#'] = CC_HASH;
+        charClass['\''] = CC_QUOTE;
+        for (int c = '0'; c <= '9'; c++) {
+            charClass[c] = CC_DIGIT;
+        }
+        for (int c = 'a'; c <= 'z'; c++) {
+            charClass[c] = CC_ALPHA;
+            charClass[c - 'a' + 'A'] = CC_ALPHA;
+        }
+        charClass['_'] = CC_ALPHA;
+
+        singleCharType['+'] = OP_ADD;
+        singleCharType['-'] = OP_SUB;
+        singleCharType['*'] = OP_MUL;
+        singleCharType['/'] = OP_DIV;
+        singleCharType['%'] = OP_MOD;
+        singleCharType['&'] = OP_AND;
+        singleCharType['|'] = OP_OR;
+        singleCharType['('] = OP_LPARENT;
+        singleCharType[')'] = OP_RPARENT;
+        singleCharType['['] = OP_LBRACKET;
+        singleCharType[']'] = OP_RBRACKET;
+        singleCharType['{'] = OP_LBRACE;
+        singleCharType['}'] = OP_RBRACE;
+        singleCharType[':'] = OP_COLON;
+        singleCharType[';'] = OP_SEMICOLON;
+        singleCharType['.'] = OP_DOT;
+        singleCharType[','] = OP_COMMA;
+        for (int c = 0; c < 128; c++) {
+            if (singleCharType[c] != null) {
+                charClass[c] = CC_OP;
             }
         }
+        singleCharType['!'] = OP_NOT;
+        singleCharType['='] = OP_ASSIGN;
+        singleCharType['<'] = OP_LT;
+        singleCharType['>'] = OP_GT;
+        doubleCharType['!'] = OP_NEQ;
+        doubleCharType['='] = OP_EQ;
+        doubleCharType['<'] = OP_LEQ;
+        doubleCharType['>'] = OP_GEQ;
+        charClass['!'] = CC_CMP;
+        charClass['<'] = CC_CMP;
+        charClass['>'] = CC_CMP;
+        charClass['='] = CC_EQ;
+
+        // Presledke, tabulatorje in komentarje preskoči `BlockScanner`.
+        transition(S_START, CC_LF, S_NEWLINES);
+        transition(S_START, CC_CR, S_NEWLINES);
+        transition(S_START, CC_OP, S_OP);
+        transition(S_START, CC_CMP, S_CMP);
+        transition(S_START, CC_EQ, S_CMP);
+        transition(S_START, CC_DIGIT, S_INTEGER);
+        transition(S_START, CC_ALPHA, S_IDENT);
+        transition(S_START, CC_QUOTE, S_STRING);
+
+        transition(S_NEWLINES, CC_LF, S_NEWLINES);
+        transition(S_NEWLINES, CC_CR, S_NEWLINES);
+        transition(S_CMP, CC_EQ, S_CMP_EQ);
+
+        transition(S_INTEGER, CC_DIGIT, S_INTEGER);
+        transition(S_INTEGER, CC_UDIGIT, S_INTEGER);
+
+        transition(S_IDENT, CC_ALPHA, S_IDENT);
+        transition(S_IDENT, CC_DIGIT, S_IDENT_DIGIT);
+        transition(S_IDENT, CC_UDIGIT, S_IDENT_DIGIT);
+        transition(S_IDENT_DIGIT, CC_ALPHA, S_IDENT);
+        transition(S_IDENT_DIGIT, CC_DIGIT, S_IDENT_DIGIT);
+        transition(S_IDENT_DIGIT, CC_UDIGIT, S_IDENT_DIGIT);
+
+        // Znotraj niza so dovoljeni vsi znaki 32..126.
+        for (int cc : new int[] { CC_INVALID, CC_SPACE, CC_HASH, CC_DIGIT, CC_ALPHA, CC_OP, CC_CMP, CC_EQ }) {
+            transition(S_STRING, cc, S_STRING);
+        }
+        transition(S_STRING, CC_QUOTE, S_STRING_QUOTE);
+        transition(S_STRING_QUOTE, CC_QUOTE, S_STRING);
+    }
+
+    private static void transition(int from, int charClass, int to) {
+        transitions[from * CLASSES + charClass] = (byte) to;
+    }
+
+    /**
+     * Vrne razred znaka.
+     */
+    private static int classOf(char c) {
+        if (c < 128) {
+            return charClass[c];
+        }
+        return Character.isDigit(c) ? CC_UDIGIT : CC_OTHER;
     }
 
     /**
      * Ustvari nov analizator.
      *
      * @param source Izvorna koda programa.
+     * @param engine Izvedba leksikalne analize.
+     * @param diagnostics Sporočila prevajanja; ob napaki analizator vanje
+     *                    zabeleži napako in vrže `CompilationFailed`.
      */
-    public Lexer(String source) {
-        requireNonNull(source);
+    public Lexer(SourceText source, Engine engine, Diagnostics diagnostics) {
+        this(source, engine, Optional.empty(), diagnostics, false);
+    }
+
+    /**
+     * Ustvari nov analizator za pretočno analizo (`next()`/`peek()`), ki jo
+     * zmore le izvedba `DFA`; za izvedbo `LEGACY` zabeleži napako in vrže
+     * `CompilationFailed`.
+     *
+     * @param source Izvorna koda programa.
+     * @param engine Izvedba leksikalne analize.
+     * @param symbolsOutputStream Tok, kamor pretočna analiza (`next()`/`peek()`)
+     *                            izpisuje prebrane simbole.
+     * @param diagnostics Sporočila prevajanja; ob napaki analizator vanje
+     *                    zabeleži napako in vrže `CompilationFailed`.
+     */
+    public Lexer(SourceText source, Engine engine, Optional<PrintStream> symbolsOutputStream,
+            Diagnostics diagnostics) {
+        this(source, engine, symbolsOutputStream, diagnostics, true);
+    }
+
+    private Lexer(SourceText source, Engine engine, Optional<PrintStream> symbolsOutputStream,
+            Diagnostics diagnostics, boolean streaming) {
+        requireNonNull(source, engine, symbolsOutputStream, diagnostics);
+        if (streaming && engine == Engine.LEGACY) {
+            throw diagnostics.fatal("Streaming requires the DFA engine!");
+        }
+        this.source = source;
+        this.engine = engine;
+        this.symbolsOutputStream = symbolsOutputStream;
+        this.names = new NameTable();
+        this.diagnostics = diagnostics;
+        this.limit = source.length();
+        this.captureErrors = false;
+    }
+
+    /**
+     * Ustvari analizator za del izvorne kode med odmikoma `from` in `to`
+     * (`ParallelLexer`, `IncrementalLexer`). Meji morata biti odmika za
+     * znakom `\n` oziroma začetek ali konec datoteke. Namesto da bi napako
+     * sporočil, vrže `LexicalError`.
+     *
+     * @param lines Kazalo, kamor analizator beleži začetke vrstic.
+     */
+    Lexer(SourceText source, int from, int to, LineIndex lines, NameTable names) {
+        requireNonNull(source, lines, names);
         this.source = source;
+        this.engine = Engine.DFA;
+        this.symbolsOutputStream = Optional.empty();
+        this.names = names;
+        this.diagnostics = null;
+        this.lines = lines;
+        this.offset = from;
+        this.limit = to;
+        this.captureErrors = true;
+    }
+
+    /**
+     * Tabela internih imen, ki jih je analizator prebral.
+     */
+    public NameTable names() {
+        return names;
     }
 
     /**
@@ -55,255 +273,271 @@ public class Lexer {
      *
      * @return seznam leksikalnih simbolov.
      */
-    /*
-    VRSTA:
-    Kaj je enolično -> operatorji -> niso v nobenih kw in ne smejo bit v imenih ali konstantah -> prvo to
-
-    prob: zadnje se ugotovi a je ID al keyword
-    SEPRAVI: kaj sklepat glede na prvi znak:
-    crka - ime ali ID -> naprej kako ugotovit da ni samo konstanta stringa
-    stevilka - NI ime
+    public List<Symbol> scan() {
+        if (engine == Engine.LEGACY) {
+            return new LegacyLexer(source.toString(), diagnostics).scan();
+        }
+        return tokenize().toSymbols();
+    }
+
+    /**
+     * Izvedi leksikalno analizo.
+     *
+     * @return zaporedje leksikalnih simbolov.
      */
+    public TokenStream tokenize() {
+        var event = new Events.LexEvent();
+        event.begin();
+        TokenStream tokens;
+        if (engine == Engine.LEGACY) {
+            tokens = TokenStream.fromSymbols(new LegacyLexer(source.toString(), diagnostics).scan(), names);
+        } else {
+            init();
+            tokens = new TokenStream(source, lines, names);
+            TokenType type;
+            while ((type = scanToken()) != EOF) {
+                tokens.add(type, tokenStart, tokenEnd, tokenName);
+            }
+            tokens.add(EOF, tokenStart, tokenEnd, -1);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = source.name();
+            event.chunk = -1;
+            event.offset = 0;
+            event.characters = source.length();
+            event.tokens = tokens.size();
+            event.commit();
+        }
+        return tokens;
+    }
 
-    //while template:
-//if (i + 1 < characters.length && kajJeChar+1) {
-//        while (i < characters.length && kajJeChar+1) {
-//        lexem.append(characters[i]);
-//        i++;
-//        endColumn++;
-//        }
-//        i--;
-//        endColumn--;
-//        }
-    public List<Symbol> scan() {
-        /* implementiraj logiko */
-        var symbols = new ArrayList<Symbol>();
-        int line = 1;
-        int startColumn = 1;
-        int endColumn;
-        TokenType tokenType = null;
-        StringBuilder lexem;
-
-        char[] characters = this.source.toCharArray();
-//        characters = new char[]{9, 39, 'd', 'a', 'n', 'e', 's', ' ', 'j', 'e', ' ', 39, 39, 'l', 'e', 'p', 39, 39, ' ', 'd', 'a', 'n', 39};
-//        characters = new char[]{'t', 'r', 'u', 'e', 10, 10, ' ', ' ', '<', '=', '&', 10, 9, 10, 9, ' ', 'f', 'a', 'l', 's', 'e'};
-        for (int i = 0; i < characters.length; i++) {
-            endColumn = startColumn;
-            lexem = new StringBuilder();
-            boolean addingSymbolNecessity = true;
-            if (characters[i] == '+') {
-                tokenType = OP_ADD;
-                lexem = new StringBuilder("+");
-            } else if (characters[i] == '-') {
-                tokenType = OP_SUB;
-                lexem = new StringBuilder("-");
-            } else if (characters[i] == '*') {
-                tokenType = OP_MUL;
-                lexem = new StringBuilder("*");
-            } else if (characters[i] == '/') {
-                tokenType = OP_DIV;
-                lexem = new StringBuilder("/");
-            } else if (characters[i] == '%') {
-                tokenType = OP_MOD;
-                lexem = new StringBuilder("%");
-            } else if (characters[i] == '&') {
-                tokenType = OP_AND;
-                lexem = new StringBuilder("&");
-            } else if (characters[i] == '|') {
-                tokenType = OP_OR;
-                lexem = new StringBuilder("|");
-            } else if (characters[i] == '!') {
-                if (i + 1 < characters.length && characters[i + 1] == '=') {
-                    tokenType = OP_NEQ;
-                    endColumn++;
-                    i++;
-                    lexem = new StringBuilder("!=");
-                } else {
-                    tokenType = OP_NOT;
-                    lexem = new StringBuilder("!");
-                }
-            } else if (characters[i] == '=') {
-                if (i + 1 < characters.length && characters[i + 1] == '=') {
-                    tokenType = OP_EQ;
-                    endColumn++;
-                    i++;
-                    lexem = new StringBuilder("==");
-                } else {
-                    tokenType = OP_ASSIGN;
-                    lexem = new StringBuilder("=");
-                }
-            } else if (characters[i] == '<') {
-                if (i + 1 < characters.length && characters[i + 1] == '=') {
-                    tokenType = OP_LEQ;
-                    endColumn++;
-                    i++;
-                    lexem = new StringBuilder("<=");
-                } else {
-                    tokenType = OP_LT;
-                    lexem = new StringBuilder("<");
-                }
-            } else if (characters[i] == '>') {
-                if (i + 1 < characters.length && characters[i + 1] == '=') {
-                    tokenType = OP_GEQ;
-                    endColumn++;
-                    i++;
-                    lexem = new StringBuilder(">=");
-                } else {
-                    tokenType = OP_GT;
-                    lexem = new StringBuilder(">");
-                }
-            } else if (characters[i] == '(') {
-                tokenType = OP_LPARENT;
-                lexem = new StringBuilder("(");
-            } else if (characters[i] == ')') {
-                tokenType = OP_RPARENT;
-                lexem = new StringBuilder(")");
-            } else if (characters[i] == '[') {
-                tokenType = OP_LBRACKET;
-                lexem = new StringBuilder("[");
-            } else if (characters[i] == ']') {
-                tokenType = OP_RBRACKET;
-                lexem = new StringBuilder("]");
-            } else if (characters[i] == '{') {
-                tokenType = OP_LBRACE;
-                lexem = new StringBuilder("{");
-            } else if (characters[i] == '}') {
-                tokenType = OP_RBRACE;
-                lexem = new StringBuilder("}");
-            } else if (characters[i] == ':') {
-                tokenType = OP_COLON;
-                lexem = new StringBuilder(":");
-            } else if (characters[i] == ';') {
-                tokenType = OP_SEMICOLON;
-                lexem = new StringBuilder(";");
-            } else if (characters[i] == '.') {
-                tokenType = OP_DOT;
-                lexem = new StringBuilder(".");
-            } else if (characters[i] == ',') {
-                tokenType = OP_COMMA;
-                lexem = new StringBuilder(",");
-            } else if (characters[i] > 47 && characters[i] < 58) {
-                //NUMBERS
-                tokenType = C_INTEGER;
-                lexem = new StringBuilder();
-                if (i + 1 < characters.length && Character.isDigit(characters[i + 1])) {
-                    while (i < characters.length && Character.isDigit(characters[i])) {
-                        lexem.append(characters[i]);
-                        i++;
-                        endColumn++;
-                    }
-                    i--;
-                    endColumn--;
-                } else {
-                    lexem.append(characters[i]);
-                }
-            } else if (characters[i] == '#') {
-                addingSymbolNecessity = false;
-                while (i < characters.length && characters[i] != '\n') {
-                    i++;
-                }
-                line++;
-                startColumn = 1;
-                endColumn = 1;
-            } else if (characters[i] == 32) {
-                // ' '
-                addingSymbolNecessity = false;
-                if (i + 1 < characters.length && characters[i + 1] == 32) {
-                    while (i < characters.length && characters[i] == 32) {
-                        startColumn++;
-                        i++;
-                    }
-                    i--;
-                    startColumn--;
+    /**
+     * Analizira del izvorne kode, podan ob kreiranju, in simbole (brez
+     * `EOF`) doda na konec zaporedja.
+     */
+    void tokenizeRange(TokenStream tokens) {
+        TokenType type;
+        while ((type = scanToken()) != EOF) {
+            tokens.add(type, tokenStart, tokenEnd, tokenName);
+        }
+    }
+
+    // --------------------------------------------------------------
+    // Pretočna analiza.
+
+    /**
+     * Vrne vrsto naslednjega simbola, ne da bi ga prebrali.
+     *
+     * Simboli se ne shranjujejo; analizator hrani le en simbol vnaprej, zato
+     * je poraba pomnilnika neodvisna od dolžine izvorne kode (razen kazala
+     * začetkov vrstic). Na voljo samo pri izvedbi `DFA`; pri izvedbi
+     * `LEGACY` zabeleži napako in vrže `CompilationFailed`.
+     */
+    @Override
+    public TokenType peek() {
+        if (lookahead == null) {
+            if (engine == Engine.LEGACY) {
+                throw diagnostics.fatal("Streaming requires the DFA engine!");
+            }
+            init();
+            lookahead = scanToken();
+            streamed++;
+            if (symbolsOutputStream.isPresent()) {
+                var position = lines.position(tokenStart, tokenEnd);
+                var lexeme = TokenStream.lexeme(source, lookahead, tokenStart, tokenEnd);
+                symbolsOutputStream.get().println(new Symbol(position, lookahead, lexeme).toString());
+            }
+        }
+        return lookahead;
+    }
+
+    /**
+     * Prebere naslednji simbol in vrne njegovo vrsto. Ko doseže konec
+     * datoteke, vedno znova vrača `EOF`.
+     */
+    @Override
+    public TokenType next() {
+        var type = peek();
+        if (type != EOF) {
+            lookahead = null;
+        }
+        return type;
+    }
+
+    /**
+     * Število simbolov, ki jih je analizator prebral kot `TokenSource`,
+     * vključno z `EOF`.
+     */
+    public long streamed() {
+        return streamed;
+    }
+
+    // --------------------------------------------------------------
+    // Tabelarično voden končni avtomat.
+
+    /**
+     * Kazalo začetkov vrstic.
+     */
+    private LineIndex lines;
+
+    /**
+     * Odmik, kjer se nadaljuje analiza.
+     */
+    private int offset = 0;
+
+    /**
+     * Odmik, kjer se analiza konča.
+     */
+    private final int limit;
+
+    /**
+     * Ali napake vržemo kot `LexicalError`, namesto da bi jih sporočili.
+     */
+    private final boolean captureErrors;
+
+    /**
+     * Odmika zadnjega prepoznanega simbola.
+     */
+    private int tokenStart;
+    private int tokenEnd;
+
+    /**
+     * Oznaka imena zadnjega prepoznanega simbola (-1, če simbol ni ime).
+     */
+    private int tokenName = -1;
+
+    /**
+     * Naslednji simbol pri pretočni analizi (`null`, če še ni prebran).
+     */
+    private TokenType lookahead = null;
+
+    /**
+     * Število simbolov, prebranih pri pretočni analizi.
+     */
+    private long streamed = 0;
+
+    private void init() {
+        if (lines == null) {
+            lines = new LineIndex(source);
+        }
+    }
+
+    /**
+     * Prepozna naslednji simbol in nastavi `tokenStart`/`tokenEnd`.
+     *
+     * Vsak simbol prepoznamo po načelu najdaljšega ujemanja; ko avtomat
+     * preide v mrtvo stanje, glede na zadnje stanje izvedemo akcijo.
+     */
+    private TokenType scanToken() {
+        final SourceText source = this.source;
+        final int limit = this.limit;
+
+        int i = offset;
+        while (i < limit) {
+            final int start = i;
+            final char first = source.charAt(i);
+            if (first == ' ' || first == '\t') {
+                // Stolpce izračuna `LineIndex` šele, ko jih kdo potrebuje.
+                i = source.skipBlanks(i + 1);
+                continue;
+            }
+            if (first == '#') {
+                i = source.indexOfNewline(i + 1);
+                if (i < limit) {
+                    i++; // '\n'
                 }
-                startColumn++;
-            } else if (characters[i] == 9) {
-                // \t
-                addingSymbolNecessity = false;
-                if (i + 1 < characters.length && characters[i + 1] == 9) {
-                    while (i < characters.length && characters[i] == '\t') {
-                        startColumn += 4;
-                        i++;
-                    }
-                    i--;
-                    startColumn -= 4;
+                lines.addLineStart(i);
+                continue;
+            }
+
+            int state = S_START;
+            while (i < limit) {
+                int next = transitions[state * CLASSES + classOf(source.charAt(i))];
+                if (next == S_DEAD) {
+                    break;
                 }
-                startColumn += 4;
-            } else if (characters[i] == 10 || characters[i] == 13) {
-                // '\n'
-                addingSymbolNecessity = false;
-                line++;
-                startColumn = 1;
-                endColumn = 1;
-            } else if (characters[i] == 39) {
-                // ' -> STRING
-                tokenType = C_STRING;
-                lexem = new StringBuilder("");
-                boolean isEscaped = false;
+                state = next;
                 i++;
-                endColumn++;
-                while (i < characters.length && !isEscaped && characters[i] > 31 && characters[i] < 127) {
-                    if (characters[i] == 39) {
-                        if (i + 1 < characters.length && characters[i + 1] == 39) {
-                            i++;
-                            endColumn++;
-                            lexem.append("'");
-                        } else {
-                            isEscaped = true;
-                        }
-                    } else {
-                        lexem.append(characters[i]);
+            }
+
+            TokenType type = null;
+            int name = -1;
+            switch (state) {
+                case S_NEWLINES -> {
+                    for (int j = start + 1; j <= i; j++) {
+                        lines.addLineStart(j);
                     }
-                    i++;
-                    endColumn++;
-                }
-                i--;
-                endColumn--;
-                if (characters[i] <= 31 || characters[i] >= 127) {
-                    Report.error(new Position(line, endColumn, line, endColumn), "Unknown Character: " + characters[i]);
-                }
-                if (!isEscaped) {
-                    Report.error(new Position(line, startColumn, line, endColumn), "String is not escaped");
-                }
-            } else if ((characters[i] >= 65 && characters[i] <= 90) || (characters[i] >= 97 && characters[i] <= 122) || characters[i] == '_') {
-                lexem = new StringBuilder();
-                while (i < characters.length && ((characters[i] >= 65 && characters[i] <= 90) || (characters[i] >= 97 && characters[i] <= 122) || characters[i] == '_' || Character.isDigit(characters[i]))) {
-                    lexem.append(characters[i]);
-                    i++;
-                    endColumn++;
-                }
-                i--;
-                endColumn--;
-                if (!((characters[i] >= 65 && characters[i] <= 90) || (characters[i] >= 97 && characters[i] <= 122) || characters[i] == '_')) {
-                    Report.error(new Position(line, endColumn, line, endColumn), "Unknown Character: " + characters[i]);
                 }
-                if (keywordMapping.containsKey(lexem.toString())) {
-                    tokenType = keywordMapping.get(lexem.toString());
-                } else if (lexem.toString().equals("true") || lexem.toString().equals("false")) {
-                    tokenType = C_LOGICAL;
-                } else {
-                    tokenType = IDENTIFIER;
+                case S_OP, S_CMP -> type = singleCharType[source.charAt(start)];
+                case S_CMP_EQ -> type = doubleCharType[source.charAt(start)];
+                case S_INTEGER -> type = C_INTEGER;
+                case S_IDENT -> {
+                    type = KeywordTable.lookup(source, start, i);
+                    if (type == null) {
+                        type = IDENTIFIER;
+                        name = names.intern(source, start, i);
+                    }
                 }
-            } else {
-                Report.error(new Position(line, endColumn, line, endColumn), "Unknown Character: " + characters[i]);
+                case S_IDENT_DIGIT -> error(i - 1, i - 1, "Unknown Character: " + source.charAt(i - 1));
+                case S_STRING_QUOTE -> type = C_STRING;
+                case S_STRING -> error(start, i - 1, "String is not escaped");
+                default -> error(i, i, "Unknown Character: " + source.charAt(i));
             }
-            if (addingSymbolNecessity) {
-                symbols.add(createSymbol(line, startColumn, endColumn + 1, tokenType, lexem.toString()));
-                startColumn = endColumn + 1;
+            if (type != null) {
+                tokenStart = start;
+                tokenEnd = i;
+                tokenName = name;
+                offset = i;
+                return type;
             }
         }
 
-        symbols.add(new Symbol(new Position(line, startColumn, line, startColumn), EOF, "$"));
-        return symbols;
+        tokenStart = limit;
+        tokenEnd = limit;
+        tokenName = -1;
+        offset = limit;
+        return EOF;
+    }
+
+    private void error(int start, int end, String message) {
+        if (captureErrors) {
+            throw new LexicalError(start, end, message);
+        }
+        throw diagnostics.fatal(lines.position(start, end), message);
+    }
+
+    /**
+     * Leksikalna napaka, ki jo analizator dela izvorne kode vrže namesto
+     * sporočila; položaj se izračuna šele, ko so znani vsi začetki vrstic.
+     */
+    static class LexicalError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int start;
+        final int end;
+
+        LexicalError(int start, int end, String message) {
+            super(message, null, false, false);
+            this.start = start;
+            this.end = end;
+        }
     }
 
-    private Symbol createSymbol(
-            int line,
-            int startColumn,
-            int endColumn,
-            TokenType tokenType,
-            String lexeme) {
-        Position position = new Position(new Location(line, startColumn), new Location(line, endColumn));
-        return new Symbol(position, tokenType, lexeme);
+    // --------------------------------------------------------------
+
+    /**
+     * Izvedbe leksikalne analize.
+     */
+    public static enum Engine {
+        /**
+         * Tabelarično voden končni avtomat.
+         */
+        DFA,
+
+        /**
+         * Prvotna izvedba, ohranjena za diferencialno testiranje.
+         */
+        LEGACY
     }
 }
@@ -0,0 +1,223 @@
+/**
+ * @Author: turk
+ * @Description: Kazalo začetkov vrstic v izvorni kodi.
+ */
+
+package compiler.lexer;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.Arrays;
+
+/**
+ * Hrani urejeno tabelo odmikov, na katerih se začnejo vrstice. Vrstico in
+ * stolpec odmika izračuna šele, ko ju kdo potrebuje (dvojiško iskanje
+ * vrstice, nato štetje stolpcev od začetka vrstice, kjer tabulator šteje
+ * 4 stolpce).
+ *
+ * Kazalo, ki ga spreminja `IncrementalLexer`, ima vrzel na mestu zadnje
+ * spremembe; začetkom vrstic za njo ob branju prištejemo `tailShift`.
+ * Sprememba premakne vrzel k sebi, zato stane sorazmerno številu vrstic
+ * med prejšnjo in to spremembo (kopija in seštevek na vrstico). Izvorna
+ * koda in zaporedje simbolov sta razdeljena na kose in te cene nimata.
+ */
+public class LineIndex {
+    /**
+     * Izvorna koda.
+     */
+    private final SourceText source;
+
+    /**
+     * Odmiki začetkov vrstic; prva vrstica se začne na odmiku 0.
+     */
+    private int[] lineStarts = new int[64];
+
+    /**
+     * Število vrstic.
+     */
+    private int lineCount = 1;
+
+    /**
+     * Vrzel: začetki vrstic od indeksa `gapStart` naprej ležijo v tabeli
+     * `gapLength` mest dlje in so zamaknjeni za `tailShift`.
+     */
+    private int gapStart = Integer.MAX_VALUE;
+    private int gapLength = 0;
+    private int tailShift = 0;
+
+    /**
+     * Zadnji izračunani stolpec, da zaporedne poizvedbe v isti vrstici ne
+     * štejejo vedno od začetka vrstice.
+     */
+    private int cachedOffset = 0;
+    private int cachedColumn = 1;
+
+    /**
+     * Ustvari kazalo z eno samo vrstico.
+     *
+     * @param source Izvorna koda programa.
+     */
+    public LineIndex(SourceText source) {
+        requireNonNull(source);
+        this.source = source;
+    }
+
+    /**
+     * Doda začetke vrstic (razen prve) iz kazala, zgrajenega za kasnejši del
+     * izvorne kode.
+     */
+    void addLineStarts(LineIndex other) {
+        for (int i = 1; i < other.lineCount; i++) {
+            addLineStart(other.lineStart(i));
+        }
+    }
+
+    /**
+     * Kopija kazala za kopijo izvorne kode, ki jo lahko spreminjamo.
+     */
+    LineIndex copy(SourceText source) {
+        var copy = new LineIndex(source);
+        copy.addLineStarts(this);
+        copy.gapStart = copy.lineCount;
+        return copy;
+    }
+
+    /**
+     * Po spremembi izvorne kode začetke vrstic na odmikih `(from, to]`
+     * zamenja z začetki vrstic (razen prve) kazala `region`, zgrajenega nad
+     * spremenjeno izvorno kodo, začetke za `to` pa zamakne za `shift`.
+     */
+    void splice(int from, int to, LineIndex region, int shift) {
+        int first = lineIndexOf(from) + 1;
+        int last = lineIndexOf(to) + 1;
+        moveGap(last);
+        gapStart = first;
+        gapLength += last - first;
+        lineCount -= last - first;
+        tailShift += shift;
+        int count = region.lineCount - 1;
+        if (gapLength < count) {
+            int tail = lineCount - gapStart;
+            var grown = new int[lineCount + count + Math.max(lineCount >>> 3, 64)];
+            System.arraycopy(lineStarts, 0, grown, 0, gapStart);
+            System.arraycopy(lineStarts, gapStart + gapLength, grown, grown.length - tail, tail);
+            lineStarts = grown;
+            gapLength = grown.length - tail - gapStart;
+        }
+        for (int i = 1; i <= count; i++) {
+            lineStarts[gapStart++] = region.lineStart(i);
+        }
+        gapLength -= count;
+        lineCount += count;
+        cachedOffset = 0;
+        cachedColumn = 1;
+    }
+
+    private void moveGap(int index) {
+        if (gapStart > index) {
+            System.arraycopy(lineStarts, index, lineStarts, index + gapLength, gapStart - index);
+            for (int i = index + gapLength; i < gapStart + gapLength; i++) {
+                lineStarts[i] -= tailShift;
+            }
+        } else if (gapStart < index) {
+            System.arraycopy(lineStarts, gapStart + gapLength, lineStarts, gapStart, index - gapStart);
+            for (int i = gapStart; i < index; i++) {
+                lineStarts[i] += tailShift;
+            }
+        }
+        gapStart = index;
+    }
+
+    /**
+     * Odmik začetka `index`-te vrstice (od 0).
+     */
+    public int lineStart(int index) {
+        if (index >= gapStart) {
+            return lineStarts[index + gapLength] + tailShift;
+        }
+        return lineStarts[index];
+    }
+
+    /**
+     * Zabeleži začetek nove vrstice.
+     *
+     * @param offset Odmik prvega znaka vrstice.
+     */
+    void addLineStart(int offset) {
+        if (lineCount == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+        }
+        lineStarts[lineCount++] = offset;
+    }
+
+    /**
+     * Skrajša kazalo na prvih `lineCount` vrstic.
+     */
+    void truncate(int lineCount) {
+        this.lineCount = lineCount;
+        cachedOffset = 0;
+        cachedColumn = 1;
+    }
+
+    /**
+     * Število vrstic.
+     */
+    public int lineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Vrne zaporedno številko (od 0) vrstice, ki vsebuje odmik.
+     */
+    private int lineIndexOf(int offset) {
+        int low = 0;
+        int high = lineCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (lineStart(mid) <= offset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Vrstica odmika (od 1).
+     */
+    public int line(int offset) {
+        return lineIndexOf(offset) + 1;
+    }
+
+    /**
+     * Stolpec odmika (od 1).
+     */
+    public int column(int offset) {
+        int lineStart = lineStart(lineIndexOf(offset));
+        int from = lineStart;
+        int column = 1;
+        if (cachedOffset >= lineStart && cachedOffset <= offset) {
+            from = cachedOffset;
+            column = cachedColumn;
+        }
+        for (int i = from; i < offset; i++) {
+            column += source.charAt(i) == '\t' ? 4 : 1;
+        }
+        cachedOffset = offset;
+        cachedColumn = column;
+        return column;
+    }
+
+    /**
+     * Območje med odmikoma znotraj iste vrstice.
+     *
+     * @param start Odmik prvega znaka.
+     * @param end Odmik, ki določa končni stolpec (`stolpec(start) + end - start`).
+     */
+    public Position position(int start, int end) {
+        int line = line(start);
+        int column = column(start);
+        return new Position(line, column, line, column + end - start);
+    }
+}
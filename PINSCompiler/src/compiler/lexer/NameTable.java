@@ -0,0 +1,132 @@
+/**
+ * @Author: turk
+ * @Description: Tabela internih imen.
+ */
+
+package compiler.lexer;
+
+import java.util.Arrays;
+
+/**
+ * Vsakemu različnemu imenu dodeli gosto celoštevilsko oznako (0, 1, 2, ...),
+ * tako da lahko kasnejše faze imena primerjajo kot števila namesto z
+ * `String.equals`. Niz se ustvari le enkrat za vsako različno ime.
+ */
+public class NameTable {
+    /**
+     * Odprto naslavljanje: `oznaka + 1` oziroma 0 za prazno mesto.
+     */
+    private int[] slots = new int[256];
+
+    /**
+     * Razpršilne vrednosti imen po oznakah.
+     */
+    private int[] hashes = new int[128];
+
+    /**
+     * Imena po oznakah.
+     */
+    private String[] names = new String[128];
+
+    /**
+     * Število imen.
+     */
+    private int size = 0;
+
+    /**
+     * Število različnih imen.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Ime z dano oznako.
+     */
+    public String name(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException(id);
+        }
+        return names[id];
+    }
+
+    /**
+     * Vrne oznako imena med odmikoma; če ime še ni v tabeli, ga doda.
+     */
+    public int intern(SourceText source, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                return add(slot, hash, source.substring(start, end));
+            }
+            if (hashes[id] == hash && equals(names[id], source, start, end)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Vrne oznako imena; če ime še ni v tabeli, ga doda.
+     */
+    public int intern(String name) {
+        int hash = name.hashCode();
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                return add(slot, hash, name);
+            }
+            if (hashes[id] == hash && names[id].equals(name)) {
+                return id;
+            }
+        }
+    }
+
+    private int add(int slot, int hash, String name) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int id = size++;
+        names[id] = name;
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+        if (2 * size > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equals(String name, SourceText source, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != source.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * @Author: turk
+ * @Description: Vzporedni leksikalni analizator.
+ */
+
+package compiler.lexer;
+
+import static common.RequireNonNull.requireNonNull;
+
+import common.Diagnostics;
+import common.Events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Noben simbol ne sega čez znak `\n` (nizi ne smejo vsebovati kontrolnih
+ * znakov, komentar se konča z `\n`), zato izvorno kodo razdeli na kose na
+ * začetkih vrstic in jih analizira sočasno. Rezultate nato v vrstnem redu
+ * kosov združi v eno zaporedje: začetke vrstic, imena (oznake dobijo v
+ * vrstnem redu prve pojavitve, tako kot pri zaporedni analizi) in simbole.
+ * Če je v več kosih napaka, sporoči tisto, ki je v izvorni kodi prva.
+ *
+ * Rezultat je enak kot pri `Lexer.tokenize()` z izvedbo `DFA`.
+ */
+public class ParallelLexer {
+    /**
+     * Najmanjša velikost kosa (v znakih); manjših datotek ne delimo.
+     */
+    private static final int MIN_CHUNK_SIZE = 1 << 16;
+
+    /**
+     * Število kosov na nit, da se neenakomerno delo bolje porazdeli.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Izvorna koda.
+     */
+    private final SourceText source;
+
+    /**
+     * Število niti.
+     */
+    private final int parallelism;
+
+    /**
+     * Bazen niti (`null`, če analizator ustvari svojega).
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Sporočila prevajanja.
+     */
+    private final Diagnostics diagnostics;
+
+    /**
+     * Ustvari analizator, ki za analizo ustvari svoj bazen niti.
+     *
+     * @param source Izvorna koda programa.
+     * @param parallelism Število niti.
+     * @param diagnostics Sporočila prevajanja.
+     */
+    public ParallelLexer(SourceText source, int parallelism, Diagnostics diagnostics) {
+        requireNonNull(source, diagnostics);
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive!");
+        }
+        this.source = source;
+        this.parallelism = parallelism;
+        this.executor = null;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Ustvari analizator, ki kose analizira v danem bazenu niti.
+     *
+     * @param source Izvorna koda programa.
+     * @param executor Bazen niti.
+     * @param parallelism Število niti, ki jih bazen nameni analizi.
+     * @param diagnostics Sporočila prevajanja.
+     */
+    public ParallelLexer(SourceText source, ExecutorService executor, int parallelism, Diagnostics diagnostics) {
+        requireNonNull(source, executor, diagnostics);
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive!");
+        }
+        this.source = source;
+        this.parallelism = parallelism;
+        this.executor = executor;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Izvedi leksikalno analizo.
+     *
+     * @return zaporedje leksikalnih simbolov.
+     */
+    public TokenStream tokenize() {
+        var event = new Events.LexEvent();
+        event.begin();
+        var bounds = split();
+        var tasks = new ArrayList<Callable<Chunk>>(bounds.length - 1);
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            int chunk = i;
+            int from = bounds[i];
+            int to = bounds[i + 1];
+            tasks.add(() -> lex(chunk, from, to));
+        }
+
+        List<Chunk> chunks;
+        if (tasks.size() == 1) {
+            chunks = List.of(lex(0, bounds[0], bounds[1]));
+        } else if (executor != null) {
+            chunks = invokeAll(executor, tasks);
+        } else {
+            var pool = new ForkJoinPool(parallelism);
+            try {
+                chunks = invokeAll(pool, tasks);
+            } finally {
+                pool.shutdown();
+            }
+        }
+        var tokens = merge(chunks);
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = source.name();
+            event.chunk = -1;
+            event.offset = 0;
+            event.characters = source.length();
+            event.tokens = tokens.size();
+            event.commit();
+        }
+        return tokens;
+    }
+
+    /**
+     * Meje kosov: `bounds[i]` je začetek `i`-tega kosa, zadnji element je
+     * dolžina izvorne kode.
+     */
+    private int[] split() {
+        int length = source.length();
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, length / (parallelism * CHUNKS_PER_THREAD) + 1);
+        var bounds = new ArrayList<Integer>();
+        bounds.add(0);
+        int from = 0;
+        while (length - from > chunkSize + chunkSize / 2) {
+            int newline = source.indexOfNewline(from + chunkSize);
+            if (newline + 1 >= length) {
+                break;
+            }
+            from = newline + 1;
+            bounds.add(from);
+        }
+        bounds.add(length);
+        return bounds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Analizira `chunk`-ti kos, med odmikoma `from` in `to`.
+     */
+    private Chunk lex(int chunk, int from, int to) {
+        var event = new Events.LexEvent();
+        event.begin();
+        var lines = new LineIndex(source);
+        var names = new NameTable();
+        var lexer = new Lexer(source, from, to, lines, names);
+        var tokens = new TokenStream(source, lines, names);
+        try {
+            lexer.tokenizeRange(tokens);
+            return new Chunk(tokens, lines, null);
+        } catch (Lexer.LexicalError e) {
+            return new Chunk(null, lines, e);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.source = source.name();
+                event.chunk = chunk;
+                event.offset = from;
+                event.characters = to - from;
+                event.tokens = tokens.size();
+                event.commit();
+            }
+        }
+    }
+
+    private static List<Chunk> invokeAll(ExecutorService executor, List<Callable<Chunk>> tasks) {
+        try {
+            var chunks = new ArrayList<Chunk>(tasks.size());
+            for (var future : executor.invokeAll(tasks)) {
+                chunks.add(future.get());
+            }
+            return chunks;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Lexing was interrupted!", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Združi kose v vrstnem redu, kot si sledijo v izvorni kodi.
+     */
+    private TokenStream merge(List<Chunk> chunks) {
+        var lines = new LineIndex(source);
+        var names = new NameTable();
+        var tokens = new TokenStream(source, lines, names);
+        for (var chunk : chunks) {
+            lines.addLineStarts(chunk.lines);
+            if (chunk.error != null) {
+                var error = chunk.error;
+                throw diagnostics.fatal(lines.position(error.start, error.end), error.getMessage());
+            }
+            var chunkNames = chunk.tokens.names();
+            var nameMap = new int[chunkNames.size()];
+            for (int id = 0; id < nameMap.length; id++) {
+                nameMap[id] = names.intern(chunkNames.name(id));
+            }
+            tokens.addAll(chunk.tokens, nameMap);
+        }
+        int length = source.length();
+        tokens.add(TokenType.EOF, length, length, -1);
+        return tokens;
+    }
+
+    /**
+     * Rezultat analize enega kosa: simboli ali prva napaka v kosu.
+     */
+    private static record Chunk(TokenStream tokens, LineIndex lines, Lexer.LexicalError error) {
+    }
+}
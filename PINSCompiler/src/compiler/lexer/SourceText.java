@@ -0,0 +1,469 @@
+/**
+ * @Author: turk
+ * @Description: Izvorna koda, kot jo bere leksikalni analizator.
+ */
+
+package compiler.lexer;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Zaporedje znakov izvorne kode. Znakovne predstavitve simbolov se izrežejo
+ * šele, ko jih kdo potrebuje.
+ */
+public abstract class SourceText {
+    /**
+     * Ime izvora, npr. pot do datoteke (`null`, če ga ne poznamo).
+     */
+    private String name = null;
+
+    /**
+     * Število znakov.
+     */
+    public abstract int length();
+
+    /**
+     * Znak na odmiku `index`.
+     */
+    public abstract char charAt(int index);
+
+    /**
+     * Izreže znake med odmikoma `start` (vključno) in `end` (izključno).
+     */
+    public abstract String substring(int start, int end);
+
+    /**
+     * Vrne prvi odmik od `from` naprej, kjer ni presledka ali tabulatorja.
+     */
+    abstract int skipBlanks(int from);
+
+    /**
+     * Vrne odmik naslednjega znaka `\n` od `from` naprej oziroma dolžino.
+     */
+    abstract int indexOfNewline(int from);
+
+    /**
+     * Ime izvora, npr. pot do datoteke (`null`, če ga ne poznamo).
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Celotna izvorna koda kot niz.
+     */
+    @Override
+    public String toString() {
+        return substring(0, length());
+    }
+
+    /**
+     * Izvorna koda iz niza.
+     */
+    public static SourceText of(String source) {
+        requireNonNull(source);
+        return new CharArrayText(source);
+    }
+
+    /**
+     * Izvorna koda iz niza, ki izvira iz datoteke `name`.
+     */
+    public static SourceText of(String source, String name) {
+        var text = of(source);
+        text.name = name;
+        return text;
+    }
+
+    /**
+     * Odpre izvorno datoteko.
+     *
+     * Datoteko preslika v pomnilnik; če vsebuje samo ASCII znake (PINS dovoli
+     * le znake 32..126, tabulator in nove vrstice), jo analizator bere
+     * neposredno iz preslikave, brez dekodiranja in kopiranja. Sicer (npr.
+     * šumniki v komentarjih) jo prebere kot UTF-8 niz.
+     *
+     * @param path Pot do izvorne datoteke.
+     */
+    public static SourceText open(Path path) throws IOException {
+        requireNonNull(path);
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= Integer.MAX_VALUE) {
+                var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                if (isAscii(buffer)) {
+                    SourceText text = new MappedText(buffer);
+                    text.name = path.toString();
+                    return text;
+                }
+            }
+        }
+        return of(Files.readString(path), path.toString());
+    }
+
+    /**
+     * Kopija izvorne kode, ki jo lahko spreminjamo (`IncrementalLexer`).
+     */
+    static EditableText editable(SourceText source) {
+        SourceText text = new EditableText(source);
+        text.name = source.name;
+        return (EditableText) text;
+    }
+
+    private static boolean isAscii(ByteBuffer buffer) {
+        int length = buffer.limit();
+        int i = 0;
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            if ((buffer.getLong(i) & 0x8080808080808080L) != 0) {
+                return false;
+            }
+        }
+        for (; i < length; i++) {
+            if (buffer.get(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // --------------------------------------------------------------
+
+    /**
+     * Izvorna koda v tabeli znakov.
+     */
+    private static class CharArrayText extends SourceText {
+        private final String source;
+        private final char[] characters;
+
+        CharArrayText(String source) {
+            this.source = source;
+            this.characters = source.toCharArray();
+        }
+
+        @Override
+        public int length() {
+            return characters.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return characters[index];
+        }
+
+        @Override
+        public String substring(int start, int end) {
+            return source.substring(start, end);
+        }
+
+        @Override
+        int skipBlanks(int from) {
+            return BlockScanner.instance.skipBlanks(characters, from, characters.length);
+        }
+
+        @Override
+        int indexOfNewline(int from) {
+            return BlockScanner.instance.indexOfNewline(characters, from, characters.length);
+        }
+
+        @Override
+        public String toString() {
+            return source;
+        }
+    }
+
+    /**
+     * Izvorna koda, ki jo spreminjamo na mestu. Znaki ležijo v kosih
+     * različne polnosti; sprememba prepiše le kos, v katerem leži, kosom za
+     * njo pa popravi odmik prvega znaka, zato ne premika znakov med
+     * prejšnjo in novo spremembo.
+     */
+    static final class EditableText extends SourceText {
+        /**
+         * Velikost kosa je `1 << CHUNK_SHIFT` znakov.
+         */
+        private static final int CHUNK_SHIFT = 13;
+        private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+        /**
+         * Kosi, število znakov v kosu in odmik prvega znaka kosa.
+         */
+        private char[][] chunks;
+        private int[] counts;
+        private int[] firsts;
+        private int chunkCount;
+
+        private int length;
+
+        /**
+         * Kos zadnjega prebranega znaka.
+         */
+        private int lastChunk = 0;
+
+        EditableText(SourceText source) {
+            length = source.length();
+            chunkCount = Math.max((length + CHUNK_SIZE - 1) >>> CHUNK_SHIFT, 1);
+            chunks = new char[chunkCount][];
+            counts = new int[chunkCount];
+            firsts = new int[chunkCount];
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                chunks[chunk] = new char[CHUNK_SIZE];
+                firsts[chunk] = chunk << CHUNK_SHIFT;
+                counts[chunk] = Math.min(length - firsts[chunk], CHUNK_SIZE);
+                for (int i = 0; i < counts[chunk]; i++) {
+                    chunks[chunk][i] = source.charAt(firsts[chunk] + i);
+                }
+            }
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            int chunk = chunk(index);
+            return chunks[chunk][index - firsts[chunk]];
+        }
+
+        @Override
+        public String substring(int start, int end) {
+            if (start >= end) {
+                return "";
+            }
+            int chunk = chunk(start);
+            int from = start - firsts[chunk];
+            if (end - firsts[chunk] <= counts[chunk]) {
+                return new String(chunks[chunk], from, end - start);
+            }
+            var sb = new StringBuilder(end - start);
+            while (sb.length() < end - start) {
+                int n = Math.min(counts[chunk] - from, end - start - sb.length());
+                sb.append(chunks[chunk], from, n);
+                chunk++;
+                from = 0;
+            }
+            return sb.toString();
+        }
+
+        @Override
+        int skipBlanks(int from) {
+            if (from >= length) {
+                return length;
+            }
+            int chunk = chunk(from);
+            int i = from - firsts[chunk];
+            while (true) {
+                i = BlockScanner.instance.skipBlanks(chunks[chunk], i, counts[chunk]);
+                if (i < counts[chunk] || chunk + 1 == chunkCount) {
+                    return firsts[chunk] + i;
+                }
+                chunk++;
+                i = 0;
+            }
+        }
+
+        @Override
+        int indexOfNewline(int from) {
+            if (from >= length) {
+                return length;
+            }
+            int chunk = chunk(from);
+            int i = from - firsts[chunk];
+            while (true) {
+                i = BlockScanner.instance.indexOfNewline(chunks[chunk], i, counts[chunk]);
+                if (i < counts[chunk] || chunk + 1 == chunkCount) {
+                    return firsts[chunk] + i;
+                }
+                chunk++;
+                i = 0;
+            }
+        }
+
+        /**
+         * Zamenja `removed` znakov na odmiku `offset` z besedilom `inserted`.
+         *
+         * Če vstavljeno besedilo in ostanek zadnjega prizadetega kosa prideta
+         * v prvi prizadeti kos, ju prepiše vanj; sicer ostanek preseli v svoj
+         * kos in besedilo razporedi v prvi kos in nove kose pred ostankom.
+         */
+        void replace(int offset, int removed, String inserted) {
+            int count = inserted.length();
+            int first = offset < length ? chunk(offset) : chunkCount - 1;
+            int local = offset - firsts[first];
+            int last = removed > 0 ? chunk(offset + removed - 1) : first;
+            int rest = offset + removed - firsts[last];
+            int restCount = counts[last] - rest;
+            int restChunk;
+            if (local + count + restCount <= CHUNK_SIZE) {
+                System.arraycopy(chunks[last], rest, chunks[first], local + count, restCount);
+                inserted.getChars(0, count, chunks[first], local);
+                removeChunks(first + 1, last - first);
+                counts[first] = local + count + restCount;
+                restChunk = first;
+            } else {
+                restChunk = first + 1;
+                if (last == first) {
+                    insertChunks(restChunk, 1);
+                    System.arraycopy(chunks[first], rest, chunks[restChunk], 0, restCount);
+                } else {
+                    System.arraycopy(chunks[last], rest, chunks[last], 0, restCount);
+                    removeChunks(restChunk, last - restChunk);
+                }
+                counts[restChunk] = restCount;
+                int added = Math.max(local + count - 1, 0) >>> CHUNK_SHIFT;
+                insertChunks(restChunk, added);
+                restChunk += added;
+                counts[first] = local;
+                int chunk = first;
+                for (int done = 0; done < count; chunk++) {
+                    int n = Math.min(count - done, CHUNK_SIZE - local);
+                    inserted.getChars(done, done + n, chunks[chunk], local);
+                    counts[chunk] = local + n;
+                    done += n;
+                    local = 0;
+                }
+            }
+            for (int chunk = first + 1; chunk < chunkCount; chunk++) {
+                firsts[chunk] = firsts[chunk - 1] + counts[chunk - 1];
+            }
+            length += count - removed;
+            if (restChunk != first) {
+                merge(restChunk);
+            }
+            merge(first);
+            lastChunk = 0;
+        }
+
+        /**
+         * Kos, v katerem leži znak na odmiku `index`.
+         */
+        private int chunk(int index) {
+            int chunk = lastChunk;
+            if (index - firsts[chunk] < counts[chunk] && index >= firsts[chunk]) {
+                return chunk;
+            }
+            if (++chunk < chunkCount && index - firsts[chunk] < counts[chunk] && index >= firsts[chunk]) {
+                lastChunk = chunk;
+                return chunk;
+            }
+            int low = 0;
+            int high = chunkCount - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (firsts[mid] <= index) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            lastChunk = low;
+            return low;
+        }
+
+        /**
+         * Odstrani prazen kos `chunk` ali ga združi s sosedom, če skupaj ne
+         * napolnita pol kosa.
+         */
+        private void merge(int chunk) {
+            if (chunkCount == 1) {
+                return;
+            }
+            if (counts[chunk] == 0) {
+                removeChunks(chunk, 1);
+                return;
+            }
+            if (chunk + 1 < chunkCount && counts[chunk] + counts[chunk + 1] <= CHUNK_SIZE / 2) {
+                chunk++;
+            } else if (chunk == 0 || counts[chunk - 1] + counts[chunk] > CHUNK_SIZE / 2) {
+                return;
+            }
+            System.arraycopy(chunks[chunk], 0, chunks[chunk - 1], counts[chunk - 1], counts[chunk]);
+            counts[chunk - 1] += counts[chunk];
+            removeChunks(chunk, 1);
+        }
+
+        /**
+         * Vstavi `n` praznih kosov pred kos `at`.
+         */
+        private void insertChunks(int at, int n) {
+            if (n == 0) {
+                return;
+            }
+            if (chunkCount + n > chunks.length) {
+                int capacity = Math.max(chunks.length * 2, chunkCount + n);
+                chunks = Arrays.copyOf(chunks, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+                firsts = Arrays.copyOf(firsts, capacity);
+            }
+            System.arraycopy(chunks, at, chunks, at + n, chunkCount - at);
+            System.arraycopy(counts, at, counts, at + n, chunkCount - at);
+            System.arraycopy(firsts, at, firsts, at + n, chunkCount - at);
+            for (int chunk = at; chunk < at + n; chunk++) {
+                chunks[chunk] = new char[CHUNK_SIZE];
+                counts[chunk] = 0;
+            }
+            chunkCount += n;
+        }
+
+        /**
+         * Odstrani `n` kosov od kosa `at` naprej.
+         */
+        private void removeChunks(int at, int n) {
+            if (n == 0) {
+                return;
+            }
+            System.arraycopy(chunks, at + n, chunks, at, chunkCount - at - n);
+            System.arraycopy(counts, at + n, counts, at, chunkCount - at - n);
+            System.arraycopy(firsts, at + n, firsts, at, chunkCount - at - n);
+            chunkCount -= n;
+            Arrays.fill(chunks, chunkCount, chunkCount + n, null);
+        }
+    }
+
+    /**
+     * ASCII izvorna koda, preslikana v pomnilnik; en bajt je en znak.
+     */
+    private static class MappedText extends SourceText {
+        private final ByteBuffer buffer;
+
+        MappedText(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int length() {
+            return buffer.limit();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) buffer.get(index);
+        }
+
+        @Override
+        public String substring(int start, int end) {
+            var bytes = new byte[end - start];
+            buffer.get(start, bytes);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        int skipBlanks(int from) {
+            return BlockScanner.instance.skipBlanks(buffer, from, buffer.limit());
+        }
+
+        @Override
+        int indexOfNewline(int from) {
+            return BlockScanner.instance.indexOfNewline(buffer, from, buffer.limit());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+/**
+ * @Author: turk
+ * @Description: Vir leksikalnih simbolov za sintaksni analizator.
+ */
+
+package compiler.lexer;
+
+public interface TokenSource {
+    /**
+     * Vrne vrsto naslednjega simbola, ne da bi ga prebrali.
+     */
+    TokenType peek();
+
+    /**
+     * Prebere naslednji simbol in vrne njegovo vrsto. Na koncu datoteke
+     * vedno znova vrača `EOF`.
+     */
+    TokenType next();
+}
@@ -0,0 +1,580 @@
+/**
+ * @Author: turk
+ * @Description: Zaporedje leksikalnih simbolov, shranjeno po stolpcih.
+ */
+
+package compiler.lexer;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Simbole hrani v primitivnih tabelah (vrsta, začetni in končni odmik), ki
+ * rastejo po kosih. Vrstice in stolpce izračuna `LineIndex` šele na zahtevo,
+ * prav tako se objekt `Symbol` ustvari šele, ko ga kdo zahteva.
+ *
+ * Zaporedje, ki ga spreminja `IncrementalLexer`, ima kose različno polne
+ * in vsakemu kosu pripiše zamik, ki ga ob branju prištejemo odmikom
+ * njegovih simbolov. Sprememba prepiše samo kos, v katerem leži, kose za
+ * njo pa le zamakne v imeniku kosov, zato njena cena ni odvisna od dolžine
+ * izvorne kode ali od razdalje do prejšnje spremembe.
+ */
+public class TokenStream {
+    /**
+     * Velikost kosa je `1 << CHUNK_SHIFT` simbolov.
+     */
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final TokenType[] tokenTypes = TokenType.values();
+
+    /**
+     * Izvorna koda, iz katere se po potrebi izrežejo znakovne predstavitve.
+     */
+    private final SourceText source;
+
+    /**
+     * Kazalo začetkov vrstic.
+     */
+    private final LineIndex lines;
+
+    /**
+     * Tabela internih imen (zaporedje z imenikom jo zamenja ob
+     * `renumberNames()`).
+     */
+    private NameTable names;
+
+    /**
+     * Simboli, iz katerih je bilo zaporedje zgrajeno (samo `fromSymbols`).
+     */
+    private final List<Symbol> symbols;
+
+    private int[][] types = new int[1][];
+    private int[][] starts = new int[1][];
+    private int[][] ends = new int[1][];
+    private int[][] nameIds = new int[1][];
+
+    /**
+     * Število simbolov.
+     */
+    private int size = 0;
+
+    /**
+     * Imenik kosov zaporedja, ki ga spreminjamo: število simbolov v kosu,
+     * indeks prvega simbola kosa in zamik odmikov simbolov kosa. Zaporedje,
+     * ki ga ne spreminjamo, imenika nima (`counts == null`); njegovi kosi so
+     * polni, zato `index`-ti simbol leži v kosu `index >>> CHUNK_SHIFT`.
+     */
+    private int[] counts;
+    private int[] firsts;
+    private int[] shifts;
+    private int chunkCount;
+
+    /**
+     * Kos zadnjega prebranega simbola; zaporedno branje kosa ne išče v
+     * imeniku.
+     */
+    private int lastChunk = 0;
+
+    /**
+     * Ustvari prazno zaporedje simbolov.
+     *
+     * @param source Izvorna koda programa.
+     * @param lines Kazalo začetkov vrstic izvorne kode.
+     * @param names Tabela internih imen.
+     */
+    TokenStream(SourceText source, LineIndex lines, NameTable names) {
+        requireNonNull(source, lines, names);
+        this.source = source;
+        this.lines = lines;
+        this.names = names;
+        this.symbols = null;
+    }
+
+    private TokenStream(List<Symbol> symbols, NameTable names) {
+        this.source = SourceText.of("");
+        this.lines = new LineIndex(source);
+        this.names = names;
+        this.symbols = symbols;
+        for (var symbol : symbols) {
+            var name = symbol.tokenType == TokenType.IDENTIFIER ? names.intern(symbol.lexeme) : -1;
+            add(symbol.tokenType, 0, 0, name);
+        }
+    }
+
+    /**
+     * Ustvari zaporedje iz že obstoječih simbolov (npr. `--lexer LEGACY`).
+     */
+    public static TokenStream fromSymbols(List<Symbol> symbols, NameTable names) {
+        requireNonNull(symbols, names);
+        return new TokenStream(symbols, names);
+    }
+
+    /**
+     * Doda simbol na konec zaporedja.
+     */
+    void add(TokenType type, int start, int end, int nameId) {
+        int chunk = size >>> CHUNK_SHIFT;
+        int index = size & CHUNK_MASK;
+        if (index == 0 && (chunk == types.length || types[chunk] == null)) {
+            grow(chunk);
+        }
+        types[chunk][index] = type.ordinal();
+        starts[chunk][index] = start;
+        ends[chunk][index] = end;
+        nameIds[chunk][index] = nameId;
+        size++;
+    }
+
+    /**
+     * Doda vse simbole drugega zaporedja; oznake imen preslika z `nameMap`.
+     */
+    void addAll(TokenStream other, int[] nameMap) {
+        for (int i = 0; i < other.size; i++) {
+            int nameId = other.nameId(i);
+            add(other.type(i), other.start(i), other.end(i), nameId >= 0 ? nameMap[nameId] : -1);
+        }
+    }
+
+    /**
+     * Skrajša zaporedje na prvih `size` simbolov.
+     */
+    void truncate(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Kopija zaporedja nad kopijo izvorne kode in kazala vrstic, ki ju lahko
+     * spreminjamo (`IncrementalLexer`). Tabelo imen si deli s tem
+     * zaporedjem.
+     */
+    TokenStream editableCopy() {
+        var text = SourceText.editable(source);
+        var copy = new TokenStream(text, lines.copy(text), names);
+        for (int i = 0; i < size; i++) {
+            copy.add(type(i), start(i), end(i), nameId(i));
+        }
+        if (copy.size == 0) {
+            copy.grow(0);
+        }
+        int capacity = copy.types.length;
+        copy.counts = new int[capacity];
+        copy.firsts = new int[capacity];
+        copy.shifts = new int[capacity];
+        copy.chunkCount = Math.max((copy.size + CHUNK_MASK) >>> CHUNK_SHIFT, 1);
+        for (int chunk = 0; chunk < copy.chunkCount; chunk++) {
+            copy.firsts[chunk] = chunk << CHUNK_SHIFT;
+            copy.counts[chunk] = Math.min(copy.size - copy.firsts[chunk], CHUNK_SIZE);
+        }
+        return copy;
+    }
+
+    /**
+     * Zamenja simbole `[from, to)` s simboli `[regionFrom, regionTo)`
+     * zaporedja `region`, zgrajenega nad že spremenjeno izvorno kodo, in
+     * odmike simbolov od `to` naprej zamakne za `shift`.
+     *
+     * Če novi simboli in ostanek zadnjega prizadetega kosa prideta v prvi
+     * prizadeti kos, ju prepiše vanj; sicer ostanek preseli v svoj kos in
+     * nove simbole razporedi v prvi kos in nove kose pred ostankom. Kosom
+     * za spremembo popravi le indeks prvega simbola in zamik.
+     */
+    void splice(int from, int to, TokenStream region, int regionFrom, int regionTo, int shift) {
+        int count = regionTo - regionFrom;
+        int first = from < size ? chunk(from) : chunkCount - 1;
+        int local = from - firsts[first];
+        int last = to > from ? chunk(to - 1) : first;
+        int rest = to - firsts[last];
+        int restCount = counts[last] - rest;
+        int restChunk;
+        int next;
+        if (local + count + restCount <= CHUNK_SIZE) {
+            copy(last, rest, first, local + count, restCount, shifts[last] + shift - shifts[first]);
+            removeChunks(first + 1, last - first);
+            restChunk = first;
+            next = first + 1;
+        } else {
+            restChunk = first + 1;
+            if (last == first) {
+                insertChunks(restChunk, 1);
+                copy(first, rest, restChunk, 0, restCount, 0);
+                shifts[restChunk] = shifts[first] + shift;
+            } else {
+                copy(last, rest, last, 0, restCount, 0);
+                shifts[last] += shift;
+                removeChunks(restChunk, last - restChunk);
+            }
+            counts[restChunk] = restCount;
+            int added = Math.max(local + count - 1, 0) >>> CHUNK_SHIFT;
+            insertChunks(restChunk, added);
+            restChunk += added;
+            restCount = 0;
+            next = restChunk + 1;
+        }
+        int chunk = first;
+        for (int i = regionFrom; i < regionTo; i++) {
+            if (local == CHUNK_SIZE) {
+                counts[chunk++] = local;
+                local = 0;
+            }
+            types[chunk][local] = region.type(i).ordinal();
+            starts[chunk][local] = region.start(i) - shifts[chunk];
+            ends[chunk][local] = region.end(i) - shifts[chunk];
+            nameIds[chunk][local] = region.nameId(i);
+            local++;
+        }
+        counts[chunk] = local + restCount;
+        for (int c = first + 1; c < chunkCount; c++) {
+            firsts[c] = firsts[c - 1] + counts[c - 1];
+            if (c >= next) {
+                shifts[c] += shift;
+            }
+        }
+        size += count - (to - from);
+        if (restChunk != first) {
+            merge(restChunk);
+        }
+        merge(first);
+        lastChunk = 0;
+    }
+
+    /**
+     * Oznake imen zamenja z `map[oznaka]` in tabelo imen z `names` (samo v
+     * zaporedju z imenikom).
+     */
+    void renumberNames(NameTable names, int[] map) {
+        this.names = names;
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            var ids = nameIds[chunk];
+            for (int i = 0; i < counts[chunk]; i++) {
+                if (ids[i] >= 0) {
+                    ids[i] = map[ids[i]];
+                }
+            }
+        }
+    }
+
+    /**
+     * Kos, v katerem leži `index`-ti simbol (samo v zaporedju z imenikom).
+     */
+    private int chunk(int index) {
+        int chunk = lastChunk;
+        if (index - firsts[chunk] < counts[chunk] && index >= firsts[chunk]) {
+            return chunk;
+        }
+        if (++chunk < chunkCount && index - firsts[chunk] < counts[chunk] && index >= firsts[chunk]) {
+            lastChunk = chunk;
+            return chunk;
+        }
+        int low = 0;
+        int high = chunkCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (firsts[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        lastChunk = low;
+        return low;
+    }
+
+    /**
+     * Prepiše `count` simbolov z mest od `from` kosa `source` na mesta od
+     * `to` kosa `target` in shranjenim odmikom prišteje `shift`.
+     */
+    private void copy(int source, int from, int target, int to, int count, int shift) {
+        System.arraycopy(types[source], from, types[target], to, count);
+        System.arraycopy(starts[source], from, starts[target], to, count);
+        System.arraycopy(ends[source], from, ends[target], to, count);
+        System.arraycopy(nameIds[source], from, nameIds[target], to, count);
+        if (shift != 0) {
+            var targetStarts = starts[target];
+            var targetEnds = ends[target];
+            for (int i = to; i < to + count; i++) {
+                targetStarts[i] += shift;
+                targetEnds[i] += shift;
+            }
+        }
+    }
+
+    /**
+     * Odstrani prazen kos `chunk` ali ga združi s sosedom, če skupaj ne
+     * napolnita pol kosa, da se zaporedje ne razdrobi na majhne kose.
+     */
+    private void merge(int chunk) {
+        if (chunkCount == 1) {
+            return;
+        }
+        if (counts[chunk] == 0) {
+            removeChunks(chunk, 1);
+            return;
+        }
+        if (chunk + 1 < chunkCount && counts[chunk] + counts[chunk + 1] <= CHUNK_SIZE / 2) {
+            chunk++;
+        } else if (chunk == 0 || counts[chunk - 1] + counts[chunk] > CHUNK_SIZE / 2) {
+            return;
+        }
+        copy(chunk, 0, chunk - 1, counts[chunk - 1], counts[chunk], shifts[chunk] - shifts[chunk - 1]);
+        counts[chunk - 1] += counts[chunk];
+        removeChunks(chunk, 1);
+    }
+
+    /**
+     * Vstavi `n` praznih kosov pred kos `at`.
+     */
+    private void insertChunks(int at, int n) {
+        if (n == 0) {
+            return;
+        }
+        if (chunkCount + n > types.length) {
+            int capacity = Math.max(types.length * 2, chunkCount + n);
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            nameIds = Arrays.copyOf(nameIds, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            firsts = Arrays.copyOf(firsts, capacity);
+            shifts = Arrays.copyOf(shifts, capacity);
+        }
+        moveChunks(at, at + n, chunkCount - at);
+        for (int chunk = at; chunk < at + n; chunk++) {
+            types[chunk] = new int[CHUNK_SIZE];
+            starts[chunk] = new int[CHUNK_SIZE];
+            ends[chunk] = new int[CHUNK_SIZE];
+            nameIds[chunk] = new int[CHUNK_SIZE];
+            counts[chunk] = 0;
+            shifts[chunk] = 0;
+        }
+        chunkCount += n;
+    }
+
+    /**
+     * Odstrani `n` kosov od kosa `at` naprej.
+     */
+    private void removeChunks(int at, int n) {
+        if (n == 0) {
+            return;
+        }
+        moveChunks(at + n, at, chunkCount - at - n);
+        chunkCount -= n;
+        Arrays.fill(types, chunkCount, chunkCount + n, null);
+        Arrays.fill(starts, chunkCount, chunkCount + n, null);
+        Arrays.fill(ends, chunkCount, chunkCount + n, null);
+        Arrays.fill(nameIds, chunkCount, chunkCount + n, null);
+    }
+
+    private void moveChunks(int from, int to, int n) {
+        System.arraycopy(types, from, types, to, n);
+        System.arraycopy(starts, from, starts, to, n);
+        System.arraycopy(ends, from, ends, to, n);
+        System.arraycopy(nameIds, from, nameIds, to, n);
+        System.arraycopy(counts, from, counts, to, n);
+        System.arraycopy(firsts, from, firsts, to, n);
+        System.arraycopy(shifts, from, shifts, to, n);
+    }
+
+    private void grow(int chunk) {
+        if (chunk == types.length) {
+            int capacity = types.length * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            nameIds = Arrays.copyOf(nameIds, capacity);
+        }
+        types[chunk] = new int[CHUNK_SIZE];
+        starts[chunk] = new int[CHUNK_SIZE];
+        ends[chunk] = new int[CHUNK_SIZE];
+        nameIds[chunk] = new int[CHUNK_SIZE];
+    }
+
+    /**
+     * Število simbolov v zaporedju.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Vrsta `index`-tega simbola.
+     */
+    public TokenType type(int index) {
+        if (counts != null) {
+            int chunk = chunk(index);
+            return tokenTypes[types[chunk][index - firsts[chunk]]];
+        }
+        return tokenTypes[types[index >>> CHUNK_SHIFT][index & CHUNK_MASK]];
+    }
+
+    /**
+     * Odmik prvega znaka simbola v izvorni kodi.
+     */
+    public int start(int index) {
+        if (counts != null) {
+            int chunk = chunk(index);
+            return starts[chunk][index - firsts[chunk]] + shifts[chunk];
+        }
+        return starts[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    /**
+     * Odmik za zadnjim znakom simbola v izvorni kodi.
+     */
+    public int end(int index) {
+        if (counts != null) {
+            int chunk = chunk(index);
+            return ends[chunk][index - firsts[chunk]] + shifts[chunk];
+        }
+        return ends[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    /**
+     * Oznaka imena v tabeli internih imen (-1, če simbol ni ime).
+     */
+    public int nameId(int index) {
+        if (counts != null) {
+            int chunk = chunk(index);
+            return nameIds[chunk][index - firsts[chunk]];
+        }
+        return nameIds[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    /**
+     * Izvorna koda.
+     */
+    public SourceText source() {
+        return source;
+    }
+
+    /**
+     * Ali zaporedje hrani odmike simbolov (ni zgrajeno z `fromSymbols`).
+     */
+    boolean hasOffsets() {
+        return symbols == null;
+    }
+
+    /**
+     * Tabela internih imen.
+     */
+    public NameTable names() {
+        return names;
+    }
+
+    /**
+     * Kazalo začetkov vrstic izvorne kode.
+     */
+    public LineIndex lineIndex() {
+        return lines;
+    }
+
+    /**
+     * Območje simbola znotraj izvorne datoteke.
+     */
+    public Position position(int index) {
+        if (symbols != null) {
+            return symbols.get(index).position;
+        }
+        return lines.position(start(index), end(index));
+    }
+
+    /**
+     * Znakovna predstavitev simbola.
+     */
+    public String lexeme(int index) {
+        if (symbols != null) {
+            return symbols.get(index).lexeme;
+        }
+        int nameId = nameId(index);
+        if (nameId >= 0) {
+            return names.name(nameId);
+        }
+        return lexeme(source, type(index), start(index), end(index));
+    }
+
+    /**
+     * Izreže znakovno predstavitev simbola iz izvorne kode.
+     */
+    static String lexeme(SourceText source, TokenType type, int start, int end) {
+        if (type == TokenType.EOF) {
+            return "$";
+        }
+        if (type == TokenType.C_STRING) {
+            return source.substring(start + 1, end - 1).replace("''", "'");
+        }
+        return source.substring(start, end);
+    }
+
+    /**
+     * Ustvari leksikalni simbol.
+     */
+    public Symbol symbol(int index) {
+        if (symbols != null) {
+            return symbols.get(index);
+        }
+        return new Symbol(position(index), type(index), lexeme(index));
+    }
+
+    /**
+     * Ustvari bralnik, ki simbole vrača enega za drugim.
+     */
+    public TokenSource cursor() {
+        return new Cursor(0);
+    }
+
+    /**
+     * Ustvari bralnik, ki začne pri `index`-tem simbolu.
+     */
+    public TokenSource cursor(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return new Cursor(index);
+    }
+
+    /**
+     * Ustvari seznam vseh leksikalnih simbolov.
+     */
+    public List<Symbol> toSymbols() {
+        if (symbols != null) {
+            return symbols;
+        }
+        var list = new ArrayList<Symbol>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(symbol(i));
+        }
+        return list;
+    }
+
+    /**
+     * Bralnik zaporedja simbolov.
+     */
+    private class Cursor implements TokenSource {
+        /**
+         * Indeks naslednjega simbola.
+         */
+        private int index;
+
+        Cursor(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public TokenType peek() {
+            return type(index);
+        }
+
+        @Override
+        public TokenType next() {
+            var type = type(index);
+            if (type != TokenType.EOF) {
+                index++;
+            }
+            return type;
+        }
+    }
+}
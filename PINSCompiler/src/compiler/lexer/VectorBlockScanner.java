@@ -0,0 +1,105 @@
+/**
+ * @Author: turk
+ * @Description: Preskakovanje presledkov in komentarjev z Vector API.
+ */
+
+package compiler.lexer;
+
+import java.nio.ByteBuffer;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vektorska izvedba `BlockScanner`. Naloži se le z `-Dpins.vector=true` in
+ * če je modul `jdk.incubator.vector` na voljo; ostanek, krajši od enega
+ * vektorja, obdela osnovna izvedba.
+ */
+class VectorBlockScanner extends BlockScanner {
+    private static final VectorSpecies<Short> CHARS = ShortVector.SPECIES_256;
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_256;
+
+    /**
+     * Toliko znakov preverimo posamič, preden začnemo z vektorji; zamiki in
+     * presledki med simboli so večinoma krajši.
+     */
+    private static final int SCALAR_PREFIX = 8;
+
+    /**
+     * Blok preslikane datoteke; `ByteBuffer` se v tabelo prepiše po en vektor
+     * naenkrat, ker dostop do vmesnika z Vector API ni enak med JDK 17 in 19+.
+     */
+    private static final ThreadLocal<byte[]> blocks = ThreadLocal.withInitial(() -> new byte[BYTES.length()]);
+
+    @Override
+    public int skipBlanks(char[] characters, int from, int end) {
+        int prefix = Math.min(end, from + SCALAR_PREFIX);
+        int i = super.skipBlanks(characters, from, prefix);
+        if (i < prefix || i == end) {
+            return i;
+        }
+        for (int bound = end - CHARS.length(); i <= bound; i += CHARS.length()) {
+            var vector = ShortVector.fromCharArray(CHARS, characters, i);
+            VectorMask<Short> blank = vector.eq((short) ' ').or(vector.eq((short) '\t'));
+            if (!blank.allTrue()) {
+                return i + blank.not().firstTrue();
+            }
+        }
+        return super.skipBlanks(characters, i, end);
+    }
+
+    @Override
+    public int indexOfNewline(char[] characters, int from, int end) {
+        int prefix = Math.min(end, from + SCALAR_PREFIX);
+        int i = super.indexOfNewline(characters, from, prefix);
+        if (i < prefix || i == end) {
+            return i;
+        }
+        for (int bound = end - CHARS.length(); i <= bound; i += CHARS.length()) {
+            var newline = ShortVector.fromCharArray(CHARS, characters, i).eq((short) '\n');
+            if (newline.anyTrue()) {
+                return i + newline.firstTrue();
+            }
+        }
+        return super.indexOfNewline(characters, i, end);
+    }
+
+    @Override
+    public int skipBlanks(ByteBuffer buffer, int from, int end) {
+        int prefix = Math.min(end, from + SCALAR_PREFIX);
+        int i = super.skipBlanks(buffer, from, prefix);
+        if (i < prefix || i == end) {
+            return i;
+        }
+        var block = blocks.get();
+        for (int bound = end - BYTES.length(); i <= bound; i += BYTES.length()) {
+            buffer.get(i, block, 0, block.length);
+            var vector = ByteVector.fromArray(BYTES, block, 0);
+            VectorMask<Byte> blank = vector.eq((byte) ' ').or(vector.eq((byte) '\t'));
+            if (!blank.allTrue()) {
+                return i + blank.not().firstTrue();
+            }
+        }
+        return super.skipBlanks(buffer, i, end);
+    }
+
+    @Override
+    public int indexOfNewline(ByteBuffer buffer, int from, int end) {
+        int prefix = Math.min(end, from + SCALAR_PREFIX);
+        int i = super.indexOfNewline(buffer, from, prefix);
+        if (i < prefix || i == end) {
+            return i;
+        }
+        var block = blocks.get();
+        for (int bound = end - BYTES.length(); i <= bound; i += BYTES.length()) {
+            buffer.get(i, block, 0, block.length);
+            var newline = ByteVector.fromArray(BYTES, block, 0).eq((byte) '\n');
+            if (newline.anyTrue()) {
+                return i + newline.firstTrue();
+            }
+        }
+        return super.indexOfNewline(buffer, i, end);
+    }
+}
@@ -0,0 +1,522 @@
+/**
+ * @Author: turk
+ * @Description: Inkrementalni sintaksni analizator.
+ */
+
+package compiler.parser;
+
+import static compiler.lexer.TokenType.*;
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+import common.Diagnostics;
+import compiler.lexer.IncrementalLexer;
+import compiler.lexer.TokenStream;
+import compiler.parser.ast.Ast;
+
+/**
+ * Po vsaki spremembi izvorne kode znova razčleni le definicije na najvišji
+ * ravni, ki jih je sprememba prizadela.
+ *
+ * Za vsako definicijo hrani območje simbolov (od prvega simbola do zadnjega
+ * simbola, od katerega je odvisen njen konec) in območje vozlišč v areni.
+ * Vozlišča definicij, ki jih sprememba ni prizadela, ostanejo v areni na
+ * mestu; nove definicije dodamo na konec arene in jih povežemo v seznam
+ * otrok korena namesto starih. Indeksi simbolov v vozliščih, tabeli
+ * definicij in napakah za mestom zadnje spremembe so shranjeni od konca
+ * zaporedja simbolov, vozlišča definicije pa hranijo indekse relativno na
+ * njeno prvo vozlišče (`Ast.anchorTokens()`). Sprememba jih zato ne
+ * popravlja; ob naslednji spremembi drugje popravimo le po en indeks
+ * vozlišča na definicijo med obema mestoma. Tabela definicij ima vrzel na
+ * mestu zadnje spremembe.
+ *
+ * Analiza začne pri prvi prizadeti definiciji in se ustavi, ko se za njo
+ * znajde na začetku stare definicije za spremenjenimi simboli. Razčlenjuje
+ * z obnavljanjem po napakah kot `Parser.parse()` z `recover`, zato je drevo
+ * enako drevesu, zgrajenemu iz celotne izvorne kode, sporočila pa enaka
+ * njegovim. Ko zapuščena vozlišča zasedejo več kot polovico arene ali se
+ * tabela imen od zadnjega zgoščevanja več kot podvoji, žive prepišemo v
+ * novo areno; pred tem imena oštevilčimo znova
+ * (`IncrementalLexer.renumberNames()`), zato so oznake imen enake kot pri
+ * celotni analizi in tabela ne hrani imen, ki jih ni več v izvorni kodi.
+ */
+public class IncrementalParser {
+    /**
+     * Najmanjše število zapuščenih vozlišč, pri katerem areno zgostimo.
+     */
+    private static final int MIN_GARBAGE = 1 << 12;
+
+    /**
+     * Leksikalni analizator, ki hrani trenutno izvorno kodo.
+     */
+    private final IncrementalLexer lexer;
+
+    /**
+     * Ali napake sporočamo (`true`) ali ob njih vržemo `CompilationFailed`
+     * kot `Parser.parse()` brez obnavljanja.
+     */
+    private final boolean recover;
+
+    /**
+     * Arena in njen koren; vozlišča definicij si sledijo strnjeno.
+     */
+    private Ast ast;
+    private int root;
+
+    /**
+     * Število vozlišč definicij v tabeli (brez zapuščenih).
+     */
+    private int live = 0;
+
+    /**
+     * Število imen v tabeli po zadnjem oštevilčenju.
+     */
+    private int names = 0;
+
+    /**
+     * Definicije na najvišji ravni: prvi simbol, zadnji simbol, od katerega
+     * je odvisna, koren (`NONE`, če je ni bilo mogoče razčleniti), prvo
+     * vozlišče in vozlišče za zadnjim vozliščem. Definicija `k` leži na
+     * mestu `slot(k)`; vrzel je na mestu zadnje spremembe.
+     */
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int[] roots = new int[16];
+    private int[] firstNodes = new int[16];
+    private int[] endNodes = new int[16];
+    private int count = 0;
+    private int gapStart = 0;
+    private int gapLength = 16;
+
+    /**
+     * Indeksi simbolov pred `pivot` so shranjeni od začetka zaporedja,
+     * ostali od konca.
+     */
+    private int pivot = 0;
+
+    /**
+     * Sintaksne napake v vrstnem redu simbolov.
+     */
+    private int[] errorTokens = new int[0];
+    private String[] errorMessages = new String[0];
+    private int errorCount = 0;
+
+    /**
+     * Definicije, razčlenjene ob zadnji spremembi (stolpci kot v tabeli).
+     */
+    private int[] parsed = new int[5 * 16];
+
+    /**
+     * Število definicij, razčlenjenih ob zadnji spremembi.
+     */
+    private int reparsed = 0;
+
+    /**
+     * Razčleni celotno izvorno kodo. Ob sintaksni napaki vrže
+     * `CompilationFailed` kot `Parser.parse()`.
+     *
+     * @param tokens Zaporedje simbolov, ki ga je ustvaril `Lexer.tokenize()`
+     *               ali `ParallelLexer.tokenize()`.
+     * @param diagnostics Sporočila analize.
+     */
+    public IncrementalParser(TokenStream tokens, Diagnostics diagnostics) {
+        requireNonNull(tokens, diagnostics);
+        this.lexer = new IncrementalLexer(tokens);
+        this.recover = false;
+        init();
+        report(diagnostics);
+    }
+
+    /**
+     * Ustvari analizator za prazno izvorno kodo; besedilo dodamo z `edit()`.
+     *
+     * @param recover Ali naj `edit()` napake le sporoči in vrne drevo, kot
+     *                ga vrne `Parser.parse()` z obnavljanjem.
+     */
+    public IncrementalParser(boolean recover) {
+        this.lexer = new IncrementalLexer();
+        this.recover = recover;
+        init();
+    }
+
+    private void init() {
+        var tokens = lexer.tokens();
+        ast = new Ast(tokens);
+        root = ast.add(Ast.Kind.DEFINITIONS, 0, -1);
+        ast.setRoot(root);
+        reparse(0, 0, 0, 0, tokens.size(), tokens.size());
+        names = tokens.names().size();
+    }
+
+    /**
+     * Drevo trenutne izvorne kode. Brez obnavljanja je `null`, če ima
+     * izvorna koda napako.
+     */
+    public Ast ast() {
+        if (!recover && (errorCount > 0 || !lexer.isComplete())) {
+            return null;
+        }
+        return ast;
+    }
+
+    /**
+     * Zaporedje simbolov trenutne izvorne kode.
+     */
+    public TokenStream tokens() {
+        return lexer.tokens();
+    }
+
+    /**
+     * Število definicij na najvišji ravni.
+     */
+    public int definitions() {
+        return count;
+    }
+
+    /**
+     * Število definicij, ki jih je zadnja sprememba razčlenila znova.
+     */
+    public int reparsed() {
+        return reparsed;
+    }
+
+    /**
+     * Spremeni izvorno kodo in posodobi drevo. Sprememba je uveljavljena
+     * tudi, ko vrže izjemo.
+     *
+     * @param offset Odmik spremembe.
+     * @param removedLength Število odstranjenih znakov.
+     * @param insertedText Vstavljeno besedilo.
+     * @param diagnostics Sporočila te spremembe: z obnavljanjem leksikalna
+     *                    napaka ali vse sintaksne napake.
+     * @return drevo spremenjene izvorne kode.
+     * @throws Diagnostics.CompilationFailed brez obnavljanja ob leksikalni
+     *         ali sintaksni napaki.
+     */
+    public Ast edit(int offset, int removedLength, String insertedText, Diagnostics diagnostics) {
+        requireNonNull(insertedText, diagnostics);
+        var tokens = lexer.tokens();
+        int oldSize = tokens.size();
+        try {
+            lexer.edit(offset, removedLength, insertedText, diagnostics);
+        } catch (Diagnostics.CompilationFailed __) {
+            // Sporočilo je v `diagnostics`; simbole vrstic brez napake razčlenimo.
+        }
+        int from = lexer.spliceStart();
+        int removed = lexer.removedTokens();
+        int inserted = lexer.insertedTokens();
+        reparsed = 0;
+        if (removed > 0 || inserted > 0) {
+            anchor(from, oldSize);
+            int first = firstEndingFrom(from, oldSize);
+            int start = first == 0 ? 0 : decode(starts[slot(first)], oldSize);
+            reparse(first, start, from + removed, inserted - removed, oldSize, from + inserted);
+            if (ast.size() - live > live + MIN_GARBAGE
+                    || lexer.tokens().names().size() > 2 * names + MIN_GARBAGE) {
+                compact();
+            }
+        }
+        return report(diagnostics);
+    }
+
+    /**
+     * Sporoči napake trenutne izvorne kode.
+     */
+    private Ast report(Diagnostics diagnostics) {
+        if (!lexer.isComplete()) {
+            // Kot celotno prevajanje sporočimo le leksikalno napako.
+            if (!recover) {
+                throw diagnostics.failure();
+            }
+            return ast;
+        }
+        if (!recover) {
+            if (errorCount > 0) {
+                throw diagnostics.fatal("Error");
+            }
+            return ast;
+        }
+        var tokens = lexer.tokens();
+        for (int i = 0; i < errorCount; i++) {
+            diagnostics.error(tokens.position(decode(errorTokens[i], tokens.size())), errorMessages[i]);
+        }
+        return ast;
+    }
+
+    /**
+     * Razčleni definicije od `first` naprej, začenši pri simbolu `start`, in
+     * jih zamenja z novimi, dokler ne doseže začetka stare definicije, ki se
+     * začne pri simbolu `unchanged` ali za njim.
+     *
+     * @param tokenShift Sprememba števila simbolov.
+     * @param oldSize Število simbolov pred spremembo.
+     * @param newPivot Simbol za zadnjim novim simbolom.
+     */
+    private void reparse(int first, int start, int unchanged, int tokenShift, int oldSize, int newPivot) {
+        var tokens = lexer.tokens();
+        var messages = new Diagnostics();
+        var parser = new Parser(tokens, ast, start, messages);
+        int firstNode = ast.size();
+        int n = 0;
+        int k = first;
+        while (true) {
+            int definitionStart = parser.index();
+            int definitionFirst = ast.size();
+            int definition = parser.parseIncrementalDefinition();
+            int end = parser.finishIncrementalDefinition();
+            if (5 * n == parsed.length) {
+                parsed = Arrays.copyOf(parsed, parsed.length * 2);
+            }
+            parsed[5 * n] = definitionStart;
+            parsed[5 * n + 1] = end;
+            parsed[5 * n + 2] = definition;
+            parsed[5 * n + 3] = definitionFirst;
+            parsed[5 * n + 4] = ast.size();
+            n++;
+            if (tokens.type(end) == EOF) {
+                k = count;
+                break;
+            }
+
+            // Ali se tu začne stara definicija, ki je sprememba ni prizadela?
+            int next = parser.index();
+            int oldStart = -1;
+            while (k < count) {
+                oldStart = decode(starts[slot(k)], oldSize);
+                if (oldStart >= unchanged && oldStart + tokenShift >= next) {
+                    break;
+                }
+                k++;
+            }
+            if (k < count && oldStart + tokenShift == next) {
+                break;
+            }
+        }
+
+        // Napake zamenjanih definicij. Napaka pri simbolu, ki konča
+        // definicijo, pripada definiciji pred njim, tudi če se pri tem
+        // simbolu začne naslednja definicija.
+        int previousEnd = first > 0 ? decode(ends[slot(first - 1)], oldSize) : -1;
+        int errorsFrom = 0;
+        while (errorsFrom < errorCount && decode(errorTokens[errorsFrom], oldSize) <= previousEnd) {
+            errorsFrom++;
+        }
+        int errorsTo = errorsFrom;
+        int last = k > first ? decode(ends[slot(k - 1)], oldSize) : start - 1;
+        while (errorsTo < errorCount && decode(errorTokens[errorsTo], oldSize) <= last) {
+            errorsTo++;
+        }
+        int size = tokens.size();
+        var newTokens = parser.errorTokens();
+        var newMessages = messages.all();
+        for (int i = 0; i < newTokens.length; i++) {
+            newTokens[i] = encode(newTokens[i], newPivot, size);
+        }
+        replaceErrors(errorsFrom, errorsTo, newTokens, newMessages);
+
+        // Korene novih definicij povežemo med ohranjenima sosedoma.
+        int previous = Ast.NONE;
+        for (int j = first - 1; j >= 0 && previous == Ast.NONE; j--) {
+            previous = roots[slot(j)];
+        }
+        int following = Ast.NONE;
+        for (int j = k; j < count && following == Ast.NONE; j++) {
+            following = roots[slot(j)];
+        }
+        for (int i = 0; i < n; i++) {
+            int definition = parsed[5 * i + 2];
+            if (definition != Ast.NONE) {
+                link(previous, definition);
+                previous = definition;
+            }
+        }
+        link(previous, following);
+
+        for (int j = first; j < k; j++) {
+            int s = slot(j);
+            live -= endNodes[s] - firstNodes[s];
+        }
+        live += ast.size() - firstNode;
+        for (int i = 0; i < n; i++) {
+            ast.anchorTokens(parsed[5 * i + 3], parsed[5 * i + 4], newPivot, size);
+            parsed[5 * i] = encode(parsed[5 * i], newPivot, size);
+            parsed[5 * i + 1] = encode(parsed[5 * i + 1], newPivot, size);
+        }
+        replaceDefinitions(first, k, n);
+        pivot = newPivot;
+        reparsed = n;
+    }
+
+    private void link(int previous, int definition) {
+        if (previous == Ast.NONE) {
+            ast.setFirstChild(root, definition);
+        } else {
+            ast.setNextSibling(previous, definition);
+        }
+    }
+
+    /**
+     * Indekse simbolov definicij med `pivot` in `to` ter vseh napak shrani
+     * znova, tako da so od začetka zaporedja shranjeni natanko indeksi pred
+     * `to`. Kliče se po spremembi zaporedja simbolov na mestu `to`, a preden
+     * indekse beremo s spremenjenim številom simbolov.
+     *
+     * @param oldSize Število simbolov pred spremembo.
+     */
+    private void anchor(int to, int oldSize) {
+        int low = Math.min(pivot, to);
+        int high = Math.max(pivot, to);
+        if (low < high) {
+            for (int k = firstEndingFrom(low, oldSize); k < count; k++) {
+                int s = slot(k);
+                int start = decode(starts[s], oldSize);
+                if (start >= high) {
+                    break;
+                }
+                if (firstNodes[s] < endNodes[s]) {
+                    ast.anchorToken(firstNodes[s], to, oldSize);
+                }
+                starts[s] = encode(start, to, oldSize);
+                ends[s] = encode(decode(ends[s], oldSize), to, oldSize);
+            }
+        }
+        for (int i = 0; i < errorCount; i++) {
+            errorTokens[i] = encode(decode(errorTokens[i], oldSize), to, oldSize);
+        }
+        pivot = to;
+    }
+
+    /**
+     * Indeks prve definicije, katere zadnji simbol je `token` ali kasnejši.
+     *
+     * @param size Število simbolov, na katero se nanašajo indeksi od konca.
+     */
+    private int firstEndingFrom(int token, int size) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (decode(ends[slot(mid)], size) < token) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int decode(int token, int size) {
+        return token >= 0 ? token : token + size;
+    }
+
+    private static int encode(int token, int pivot, int size) {
+        return token < pivot ? token : token - size;
+    }
+
+    // --------------------------------------------------------------
+    // Tabela definicij.
+
+    private int slot(int k) {
+        return k < gapStart ? k : k + gapLength;
+    }
+
+    /**
+     * Definicije `[from, to)` zamenja z `n` definicijami iz `parsed`.
+     */
+    private void replaceDefinitions(int from, int to, int n) {
+        if (gapStart > to) {
+            move(to, to + gapLength, gapStart - to);
+        } else if (gapStart < to) {
+            move(gapStart + gapLength, gapStart, to - gapStart);
+        }
+        gapStart = from;
+        gapLength += to - from;
+        count -= to - from;
+        if (gapLength < n) {
+            int tail = count - gapStart;
+            int capacity = count + n + Math.max(count >>> 3, 16);
+            starts = widen(starts, capacity, tail);
+            ends = widen(ends, capacity, tail);
+            roots = widen(roots, capacity, tail);
+            firstNodes = widen(firstNodes, capacity, tail);
+            endNodes = widen(endNodes, capacity, tail);
+            gapLength = capacity - tail - gapStart;
+        }
+        for (int i = 0; i < n; i++) {
+            starts[gapStart] = parsed[5 * i];
+            ends[gapStart] = parsed[5 * i + 1];
+            roots[gapStart] = parsed[5 * i + 2];
+            firstNodes[gapStart] = parsed[5 * i + 3];
+            endNodes[gapStart] = parsed[5 * i + 4];
+            gapStart++;
+        }
+        gapLength -= n;
+        count += n;
+    }
+
+    /**
+     * Tabela z novo zmogljivostjo; `tail` zadnjih definicij prestavi na konec.
+     */
+    private int[] widen(int[] column, int capacity, int tail) {
+        var wider = new int[capacity];
+        System.arraycopy(column, 0, wider, 0, gapStart);
+        System.arraycopy(column, gapStart + gapLength, wider, capacity - tail, tail);
+        return wider;
+    }
+
+    private void move(int from, int to, int n) {
+        System.arraycopy(starts, from, starts, to, n);
+        System.arraycopy(ends, from, ends, to, n);
+        System.arraycopy(roots, from, roots, to, n);
+        System.arraycopy(firstNodes, from, firstNodes, to, n);
+        System.arraycopy(endNodes, from, endNodes, to, n);
+    }
+
+    /**
+     * Napake `[from, to)` zamenja z novimi.
+     */
+    private void replaceErrors(int from, int to, int[] tokens, List<Diagnostics.Diagnostic> messages) {
+        int n = tokens.length;
+        int newCount = errorCount - (to - from) + n;
+        var newTokens = new int[newCount];
+        var newMessages = new String[newCount];
+        System.arraycopy(errorTokens, 0, newTokens, 0, from);
+        System.arraycopy(errorMessages, 0, newMessages, 0, from);
+        for (int i = 0; i < n; i++) {
+            newTokens[from + i] = tokens[i];
+            newMessages[from + i] = messages.get(i).message();
+        }
+        System.arraycopy(errorTokens, to, newTokens, from + n, errorCount - to);
+        System.arraycopy(errorMessages, to, newMessages, from + n, errorCount - to);
+        errorTokens = newTokens;
+        errorMessages = newMessages;
+        errorCount = newCount;
+    }
+
+    /**
+     * Vozlišča definicij prepiše v novo areno brez zapuščenih vozlišč.
+     */
+    private void compact() {
+        lexer.renumberNames();
+        names = lexer.tokens().names().size();
+        var old = ast;
+        ast = new Ast(lexer.tokens(), live + 1);
+        root = ast.add(Ast.Kind.DEFINITIONS, 0, -1);
+        ast.setRoot(root);
+        int previous = Ast.NONE;
+        for (int k = 0; k < count; k++) {
+            int s = slot(k);
+            int first = ast.copy(old, firstNodes[s], endNodes[s], 0);
+            int nodeShift = first - firstNodes[s];
+            firstNodes[s] = first;
+            endNodes[s] += nodeShift;
+            if (roots[s] != Ast.NONE) {
+                roots[s] += nodeShift;
+                link(previous, roots[s]);
+                previous = roots[s];
+            }
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/**
+ * @Author: turk
+ * @Description: Vzporedni sintaksni analizator.
+ */
+
+package compiler.parser;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+import common.Diagnostics;
+import compiler.lexer.TokenStream;
+import compiler.parser.ast.Ast;
+
+/**
+ * Definicije na najvišji ravni so ločene s `;`, ki ni znotraj oklepajev,
+ * zato jih najprej poiščemo z enim prehodom čez vrste simbolov, nato pa
+ * skupine zaporednih definicij razčlenimo sočasno, vsako v svojo areno.
+ * Rezultate v vrstnem redu skupin združimo v eno drevo (vozlišča dobijo iste
+ * oznake kot pri zaporedni analizi) in izpišemo produkcije skupin.
+ *
+ * Meje so le domneva: skupina uspe, če se vsaka definicija konča natanko
+ * pri najdenem `;` oziroma pri `EOF`. Če katera od skupin ne uspe (napaka
+ * ali neuravnoteženi oklepaji), program razčlenimo še zaporedno, ki napako
+ * zabeleži pri prvem napačnem simbolu, tako kot `Parser.parse()`.
+ */
+public class ParallelParser {
+    /**
+     * Najmanjše število simbolov v skupini; manjših programov ne delimo.
+     */
+    private static final int MIN_GROUP_SIZE = 1 << 14;
+
+    /**
+     * Število skupin na nit, da se neenakomerno delo bolje porazdeli.
+     */
+    private static final int GROUPS_PER_THREAD = 4;
+
+    /**
+     * Zaporedje simbolov programa.
+     */
+    private final TokenStream tokens;
+
+    /**
+     * Ciljni tok, kamor izpisujemo produkcije. Če produkcij ne želimo izpisovati,
+     * vrednost opcijske spremenljivke nastavimo na Optional.empty().
+     */
+    private final Optional<PrintStream> productionsOutputStream;
+
+    /**
+     * Število niti.
+     */
+    private final int parallelism;
+
+    /**
+     * Bazen niti (`null`, če analizator ustvari svojega).
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Sporočila prevajanja.
+     */
+    private final Diagnostics diagnostics;
+
+    /**
+     * Število produkcij, ki so jih analizatorji skupin uporabili (`--stats`).
+     */
+    private long productions = 0;
+
+    /**
+     * Ustvari analizator, ki za analizo ustvari svoj bazen niti.
+     *
+     * @param tokens Zaporedje simbolov programa.
+     * @param productionsOutputStream Tok za izpis produkcij.
+     * @param parallelism Število niti.
+     * @param diagnostics Sporočila prevajanja.
+     */
+    public ParallelParser(TokenStream tokens, Optional<PrintStream> productionsOutputStream, int parallelism,
+            Diagnostics diagnostics) {
+        requireNonNull(tokens, productionsOutputStream, diagnostics);
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive!");
+        }
+        this.tokens = tokens;
+        this.productionsOutputStream = productionsOutputStream;
+        this.parallelism = parallelism;
+        this.executor = null;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Ustvari analizator, ki skupine definicij razčleni v danem bazenu niti.
+     *
+     * @param tokens Zaporedje simbolov programa.
+     * @param productionsOutputStream Tok za izpis produkcij.
+     * @param executor Bazen niti.
+     * @param parallelism Število niti, ki jih bazen nameni analizi.
+     * @param diagnostics Sporočila prevajanja.
+     */
+    public ParallelParser(TokenStream tokens, Optional<PrintStream> productionsOutputStream,
+            ExecutorService executor, int parallelism, Diagnostics diagnostics) {
+        requireNonNull(tokens, productionsOutputStream, executor, diagnostics);
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive!");
+        }
+        this.tokens = tokens;
+        this.productionsOutputStream = productionsOutputStream;
+        this.parallelism = parallelism;
+        this.executor = executor;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Izvedi sintaksno analizo.
+     *
+     * @return abstraktno sintaksno drevo.
+     */
+    public Ast parse() {
+        var starts = definitionStarts();
+        var bounds = split(starts);
+        if (bounds.length <= 2) {
+            return sequential();
+        }
+        var tasks = new ArrayList<Callable<Group>>(bounds.length - 1);
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            int from = bounds[i];
+            int to = bounds[i + 1];
+            tasks.add(() -> parse(starts, from, to));
+        }
+
+        List<Group> groups;
+        if (executor != null) {
+            groups = invokeAll(executor, tasks);
+        } else {
+            var pool = new ForkJoinPool(parallelism);
+            try {
+                groups = invokeAll(pool, tasks);
+            } finally {
+                pool.shutdown();
+            }
+        }
+        for (var group : groups) {
+            if (group == null) {
+                return sequential();
+            }
+        }
+        return merge(groups);
+    }
+
+    private Ast sequential() {
+        var parser = new Parser(tokens, productionsOutputStream, diagnostics);
+        var ast = parser.parse().get();
+        productions = parser.productions();
+        return ast;
+    }
+
+    /**
+     * Število produkcij, enako kot pri zaporedni analizi.
+     */
+    public long productions() {
+        return productions;
+    }
+
+    /**
+     * Indeksi prvih simbolov definicij na najvišji ravni; zadnji element je
+     * indeks simbola `EOF`.
+     */
+    private int[] definitionStarts() {
+        var starts = new int[64];
+        int count = 0;
+        starts[count++] = 0;
+        int depth = 0;
+        int eof = tokens.size() - 1;
+        for (int i = 0; i < eof; i++) {
+            switch (tokens.type(i)) {
+                case OP_LPARENT, OP_LBRACKET, OP_LBRACE -> depth++;
+                case OP_RPARENT, OP_RBRACKET, OP_RBRACE -> depth--;
+                case OP_SEMICOLON -> {
+                    if (depth == 0) {
+                        if (count + 1 == starts.length) {
+                            starts = Arrays.copyOf(starts, count * 2);
+                        }
+                        starts[count++] = i + 1;
+                    }
+                }
+                default -> {}
+            }
+        }
+        starts[count++] = eof;
+        return Arrays.copyOf(starts, count);
+    }
+
+    /**
+     * Meje skupin: `bounds[i]` je indeks prve definicije `i`-te skupine,
+     * zadnji element je število definicij.
+     */
+    private int[] split(int[] starts) {
+        int definitions = starts.length - 1;
+        int eof = starts[definitions];
+        int groupSize = Math.max(MIN_GROUP_SIZE, eof / (parallelism * GROUPS_PER_THREAD) + 1);
+        var bounds = new ArrayList<Integer>();
+        bounds.add(0);
+        int from = 0;
+        for (int d = 1; d < definitions; d++) {
+            if (starts[d] - starts[from] >= groupSize && eof - starts[d] >= groupSize / 2) {
+                bounds.add(d);
+                from = d;
+            }
+        }
+        bounds.add(definitions);
+        return bounds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Razčleni definicije `[from, to)` v svojo areno.
+     *
+     * @return skupino ali `null`, če se katera definicija ne konča na meji.
+     */
+    private Group parse(int[] starts, int from, int to) {
+        var ast = new Ast(tokens, starts[to] - starts[from]);
+        var output = productionsOutputStream.isPresent() ? new ByteArrayOutputStream() : null;
+        var out = output == null ? Optional.<PrintStream>empty() : Optional.of(new PrintStream(output));
+        var parser = new Parser(tokens, ast, starts[from], out);
+        var roots = new int[to - from];
+        try {
+            for (int d = from; d < to; d++) {
+                roots[d - from] = parser.parseListedDefinition();
+                if (parser.index() != starts[d + 1]) {
+                    return null;
+                }
+            }
+        } catch (Parser.SyntaxError e) {
+            return null;
+        }
+        if (output != null) {
+            out.get().flush();
+        }
+        return new Group(ast, roots, output == null ? null : output.toByteArray(), parser.productions());
+    }
+
+    private static List<Group> invokeAll(ExecutorService executor, List<Callable<Group>> tasks) {
+        try {
+            var groups = new ArrayList<Group>(tasks.size());
+            for (var future : executor.invokeAll(tasks)) {
+                groups.add(future.get());
+            }
+            return groups;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Parsing was interrupted!", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Združi skupine v vrstnem redu, kot si sledijo v izvorni kodi.
+     */
+    private Ast merge(List<Group> groups) {
+        if (productionsOutputStream.isPresent()) {
+            var out = productionsOutputStream.get();
+            out.println("source -> definitions");
+            for (var group : groups) {
+                out.write(group.productions, 0, group.productions.length);
+            }
+        }
+        // `source -> definitions` izpišemo tukaj, ostale produkcije skupine.
+        productions = 1;
+        for (var group : groups) {
+            productions += group.count();
+        }
+        var ast = new Ast(tokens);
+        int root = ast.add(Ast.Kind.DEFINITIONS, 0, -1);
+        for (var group : groups) {
+            int nodeShift = ast.copy(group.ast, 0, group.ast.size(), 0);
+            for (int definition : group.roots) {
+                ast.append(root, definition + nodeShift);
+            }
+        }
+        ast.seal(root);
+        return ast;
+    }
+
+    /**
+     * Rezultat analize skupine definicij: arena, koreni definicij v njej,
+     * izpisane produkcije in njihovo število.
+     */
+    private static record Group(Ast ast, int[] roots, byte[] productions, long count) {
+    }
+}
@@ -0,0 +1,421 @@
+/**
+ * @Author: turk
+ * @Description: Tabela LL(1) za sintaksno analizo.
+ */
+
+package compiler.parser;
+
+import compiler.lexer.TokenType;
+
+/**
+ * Generirano z `tools.ParseTableGenerator` iz `pins.grammar`; ne
+ * popravljaj ročno.
+ *
+ * Kode simbolov: terminali so ordinali `TokenType`, neterminali so
+ * `TERMINALS + i`, izpis produkcije `p` pa je `ACTIONS + p`.
+ */
+final class ParseTable {
+    static final int TERMINALS = 43;
+    static final int NONTERMINALS = 33;
+    static final int ACTIONS = TERMINALS + NONTERMINALS;
+    static final int START = TERMINALS;
+
+    /**
+     * Imena neterminalov.
+     */
+    static final String[] nonterminals = {
+        "source",
+        "definitions",
+        "definitions2",
+        "definition",
+        "type_definition",
+        "type",
+        "atom_type",
+        "variable_definition",
+        "function_definition",
+        "parameters",
+        "parameter",
+        "parameters2",
+        "expression",
+        "expression2",
+        "logical_ior_expression",
+        "logical_ior_expression2",
+        "logical_and_expression",
+        "logical_and_expression2",
+        "compare_expression",
+        "compare_expression2",
+        "additive_expression",
+        "additive_expression2",
+        "multiplicative_expression",
+        "multiplicative_expression2",
+        "prefix_expression",
+        "postfix_expression",
+        "postfix_expression2",
+        "atom_expression",
+        "atom_expression4",
+        "atom_expression3",
+        "atom_expression2",
+        "expressions",
+        "expressions2",
+    };
+
+    /**
+     * Desne strani produkcij, vključno z mestom izpisa.
+     */
+    static final int[][] productions = {
+        { 76, 44 }, // 0: source ~> definitions
+        { 77, 46, 45 }, // 1: definitions ~> definition definitions2
+        { 78, 39, 44 }, // 2: definitions2 -> OP_SEMICOLON definitions
+        { 79 }, // 3: definitions2 ~>
+        { 80, 7, 47 }, // 4: definition -> KW_TYP type_definition
+        { 81, 8, 50 }, // 5: definition -> KW_VAR variable_definition
+        { 82, 4, 51 }, // 6: definition -> KW_FUN function_definition
+        { 83, 17, 38, 48 }, // 7: type_definition ~> IDENTIFIER OP_COLON type
+        { 84, 17, 49 }, // 8: type -> IDENTIFIER atom_type
+        { 49 }, // 9: type ~> atom_type
+        { 86, 11 }, // 10: atom_type -> AT_LOGICAL
+        { 87, 12 }, // 11: atom_type -> AT_INTEGER
+        { 88, 13 }, // 12: atom_type -> AT_STRING
+        { 17, 38, 89, 48 }, // 13: variable_definition -> IDENTIFIER OP_COLON ^ type
+        { 90, 17, 32, 52, 33, 38, 48, 42, 55 }, // 14: function_definition ~> IDENTIFIER OP_LPARENT parameters OP_RPARENT OP_COLON type OP_ASSIGN expression
+        { 91, 53, 54 }, // 15: parameters ~> parameter parameters2
+        { 17, 38, 92, 48 }, // 16: parameter -> IDENTIFIER OP_COLON ^ type
+        { 93, 41, 52 }, // 17: parameters2 -> OP_COMMA parameters
+        { 94 }, // 18: parameters2 ~>
+        { 95, 57, 56 }, // 19: expression ~> logical_ior_expression expression2
+        { 96, 36, 9, 44, 37 }, // 20: expression2 -> OP_LBRACE KW_WHERE definitions OP_RBRACE
+        { 97 }, // 21: expression2 ~>
+        { 98, 59, 58 }, // 22: logical_ior_expression ~> logical_and_expression logical_ior_expression2
+        { 99, 24, 57 }, // 23: logical_ior_expression2 -> OP_OR logical_ior_expression
+        { 100 }, // 24: logical_ior_expression2 ~>
+        { 101, 61, 60 }, // 25: logical_and_expression ~> compare_expression logical_and_expression2
+        { 102, 23, 59 }, // 26: logical_and_expression2 -> OP_AND logical_and_expression
+        { 103 }, // 27: logical_and_expression2 ~>
+        { 104, 63, 62 }, // 28: compare_expression ~> additive_expression compare_expression2
+        { 105, 26, 63 }, // 29: compare_expression2 -> OP_EQ additive_expression
+        { 106, 27, 63 }, // 30: compare_expression2 -> OP_NEQ additive_expression
+        { 107, 30, 63 }, // 31: compare_expression2 -> OP_LEQ additive_expression
+        { 108, 31, 63 }, // 32: compare_expression2 -> OP_GEQ additive_expression
+        { 109, 28, 63 }, // 33: compare_expression2 -> OP_LT additive_expression
+        { 110, 29, 63 }, // 34: compare_expression2 -> OP_GT additive_expression
+        { 111 }, // 35: compare_expression2 ~>
+        { 112, 65, 64 }, // 36: additive_expression ~> multiplicative_expression additive_expression2
+        { 113, 18, 63 }, // 37: additive_expression2 -> OP_ADD additive_expression
+        { 114, 19, 63 }, // 38: additive_expression2 -> OP_SUB additive_expression
+        { 115 }, // 39: additive_expression2 ~>
+        { 116, 67, 66 }, // 40: multiplicative_expression ~> prefix_expression multiplicative_expression2
+        { 117, 20, 65 }, // 41: multiplicative_expression2 -> OP_MUL multiplicative_expression
+        { 118, 21, 65 }, // 42: multiplicative_expression2 -> OP_DIV multiplicative_expression
+        { 119, 22, 65 }, // 43: multiplicative_expression2 -> OP_MOD multiplicative_expression
+        { 120 }, // 44: multiplicative_expression2 ~>
+        { 121, 18, 67 }, // 45: prefix_expression -> OP_ADD prefix_expression
+        { 122, 19, 67 }, // 46: prefix_expression -> OP_SUB prefix_expression
+        { 123, 25, 67 }, // 47: prefix_expression -> OP_NOT prefix_expression
+        { 124, 68 }, // 48: prefix_expression ~> postfix_expression
+        { 125, 70, 69 }, // 49: postfix_expression ~> atom_expression postfix_expression2
+        { 126, 34, 55, 35, 73 }, // 50: postfix_expression2 -> OP_LBRACKET expression OP_RBRACKET atom_expression2
+        { 127 }, // 51: postfix_expression2 ~>
+        { 128, 14 }, // 52: atom_expression -> C_LOGICAL
+        { 129, 15 }, // 53: atom_expression -> C_INTEGER
+        { 130, 16 }, // 54: atom_expression -> C_STRING
+        { 131, 17, 73 }, // 55: atom_expression -> IDENTIFIER atom_expression2
+        { 132, 32, 74, 33 }, // 56: atom_expression -> OP_LPARENT expressions OP_RPARENT
+        { 133, 36, 71 }, // 57: atom_expression -> OP_LBRACE atom_expression4
+        { 134, 10, 55, 38, 55, 37 }, // 58: atom_expression4 -> KW_WHILE expression OP_COLON expression OP_RBRACE
+        { 135, 3, 17, 42, 55, 41, 55, 41, 55, 38, 55, 37 }, // 59: atom_expression4 -> KW_FOR IDENTIFIER OP_ASSIGN expression OP_COMMA expression OP_COMMA expression OP_COLON expression OP_RBRACE
+        { 136, 5, 55, 6, 55, 72 }, // 60: atom_expression4 -> KW_IF expression KW_THEN expression atom_expression3
+        { 137, 55, 42, 55, 37 }, // 61: atom_expression4 ~> expression OP_ASSIGN expression OP_RBRACE
+        { 138, 37 }, // 62: atom_expression3 -> OP_RBRACE
+        { 139, 2, 55, 37 }, // 63: atom_expression3 -> KW_ELSE expression OP_RBRACE
+        { 140, 32, 74, 33 }, // 64: atom_expression2 -> OP_LPARENT expressions OP_RPARENT
+        { 141 }, // 65: atom_expression2 ~>
+        { 142, 55, 75 }, // 66: expressions ~> expression expressions2
+        { 143, 41, 74 }, // 67: expressions2 -> OP_COMMA expressions
+        { 144 }, // 68: expressions2 ~>
+    };
+
+    /**
+     * Levi neterminal vsake produkcije.
+     */
+    static final int[] lhs = {
+        0, 1, 2, 2, 3, 3, 3, 4, 5, 5, 6, 6, 6, 7, 8, 9,
+        10, 11, 11, 12, 13, 13, 14, 15, 15, 16, 17, 17, 18, 19, 19, 19,
+        19, 19, 19, 19, 20, 21, 21, 21, 22, 23, 23, 23, 23, 24, 24, 24,
+        24, 25, 26, 26, 27, 27, 27, 27, 27, 27, 28, 28, 28, 28, 29, 29,
+        30, 30, 31, 32, 32,
+    };
+
+    /**
+     * Izpisi produkcij (`null`, če se produkcija ne izpiše).
+     */
+    static final String[] labels = {
+        "source -> definitions",
+        "definitions -> definition definitions2",
+        "definitions2 -> ; definitions",
+        "definitions2 -> e",
+        "definition -> type_definition",
+        "definition -> variable_definition",
+        "definition -> function_definition",
+        "type_definition -> typ identifier : type",
+        "type -> identifier",
+        null,
+        "type -> logical",
+        "type -> integer",
+        "type -> string",
+        "variable_definition -> var identifier : type",
+        "function_definition -> fun identifier ( parameters ) : type = expression",
+        "parameters -> parameter parameters2",
+        "parameter -> identifier : type",
+        "parameters2 -> , parameters",
+        "parameters2 -> e",
+        "expression -> logical_ior_expression expression2",
+        "expression2 -> { where definitions }",
+        "expression2 -> e",
+        "logical_ior_expression -> logical_and_expression logical_ior_expression2",
+        "logical_ior_expression2 -> | logical_ior_expression",
+        "logical_ior_expression2 -> e",
+        "logical_and_expression -> compare_expression logical_and_expression2",
+        "logical_and_expression2 -> & logical_and_expression",
+        "logical_and_expression2 -> e",
+        "compare_expression -> additive_expression compare_expression2",
+        "compare_expression2 -> == additive_expression",
+        "compare_expression2 -> != additive_expression",
+        "compare_expression2 -> <= additive_expression",
+        "compare_expression2 -> >= additive_expression",
+        "compare_expression2 -> < additive_expression",
+        "compare_expression2 -> > additive_expression",
+        "compare_expression2 -> e",
+        "additive_expression -> multiplicative_expression additive_expression2",
+        "additive_expression2 -> + additive_expression",
+        "additive_expression2 -> - additive_expression",
+        "additive_expression2 -> e",
+        "multiplicative_expression -> prefix_expression multiplicative_expression2",
+        "multiplicative_expression2 -> * multiplicative_expression",
+        "multiplicative_expression2 -> / multiplicative_expression",
+        "multiplicative_expression2 -> % multiplicative_expression",
+        "multiplicative_expression2 -> e",
+        "prefix_expression -> + prefix_expression",
+        "prefix_expression -> - prefix_expression",
+        "prefix_expression -> ! prefix_expression",
+        "prefix_expression -> postfix_expression",
+        "postfix_expression -> atom_expression postfix_expression2",
+        "postfix_expression2 -> [ expression ] postfix_expression2 ",
+        "postfix_expression2 -> e",
+        "atom_expression -> log_constant",
+        "atom_expression -> int_constant",
+        "atom_expression -> str_constant",
+        "atom_expression -> identifier atom_expression2",
+        "atom_expression -> ( expressions )",
+        "atom_expression -> { atom_expression4",
+        "atom_expression4 -> while expression : expression }",
+        "atom_expression4 -> for identifier = expression , expression , expression : expression }",
+        "atom_expression4 -> if expression then expression atom_expression3",
+        "atom_expression4 -> expression = expression }",
+        "atom_expression3 -> }",
+        "atom_expression3 -> else expression }",
+        "atom_expression2 -> ( expressions )",
+        "atom_expression2 -> e",
+        "expressions -> expression expressions2",
+        "expressions2 -> , expressions",
+        "expressions2 -> e",
+    };
+
+    /**
+     * Množice FIRST neterminalov (bit `1L << ordinal`).
+     */
+    static final long[] first = {
+        0x0000000000000190L, // source
+        0x0000000000000190L, // definitions
+        0x0000008000000000L, // definitions2
+        0x0000000000000190L, // definition
+        0x0000000000020000L, // type_definition
+        0x0000000000023800L, // type
+        0x0000000000003800L, // atom_type
+        0x0000000000020000L, // variable_definition
+        0x0000000000020000L, // function_definition
+        0x0000000000020000L, // parameters
+        0x0000000000020000L, // parameter
+        0x0000020000000000L, // parameters2
+        0x00000011020fc000L, // expression
+        0x0000001000000000L, // expression2
+        0x00000011020fc000L, // logical_ior_expression
+        0x0000000001000000L, // logical_ior_expression2
+        0x00000011020fc000L, // logical_and_expression
+        0x0000000000800000L, // logical_and_expression2
+        0x00000011020fc000L, // compare_expression
+        0x00000000fc000000L, // compare_expression2
+        0x00000011020fc000L, // additive_expression
+        0x00000000000c0000L, // additive_expression2
+        0x00000011020fc000L, // multiplicative_expression
+        0x0000000000700000L, // multiplicative_expression2
+        0x00000011020fc000L, // prefix_expression
+        0x000000110003c000L, // postfix_expression
+        0x0000000400000000L, // postfix_expression2
+        0x000000110003c000L, // atom_expression
+        0x00000011020fc428L, // atom_expression4
+        0x0000002000000004L, // atom_expression3
+        0x0000000100000000L, // atom_expression2
+        0x00000011020fc000L, // expressions
+        0x0000020000000000L, // expressions2
+    };
+
+    /**
+     * Množice FOLLOW neterminalov (bit `1L << ordinal`).
+     */
+    static final long[] follow = {
+        0x0000000000000001L, // source
+        0x0000002000000001L, // definitions
+        0x0000002000000001L, // definitions2
+        0x000000a000000001L, // definition
+        0x000000a000000001L, // type_definition
+        0x000006a200000001L, // type
+        0x000006a200000001L, // atom_type
+        0x000000a000000001L, // variable_definition
+        0x000000a000000001L, // function_definition
+        0x0000000200000000L, // parameters
+        0x0000020200000000L, // parameter
+        0x0000000200000000L, // parameters2
+        0x000006ea00000045L, // expression
+        0x000006ea00000045L, // expression2
+        0x000006fa00000045L, // logical_ior_expression
+        0x000006fa00000045L, // logical_ior_expression2
+        0x000006fa01000045L, // logical_and_expression
+        0x000006fa01000045L, // logical_and_expression2
+        0x000006fa01800045L, // compare_expression
+        0x000006fa01800045L, // compare_expression2
+        0x000006fafd800045L, // additive_expression
+        0x000006fafd800045L, // additive_expression2
+        0x000006fafd8c0045L, // multiplicative_expression
+        0x000006fafd8c0045L, // multiplicative_expression2
+        0x000006fafdfc0045L, // prefix_expression
+        0x000006fafdfc0045L, // postfix_expression
+        0x000006fafdfc0045L, // postfix_expression2
+        0x000006fefdfc0045L, // atom_expression
+        0x000006fefdfc0045L, // atom_expression4
+        0x000006fefdfc0045L, // atom_expression3
+        0x000006fefdfc0045L, // atom_expression2
+        0x0000000200000000L, // expressions
+        0x0000000200000000L, // expressions2
+    };
+
+    /**
+     * Izbrana produkcija: `table[neterminal * TERMINALS + terminal]`
+     * oziroma -1 za napako.
+     */
+    static final short[] table = {
+        // source
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        // definitions
+        1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+        // definitions2
+        3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 2, 3, 3, 3,
+        // definition
+        -1, -1, -1, -1, 6, -1, -1, 4, 5, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        // type_definition
+        7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7,
+        // type
+        9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 8, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9,
+        // atom_type
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 10, 11, 12, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        // variable_definition
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 13, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        // function_definition
+        14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14, 14,
+        // parameters
+        15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15, 15,
+        // parameter
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 16, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1,
+        // parameters2
+        18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 18, 17, 18,
+        // expression
+        19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19, 19,
+        // expression2
+        21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 21, 20, 21, 21, 21, 21, 21, 21,
+        // logical_ior_expression
+        22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22, 22,
+        // logical_ior_expression2
+        24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 23, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24,
+        // logical_and_expression
+        25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25, 25,
+        // logical_and_expression2
+        27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 26, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27, 27,
+        // compare_expression
+        28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28,
+        // compare_expression2
+        35, 35, 35, 35, 35, 35, 35, 35, 35, 35, 35, 35, 35, 35, 35, 35, 35, 35, 35, 35, 35, 35, 35, 35, 35, 35, 29, 30, 33, 34, 31, 32, 35, 35, 35, 35, 35, 35, 35, 35, 35, 35, 35,
+        // additive_expression
+        36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36, 36,
+        // additive_expression2
+        39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 37, 38, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39, 39,
+        // multiplicative_expression
+        40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40, 40,
+        // multiplicative_expression2
+        44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 41, 42, 43, 44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 44, 44,
+        // prefix_expression
+        48, 48, 48, 48, 48, 48, 48, 48, 48, 48, 48, 48, 48, 48, 48, 48, 48, 48, 45, 46, 48, 48, 48, 48, 48, 47, 48, 48, 48, 48, 48, 48, 48, 48, 48, 48, 48, 48, 48, 48, 48, 48, 48,
+        // postfix_expression
+        49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49, 49,
+        // postfix_expression2
+        51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 51, 50, 51, 51, 51, 51, 51, 51, 51, 51,
+        // atom_expression
+        -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 52, 53, 54, 55, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 56, -1, -1, -1, 57, -1, -1, -1, -1, -1, -1,
+        // atom_expression4
+        61, 61, 61, 59, 61, 60, 61, 61, 61, 61, 58, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61, 61,
+        // atom_expression3
+        -1, -1, 63, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 62, -1, -1, -1, -1, -1,
+        // atom_expression2
+        65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65, 64, 65, 65, 65, 65, 65, 65, 65, 65, 65, 65,
+        // expressions
+        66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66, 66,
+        // expressions2
+        68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 68, 67, 68,
+    };
+
+    /**
+     * Produkcija, ki se izbere ne glede na naslednji simbol, oziroma -1.
+     * Analizator naslednjega simbola takrat ne prebere, tako kot `Parser`.
+     */
+    static final short[] unconditional = {
+        0, // source
+        1, // definitions
+        -1, // definitions2
+        -1, // definition
+        7, // type_definition
+        -1, // type
+        -1, // atom_type
+        -1, // variable_definition
+        14, // function_definition
+        15, // parameters
+        -1, // parameter
+        -1, // parameters2
+        19, // expression
+        -1, // expression2
+        22, // logical_ior_expression
+        -1, // logical_ior_expression2
+        25, // logical_and_expression
+        -1, // logical_and_expression2
+        28, // compare_expression
+        -1, // compare_expression2
+        36, // additive_expression
+        -1, // additive_expression2
+        40, // multiplicative_expression
+        -1, // multiplicative_expression2
+        -1, // prefix_expression
+        49, // postfix_expression
+        -1, // postfix_expression2
+        -1, // atom_expression
+        -1, // atom_expression4
+        -1, // atom_expression3
+        -1, // atom_expression2
+        66, // expressions
+        -1, // expressions2
+    };
+
+    static {
+        if (TokenType.values().length != TERMINALS) {
+            throw new IllegalStateException("Parse table is out of date, regenerate it!");
+        }
+    }
+
+    private ParseTable() {}
+}
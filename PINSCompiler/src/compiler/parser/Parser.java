@@ -6,22 +6,38 @@
 package compiler.parser;
 
 import static compiler.lexer.TokenType.*;
+import static compiler.parser.ast.Ast.NONE;
+import static compiler.parser.ast.Ast.Kind.*;
 import static common.RequireNonNull.requireNonNull;
 
 import java.io.PrintStream;
-import java.util.List;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.Optional;
 
-import common.Report;
-import compiler.lexer.Symbol;
+import common.Diagnostics;
+import common.Events;
+import compiler.lexer.TokenSource;
+import compiler.lexer.TokenStream;
 import compiler.lexer.TokenType;
+import compiler.parser.ast.Ast;
 
 public class Parser {
     /**
-     * Seznam leksikalnih simbolov.
+     * Vir leksikalnih simbolov.
      */
-    private final List<Symbol> symbols;
-    private int pointer = -1;
+    private final TokenSource tokens;
+
+    /**
+     * Shranjeno zaporedje simbolov, če analizator gradi drevo.
+     */
+    private final TokenStream stream;
+
+    /**
+     * Arena, v katero analizator gradi abstraktno sintaksno drevo (`null`,
+     * če drevesa ne gradi).
+     */
+    private final Ast ast;
 
     /**
      * Ciljni tok, kamor izpisujemo produkcije. Če produkcij ne želimo izpisovati,
@@ -29,85 +45,344 @@ public class Parser {
      */
     private final Optional<PrintStream> productionsOutputStream;
 
-    public Parser(List<Symbol> symbols, Optional<PrintStream> productionsOutputStream) {
-        requireNonNull(symbols, productionsOutputStream);
-        this.symbols = symbols;
+    /**
+     * Sporočila prevajanja (`null`, če napake vržemo kot `SyntaxError`).
+     */
+    private final Diagnostics diagnostics;
+
+    /**
+     * Ali se analizator po napaki obnovi in nadaljuje.
+     */
+    private final boolean recover;
+
+    /**
+     * Vrste simbolov, ki jih je analizator preveril pri trenutnem simbolu
+     * (bit `1L << ordinal`); to so simboli, ki bi jih sprejel.
+     */
+    private long expected = 0;
+
+    /**
+     * Unija sinhronizacijskih množic vseh odprtih seznamov.
+     */
+    private long synchronizing = 0;
+
+    /**
+     * Indeks simbola zadnje zabeležene napake; napak pri istem simbolu ne
+     * beležimo večkrat.
+     */
+    private int lastError = -1;
+
+    /**
+     * Indeksi simbolov zabeleženih napak.
+     */
+    private int[] errorTokens = new int[0];
+    private int errorCount = 0;
+
+    /**
+     * Indeks naslednjega simbola.
+     */
+    private int index = 0;
+
+    /**
+     * Število produkcij, ki jih je analizator uporabil (`--stats`).
+     */
+    private long productions = 0;
+
+    /**
+     * Ustvari analizator, ki samo preveri sintakso.
+     *
+     * @param diagnostics Sporočila prevajanja; ob napaki analizator vanje
+     *                    zabeleži napako in vrže `CompilationFailed`.
+     */
+    public Parser(TokenSource tokens, Optional<PrintStream> productionsOutputStream, Diagnostics diagnostics) {
+        requireNonNull(tokens, productionsOutputStream, diagnostics);
+        this.tokens = tokens;
+        this.stream = null;
+        this.ast = null;
         this.productionsOutputStream = productionsOutputStream;
+        this.diagnostics = diagnostics;
+        this.recover = false;
+    }
+
+    /**
+     * Ustvari analizator, ki zgradi abstraktno sintaksno drevo.
+     *
+     * @param diagnostics Sporočila prevajanja; ob napaki analizator vanje
+     *                    zabeleži napako in vrže `CompilationFailed`.
+     */
+    public Parser(TokenStream tokens, Optional<PrintStream> productionsOutputStream, Diagnostics diagnostics) {
+        this(tokens, productionsOutputStream, false, diagnostics);
+    }
+
+    /**
+     * Ustvari analizator, ki zgradi abstraktno sintaksno drevo.
+     *
+     * @param recover Ali naj se analizator po napaki obnovi in nadaljuje.
+     *                Napake v tem primeru le zabeleži v `diagnostics`,
+     *                `parse()` pa vrne nepopolno drevo.
+     * @param diagnostics Sporočila prevajanja.
+     */
+    public Parser(TokenStream tokens, Optional<PrintStream> productionsOutputStream, boolean recover,
+            Diagnostics diagnostics) {
+        requireNonNull(tokens, productionsOutputStream, diagnostics);
+        this.tokens = tokens.cursor();
+        this.stream = tokens;
+        this.ast = new Ast(tokens);
+        this.productionsOutputStream = productionsOutputStream;
+        this.diagnostics = diagnostics;
+        this.recover = recover;
+    }
+
+    /**
+     * Ustvari analizator, ki začne pri `index`-tem simbolu in vozlišča doda
+     * v dano areno. Napak ne sporoča, ampak vrže `SyntaxError`.
+     */
+    Parser(TokenStream tokens, Ast ast, int index, Optional<PrintStream> productionsOutputStream) {
+        requireNonNull(tokens, ast, productionsOutputStream);
+        this.tokens = tokens.cursor(index);
+        this.stream = tokens;
+        this.ast = ast;
+        this.productionsOutputStream = productionsOutputStream;
+        this.diagnostics = null;
+        this.recover = false;
+        this.index = index;
+    }
+
+    /**
+     * Ustvari analizator, ki začne pri `index`-tem simbolu, vozlišča doda v
+     * dano areno in se po napakah obnovi (`IncrementalParser`). Definicije
+     * na najvišji ravni razčlenjuje `parseIncrementalDefinition()`.
+     *
+     * @param diagnostics Sporočila napak; indekse njihovih simbolov vrne
+     *                    `errorTokens()`.
+     */
+    Parser(TokenStream tokens, Ast ast, int index, Diagnostics diagnostics) {
+        requireNonNull(tokens, ast, diagnostics);
+        this.tokens = tokens.cursor(index);
+        this.stream = tokens;
+        this.ast = ast;
+        this.productionsOutputStream = Optional.empty();
+        this.diagnostics = diagnostics;
+        this.recover = true;
+        this.index = index;
     }
 
     /**
      * Izvedi sintaksno analizo.
+     *
+     * @return abstraktno sintaksno drevo, če ga analizator gradi.
      */
-    public void parse() {
-        parseSource();
-        if (!check(EOF)) {
+    public Optional<Ast> parse() {
+        int root = parseSource();
+        if (recover) {
+            // Odvečne simbole preskočimo do naslednje definicije.
+            while (!check(EOF)) {
+                report();
+                while (!check(EOF) && !check(KW_TYP) && !check(KW_VAR) && !check(KW_FUN)) {
+                    skip();
+                }
+                if (!check(EOF)) {
+                    parseDefinitions(root, true);
+                }
+            }
+        } else if (!check(EOF)) {
             error();
         }
+        if (ast == null) {
+            return Optional.empty();
+        }
+        ast.seal(root);
+        return Optional.of(ast);
     }
 
-    private void parseSource() {
+    private int parseSource() {
         dump("source -> definitions");
-        parseDefinitions();
+        int root = node(DEFINITIONS, index, -1);
+        parseDefinitions(root, true);
+        return root;
     }
 
-    private void parseDefinitions() {
-        dump("definitions -> definition definitions2");
-        parseDefinition();
-        parseDefinitions2();
+    /**
+     * Definicije doda k `parent`. Desno rekurzijo `definitions2` razčleni v
+     * zanki.
+     *
+     * @param topLevel Ali so to definicije na najvišji ravni (in ne v `where`).
+     */
+    private void parseDefinitions(int parent, boolean topLevel) {
+        long outer = synchronizing;
+        synchronizing |= DEFINITION_SYNC;
+        try {
+            while (true) {
+                dump("definitions -> definition definitions2");
+                int operandBase = operandTop;
+                int operatorBase = operatorTop;
+                try {
+                    append(parent, topLevel ? parseTopLevelDefinition() : parseDefinition());
+                } catch (SyntaxError e) {
+                    recover(e, DEFINITION_SYNC, operandBase, operatorBase);
+                }
+                if (check(OP_SEMICOLON)) {
+                    dump("definitions2 -> ; definitions");
+                    skip();
+                } else {
+                    dump("definitions2 -> e");
+                    return;
+                }
+            }
+        } finally {
+            synchronizing = outer;
+        }
     }
 
-    private void parseDefinitions2() {
+    /**
+     * Razčleni definicijo s seznama na najvišji ravni, skupaj s produkcijama
+     * `definitions` in `definitions2`, ki ju izpiše `parseDefinitions`.
+     * Podpičje za definicijo preskoči.
+     */
+    int parseListedDefinition() {
+        dump("definitions -> definition definitions2");
+        int definition = parseTopLevelDefinition();
         if (check(OP_SEMICOLON)) {
             dump("definitions2 -> ; definitions");
             skip();
-            parseDefinitions();
         } else {
             dump("definitions2 -> e");
         }
+        return definition;
+    }
+
+    /**
+     * Razčleni definicijo na najvišji ravni in jo sporoči kot dogodek JFR
+     * (`Events.DefinitionEvent`).
+     */
+    int parseTopLevelDefinition() {
+        var event = new Events.DefinitionEvent();
+        event.begin();
+        int first = index;
+        long before = productions;
+        var keyword = tokens.peek();
+        int definition = parseDefinition();
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = switch (keyword) {
+                case KW_TYP -> "typ";
+                case KW_VAR -> "var";
+                case KW_FUN -> "fun";
+                default -> null;
+            };
+            // Brez shranjenih simbolov (`--stream`) imena in položaja ne poznamo.
+            if (stream != null) {
+                event.source = stream.source().name();
+                // `position()` bi pisal v predpomnilnik stolpcev v `LineIndex`, ki
+                // si ga z `ParallelParser` deli več niti; `line()` ga ne uporablja.
+                event.line = stream.lineIndex().line(stream.start(first));
+                event.characters = index > first ? stream.end(index - 1) - stream.start(first) : 0;
+                if (first + 1 < stream.size() && stream.type(first + 1) == IDENTIFIER) {
+                    event.name = stream.lexeme(first + 1);
+                }
+            }
+            event.tokens = index - first;
+            event.productions = productions - before;
+            event.commit();
+        }
+        return definition;
     }
 
-    private void parseDefinition() {
+    /**
+     * Razčleni definicijo na najvišji ravni kot `parseDefinitions`: po
+     * napaki preskoči simbole do `;`, `}` ali konca datoteke in vrne `NONE`.
+     */
+    int parseIncrementalDefinition() {
+        long outer = synchronizing;
+        synchronizing = DEFINITION_SYNC;
+        int operandBase = operandTop;
+        int operatorBase = operatorTop;
+        try {
+            return parseTopLevelDefinition();
+        } catch (SyntaxError e) {
+            recover(e, DEFINITION_SYNC, operandBase, operatorBase);
+            return NONE;
+        } finally {
+            synchronizing = outer;
+        }
+    }
+
+    /**
+     * Obravnava simbol za definicijo na najvišji ravni kot `parseDefinitions`
+     * in `parse()`: podpičje preskoči, odvečne simbole sporoči in preskoči
+     * do naslednje definicije.
+     *
+     * @return indeks zadnjega simbola, od katerega je odvisen konec
+     *         definicije (`;`, začetek naslednje definicije ali `EOF`).
+     */
+    int finishIncrementalDefinition() {
+        if (check(OP_SEMICOLON)) {
+            skip();
+            return index - 1;
+        }
+        if (!check(EOF)) {
+            report();
+            while (!check(EOF) && !check(KW_TYP) && !check(KW_VAR) && !check(KW_FUN)) {
+                skip();
+            }
+        }
+        return index;
+    }
+
+    int parseDefinition() {
         if (check(KW_TYP)) {
             dump("definition -> type_definition");
             skip();
-            parseTypeDefinition();
+            return parseTypeDefinition();
         } else if (check(KW_VAR)) {
             dump("definition -> variable_definition");
             skip();
-            parseVariableDefinition();
+            return parseVariableDefinition();
         } else if (check(KW_FUN)) {
             dump("definition -> function_definition");
             skip();
-            parseFunctionDefinition();
+            return parseFunctionDefinition();
         } else error();
+        return NONE;
     }
 
-    private void parseTypeDefinition() {
+    private int parseTypeDefinition() {
             dump("type_definition -> typ identifier : type");
+        int definition = NONE;
         if (check(IDENTIFIER)) {
+            definition = node(TYPE_DEFINITION, index, nameId(index));
             skip();
             if (check(OP_COLON)) {
                 skip();
-                parseType();
+                append(definition, parseType());
             } else error();
         } else error();
+        return definition;
     }
 
-    private void parseType() {
+    private int parseType() {
+        int name = NONE;
         if (check(IDENTIFIER)) {
             dump("type -> identifier");
+            name = node(TYPE_NAME, index, nameId(index));
             skip();
         }
+        int type = NONE;
         if (check(AT_LOGICAL)) {
             dump("type -> logical");
+            type = node(ATOM_TYPE, index, AT_LOGICAL.ordinal());
             skip();
         } else if (check(AT_INTEGER)) {
             dump("type -> integer");
+            type = node(ATOM_TYPE, index, AT_INTEGER.ordinal());
             skip();
         } else if (check(AT_STRING)) {
             dump("type -> string");
+            type = node(ATOM_TYPE, index, AT_STRING.ordinal());
             skip();
-        } else if (check(KW_ARR)) {
+        } else if (tokens.peek() == KW_ARR) {
+            // Veja ni dosegljiva (`arr` ni preskočen), zato `arr` ni med
+            // pričakovanimi simboli.
             if (check(OP_LBRACKET)) {
                 skip();
                 if (check(C_INTEGER)) {
@@ -120,347 +395,486 @@ public class Parser {
                 } else error();
             } else error();
         } else error();
+        if (name != NONE) {
+            append(name, type);
+            return name;
+        }
+        return type;
     }
 
-    private void parseVariableDefinition() {
+    private int parseVariableDefinition() {
+        int definition = NONE;
         if (check(IDENTIFIER)) {
+            definition = node(VARIABLE_DEFINITION, index, nameId(index));
             skip();
             if (check(OP_COLON)) {
                 dump("variable_definition -> var identifier : type");
                 skip();
-                parseType();
+                append(definition, parseType());
             } else error();
         } else error();
+        return definition;
     }
 
-    private void parseFunctionDefinition() {
+    private int parseFunctionDefinition() {
         dump("function_definition -> fun identifier ( parameters ) : type = expression");
+        int definition = NONE;
         if (check(IDENTIFIER)) {
+            definition = node(FUNCTION_DEFINITION, index, nameId(index));
             skip();
             if (check(OP_LPARENT)) {
                 skip();
-                parseParameters();
+                parseParameters(definition);
                 if (check(OP_RPARENT)) {
                     skip();
                     if (check(OP_COLON)) {
                         skip();
-                        parseType();
+                        append(definition, parseType());
                         if (check(OP_ASSIGN)) {
                             skip();
-                            parseExpression();
+                            append(definition, parseExpression());
                         } else error();
                     } else error();
                 } else error();
             } else error();
         } else error();
+        return definition;
     }
 
-    private void parseParameters() {
-        dump("parameters -> parameter parameters2");
-        parseParameter();
-        parseParameters2();
+    /**
+     * Parametre doda k `parent`; `parameters2` razčleni v zanki.
+     */
+    private void parseParameters(int parent) {
+        long outer = synchronizing;
+        synchronizing |= PARAMETER_SYNC;
+        try {
+            while (true) {
+                dump("parameters -> parameter parameters2");
+                try {
+                    append(parent, parseParameter());
+                } catch (SyntaxError e) {
+                    recover(e, PARAMETER_SYNC, operandTop, operatorTop);
+                }
+                if (check(OP_COMMA)) {
+                    dump("parameters2 -> , parameters");
+                    skip();
+                } else {
+                    dump("parameters2 -> e");
+                    return;
+                }
+            }
+        } finally {
+            synchronizing = outer;
+        }
     }
 
-    private void parseParameter() {
+    private int parseParameter() {
+        int parameter = NONE;
         if (check(IDENTIFIER)) {
+            parameter = node(PARAMETER, index, nameId(index));
             skip();
             if (check(OP_COLON)) {
                 dump("parameter -> identifier : type");
                 skip();
-                parseType();
+                append(parameter, parseType());
             } else error();
         } else error();
+        return parameter;
     }
 
-    private void parseParameters2() {
-        if (check(OP_COMMA)) {
-            dump("parameters2 -> , parameters");
-            skip();
-            parseParameters();
-        } else {
-            dump("parameters2 -> e");
-        }
-    }
-
-    private void parseExpression() {
+    private int parseExpression() {
         dump("expression -> logical_ior_expression expression2");
-        parseLogicalIOrExpression();
-        parseExpression2();
-    }
-
-    private void parseExpression2() {
+        int expression = parseLogicalIOrExpression();
         if (check(OP_LBRACE)) {
             dump("expression2 -> { where definitions }");
+            int where = node(WHERE, index, -1);
+            append(where, expression);
             skip();
             if (check(KW_WHERE)) {
                 skip();
-                parseDefinitions();
+                parseDefinitions(where, false);
                 if (check(OP_RBRACE)) {
                     skip();
                 } else error();
             } else error();
+            return where;
         } else {
             dump("expression2 -> e");
         }
+        return expression;
     }
 
-    private void parseLogicalIOrExpression() {
-        dump("logical_ior_expression -> logical_and_expression logical_ior_expression2");
-        parseLogicalAndExpression();
-        parseLogicalIOrExpression2();
-    }
+    // --------------------------------------------------------------
+    // Binarni izrazi.
 
-    private void parseLogicalIOrExpression2() {
-        if (check(OP_OR)) {
-            dump("logical_ior_expression2 -> | logical_ior_expression");
-            skip();
-            parseLogicalIOrExpression();
-        } else {
-            dump("logical_ior_expression2 -> e");
-        }
-    }
+    /**
+     * Prioritetni nivoji binarnih operatorjev, od najnižjega do najvišjega.
+     */
+    private static final int LEVEL_IOR = 0;
+    private static final int LEVEL_AND = 1;
+    private static final int LEVEL_COMPARE = 2;
+    private static final int LEVEL_ADDITIVE = 3;
+    private static final int LEVEL_MULTIPLICATIVE = 4;
 
-    private void parseLogicalAndExpression() {
-        dump("logical_and_expression -> compare_expression logical_and_expression2");
-        parseCompareExpression();
-        parseLogicalAndExpression2();
-    }
+    /**
+     * Produkcija, s katero se začne izraz na vsakem nivoju.
+     */
+    private static final String[] levelProductions = {
+        "logical_ior_expression -> logical_and_expression logical_ior_expression2",
+        "logical_and_expression -> compare_expression logical_and_expression2",
+        "compare_expression -> additive_expression compare_expression2",
+        "additive_expression -> multiplicative_expression additive_expression2",
+        "multiplicative_expression -> prefix_expression multiplicative_expression2",
+    };
 
-    private void parseLogicalAndExpression2() {
-        if (check(OP_AND)) {
-            dump("logical_and_expression2 -> & logical_and_expression");
-            skip();
-            parseLogicalAndExpression();
-        } else {
-            dump("logical_and_expression2 -> e");
-        }
-    }
+    /**
+     * Produkcija, ko na nivoju ni (več) operatorja.
+     */
+    private static final String[] emptyProductions = {
+        "logical_ior_expression2 -> e",
+        "logical_and_expression2 -> e",
+        "compare_expression2 -> e",
+        "additive_expression2 -> e",
+        "multiplicative_expression2 -> e",
+    };
 
-    private void parseCompareExpression() {
-        dump("compare_expression -> additive_expression compare_expression2");
-        parseAdditiveExpression();
-        parseCompareExpression2();
-    }
+    /**
+     * Operatorji na vsakem nivoju.
+     */
+    private static final TokenType[][] levelOperators = {
+        { OP_OR },
+        { OP_AND },
+        { OP_EQ, OP_NEQ, OP_LEQ, OP_GEQ, OP_LT, OP_GT },
+        { OP_ADD, OP_SUB },
+        { OP_MUL, OP_DIV, OP_MOD },
+    };
 
-    private void parseCompareExpression2() {
-        if (check(OP_EQ)) {
-            dump("compare_expression2 -> == additive_expression");
-            skip();
-            parseAdditiveExpression();
-        } else if (check(OP_NEQ)) {
-            dump("compare_expression2 -> != additive_expression");
-            skip();
-            parseAdditiveExpression();
-        } else if (check(OP_LEQ)) {
-            dump("compare_expression2 -> <= additive_expression");
-            skip();
-            parseAdditiveExpression();
-        } else if (check(OP_GEQ)) {
-            dump("compare_expression2 -> >= additive_expression");
-            skip();
-            parseAdditiveExpression();
-        } else if (check(OP_LT)) {
-            dump("compare_expression2 -> < additive_expression");
-            skip();
-            parseAdditiveExpression();
-        } else if (check(OP_GT)) {
-            dump("compare_expression2 -> > additive_expression");
-            skip();
-            parseAdditiveExpression();
-        } else {
-            dump("compare_expression2 -> e");
+    /**
+     * Produkcije operatorjev (istoležne z `levelOperators`).
+     */
+    private static final String[][] operatorProductions = {
+        { "logical_ior_expression2 -> | logical_ior_expression" },
+        { "logical_and_expression2 -> & logical_and_expression" },
+        {
+            "compare_expression2 -> == additive_expression",
+            "compare_expression2 -> != additive_expression",
+            "compare_expression2 -> <= additive_expression",
+            "compare_expression2 -> >= additive_expression",
+            "compare_expression2 -> < additive_expression",
+            "compare_expression2 -> > additive_expression",
+        },
+        {
+            "additive_expression2 -> + additive_expression",
+            "additive_expression2 -> - additive_expression",
+        },
+        {
+            "multiplicative_expression2 -> * multiplicative_expression",
+            "multiplicative_expression2 -> / multiplicative_expression",
+            "multiplicative_expression2 -> % multiplicative_expression",
+        },
+    };
+
+    /**
+     * Nivo desnega operanda. Operatorji so v slovnici desno rekurzivni, zato
+     * se operand začne na istem nivoju; primerjave se ne verižijo, zato se
+     * njihov desni operand začne nivo višje.
+     */
+    private static final int[] operandLevels = {
+        LEVEL_IOR, LEVEL_AND, LEVEL_ADDITIVE, LEVEL_ADDITIVE, LEVEL_MULTIPLICATIVE
+    };
+
+    /**
+     * Sklad operandov in operatorjev (indeks simbola, nivo, vrsta), ki si ga
+     * delijo vgnezdeni izrazi; vsak klic uporablja le del nad svojim dnom.
+     */
+    private int[] operands = new int[64];
+    private int operandTop = 0;
+    private int[] operators = new int[64];
+    private int[] operatorLevels = new int[64];
+    private int[] operatorTypes = new int[64];
+    private int operatorTop = 0;
+
+    /**
+     * Razčleni `logical_ior_expression` s prioritetnim plezanjem.
+     *
+     * Namesto vgnezdenih klicev za vsak nivo (in desne rekurzije za verige
+     * operatorjev) se spustimo od danega nivoja do prefiksnega izraza in nato
+     * dvigamo, dokler ne najdemo operatorja; za njim se znova spustimo z
+     * nivoja njegovega desnega operanda. Verige poljubne dolžine tako
+     * razčlenimo v zanki, izpisane produkcije pa so enake kot pri
+     * rekurzivnem spustu.
+     *
+     * Drevo gradimo s skladom operandov in operatorjev: pred operatorjem
+     * nivoja `L` združimo vse čakajoče operatorje nivoja `L` ali višjega,
+     * zato so binarni operatorji levo asociativni.
+     */
+    private int parseLogicalIOrExpression() {
+        int operatorBase = operatorTop;
+        int level = LEVEL_IOR;
+        // Ali je primerjava na trenutnem nivoju `compare_expression` že razčlenjena.
+        boolean compared = false;
+        while (level >= 0) {
+            for (int l = level; l <= LEVEL_MULTIPLICATIVE; l++) {
+                dump(levelProductions[l]);
+            }
+            if (level <= LEVEL_COMPARE) {
+                compared = false;
+            }
+            pushOperand(parsePrefixExpression());
+
+            level = LEVEL_MULTIPLICATIVE;
+            while (level >= 0) {
+                if (level == LEVEL_COMPARE && compared) {
+                    level--;
+                    continue;
+                }
+                int operator = operatorAt(level);
+                if (operator >= 0) {
+                    dump(operatorProductions[level][operator]);
+                    while (operatorTop > operatorBase && operatorLevels[operatorTop - 1] >= level) {
+                        reduceBinary();
+                    }
+                    pushOperator(index, level, levelOperators[level][operator]);
+                    skip();
+                    compared |= level == LEVEL_COMPARE;
+                    level = operandLevels[level];
+                    break;
+                }
+                dump(emptyProductions[level]);
+                level--;
+            }
         }
+        while (operatorTop > operatorBase) {
+            reduceBinary();
+        }
+        return operands[--operandTop];
     }
 
-    private void parseAdditiveExpression() {
-        dump("additive_expression -> multiplicative_expression additive_expression2");
-        parseMultiplicativeExpression();
-        parseAdditiveExpression2();
+    /**
+     * Indeks naslednjega simbola med operatorji nivoja oziroma -1.
+     */
+    private int operatorAt(int level) {
+        var operators = levelOperators[level];
+        for (int i = 0; i < operators.length; i++) {
+            if (check(operators[i])) {
+                return i;
+            }
+        }
+        return -1;
     }
 
-    private void parseAdditiveExpression2() {
-        if (check(OP_ADD)) {
-            dump("additive_expression2 -> + additive_expression");
-            skip();
-            parseAdditiveExpression();
-        } else if (check(OP_SUB)) {
-            dump("additive_expression2 -> - additive_expression");
-            skip();
-            parseAdditiveExpression();
-        } else {
-            dump("additive_expression2 -> e");
-        }
+    /**
+     * Zadnji operator na skladu združi z zadnjima operandoma.
+     */
+    private void reduceBinary() {
+        operatorTop--;
+        int right = operands[--operandTop];
+        int left = operands[--operandTop];
+        int binary = node(BINARY, operators[operatorTop], operatorTypes[operatorTop]);
+        append(binary, left);
+        append(binary, right);
+        pushOperand(binary);
     }
 
-    private void parseMultiplicativeExpression() {
-        dump("multiplicative_expression -> prefix_expression multiplicative_expression2");
-        parsePrefixExpression();
-        parseMultiplicativeExpression2();
+    private void pushOperand(int node) {
+        if (operandTop == operands.length) {
+            operands = Arrays.copyOf(operands, operandTop * 2);
+        }
+        operands[operandTop++] = node;
     }
 
-    private void parseMultiplicativeExpression2() {
-        if (check(OP_MUL)) {
-            dump("multiplicative_expression2 -> * multiplicative_expression");
-            skip();
-            parseMultiplicativeExpression();
-        } else if (check(OP_DIV)) {
-            dump("multiplicative_expression2 -> / multiplicative_expression");
-            skip();
-            parseMultiplicativeExpression();
-        } else if (check(OP_MOD)) {
-            dump("multiplicative_expression2 -> % multiplicative_expression");
-            skip();
-            parseMultiplicativeExpression();
-        } else {
-            dump("multiplicative_expression2 -> e");
+    private void pushOperator(int token, int level, TokenType type) {
+        if (operatorTop == operators.length) {
+            operators = Arrays.copyOf(operators, operatorTop * 2);
+            operatorLevels = Arrays.copyOf(operatorLevels, operatorTop * 2);
+            operatorTypes = Arrays.copyOf(operatorTypes, operatorTop * 2);
         }
+        operators[operatorTop] = token;
+        operatorLevels[operatorTop] = level;
+        operatorTypes[operatorTop] = type.ordinal();
+        operatorTop++;
     }
 
-    private void parsePrefixExpression() {
-        if (check(OP_ADD)) {
-            dump("prefix_expression -> + prefix_expression");
-            skip();
-            parsePrefixExpression();
-        } else if (check(OP_SUB)) {
-            dump("prefix_expression -> - prefix_expression");
+    private int parsePrefixExpression() {
+        int operatorBase = operatorTop;
+        while (true) {
+            if (check(OP_ADD)) {
+                dump("prefix_expression -> + prefix_expression");
+            } else if (check(OP_SUB)) {
+                dump("prefix_expression -> - prefix_expression");
+            } else if (check(OP_NOT)) {
+                dump("prefix_expression -> ! prefix_expression");
+            } else {
+                break;
+            }
+            pushOperator(index, -1, tokens.peek());
             skip();
-            parsePrefixExpression();
-        } else if (check(OP_NOT)) {
-            dump("prefix_expression -> ! prefix_expression");
-            skip();
-            parsePrefixExpression();
-        } else {
-            dump("prefix_expression -> postfix_expression");
-            parsePostfixExpression();
         }
+        dump("prefix_expression -> postfix_expression");
+        int operand = parsePostfixExpression();
+        while (operatorTop > operatorBase) {
+            operatorTop--;
+            int unary = node(UNARY, operators[operatorTop], operatorTypes[operatorTop]);
+            append(unary, operand);
+            operand = unary;
+        }
+        return operand;
     }
 
-    private void parsePostfixExpression() {
-        dump("postfix_expression -> atom_expression postfix_expression2");
-        parseAtomExpression();
-        parsePostfixExpression2();
-    }
+    // --------------------------------------------------------------
 
-    private void parsePostfixExpression2() {
+    private int parsePostfixExpression() {
+        dump("postfix_expression -> atom_expression postfix_expression2");
+        int atom = parseAtomExpression();
         if (check(OP_LBRACKET)) {
             dump("postfix_expression2 -> [ expression ] postfix_expression2 ");
+            int indexed = node(INDEX, index, -1);
+            append(indexed, atom);
             skip();
-            parseExpression();
+            append(indexed, parseExpression());
             if (check(OP_RBRACKET)) {
                 skip();
-                parseAtomExpression2();
+                parseAtomExpression2(indexed);
             } else error();
+            return indexed;
         } else {
             dump("postfix_expression2 -> e");
         }
+        return atom;
     }
 
-    private void parseAtomExpression() {
+    private int parseAtomExpression() {
         if (check(C_LOGICAL)) {
             dump("atom_expression -> log_constant");
-            skip();
+            return literal(C_LOGICAL);
         } else if (check(C_INTEGER)) {
             dump("atom_expression -> int_constant");
-            skip();
+            return literal(C_INTEGER);
         } else if (check(C_STRING)) {
             dump("atom_expression -> str_constant");
-            skip();
+            return literal(C_STRING);
         } else if (check(IDENTIFIER)) {
             dump("atom_expression -> identifier atom_expression2");
+            int token = index;
             skip();
-            parseAtomExpression2();
+            int name = node(check(OP_LPARENT) ? CALL : NAME, token, nameId(token));
+            parseAtomExpression2(name);
+            return name;
         } else if (check(OP_LPARENT)) {
             dump("atom_expression -> ( expressions )");
+            int block = node(BLOCK, index, -1);
             skip();
-            parseExpressions();
+            parseExpressions(block);
             if (check(OP_RPARENT)) {
                 skip();
             } else error();
+            return block;
         } else if (check(OP_LBRACE)) {
             dump("atom_expression -> { atom_expression4");
             skip();
-            parseAtomExpression4();
+            return parseAtomExpression4();
         } else error();
+        return NONE;
+    }
+
+    private int literal(TokenType type) {
+        int literal = node(LITERAL, index, type.ordinal());
+        skip();
+        return literal;
     }
 
-    private void parseAtomExpression4() {
+    private int parseAtomExpression4() {
         if (check(KW_WHILE)) {
             dump("atom_expression4 -> while expression : expression }");
+            int loop = node(WHILE, index, -1);
             skip();
-            parseExpression();
+            append(loop, parseExpression());
             if (check(OP_COLON)) {
                 skip();
-                parseExpression();
+                append(loop, parseExpression());
             } else error();
             if (check(OP_RBRACE)) {
                 skip();
             } else error();
+            return loop;
         } else if (check(KW_FOR)) {
             dump("atom_expression4 -> for identifier = expression , expression , expression : expression }");
+            int loop = node(FOR, index, -1);
             skip();
             if (check(IDENTIFIER)) {
+                append(loop, node(NAME, index, nameId(index)));
                 skip();
             } else error();
             if (check(OP_ASSIGN)) {
                 skip();
             } else error();
-            parseExpression();
+            append(loop, parseExpression());
             if (check(OP_COMMA)) {
                 skip();
             } else error();
-            parseExpression();
+            append(loop, parseExpression());
             if (check(OP_COMMA)) {
                 skip();
             } else error();
-            parseExpression();
+            append(loop, parseExpression());
             if (check(OP_COLON)) {
                 skip();
             } else error();
-            parseExpression();
+            append(loop, parseExpression());
             if (check(OP_RBRACE)) {
                 skip();
             } else error();
+            return loop;
         } else if (check(KW_IF)) {
             dump("atom_expression4 -> if expression then expression atom_expression3");
+            int conditional = node(IF, index, -1);
             skip();
-            parseExpression();
+            append(conditional, parseExpression());
             if (check(KW_THEN)) {
                 skip();
             } else error();
-            parseExpression();
-            parseAtomExpression3();
+            append(conditional, parseExpression());
+            parseAtomExpression3(conditional);
+            return conditional;
         } else {
             dump("atom_expression4 -> expression = expression }");
-            parseExpression();
+            int target = parseExpression();
+            int assign = NONE;
             if (check(OP_ASSIGN)) {
+                assign = node(ASSIGN, index, -1);
+                append(assign, target);
                 skip();
             } else error();
-            parseExpression();
+            append(assign, parseExpression());
             if (check(OP_RBRACE)) {
                 skip();
             } else error();
+            return assign;
         }
     }
 
-    private void parseAtomExpression3() {
+    private void parseAtomExpression3(int conditional) {
         if (check(OP_RBRACE)) {
             dump("atom_expression3 -> }");
             skip();
         } else if (check(KW_ELSE)) {
             dump("atom_expression3 -> else expression }");
             skip();
-            parseExpression();
+            append(conditional, parseExpression());
             if (check(OP_RBRACE)) {
                 skip();
             } else error();
         } else error();
     }
 
-    private void parseAtomExpression2() {
+    /**
+     * Argumente v oklepajih (če so) doda k `parent`.
+     */
+    private void parseAtomExpression2(int parent) {
         if (check(OP_LPARENT)) {
             dump("atom_expression2 -> ( expressions )");
             skip();
-            parseExpressions();
+            parseExpressions(parent);
             if (check(OP_RPARENT)) {
                 skip();
             } else error();
@@ -469,44 +883,277 @@ public class Parser {
         }
     }
 
-    private void parseExpressions() {
-        dump("expressions -> expression expressions2");
-        parseExpression();
-        parseExpressions2();
+    /**
+     * Izraze doda k `parent`; `expressions2` razčleni v zanki.
+     */
+    private void parseExpressions(int parent) {
+        long outer = synchronizing;
+        synchronizing |= EXPRESSION_SYNC;
+        try {
+            while (true) {
+                dump("expressions -> expression expressions2");
+                int operandBase = operandTop;
+                int operatorBase = operatorTop;
+                try {
+                    append(parent, parseExpression());
+                } catch (SyntaxError e) {
+                    recover(e, EXPRESSION_SYNC, operandBase, operatorBase);
+                }
+                if (check(OP_COMMA)) {
+                    dump("expressions2 -> , expressions");
+                    skip();
+                } else {
+                    dump("expressions2 -> e");
+                    return;
+                }
+            }
+        } finally {
+            synchronizing = outer;
+        }
+    }
+
+    // --------------------------------------------------------------
+    // Obnavljanje po napakah.
+
+    /**
+     * Sinhronizacijske množice seznamov (bit `1L << ordinal`): simboli, ki
+     * lahko sledijo elementu seznama, torej FIRST in FOLLOW neterminala, ki
+     * seznam nadaljuje (`definitions2`, `parameters2`, `expressions2`).
+     */
+    private static final long DEFINITION_SYNC = synchronizingSet("definitions2");
+    private static final long PARAMETER_SYNC = synchronizingSet("parameters2");
+    private static final long EXPRESSION_SYNC = synchronizingSet("expressions2");
+
+    private static long synchronizingSet(String nonterminal) {
+        int i = Arrays.asList(ParseTable.nonterminals).indexOf(nonterminal);
+        return ParseTable.first[i] | ParseTable.follow[i];
     }
 
-    private void parseExpressions2() {
-        if (check(OP_COMMA)) {
-            dump("expressions2 -> , expressions");
+    /**
+     * Po napaki v elementu seznama (panic mode) preskoči simbole do prvega
+     * simbola iz sinhronizacijske množice kateregakoli odprtega seznama, ki
+     * ni znotraj oklepajev, odprtih za mestom napake. Če simbol ne pripada
+     * temu seznamu (`local`), napako posreduje zunanjemu seznamu.
+     */
+    private void recover(SyntaxError error, long local, int operandBase, int operatorBase) {
+        if (!recover) {
+            throw error;
+        }
+        operandTop = operandBase;
+        operatorTop = operatorBase;
+        int depth = 0;
+        while (!check(EOF)) {
+            var type = tokens.peek();
+            if (depth == 0 && (synchronizing & (1L << type.ordinal())) != 0) {
+                break;
+            }
+            switch (type) {
+                case OP_LPARENT, OP_LBRACKET, OP_LBRACE -> depth++;
+                case OP_RPARENT, OP_RBRACKET, OP_RBRACE -> depth = Math.max(depth - 1, 0);
+                default -> {}
+            }
             skip();
-            parseExpressions();
-        } else {
-            dump("expressions2 -> e");
         }
+        if ((local & (1L << tokens.peek().ordinal())) == 0) {
+            throw error;
+        }
+    }
+
+    /**
+     * Zabeleži napako pri trenutnem simbolu.
+     */
+    private void report() {
+        if (index > lastError) {
+            lastError = index;
+            if (errorCount == errorTokens.length) {
+                errorTokens = Arrays.copyOf(errorTokens, Math.max(errorCount * 2, 8));
+            }
+            errorTokens[errorCount++] = index;
+            diagnostics.error(stream.position(index),
+                    unexpected(tokens.peek(), stream.lexeme(index), expectedTypes()));
+        }
+        expected = 0;
+    }
+
+    /**
+     * Indeksi simbolov zabeleženih napak v vrstnem redu sporočil.
+     */
+    int[] errorTokens() {
+        return Arrays.copyOf(errorTokens, errorCount);
+    }
+
+    private EnumSet<TokenType> expectedTypes() {
+        var types = EnumSet.noneOf(TokenType.class);
+        for (var type : TokenType.values()) {
+            if ((expected & (1L << type.ordinal())) != 0) {
+                types.add(type);
+            }
+        }
+        return types;
     }
 
+    // --------------------------------------------------------------
+
+    /**
+     * Doda vozlišče v drevo (če ga gradimo).
+     */
+    private int node(Ast.Kind kind, int token, int payload) {
+        return ast == null ? NONE : ast.add(kind, token, payload);
+    }
+
+    private void append(int parent, int child) {
+        if (ast != null) {
+            ast.append(parent, child);
+        }
+    }
+
+    /**
+     * Oznaka imena `token`-tega simbola.
+     */
+    private int nameId(int token) {
+        return stream == null ? -1 : stream.nameId(token);
+    }
+
+    /**
+     * Število produkcij, ki jih je analizator uporabil; toliko vrstic izpiše
+     * `--dump SYN`.
+     */
+    public long productions() {
+        return productions;
+    }
 
     /**
      * Izpiše produkcijo na izhodni tok.
      */
     private void dump(String production) {
+        productions++;
         if (productionsOutputStream.isPresent()) {
             productionsOutputStream.get().println(production);
         }
     }
 
     private boolean check(TokenType typeToCheck) {
-        if (pointer + 1 < symbols.size()) {
-            return symbols.get(pointer + 1).tokenType == typeToCheck;
+        if (tokens.peek() == typeToCheck) {
+            return true;
         }
+        expected |= 1L << typeToCheck.ordinal();
         return false;
     }
 
     private void error() {
-        Report.error("Error");
+        if (diagnostics == null) {
+            throw new SyntaxError(index);
+        }
+        if (recover) {
+            report();
+            throw new SyntaxError(index);
+        }
+        throw diagnostics.fatal("Error");
+    }
+
+    /**
+     * Indeks naslednjega simbola.
+     */
+    int index() {
+        return index;
+    }
+
+    void skip() {
+        expected = 0;
+        if (tokens.next() != EOF) {
+            index++;
+        }
+    }
+
+    // --------------------------------------------------------------
+
+    /**
+     * Sintaksna napaka pri simbolu `index`, ko napak ne sporočamo takoj.
+     */
+    static class SyntaxError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int index;
+
+        SyntaxError(int index) {
+            super("Error", null, false, false);
+            this.index = index;
+        }
+    }
+
+    /**
+     * Sporočilo o napaki v načinu obnavljanja, npr. "Unexpected ')',
+     * expected identifier or '('".
+     *
+     * @param found Vrsta nepričakovanega simbola.
+     * @param lexeme Znakovna predstavitev nepričakovanega simbola.
+     * @param expected Simboli, ki bi jih analizator na tem mestu sprejel.
+     */
+    private static String unexpected(TokenType found, String lexeme, EnumSet<TokenType> expected) {
+        var sb = new StringBuilder("Unexpected ").append(describe(found, lexeme));
+        if (!expected.isEmpty()) {
+            sb.append(", expected ");
+            int i = 0;
+            for (var type : expected) {
+                if (i > 0) {
+                    sb.append(i == expected.size() - 1 ? " or " : ", ");
+                }
+                sb.append(describe(type, null));
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String describe(TokenType type, String lexeme) {
+        return switch (type) {
+            case EOF -> "end of file";
+            case IDENTIFIER -> lexeme == null ? "identifier" : "identifier '" + lexeme + "'";
+            case C_LOGICAL -> lexeme == null ? "logical constant" : "logical constant '" + lexeme + "'";
+            case C_INTEGER -> lexeme == null ? "integer constant" : "integer constant '" + lexeme + "'";
+            case C_STRING -> lexeme == null ? "string constant" : "string constant '" + lexeme + "'";
+            case OP_ADD -> "'+'";
+            case OP_SUB -> "'-'";
+            case OP_MUL -> "'*'";
+            case OP_DIV -> "'/'";
+            case OP_MOD -> "'%'";
+            case OP_AND -> "'&'";
+            case OP_OR -> "'|'";
+            case OP_NOT -> "'!'";
+            case OP_EQ -> "'=='";
+            case OP_NEQ -> "'!='";
+            case OP_LT -> "'<'";
+            case OP_GT -> "'>'";
+            case OP_LEQ -> "'<='";
+            case OP_GEQ -> "'>='";
+            case OP_LPARENT -> "'('";
+            case OP_RPARENT -> "')'";
+            case OP_LBRACKET -> "'['";
+            case OP_RBRACKET -> "']'";
+            case OP_LBRACE -> "'{'";
+            case OP_RBRACE -> "'}'";
+            case OP_COLON -> "':'";
+            case OP_SEMICOLON -> "';'";
+            case OP_DOT -> "'.'";
+            case OP_COMMA -> "','";
+            case OP_ASSIGN -> "'='";
+            // Ključne besede in atomarni tipi: `KW_WHILE` -> 'while'.
+            default -> "'" + type.name().substring(3).toLowerCase() + "'";
+        };
     }
 
-    private void skip() {
-        pointer++;
+    /**
+     * Izvedbe sintaksne analize.
+     */
+    public static enum Engine {
+        /**
+         * Rekurzivni spust (`Parser`).
+         */
+        RECURSIVE,
+
+        /**
+         * Tabela LL(1) in eksplicitni sklad (`TableParser`).
+         */
+        TABLE
     }
 }
@@ -0,0 +1,114 @@
+/**
+ * @Author: turk
+ * @Description: Tabelarično voden sintaksni analizator.
+ */
+
+package compiler.parser;
+
+import static compiler.parser.ParseTable.*;
+import static common.RequireNonNull.requireNonNull;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Optional;
+
+import common.Diagnostics;
+import compiler.lexer.TokenSource;
+import compiler.lexer.TokenType;
+
+/**
+ * Analizator LL(1), ki ga vodi tabela `ParseTable`, generirana iz
+ * `pins.grammar`. Namesto rekurzivnih klicev uporablja sklad simbolov v
+ * tabeli `int[]`, zato globina gnezdenja ni omejena s skladom klicev.
+ * Sprejme iste programe in izpiše iste produkcije kot `Parser`.
+ */
+public class TableParser {
+    /**
+     * Vir leksikalnih simbolov.
+     */
+    private final TokenSource tokens;
+
+    /**
+     * Ciljni tok, kamor izpisujemo produkcije. Če produkcij ne želimo izpisovati,
+     * vrednost opcijske spremenljivke nastavimo na Optional.empty().
+     */
+    private final Optional<PrintStream> productionsOutputStream;
+
+    /**
+     * Sporočila prevajanja.
+     */
+    private final Diagnostics diagnostics;
+
+    /**
+     * Število produkcij, ki jih je analizator uporabil (`--stats`).
+     */
+    private long applied = 0;
+
+    public TableParser(TokenSource tokens, Optional<PrintStream> productionsOutputStream,
+            Diagnostics diagnostics) {
+        requireNonNull(tokens, productionsOutputStream, diagnostics);
+        this.tokens = tokens;
+        this.productionsOutputStream = productionsOutputStream;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Izvedi sintaksno analizo.
+     */
+    public void parse() {
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = START;
+        while (top > 0) {
+            int symbol = stack[--top];
+            if (symbol < TERMINALS) {
+                if (tokens.peek().ordinal() != symbol) {
+                    error();
+                }
+                tokens.next();
+            } else if (symbol < ACTIONS) {
+                int production = unconditional[symbol - TERMINALS];
+                if (production < 0) {
+                    production = table[(symbol - TERMINALS) * TERMINALS + tokens.peek().ordinal()];
+                    if (production < 0) {
+                        error();
+                    }
+                }
+                var rhs = productions[production];
+                if (top + rhs.length > stack.length) {
+                    stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top + rhs.length));
+                }
+                for (int i = rhs.length - 1; i >= 0; i--) {
+                    stack[top++] = rhs[i];
+                }
+            } else {
+                dump(labels[symbol - ACTIONS]);
+            }
+        }
+        if (tokens.peek() != TokenType.EOF) {
+            error();
+        }
+    }
+
+    /**
+     * Število produkcij, ki jih je analizator uporabil; toliko vrstic izpiše
+     * `--dump SYN`.
+     */
+    public long productions() {
+        return applied;
+    }
+
+    /**
+     * Izpiše produkcijo na izhodni tok.
+     */
+    private void dump(String production) {
+        applied++;
+        if (productionsOutputStream.isPresent()) {
+            productionsOutputStream.get().println(production);
+        }
+    }
+
+    private void error() {
+        throw diagnostics.fatal("Error");
+    }
+}
@@ -0,0 +1,488 @@
+/**
+ * @Author: turk
+ * @Description: Abstraktno sintaksno drevo, shranjeno v areni.
+ */
+
+package compiler.parser.ast;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import common.StringUtil;
+import compiler.lexer.Position;
+import compiler.lexer.TokenStream;
+import compiler.lexer.TokenType;
+
+/**
+ * Vozlišča hrani v vzporednih tabelah `int[]` (vrsta, prvi otrok, naslednji
+ * brat, indeks simbola, dodatni podatek), zato drevo ne ustvari objekta na
+ * vozlišče. Vozlišče je le indeks v te tabele; za kasnejše faze so na voljo
+ * tipizirani pogledi `Node`, ki se ustvarijo šele na zahtevo.
+ *
+ * Vsako vozlišče razen korena pripada drugemu simbolu, zato zmogljivost
+ * določimo iz števila simbolov in tabele med gradnjo ne rastejo.
+ *
+ * Areno, ki jo `IncrementalParser` dopolnjuje po vsaki spremembi, povezuje
+ * z zaporedjem simbolov, ki se spreminja na mestu. Indeksi simbolov za
+ * mestom zadnje spremembe so zato shranjeni relativno na konec zaporedja
+ * (negativni) in ostanejo veljavni, ko se število simbolov pred njimi
+ * spremeni. Tako je shranjen le simbol prvega vozlišča vsake definicije,
+ * ostala vozlišča definicije pa hranijo razdaljo do njega (glej
+ * `anchorTokens()`), zato sprememba na drugem mestu zahteva popravek enega
+ * indeksa na definicijo.
+ */
+public class Ast {
+    /**
+     * Oznaka za manjkajoče vozlišče.
+     */
+    public static final int NONE = -1;
+
+    private static final Kind[] kindValues = Kind.values();
+    private static final TokenType[] tokenTypes = TokenType.values();
+
+    /**
+     * Zaporedje simbolov, iz katerega je bilo drevo zgrajeno.
+     */
+    private final TokenStream tokens;
+
+    private int[] kinds;
+    private int[] firstChild;
+    private int[] nextSibling;
+
+    /**
+     * Indeksi simbolov: nenegativni so indeksi od začetka zaporedja,
+     * negativni pa od konca (`-1` je zadnji simbol).
+     */
+    private int[] tokenIndices;
+    private int[] payloads;
+
+    /**
+     * Samo v areni `IncrementalParser`: vozlišče, glede na simbol katerega
+     * je shranjen indeks simbola (`NONE`, če je indeks shranjen sam).
+     */
+    private int[] anchors;
+
+    /**
+     * Zadnji otrok vozlišča; potreben le med gradnjo, zato ga `seal()` sprosti.
+     */
+    private int[] lastChild;
+
+    /**
+     * Število vozlišč.
+     */
+    private int size = 0;
+
+    /**
+     * Koren drevesa.
+     */
+    private int root = NONE;
+
+    /**
+     * Ustvari prazno areno za drevo programa.
+     *
+     * @param tokens Zaporedje simbolov programa.
+     */
+    public Ast(TokenStream tokens) {
+        this(tokens, tokens.size() + 1);
+    }
+
+    /**
+     * Ustvari prazno areno z dano zmogljivostjo, npr. za del programa.
+     *
+     * @param tokens Zaporedje simbolov programa.
+     * @param capacity Začetna zmogljivost (število vozlišč).
+     */
+    public Ast(TokenStream tokens, int capacity) {
+        requireNonNull(tokens);
+        this.tokens = tokens;
+        capacity = Math.max(capacity, 1);
+        kinds = new int[capacity];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        tokenIndices = new int[capacity];
+        payloads = new int[capacity];
+        lastChild = new int[capacity];
+    }
+
+    // --------------------------------------------------------------
+    // Gradnja.
+
+    /**
+     * Doda vozlišče brez otrok.
+     *
+     * @param kind Vrsta vozlišča.
+     * @param token Indeks simbola, ki mu vozlišče pripada.
+     * @param payload Dodatni podatek (glej `Kind`).
+     * @return oznaka vozlišča.
+     */
+    public int add(Kind kind, int token, int payload) {
+        if (size == kinds.length) {
+            grow();
+        }
+        int node = size++;
+        kinds[node] = kind.ordinal();
+        firstChild[node] = NONE;
+        nextSibling[node] = NONE;
+        tokenIndices[node] = token;
+        payloads[node] = payload;
+        lastChild[node] = NONE;
+        if (anchors != null) {
+            anchors[node] = NONE;
+        }
+        return node;
+    }
+
+    /**
+     * Doda otroka na konec seznama otrok vozlišča.
+     */
+    public void append(int parent, int child) {
+        if (lastChild[parent] == NONE) {
+            firstChild[parent] = child;
+        } else {
+            nextSibling[lastChild[parent]] = child;
+        }
+        lastChild[parent] = child;
+    }
+
+    /**
+     * Določi koren in zaključi gradnjo.
+     */
+    public void seal(int root) {
+        this.root = root;
+        lastChild = null;
+    }
+
+    /**
+     * Določi koren, a gradnje ne zaključi (`IncrementalParser`).
+     */
+    public void setRoot(int root) {
+        this.root = root;
+    }
+
+    /**
+     * Nastavi prvega otroka vozlišča. Skupaj s `setNextSibling()` omogoča
+     * zamenjavo poddreves v areni, ki jo `IncrementalParser` dopolnjuje.
+     */
+    public void setFirstChild(int node, int child) {
+        firstChild[node] = child;
+    }
+
+    public void setNextSibling(int node, int sibling) {
+        nextSibling[node] = sibling;
+    }
+
+    /**
+     * Indekse simbolov vozlišč `[from, to)` ene definicije, ki so shranjeni
+     * od začetka zaporedja, shrani relativno na simbol vozlišča `from`, tega
+     * pa z `anchorToken()`. Ko se spremeni število simbolov pred definicijo,
+     * je treba znova shraniti le indeks vozlišča `from`.
+     */
+    public void anchorTokens(int from, int to, int pivot, int size) {
+        if (from == to) {
+            return;
+        }
+        if (anchors == null) {
+            anchors = new int[kinds.length];
+            Arrays.fill(anchors, NONE);
+        }
+        int first = tokenIndices[from];
+        for (int node = from + 1; node < to; node++) {
+            tokenIndices[node] -= first;
+            anchors[node] = from;
+        }
+        anchorToken(from, pivot, size);
+    }
+
+    /**
+     * Indeks simbola vozlišča shrani znova: pred `pivot` od začetka
+     * zaporedja, sicer od konca. Vozlišče ostane veljavno, ko se spremeni le
+     * število simbolov na mestu `pivot`.
+     *
+     * @param size Število simbolov, na katero se nanašajo indeksi od konca;
+     *             med obravnavo spremembe je to število pred spremembo.
+     */
+    public void anchorToken(int node, int pivot, int size) {
+        int token = tokenIndices[node];
+        if (token < 0) {
+            token += size;
+        }
+        tokenIndices[node] = token < pivot ? token : token - size;
+    }
+
+    /**
+     * Prepiše vozlišča `[from, to)` iz arene `source`. Zaporedje simbolov te
+     * arene mora na teh vozliščih vsebovati iste simbole kot zaporedje vira,
+     * zamaknjene za `tokenShift`; oznake imen zato preberemo znova. Indekse,
+     * shranjene od konca zaporedja ali relativno na drugo vozlišče, prepiše
+     * nespremenjene. Povezave, ki kažejo izven območja, prepisana vozlišča
+     * izgubijo.
+     *
+     * @return oznaka prvega prepisanega vozlišča.
+     */
+    public int copy(Ast source, int from, int to, int tokenShift) {
+        while (size + (to - from) > kinds.length) {
+            grow();
+        }
+        int first = size;
+        int nodeShift = first - from;
+        if (source.anchors != null && anchors == null) {
+            anchors = new int[kinds.length];
+            Arrays.fill(anchors, NONE);
+        }
+        for (int node = from; node < to; node++) {
+            int copy = size++;
+            int token = source.tokenIndices[node];
+            int anchor = source.anchors == null ? NONE : shift(source.anchors[node], from, to, nodeShift);
+            kinds[copy] = source.kinds[node];
+            firstChild[copy] = shift(source.firstChild[node], from, to, nodeShift);
+            nextSibling[copy] = shift(source.nextSibling[node], from, to, nodeShift);
+            tokenIndices[copy] = token < 0 || anchor != NONE ? token : token + tokenShift;
+            if (anchors != null) {
+                anchors[copy] = anchor;
+            }
+            payloads[copy] = kindValues[kinds[copy]].named ? tokens.nameId(token(copy)) : source.payloads[node];
+            lastChild[copy] = NONE;
+        }
+        return first;
+    }
+
+    private static int shift(int node, int from, int to, int nodeShift) {
+        return node >= from && node < to ? node + nodeShift : NONE;
+    }
+
+    private void grow() {
+        int capacity = kinds.length * 2;
+        kinds = Arrays.copyOf(kinds, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        nextSibling = Arrays.copyOf(nextSibling, capacity);
+        tokenIndices = Arrays.copyOf(tokenIndices, capacity);
+        payloads = Arrays.copyOf(payloads, capacity);
+        lastChild = Arrays.copyOf(lastChild, capacity);
+        if (anchors != null) {
+            int old = anchors.length;
+            anchors = Arrays.copyOf(anchors, capacity);
+            Arrays.fill(anchors, old, capacity, NONE);
+        }
+    }
+
+    // --------------------------------------------------------------
+    // Branje.
+
+    /**
+     * Koren drevesa (vozlišče `DEFINITIONS`).
+     */
+    public int root() {
+        return root;
+    }
+
+    /**
+     * Število vozlišč.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Število bajtov, ki jih zasedajo tabele vozlišč (brez glav tabel).
+     */
+    public long arenaBytes() {
+        long columns = (lastChild == null ? 5 : 6) + (anchors == null ? 0 : 1);
+        return columns * Integer.BYTES * kinds.length;
+    }
+
+    /**
+     * Zaporedje simbolov programa.
+     */
+    public TokenStream tokens() {
+        return tokens;
+    }
+
+    public Kind kind(int node) {
+        return kindValues[kinds[node]];
+    }
+
+    public int firstChild(int node) {
+        return firstChild[node];
+    }
+
+    public int nextSibling(int node) {
+        return nextSibling[node];
+    }
+
+    public int token(int node) {
+        int token = tokenIndices[node];
+        if (anchors != null && anchors[node] != NONE) {
+            return token(anchors[node]) + token;
+        }
+        return token >= 0 ? token : token + tokens.size();
+    }
+
+    public int payload(int node) {
+        return payloads[node];
+    }
+
+    /**
+     * Vrsta simbola, shranjena kot dodatni podatek (operator, konstanta,
+     * atomarni tip).
+     */
+    public TokenType payloadType(int node) {
+        return tokenTypes[payloads[node]];
+    }
+
+    /**
+     * Ime, shranjeno kot dodatni podatek.
+     */
+    public String name(int node) {
+        return tokens.names().name(payloads[node]);
+    }
+
+    /**
+     * Položaj simbola, ki mu vozlišče pripada.
+     */
+    public Position position(int node) {
+        return tokens.position(token(node));
+    }
+
+    /**
+     * Število otrok vozlišča.
+     */
+    public int childCount(int node) {
+        int count = 0;
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Tipiziran pogled na vozlišče.
+     */
+    public Node node(int node) {
+        return Node.of(this, node);
+    }
+
+    // --------------------------------------------------------------
+
+    /**
+     * Izpiše drevo, vsako vozlišče v svoji vrstici, otroke zamaknjene za dva
+     * presledka. Drevo obišče brez rekurzije.
+     */
+    public void dump(PrintStream out) {
+        if (root == NONE) {
+            return;
+        }
+        int[] stack = new int[64];
+        int[] depths = new int[64];
+        int top = 0;
+        stack[top] = root;
+        depths[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int depth = depths[top];
+            out.println(StringUtil.indented(describe(node), 2 * depth));
+
+            int children = childCount(node);
+            if (top + children > stack.length) {
+                stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top + children));
+                depths = Arrays.copyOf(depths, stack.length);
+            }
+            // Otroke na sklad odložimo v obratnem vrstnem redu.
+            top += children;
+            int slot = top;
+            for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+                slot--;
+                stack[slot] = child;
+                depths[slot] = depth + 1;
+            }
+        }
+    }
+
+    private String describe(int node) {
+        var kind = kind(node);
+        var sb = new StringBuilder(kind.label).append(' ').append(position(node));
+        if (kind.named) {
+            return sb.append(": ").append(name(node)).toString();
+        }
+        switch (kind) {
+            case ATOM_TYPE, BINARY, UNARY ->
+                sb.append(": ").append(tokens.lexeme(token(node)));
+            case LITERAL -> {
+                sb.append(": ");
+                if (payloadType(node) == TokenType.C_STRING) {
+                    sb.append('\'').append(tokens.lexeme(token(node))).append('\'');
+                } else {
+                    sb.append(tokens.lexeme(token(node)));
+                }
+            }
+            default -> {}
+        }
+        return sb.toString();
+    }
+
+    // --------------------------------------------------------------
+
+    /**
+     * Vrste vozlišč. V oklepaju so otroci v vrstnem redu in dodatni podatek.
+     */
+    public static enum Kind {
+        /** Seznam definicij (definicije). */
+        DEFINITIONS("Defs"),
+        /** `typ ime : tip` (tip; oznaka imena). */
+        TYPE_DEFINITION("TypeDef", true),
+        /** `var ime : tip` (tip; oznaka imena). */
+        VARIABLE_DEFINITION("VarDef", true),
+        /** `fun ime (parametri) : tip = izraz` (parametri, tip, izraz; oznaka imena). */
+        FUNCTION_DEFINITION("FunDef", true),
+        /** `ime : tip` (tip; oznaka imena). */
+        PARAMETER("Parameter", true),
+        /** `logical`, `integer`, `string` (brez otrok; vrsta simbola). */
+        ATOM_TYPE("Atom"),
+        /** Ime tipa (atomarni tip, ki mu sledi; oznaka imena). */
+        TYPE_NAME("TypeName", true),
+        /** Binarni izraz (levi in desni operand; vrsta operatorja). */
+        BINARY("Binary"),
+        /** Prefiksni izraz (operand; vrsta operatorja). */
+        UNARY("Unary"),
+        /** `izraz [ izraz ]` (tabela, indeks in morebitni argumenti, ki sledijo `]`). */
+        INDEX("Index"),
+        /** Ime (brez otrok; oznaka imena). */
+        NAME("Name", true),
+        /** Klic funkcije (argumenti; oznaka imena). */
+        CALL("Call", true),
+        /** Konstanta (brez otrok; vrsta simbola). */
+        LITERAL("Literal"),
+        /** `( izrazi )` (izrazi). */
+        BLOCK("Block"),
+        /** `izraz { where definicije }` (izraz, definicije). */
+        WHERE("Where"),
+        /** `{ if pogoj then izraz [else izraz] }` (pogoj, izraz, morebitni izraz). */
+        IF("IfThenElse"),
+        /** `{ while pogoj : izraz }` (pogoj, izraz). */
+        WHILE("While"),
+        /** `{ for ime = od, do, korak : izraz }` (ime, od, do, korak, izraz). */
+        FOR("For"),
+        /** `{ izraz = izraz }` (cilj, vrednost). */
+        ASSIGN("Assign");
+
+        /**
+         * Ime vozlišča v izpisu.
+         */
+        public final String label;
+
+        /**
+         * Ali je dodatni podatek oznaka imena simbola vozlišča.
+         */
+        public final boolean named;
+
+        Kind(String label) {
+            this(label, false);
+        }
+
+        Kind(String label, boolean named) {
+            this.label = label;
+            this.named = named;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/**
+ * @Author: turk
+ * @Description: Tipizirani pogledi na vozlišča abstraktnega sintaksnega drevesa.
+ */
+
+package compiler.parser.ast;
+
+import static compiler.parser.ast.Ast.NONE;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import compiler.lexer.Position;
+import compiler.lexer.TokenType;
+
+/**
+ * Pogled na eno vozlišče arene `Ast`, namenjen samo branju. Pogled hrani le
+ * areno in oznako vozlišča, zato ga lahko kadarkoli ustvarimo znova.
+ */
+public abstract class Node {
+    /**
+     * Arena, v kateri je vozlišče.
+     */
+    protected final Ast ast;
+
+    /**
+     * Oznaka vozlišča v areni.
+     */
+    public final int id;
+
+    private Node(Ast ast, int id) {
+        this.ast = ast;
+        this.id = id;
+    }
+
+    /**
+     * Ustvari pogled glede na vrsto vozlišča.
+     */
+    static Node of(Ast ast, int id) {
+        return switch (ast.kind(id)) {
+            case DEFINITIONS -> new Definitions(ast, id);
+            case TYPE_DEFINITION -> new TypeDefinition(ast, id);
+            case VARIABLE_DEFINITION -> new VariableDefinition(ast, id);
+            case FUNCTION_DEFINITION -> new FunctionDefinition(ast, id);
+            case PARAMETER -> new Parameter(ast, id);
+            case ATOM_TYPE -> new AtomType(ast, id);
+            case TYPE_NAME -> new TypeName(ast, id);
+            case BINARY -> new Binary(ast, id);
+            case UNARY -> new Unary(ast, id);
+            case INDEX -> new Index(ast, id);
+            case NAME -> new Name(ast, id);
+            case CALL -> new Call(ast, id);
+            case LITERAL -> new Literal(ast, id);
+            case BLOCK -> new Block(ast, id);
+            case WHERE -> new Where(ast, id);
+            case IF -> new IfThenElse(ast, id);
+            case WHILE -> new While(ast, id);
+            case FOR -> new For(ast, id);
+            case ASSIGN -> new Assign(ast, id);
+        };
+    }
+
+    public Ast.Kind kind() {
+        return ast.kind(id);
+    }
+
+    /**
+     * Položaj simbola, ki mu vozlišče pripada.
+     */
+    public Position position() {
+        return ast.position(id);
+    }
+
+    /**
+     * Vsi otroci vozlišča.
+     */
+    public List<Node> children() {
+        return childrenFrom(0);
+    }
+
+    /**
+     * `index`-ti otrok vozlišča.
+     */
+    protected Node child(int index) {
+        int child = ast.firstChild(id);
+        for (int i = 0; i < index && child != NONE; i++) {
+            child = ast.nextSibling(child);
+        }
+        if (child == NONE) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return of(ast, child);
+    }
+
+    /**
+     * Otroci od `index`-tega naprej.
+     */
+    protected List<Node> childrenFrom(int index) {
+        var list = new ArrayList<Node>();
+        int i = 0;
+        for (int child = ast.firstChild(id); child != NONE; child = ast.nextSibling(child), i++) {
+            if (i >= index) {
+                list.add(of(ast, child));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Otroci dane vrste.
+     */
+    protected <T extends Node> List<T> childrenOf(Class<T> type) {
+        var list = new ArrayList<T>();
+        for (int child = ast.firstChild(id); child != NONE; child = ast.nextSibling(child)) {
+            var node = of(ast, child);
+            if (type.isInstance(node)) {
+                list.add(type.cast(node));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        return kind().label + " " + position();
+    }
+
+    // --------------------------------------------------------------
+    // Definicije in tipi.
+
+    public static final class Definitions extends Node {
+        private Definitions(Ast ast, int id) { super(ast, id); }
+
+        public List<Node> definitions() { return children(); }
+    }
+
+    public static final class TypeDefinition extends Node {
+        private TypeDefinition(Ast ast, int id) { super(ast, id); }
+
+        public String name() { return ast.name(id); }
+        public Node type() { return child(0); }
+    }
+
+    public static final class VariableDefinition extends Node {
+        private VariableDefinition(Ast ast, int id) { super(ast, id); }
+
+        public String name() { return ast.name(id); }
+        public Node type() { return child(0); }
+    }
+
+    public static final class FunctionDefinition extends Node {
+        private FunctionDefinition(Ast ast, int id) { super(ast, id); }
+
+        public String name() { return ast.name(id); }
+        public List<Parameter> parameters() { return childrenOf(Parameter.class); }
+        public Node type() { return child(ast.childCount(id) - 2); }
+        public Node body() { return child(ast.childCount(id) - 1); }
+    }
+
+    public static final class Parameter extends Node {
+        private Parameter(Ast ast, int id) { super(ast, id); }
+
+        public String name() { return ast.name(id); }
+        public Node type() { return child(0); }
+    }
+
+    public static final class AtomType extends Node {
+        private AtomType(Ast ast, int id) { super(ast, id); }
+
+        /**
+         * `AT_LOGICAL`, `AT_INTEGER` ali `AT_STRING`.
+         */
+        public TokenType type() { return ast.payloadType(id); }
+    }
+
+    public static final class TypeName extends Node {
+        private TypeName(Ast ast, int id) { super(ast, id); }
+
+        public String name() { return ast.name(id); }
+
+        /**
+         * Atomarni tip, ki po slovnici sledi imenu.
+         */
+        public AtomType atom() { return (AtomType) child(0); }
+    }
+
+    // --------------------------------------------------------------
+    // Izrazi.
+
+    public static final class Binary extends Node {
+        private Binary(Ast ast, int id) { super(ast, id); }
+
+        public TokenType operator() { return ast.payloadType(id); }
+        public Node left() { return child(0); }
+        public Node right() { return child(1); }
+    }
+
+    public static final class Unary extends Node {
+        private Unary(Ast ast, int id) { super(ast, id); }
+
+        public TokenType operator() { return ast.payloadType(id); }
+        public Node operand() { return child(0); }
+    }
+
+    public static final class Index extends Node {
+        private Index(Ast ast, int id) { super(ast, id); }
+
+        public Node array() { return child(0); }
+        public Node index() { return child(1); }
+
+        /**
+         * Argumenti v oklepajih, ki po slovnici lahko sledijo `]`.
+         */
+        public List<Node> arguments() { return childrenFrom(2); }
+    }
+
+    public static final class Name extends Node {
+        private Name(Ast ast, int id) { super(ast, id); }
+
+        public String name() { return ast.name(id); }
+    }
+
+    public static final class Call extends Node {
+        private Call(Ast ast, int id) { super(ast, id); }
+
+        public String name() { return ast.name(id); }
+        public List<Node> arguments() { return children(); }
+    }
+
+    public static final class Literal extends Node {
+        private Literal(Ast ast, int id) { super(ast, id); }
+
+        /**
+         * `C_LOGICAL`, `C_INTEGER` ali `C_STRING`.
+         */
+        public TokenType type() { return ast.payloadType(id); }
+
+        /**
+         * Znakovna predstavitev konstante (niz brez narekovajev).
+         */
+        public String value() { return ast.tokens().lexeme(ast.token(id)); }
+    }
+
+    public static final class Block extends Node {
+        private Block(Ast ast, int id) { super(ast, id); }
+
+        public List<Node> expressions() { return children(); }
+    }
+
+    public static final class Where extends Node {
+        private Where(Ast ast, int id) { super(ast, id); }
+
+        public Node expression() { return child(0); }
+        public List<Node> definitions() { return childrenFrom(1); }
+    }
+
+    public static final class IfThenElse extends Node {
+        private IfThenElse(Ast ast, int id) { super(ast, id); }
+
+        public Node condition() { return child(0); }
+        public Node thenExpression() { return child(1); }
+
+        public Optional<Node> elseExpression() {
+            return ast.childCount(id) > 2 ? Optional.of(child(2)) : Optional.empty();
+        }
+    }
+
+    public static final class While extends Node {
+        private While(Ast ast, int id) { super(ast, id); }
+
+        public Node condition() { return child(0); }
+        public Node body() { return child(1); }
+    }
+
+    public static final class For extends Node {
+        private For(Ast ast, int id) { super(ast, id); }
+
+        public Name counter() { return (Name) child(0); }
+        public Node low() { return child(1); }
+        public Node high() { return child(2); }
+        public Node step() { return child(3); }
+        public Node body() { return child(4); }
+    }
+
+    public static final class Assign extends Node {
+        private Assign(Ast ast, int id) { super(ast, id); }
+
+        public Node target() { return child(0); }
+        public Node value() { return child(1); }
+    }
+}
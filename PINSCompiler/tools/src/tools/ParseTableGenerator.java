@@ -0,0 +1,386 @@
+/**
+ * @Author: turk
+ * @Description: Generator tabele LL(1) iz slovnice jezika PINS.
+ */
+
+package tools;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import compiler.lexer.TokenType;
+
+public class ParseTableGenerator {
+    /**
+     * Uporaba: `ParseTableGenerator [slovnica] [izhodna datoteka]`.
+     *
+     * Prebere slovnico (privzeto `src/compiler/parser/pins.grammar`),
+     * izračuna množice FIRST in FOLLOW, zgradi tabelo LL(1) in jo zapiše kot
+     * razred `compiler.parser.ParseTable` (privzeto
+     * `src/compiler/parser/ParseTable.java`). Če slovnica ni LL(1), izpiše
+     * konflikte in konča s kodo 1.
+     */
+    public static void main(String[] args) throws IOException {
+        var grammarPath = Paths.get(args.length > 0 ? args[0] : "src/compiler/parser/pins.grammar");
+        var outputPath = Paths.get(args.length > 1 ? args[1] : "src/compiler/parser/ParseTable.java");
+        var generator = new ParseTableGenerator(Files.readAllLines(grammarPath));
+        if (!generator.build()) {
+            System.exit(1);
+        }
+        Files.writeString(outputPath, generator.generate(grammarPath.getFileName().toString()));
+        System.out.printf("%s: %d neterminalov, %d produkcij%n", outputPath, generator.nonterminals.size(), generator.productions.size());
+    }
+
+    private static final TokenType[] tokenTypes = TokenType.values();
+    private static final int TERMINALS = tokenTypes.length;
+
+    /**
+     * Produkcija slovnice.
+     */
+    private static class Production {
+        String text;
+        int lhs;
+        boolean isDefault;
+        List<String> rhs = new ArrayList<>();
+        String label;
+        int labelPosition;
+        int[] symbols;
+    }
+
+    private final List<String> nonterminals = new ArrayList<>();
+    private final Map<String, Integer> nonterminalIndex = new HashMap<>();
+    private final List<Production> productions = new ArrayList<>();
+
+    private boolean[] nullable;
+    private long[] first;
+    private long[] follow;
+    private int[] table;
+
+    ParseTableGenerator(List<String> lines) {
+        int lineNumber = 0;
+        for (var line : lines) {
+            lineNumber++;
+            var text = line.strip();
+            if (text.isEmpty() || text.startsWith("#")) {
+                continue;
+            }
+            productions.add(parseProduction(text, lineNumber));
+        }
+        if (productions.isEmpty()) {
+            throw new IllegalArgumentException("Grammar is empty!");
+        }
+    }
+
+    private Production parseProduction(String text, int lineNumber) {
+        var production = new Production();
+        production.text = text;
+        int quote = text.indexOf('"');
+        if (quote >= 0) {
+            int end = text.lastIndexOf('"');
+            if (end == quote) {
+                throw new IllegalArgumentException(lineNumber + ": unterminated label");
+            }
+            production.label = text.substring(quote + 1, end);
+            text = text.substring(0, quote);
+        }
+        var parts = text.strip().split("\\s+");
+        if (parts.length < 2 || !(parts[1].equals("->") || parts[1].equals("~>"))) {
+            throw new IllegalArgumentException(lineNumber + ": expected `lhs -> symbols`");
+        }
+        production.lhs = nonterminal(parts[0]);
+        production.isDefault = parts[1].equals("~>");
+        for (int i = 2; i < parts.length; i++) {
+            if (parts[i].equals("^")) {
+                production.labelPosition = production.rhs.size();
+            } else {
+                production.rhs.add(parts[i]);
+            }
+        }
+        return production;
+    }
+
+    private int nonterminal(String name) {
+        return nonterminalIndex.computeIfAbsent(name, __ -> {
+            nonterminals.add(name);
+            return nonterminals.size() - 1;
+        });
+    }
+
+    /**
+     * Koda simbola desne strani: terminali so ordinali `TokenType`,
+     * neterminali sledijo njim.
+     */
+    private int symbol(String name) {
+        var index = nonterminalIndex.get(name);
+        if (index != null) {
+            return TERMINALS + index;
+        }
+        try {
+            return TokenType.valueOf(name).ordinal();
+        } catch (IllegalArgumentException __) {
+            throw new IllegalArgumentException("Unknown symbol `" + name + "`!");
+        }
+    }
+
+    /**
+     * Izračuna množice in tabelo; vrne `false`, če slovnica ni LL(1).
+     */
+    boolean build() {
+        int n = nonterminals.size();
+        var defaults = new int[n];
+        Arrays.fill(defaults, -1);
+        for (int p = 0; p < productions.size(); p++) {
+            var production = productions.get(p);
+            production.symbols = production.rhs.stream().mapToInt(this::symbol).toArray();
+            if (production.isDefault) {
+                if (defaults[production.lhs] >= 0) {
+                    throw new IllegalArgumentException("Nonterminal `" + nonterminals.get(production.lhs) + "` has two default productions!");
+                }
+                defaults[production.lhs] = p;
+            }
+        }
+
+        computeFirst();
+        computeFollow();
+
+        boolean ok = true;
+        table = new int[n * TERMINALS];
+        Arrays.fill(table, -1);
+        for (int p = 0; p < productions.size(); p++) {
+            var production = productions.get(p);
+            long select = selectSet(production);
+            for (int t = 0; t < TERMINALS; t++) {
+                if ((select & (1L << t)) == 0) {
+                    continue;
+                }
+                int entry = production.lhs * TERMINALS + t;
+                if (table[entry] >= 0) {
+                    System.err.printf("LL(1) conflict in `%s` on %s: `%s` / `%s`%n",
+                            nonterminals.get(production.lhs), tokenTypes[t],
+                            productions.get(table[entry]).text, production.text);
+                    ok = false;
+                } else {
+                    table[entry] = p;
+                }
+            }
+        }
+        for (int a = 0; a < n; a++) {
+            if (defaults[a] < 0) {
+                continue;
+            }
+            for (int t = 0; t < TERMINALS; t++) {
+                if (table[a * TERMINALS + t] < 0) {
+                    table[a * TERMINALS + t] = defaults[a];
+                }
+            }
+        }
+        return ok;
+    }
+
+    /**
+     * Simboli, ob katerih se izbere produkcija: FIRST desne strani in, če je
+     * ta lahko prazna, FOLLOW levega neterminala.
+     */
+    private long selectSet(Production production) {
+        long set = firstOf(production.symbols);
+        if (nullable(production.symbols)) {
+            set |= follow[production.lhs];
+        }
+        return set;
+    }
+
+    private long firstOf(int[] symbols) {
+        long set = 0;
+        for (int symbol : symbols) {
+            if (symbol < TERMINALS) {
+                return set | (1L << symbol);
+            }
+            set |= first[symbol - TERMINALS];
+            if (!nullable[symbol - TERMINALS]) {
+                return set;
+            }
+        }
+        return set;
+    }
+
+    private boolean nullable(int[] symbols) {
+        for (int symbol : symbols) {
+            if (symbol < TERMINALS || !nullable[symbol - TERMINALS]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void computeFirst() {
+        if (TERMINALS > Long.SIZE) {
+            throw new IllegalStateException("Too many terminals for a 64-bit set!");
+        }
+        nullable = new boolean[nonterminals.size()];
+        first = new long[nonterminals.size()];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (var production : productions) {
+                int a = production.lhs;
+                long set = first[a] | firstOf(production.symbols);
+                boolean isNullable = nullable[a] || nullable(production.symbols);
+                if (set != first[a] || isNullable != nullable[a]) {
+                    first[a] = set;
+                    nullable[a] = isNullable;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private void computeFollow() {
+        follow = new long[nonterminals.size()];
+        follow[0] = 1L << TokenType.EOF.ordinal();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (var production : productions) {
+                var symbols = production.symbols;
+                for (int i = 0; i < symbols.length; i++) {
+                    if (symbols[i] < TERMINALS) {
+                        continue;
+                    }
+                    int b = symbols[i] - TERMINALS;
+                    var rest = Arrays.copyOfRange(symbols, i + 1, symbols.length);
+                    long set = follow[b] | firstOf(rest);
+                    if (nullable(rest)) {
+                        set |= follow[production.lhs];
+                    }
+                    if (set != follow[b]) {
+                        follow[b] = set;
+                        changed = true;
+                    }
+                }
+            }
+        }
+    }
+
+    // --------------------------------------------------------------
+
+    /**
+     * Zapiše razred `ParseTable`.
+     */
+    String generate(String grammarName) {
+        int n = nonterminals.size();
+        var sb = new StringBuilder();
+        sb.append("/**\n");
+        sb.append(" * @Author: turk\n");
+        sb.append(" * @Description: Tabela LL(1) za sintaksno analizo.\n");
+        sb.append(" */\n\n");
+        sb.append("package compiler.parser;\n\n");
+        sb.append("import compiler.lexer.TokenType;\n\n");
+        sb.append("/**\n");
+        sb.append(" * Generirano z `tools.ParseTableGenerator` iz `").append(grammarName).append("`; ne\n");
+        sb.append(" * popravljaj ročno.\n");
+        sb.append(" *\n");
+        sb.append(" * Kode simbolov: terminali so ordinali `TokenType`, neterminali so\n");
+        sb.append(" * `TERMINALS + i`, izpis produkcije `p` pa je `ACTIONS + p`.\n");
+        sb.append(" */\n");
+        sb.append("final class ParseTable {\n");
+        sb.append("    static final int TERMINALS = ").append(TERMINALS).append(";\n");
+        sb.append("    static final int NONTERMINALS = ").append(n).append(";\n");
+        sb.append("    static final int ACTIONS = TERMINALS + NONTERMINALS;\n");
+        sb.append("    static final int START = TERMINALS;\n\n");
+
+        sb.append("    /**\n     * Imena neterminalov.\n     */\n");
+        sb.append("    static final String[] nonterminals = {\n");
+        for (var name : nonterminals) {
+            sb.append("        \"").append(name).append("\",\n");
+        }
+        sb.append("    };\n\n");
+
+        sb.append("    /**\n     * Desne strani produkcij, vključno z mestom izpisa.\n     */\n");
+        sb.append("    static final int[][] productions = {\n");
+        for (int p = 0; p < productions.size(); p++) {
+            var production = productions.get(p);
+            var codes = new ArrayList<String>();
+            for (int i = 0; i <= production.symbols.length; i++) {
+                if (production.label != null && i == production.labelPosition) {
+                    codes.add(String.valueOf(TERMINALS + n + p));
+                }
+                if (i < production.symbols.length) {
+                    codes.add(String.valueOf(production.symbols[i]));
+                }
+            }
+            sb.append("        { ").append(String.join(", ", codes)).append(codes.isEmpty() ? "}" : " }");
+            sb.append(", // ").append(p).append(": ").append(production.text.replaceAll("\\s*\".*\"", "")).append("\n");
+        }
+        sb.append("    };\n\n");
+
+        sb.append("    /**\n     * Levi neterminal vsake produkcije.\n     */\n");
+        sb.append("    static final int[] lhs = {");
+        for (int p = 0; p < productions.size(); p++) {
+            sb.append(p % 16 == 0 ? "\n        " : " ").append(productions.get(p).lhs).append(",");
+        }
+        sb.append("\n    };\n\n");
+
+        sb.append("    /**\n     * Izpisi produkcij (`null`, če se produkcija ne izpiše).\n     */\n");
+        sb.append("    static final String[] labels = {\n");
+        for (var production : productions) {
+            if (production.label == null) {
+                sb.append("        null,\n");
+            } else {
+                sb.append("        \"").append(production.label).append("\",\n");
+            }
+        }
+        sb.append("    };\n\n");
+
+        appendSets(sb, "Množice FIRST neterminalov (bit `1L << ordinal`).", "first", first);
+        appendSets(sb, "Množice FOLLOW neterminalov (bit `1L << ordinal`).", "follow", follow);
+
+        sb.append("    /**\n     * Izbrana produkcija: `table[neterminal * TERMINALS + terminal]`\n");
+        sb.append("     * oziroma -1 za napako.\n     */\n");
+        sb.append("    static final short[] table = {\n");
+        for (int a = 0; a < n; a++) {
+            sb.append("        // ").append(nonterminals.get(a)).append("\n        ");
+            for (int t = 0; t < TERMINALS; t++) {
+                sb.append(table[a * TERMINALS + t]).append(t + 1 < TERMINALS ? ", " : ",\n");
+            }
+        }
+        sb.append("    };\n\n");
+
+        sb.append("    /**\n     * Produkcija, ki se izbere ne glede na naslednji simbol, oziroma -1.\n");
+        sb.append("     * Analizator naslednjega simbola takrat ne prebere, tako kot `Parser`.\n     */\n");
+        sb.append("    static final short[] unconditional = {\n");
+        for (int a = 0; a < n; a++) {
+            int production = table[a * TERMINALS];
+            for (int t = 1; t < TERMINALS; t++) {
+                if (table[a * TERMINALS + t] != production) {
+                    production = -1;
+                }
+            }
+            sb.append("        ").append(production).append(", // ").append(nonterminals.get(a)).append("\n");
+        }
+        sb.append("    };\n\n");
+
+        sb.append("    static {\n");
+        sb.append("        if (TokenType.values().length != TERMINALS) {\n");
+        sb.append("            throw new IllegalStateException(\"Parse table is out of date, regenerate it!\");\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+        sb.append("    private ParseTable() {}\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private void appendSets(StringBuilder sb, String comment, String name, long[] sets) {
+        sb.append("    /**\n     * ").append(comment).append("\n     */\n");
+        sb.append("    static final long[] ").append(name).append(" = {\n");
+        for (int a = 0; a < sets.length; a++) {
+            sb.append(String.format("        0x%016xL, // %s%n", sets[a], nonterminals.get(a)));
+        }
+        sb.append("    };\n\n");
+    }
+}